@@ -0,0 +1,118 @@
+package software.amazon.rds.dbproxy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.UserAuthConfigInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.rds.common.Diff;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class DBProxyBenchmark {
+    private static final TypeReference<CallbackContext> CALLBACK_CONTEXT_TYPE = new TypeReference<CallbackContext>() {};
+    private static final TypeReference<ResourceModel> RESOURCE_MODEL_TYPE = new TypeReference<ResourceModel>() {};
+
+    private final Serializer serializer = new Serializer();
+
+    private DBProxy proxy;
+    private CallbackContext callbackContext;
+
+    @Setup
+    public void setup() {
+        List<UserAuthConfigInfo> auth = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            auth.add(new UserAuthConfigInfo().withAuthScheme("SECRETS")
+                                             .withIAMAuth("DISABLED")
+                                             .withSecretArn("arn:aws:secretsmanager:us-east-1:123456789012:secret:proxy-" + i));
+        }
+
+        proxy = new DBProxy().withDBProxyName("proxy")
+                             .withDBProxyArn("arn:aws:rds:us-east-1:123456789012:db-proxy:prx-0123456789abcdef")
+                             .withStatus(Constants.AVAILABLE_PROXY_STATE)
+                             .withEngineFamily("MYSQL")
+                             .withAuth(auth)
+                             .withRoleArn("arn:aws:iam::123456789012:role/proxy")
+                             .withEndpoint("proxy.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com")
+                             .withVpcId("vpc-0123456789abcdef")
+                             .withVpcSecurityGroupIds("sg-0123456789abcdef")
+                             .withVpcSubnetIds("subnet-01234567", "subnet-89abcdef")
+                             .withRequireTLS(true)
+                             .withIdleClientTimeout(1800)
+                             .withDebugLogging(false);
+
+        callbackContext = CallbackContext.builder()
+                                         .proxy(ProxyState.from(proxy))
+                                         .stabilizationAttempt(3)
+                                         .tagsDeregistered(true)
+                                         .build();
+    }
+
+    @Benchmark
+    public ResourceModel resultToModel() {
+        return Utility.resultToModel(proxy);
+    }
+
+    @Benchmark
+    public Diff<String, String> diffTags(final Tags tags) {
+        return Diff.of(tags.oldTags, tags.newTags, TagFormat::getKey, TagFormat::getValue);
+    }
+
+    @Benchmark
+    public CallbackContext callbackContextRoundTrip() throws IOException {
+        return serializer.deserialize(serializer.serialize(callbackContext), CALLBACK_CONTEXT_TYPE);
+    }
+
+    @Benchmark
+    public ResourceModel resourceModelRoundTrip(final Tags tags) throws IOException {
+        return serializer.deserialize(serializer.serialize(tags.resourceModel), RESOURCE_MODEL_TYPE);
+    }
+
+    /**
+     * State of the benchmarks that scale with the number of tags, so the others are not run once per tag count.
+     */
+    @State(Scope.Benchmark)
+    public static class Tags {
+        @Param({"10", "1000"})
+        private int tagCount;
+
+        private List<TagFormat> oldTags;
+        private List<TagFormat> newTags;
+        private ResourceModel resourceModel;
+
+        @Setup
+        public void setup(final DBProxyBenchmark benchmark) {
+            oldTags = new ArrayList<>();
+            newTags = new ArrayList<>();
+            for (int i = 0; i < tagCount; i++) {
+                oldTags.add(new TagFormat("key" + i, "value" + i));
+                // A quarter of the keys are replaced and every other remaining value changes
+                int key = i + tagCount / 4;
+                newTags.add(new TagFormat("key" + key, key % 2 == 0 ? "value" + key : "changed" + key));
+            }
+
+            resourceModel = Utility.resultToModel(benchmark.proxy);
+            resourceModel.setTags(newTags);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.rds.model.ConnectionPoolConfigurationInfo;
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DBProxyTargetGroup;
+import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
+import com.amazonaws.services.rds.model.TargetHealth;
+import com.fasterxml.jackson.core.type.TypeReference;
+import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.rds.common.Diff;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class DBProxyTargetGroupBenchmark {
+    private static final TypeReference<CallbackContext> CALLBACK_CONTEXT_TYPE = new TypeReference<CallbackContext>() {};
+    private static final TypeReference<ResourceModel> RESOURCE_MODEL_TYPE = new TypeReference<ResourceModel>() {};
+
+    private final Serializer serializer = new Serializer();
+
+    private DBProxyTargetGroup targetGroup;
+
+    @Setup
+    public void setup() {
+        targetGroup = new DBProxyTargetGroup().withDBProxyName("proxy")
+                                              .withTargetGroupName("default")
+                                              .withTargetGroupArn("arn:aws:rds:us-east-1:123456789012:target-group:prx-tg-0123456789abcdef")
+                                              .withConnectionPoolConfig(new ConnectionPoolConfigurationInfo()
+                                                                                .withMaxConnectionsPercent(100)
+                                                                                .withMaxIdleConnectionsPercent(50)
+                                                                                .withConnectionBorrowTimeout(120)
+                                                                                .withSessionPinningFilters("EXCLUDE_VARIABLE_SETS"));
+    }
+
+    @Benchmark
+    public ResourceModel resultToModel() {
+        return Utility.resultToModel(targetGroup);
+    }
+
+    @Benchmark
+    public boolean validateHealth(final Targets targets) {
+        return HealthEvaluation.of(targets.healthyTargets.getTargets()).isHealthy();
+    }
+
+    @Benchmark
+    public Diff<String, String> diffTargets(final Targets targets) {
+        return Diff.of(targets.oldInstances, targets.newInstances);
+    }
+
+    @Benchmark
+    public CallbackContext callbackContextRoundTrip(final Targets targets) throws IOException {
+        return serializer.deserialize(serializer.serialize(targets.callbackContext), CALLBACK_CONTEXT_TYPE);
+    }
+
+    @Benchmark
+    public ResourceModel resourceModelRoundTrip(final Targets targets) throws IOException {
+        return serializer.deserialize(serializer.serialize(targets.resourceModel), RESOURCE_MODEL_TYPE);
+    }
+
+    /**
+     * State of the benchmarks that scale with the number of targets, so the others are not run once per target count.
+     */
+    @State(Scope.Benchmark)
+    public static class Targets {
+        @Param({"10", "1000"})
+        private int targetCount;
+
+        private DescribeDBProxyTargetsResult healthyTargets;
+        private List<String> oldInstances;
+        private List<String> newInstances;
+        private CallbackContext callbackContext;
+        private ResourceModel resourceModel;
+
+        @Setup
+        public void setup(final DBProxyTargetGroupBenchmark benchmark) {
+            List<DBProxyTarget> targets = new ArrayList<>();
+            oldInstances = new ArrayList<>();
+            newInstances = new ArrayList<>();
+            for (int i = 0; i < targetCount; i++) {
+                targets.add(new DBProxyTarget().withRdsResourceId("instance-" + i)
+                                               .withType(Constants.RDS_INSTANCE)
+                                               .withPort(3306)
+                                               .withEndpoint("instance-" + i + ".abcdefghijkl.us-east-1.rds.amazonaws.com")
+                                               .withTargetHealth(new TargetHealth().withState(Constants.AVAILABLE_STATE)));
+                oldInstances.add("instance-" + i);
+                // A quarter of the fleet is replaced
+                newInstances.add("instance-" + (i + targetCount / 4));
+            }
+            // Validation has to scan every target before it can report the group as healthy
+            healthyTargets = new DescribeDBProxyTargetsResult().withTargets(targets);
+
+            callbackContext = CallbackContext.builder()
+                                             .targetGroupStatus(TargetGroupState.from(benchmark.targetGroup))
+                                             .targets(TargetState.fromAll(targets))
+                                             .stabilizationAttempt(3)
+                                             .build();
+
+            resourceModel = Utility.resultToModel(benchmark.targetGroup);
+            resourceModel.setDBInstanceIdentifiers(newInstances);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package software.amazon.rds.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import software.amazon.rds.common.Concurrency;
+import software.amazon.rds.common.LoadHarness;
+import software.amazon.rds.common.SimulatedRds;
+
+/**
+ * Drives a mixed fleet: the proxy, target group and endpoint fleet lifecycles of the handler modules run in load
+ * harnesses of their own, all at the same time, as they do when a large deployment changes all three resource types at
+ * once. Prints what every operation type of every resource type cost, and the billed Lambda time of the whole fleet.
+ *
+ * Each resource still runs against a simulated account of its own, with time simulated as in the single-type
+ * harnesses. What the resource types share is the JVM, so handler work of one type competes with the others for
+ * threads and CPU.
+ *
+ * To size a fleet from the command line:
+ * mvn test-compile exec:exec@mixed-fleet -Dfleet.resources=500 -Dfleet.parallelism=32
+ */
+public class MixedFleetHarness {
+    /**
+     * @param args number of resources of each type (default 200) and how many of each type run at once (default 16)
+     */
+    public static void main(final String[] args) {
+        final int resources = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        final Map<String, LoadHarness<?, ?>> harnesses = new LinkedHashMap<>();
+        final List<CompletableFuture<Void>> fleets = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            harnesses.put("AWS::RDS::DBProxy",
+                          start(parallelism, resources, software.amazon.rds.dbproxy.FakeRds::new,
+                                new software.amazon.rds.dbproxy.FleetLifecycle(), executor, fleets));
+            harnesses.put("AWS::RDS::DBProxyTargetGroup",
+                          start(parallelism, resources, software.amazon.rds.dbproxytargetgroup.FleetLifecycle::account,
+                                new software.amazon.rds.dbproxytargetgroup.FleetLifecycle(), executor, fleets));
+            harnesses.put("AWS::RDS::DBProxyEndpoint",
+                          start(parallelism, resources, software.amazon.rds.dbproxyendpoint.FakeRds::new,
+                                new software.amazon.rds.dbproxyendpoint.FleetLifecycle(), executor, fleets));
+            fleets.forEach(Concurrency::join);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final double lambdaSeconds = harnesses.values()
+                                              .stream()
+                                              .flatMap(harness -> harness.summarize().values().stream())
+                                              .mapToDouble(LoadHarness.Summary::getLambdaSeconds)
+                                              .sum();
+
+        harnesses.forEach((resourceType, harness) -> System.out.printf("%s%n%s%n", resourceType, harness.format()));
+        System.out.printf("Billed Lambda time of the whole fleet: %.1f s%n", lambdaSeconds);
+    }
+
+    private static <M, C> LoadHarness<M, C> start(final int parallelism,
+                                                  final int resources,
+                                                  final Supplier<? extends SimulatedRds<M, C>> accounts,
+                                                  final LoadHarness.Lifecycle<M, C> lifecycle,
+                                                  final ExecutorService executor,
+                                                  final List<CompletableFuture<Void>> fleets) {
+        final LoadHarness<M, C> harness = new LoadHarness<>(parallelism);
+        fleets.add(CompletableFuture.runAsync(() -> harness.run(resources, accounts, lifecycle), executor));
+        return harness;
+    }
+}
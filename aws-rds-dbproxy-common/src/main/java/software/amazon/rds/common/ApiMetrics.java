@@ -0,0 +1,182 @@
+package software.amazon.rds.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.TimingInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import software.amazon.cloudformation.proxy.Logger;
+
+/**
+ * Per-operation RDS call metrics of one handler invocation. Attached as the request metric collector of every call the
+ * invocation makes through the shared RDS clients, so each call is measured by the SDK itself: end-to-end latency including SDK
+ * retries and backoff, retry count, throttling responses and the final error code. Calls are aggregated per operation
+ * and only serialized when {@link #flush(Logger)} writes them to the handler log as CloudWatch Embedded Metric Format
+ * documents, keeping the per-call cost to a map update.
+ */
+public class ApiMetrics extends RequestMetricCollector {
+    public static final String NAMESPACE = "RDSProxy/ResourceHandlers";
+    // EMF accepts at most 100 values per metric in a single document
+    static final int MAX_VALUES_PER_DOCUMENT = 100;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String REQUEST_SUFFIX = "Request";
+
+    private final String namespace;
+    private final String resourceType;
+    private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    public ApiMetrics(final String resourceType) {
+        this(NAMESPACE, resourceType);
+    }
+
+    public ApiMetrics(final String namespace, final String resourceType) {
+        this.namespace = namespace;
+        this.resourceType = resourceType;
+    }
+
+    @Override
+    public void collectMetrics(final Request<?> request, final Response<?> response) {
+        final AWSRequestMetrics metrics = request.getAWSRequestMetrics();
+        if (metrics == null) {
+            return;
+        }
+        final TimingInfo timing = metrics.getTimingInfo();
+        final Double latency = timing.getTimeTakenMillisIfKnown();
+        final int attempts = counter(timing, Field.RequestCount);
+
+        record(operationName(request),
+               latency == null ? 0L : latency.longValue(),
+               Math.max(attempts - 1, 0),
+               counter(timing, Field.ThrottleException),
+               response == null ? errorCode(metrics) : null);
+    }
+
+    /**
+     * Records one completed call.
+     *
+     * @param errorCode service error code of a failed call, or null if the call succeeded
+     */
+    void record(final String operation, final long latencyMillis, final int retries, final int throttles, final String errorCode) {
+        // Updates happen inside compute so a concurrent flush either sees the whole call or none of it
+        operations.compute(operation, (key, stats) -> {
+            final OperationStats current = stats == null ? new OperationStats() : stats;
+            current.latencies.add(latencyMillis);
+            current.retries += retries;
+            current.throttles += throttles;
+            if (errorCode != null) {
+                current.errorCodes.merge(errorCode, 1, Integer::sum);
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Writes the calls recorded since the last flush to the logger and resets the counters.
+     */
+    public void flush(final Logger logger) {
+        for (String operation : new ArrayList<>(operations.keySet())) {
+            final OperationStats stats = operations.remove(operation);
+            if (stats == null || logger == null) {
+                continue;
+            }
+            for (Map<String, Object> document : toDocuments(operation, stats, System.currentTimeMillis())) {
+                try {
+                    logger.log(MAPPER.writeValueAsString(document));
+                } catch (JsonProcessingException e) {
+                    logger.log(String.format("Failed to serialize metrics for %s: %s", operation, e.getMessage()));
+                }
+            }
+        }
+    }
+
+    List<Map<String, Object>> toDocuments(final String operation, final OperationStats stats, final long timestamp) {
+        final List<Map<String, Object>> documents = new ArrayList<>();
+        final List<Long> latencies = stats.latencies;
+        for (int from = 0; from < latencies.size(); from += MAX_VALUES_PER_DOCUMENT) {
+            final boolean first = from == 0;
+            final List<Map<String, String>> definitions = new ArrayList<>();
+            final Map<String, Object> document = new LinkedHashMap<>();
+
+            document.put("ResourceType", resourceType);
+            document.put("Operation", operation);
+            definitions.add(metric("Latency", "Milliseconds"));
+            document.put("Latency", latencies.subList(from, Math.min(from + MAX_VALUES_PER_DOCUMENT, latencies.size())));
+            // Counts are carried once per operation; overflow documents only add latency samples
+            if (first) {
+                definitions.add(metric("Calls", "Count"));
+                document.put("Calls", latencies.size());
+                definitions.add(metric("Retries", "Count"));
+                document.put("Retries", stats.retries);
+                definitions.add(metric("Throttles", "Count"));
+                document.put("Throttles", stats.throttles);
+                definitions.add(metric("Errors", "Count"));
+                document.put("Errors", stats.errorCodes.values().stream().mapToInt(Integer::intValue).sum());
+                if (!stats.errorCodes.isEmpty()) {
+                    document.put("ErrorCodes", stats.errorCodes);
+                }
+            }
+            document.put("_aws", ImmutableMap.of(
+                    "Timestamp", timestamp,
+                    "CloudWatchMetrics", ImmutableList.of(ImmutableMap.of(
+                            "Namespace", namespace,
+                            "Dimensions", ImmutableList.of(ImmutableList.of("ResourceType", "Operation")),
+                            "Metrics", definitions))));
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    private static Map<String, String> metric(final String name, final String unit) {
+        return ImmutableMap.of("Name", name, "Unit", unit);
+    }
+
+    private static int counter(final TimingInfo timing, final Field field) {
+        final Number value = timing.getCounter(field.name());
+        return value == null ? 0 : value.intValue();
+    }
+
+    private static String operationName(final Request<?> request) {
+        final String operation = request.getHandlerContext(HandlerContextKey.OPERATION_NAME);
+        if (operation != null) {
+            return operation;
+        }
+        final String requestClass = request.getOriginalRequest().getClass().getSimpleName();
+        return requestClass.endsWith(REQUEST_SUFFIX) ?
+               requestClass.substring(0, requestClass.length() - REQUEST_SUFFIX.length()) :
+               requestClass;
+    }
+
+    private static String errorCode(final AWSRequestMetrics metrics) {
+        final List<Object> exceptions = metrics.getProperty(Field.Exception);
+        if (exceptions == null || exceptions.isEmpty()) {
+            return "Unknown";
+        }
+        final Object last = exceptions.get(exceptions.size() - 1);
+        return last instanceof AmazonServiceException ?
+               ((AmazonServiceException) last).getErrorCode() :
+               last.getClass().getSimpleName();
+    }
+
+    static class OperationStats {
+        final List<Long> latencies = new ArrayList<>();
+        final Map<String, Integer> errorCodes = new TreeMap<>();
+        int retries;
+        int throttles;
+    }
+}
@@ -0,0 +1,189 @@
+package software.amazon.rds.common;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.RetryUtils;
+import lombok.Value;
+
+/**
+ * Client-side token buckets in front of every RDS call of the warm container, one per API family so that polling
+ * Describe calls cannot starve the calls that change resources. Installed as a request handler of the shared RDS
+ * clients, it takes a token before each attempt, including the SDK's own retries. Each bucket adapts its rate to the
+ * headroom RDS actually grants: a throttling response halves the rate, and every successful attempt adds back a
+ * fraction of the configured rate, up to the configured rate (AIMD).
+ */
+public class ApiRateLimiter extends RequestHandler2 {
+    // Share of the configured rate added back by every successful attempt
+    static final double ADDITIVE_INCREASE_FRACTION = 0.05;
+    static final double MULTIPLICATIVE_DECREASE_FACTOR = 0.5;
+    // A caller never waits longer than this for a token; beyond it the SDK's throttling retries take over
+    static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final String REQUEST_SUFFIX = "Request";
+
+    public enum ApiFamily {
+        // Describe and List calls, which stabilization loops poll
+        DESCRIBE,
+        // Calls that create, modify or delete resources
+        MUTATE;
+
+        static ApiFamily of(final String operation) {
+            return operation.startsWith("Describe") || operation.startsWith("List") ? DESCRIBE : MUTATE;
+        }
+    }
+
+    @Value
+    public static class Limit {
+        double ratePerSecond;
+        double burst;
+        double minRatePerSecond;
+    }
+
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    private final Map<ApiFamily, TokenBucket> buckets = new EnumMap<>(ApiFamily.class);
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+    private final AtomicLong throttledCalls = new AtomicLong();
+    private final AtomicLong delayedCalls = new AtomicLong();
+    private final AtomicLong delayNanos = new AtomicLong();
+
+    public ApiRateLimiter(final Map<ApiFamily, Limit> limits) {
+        this(limits, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    ApiRateLimiter(final Map<ApiFamily, Limit> limits, final LongSupplier nanoClock, final Sleeper sleeper) {
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+        limits.forEach((family, limit) -> buckets.put(family, new TokenBucket(limit, nanoClock.getAsLong())));
+    }
+
+    @Override
+    public void beforeAttempt(final HandlerBeforeAttemptContext context) {
+        acquire(familyOf(context.getRequest()));
+    }
+
+    @Override
+    public void afterAttempt(final HandlerAfterAttemptContext context) {
+        final TokenBucket bucket = buckets.get(familyOf(context.getRequest()));
+        final Exception exception = context.getException();
+        if (exception instanceof AmazonServiceException && RetryUtils.isThrottlingException((AmazonServiceException) exception)) {
+            throttledCalls.incrementAndGet();
+            if (bucket != null) {
+                bucket.decrease();
+            }
+        } else if (exception == null && bucket != null) {
+            bucket.increase();
+        }
+    }
+
+    /**
+     * Takes a token for one call of the given family, waiting for it if the bucket is empty.
+     */
+    void acquire(final ApiFamily family) {
+        final TokenBucket bucket = buckets.get(family);
+        if (bucket == null) {
+            return;
+        }
+        final long wait = Math.min(bucket.reserve(nanoClock.getAsLong()), MAX_DELAY_NANOS);
+        if (wait <= 0) {
+            return;
+        }
+        delayedCalls.incrementAndGet();
+        delayNanos.addAndGet(wait);
+        try {
+            sleeper.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Attempts rejected by RDS with a throttling error since the container started.
+     */
+    public long getThrottledCalls() {
+        return throttledCalls.get();
+    }
+
+    /**
+     * Attempts that had to wait for a token since the container started.
+     */
+    public long getDelayedCalls() {
+        return delayedCalls.get();
+    }
+
+    public long getDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(delayNanos.get());
+    }
+
+    /**
+     * Current adapted rate of an API family, in calls per second.
+     */
+    public double getRate(final ApiFamily family) {
+        final TokenBucket bucket = buckets.get(family);
+        return bucket == null ? Double.POSITIVE_INFINITY : bucket.getRate();
+    }
+
+    private static ApiFamily familyOf(final Request<?> request) {
+        final String operation = request.getHandlerContext(HandlerContextKey.OPERATION_NAME);
+        if (operation != null) {
+            return ApiFamily.of(operation);
+        }
+        final String requestClass = request.getOriginalRequest().getClass().getSimpleName();
+        return ApiFamily.of(requestClass.endsWith(REQUEST_SUFFIX) ?
+                            requestClass.substring(0, requestClass.length() - REQUEST_SUFFIX.length()) :
+                            requestClass);
+    }
+
+    private static class TokenBucket {
+        private final Limit limit;
+        private double rate;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(final Limit limit, final long now) {
+            this.limit = limit;
+            this.rate = limit.getRatePerSecond();
+            this.tokens = limit.getBurst();
+            this.lastRefillNanos = now;
+        }
+
+        /**
+         * Takes a token, going into debt when none is left, and returns how long the caller has to wait for it. The debt
+         * never grows beyond what MAX_DELAY_NANOS pays off: callers are only made to wait that long, so a burst of them
+         * must not leave the bucket owing tokens for the callers that come after it.
+         */
+        synchronized long reserve(final long now) {
+            tokens = Math.min(limit.getBurst(), tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+            lastRefillNanos = now;
+            tokens = Math.max(tokens - 1, -rate * MAX_DELAY_NANOS / TimeUnit.SECONDS.toNanos(1));
+            return tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        synchronized void decrease() {
+            rate = Math.max(limit.getMinRatePerSecond(), rate * MULTIPLICATIVE_DECREASE_FACTOR);
+            // Drop any saved-up burst so the lower rate applies at once
+            tokens = Math.min(tokens, 0);
+        }
+
+        synchronized void increase() {
+            rate = Math.min(limit.getRatePerSecond(), rate + limit.getRatePerSecond() * ADDITIVE_INCREASE_FRACTION);
+        }
+
+        synchronized double getRate() {
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package software.amazon.rds.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.AmazonRDSClientBuilder;
+import com.google.common.collect.ImmutableMap;
+import lombok.Value;
+
+/**
+ * Process-wide registry of RDS clients. Clients are built once per warm container and shared by every handler,
+ * so credential-chain, region resolution and connection-pool setup are not repeated on each invocation.
+ */
+public class ClientBuilder {
+    private static final int CONNECTION_MAX_IDLE_IN_MS = 60000;
+    // Client-side call rates per API family, shared by every handler of a warm container
+    private static final double DESCRIBE_API_RATE_PER_SECOND = 10.0;
+    private static final double DESCRIBE_API_BURST = 20.0;
+    private static final double MUTATE_API_RATE_PER_SECOND = 5.0;
+    private static final double MUTATE_API_BURST = 10.0;
+    private static final double MIN_API_RATE_PER_SECOND = 0.5;
+
+    static final Map<ApiRateLimiter.ApiFamily, ApiRateLimiter.Limit> RATE_LIMITS = ImmutableMap.of(
+            ApiRateLimiter.ApiFamily.DESCRIBE, new ApiRateLimiter.Limit(DESCRIBE_API_RATE_PER_SECOND,
+                                                                        DESCRIBE_API_BURST,
+                                                                        MIN_API_RATE_PER_SECOND),
+            ApiRateLimiter.ApiFamily.MUTATE, new ApiRateLimiter.Limit(MUTATE_API_RATE_PER_SECOND,
+                                                                      MUTATE_API_BURST,
+                                                                      MIN_API_RATE_PER_SECOND));
+
+    private static final ConcurrentMap<ClientKey, AmazonRDS> CLIENTS = new ConcurrentHashMap<>();
+    private static final ApiRateLimiter RATE_LIMITER = new ApiRateLimiter(RATE_LIMITS);
+    // Client handed to the handlers of the current thread in place of the shared one, for tests serving RDS in process
+    private static final ThreadLocal<AmazonRDS> CLIENT_OVERRIDE = new ThreadLocal<>();
+
+    public static AmazonRDS getClient() {
+        return getClient(null, null);
+    }
+
+    /**
+     * @param region   region to sign requests for, or null to use the default region provider chain
+     * @param endpoint endpoint override, or null to use the regional endpoint
+     */
+    public static AmazonRDS getClient(final String region, final String endpoint) {
+        return CLIENTS.computeIfAbsent(new ClientKey(region, endpoint), ClientBuilder::buildClient);
+    }
+
+    /**
+     * Shared default client, viewed so that every call made through it is reported to the given collector. Handlers
+     * pass a collector of their own so the metrics of concurrent invocations in one container stay apart.
+     */
+    public static AmazonRDS getClient(final RequestMetricCollector metrics) {
+        return metered(Optional.ofNullable(CLIENT_OVERRIDE.get()).orElseGet(ClientBuilder::getClient), metrics);
+    }
+
+    /**
+     * Makes {@link #getClient(RequestMetricCollector)} hand out the given client on the current thread, or the shared
+     * client again if it is null.
+     */
+    static void overrideClient(final AmazonRDS client) {
+        if (client == null) {
+            CLIENT_OVERRIDE.remove();
+        } else {
+            CLIENT_OVERRIDE.set(client);
+        }
+    }
+
+    static AmazonRDS metered(final AmazonRDS client, final RequestMetricCollector metrics) {
+        return (AmazonRDS) Proxy.newProxyInstance(AmazonRDS.class.getClassLoader(), new Class<?>[] {AmazonRDS.class},
+                                                  (view, method, args) -> {
+            // A request-level collector takes precedence over the one of the client
+            if (args != null && args.length == 1 && args[0] instanceof AmazonWebServiceRequest) {
+                ((AmazonWebServiceRequest) args[0]).setRequestMetricCollector(metrics);
+            }
+            try {
+                return method.invoke(client, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Rate limiter in front of every call made through the clients of this registry.
+     */
+    public static ApiRateLimiter getRateLimiter() {
+        return RATE_LIMITER;
+    }
+
+    static ClientConfiguration clientConfiguration() {
+        return new ClientConfiguration().withTcpKeepAlive(true)
+                                        .withConnectionMaxIdleMillis(CONNECTION_MAX_IDLE_IN_MS);
+    }
+
+    private static AmazonRDS buildClient(final ClientKey key) {
+        AmazonRDSClientBuilder builder = AmazonRDSClientBuilder.standard()
+                                                              .withClientConfiguration(clientConfiguration())
+                                                              .withRequestHandlers(RATE_LIMITER);
+        if (key.getEndpoint() != null) {
+            builder.withEndpointConfiguration(new EndpointConfiguration(key.getEndpoint(), key.getRegion()));
+        } else if (key.getRegion() != null) {
+            builder.withRegion(key.getRegion());
+        }
+        return builder.build();
+    }
+
+    @Value
+    private static class ClientKey {
+        String region;
+        String endpoint;
+    }
+}
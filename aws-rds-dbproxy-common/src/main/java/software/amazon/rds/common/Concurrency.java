@@ -0,0 +1,51 @@
+package software.amazon.rds.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helpers for the bounded, long-lived executors handlers run their concurrent RDS calls on.
+ */
+public class Concurrency {
+    private static final long IDLE_THREAD_KEEP_ALIVE_IN_MS = 60 * 1000L;
+
+    /**
+     * Executor running at most {@code threads} tasks at once, queueing the rest. It is meant to be created once and
+     * shared for the lifetime of its owner: its threads are daemons and exit after a minute without work, so an idle
+     * executor neither holds threads nor keeps the container from shutting down.
+     */
+    public static ExecutorService boundedPool(final String name, final int threads) {
+        final AtomicInteger created = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                                                                   IDLE_THREAD_KEEP_ALIVE_IN_MS, TimeUnit.MILLISECONDS,
+                                                                   new LinkedBlockingQueue<>(),
+                                                                   threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Waits for the future and rethrows a runtime failure as-is rather than wrapped in a CompletionException.
+     */
+    public static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
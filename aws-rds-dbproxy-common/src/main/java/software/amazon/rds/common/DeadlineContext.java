@@ -0,0 +1,15 @@
+package software.amazon.rds.common;
+
+/**
+ * Callback context that carries the wall-clock start and deadline of a whole operation across invocations, in epoch
+ * milliseconds. Both are null until the operation's first invocation sets them.
+ */
+public interface DeadlineContext {
+    Long getOperationStartTime();
+
+    void setOperationStartTime(Long operationStartTime);
+
+    Long getOperationDeadline();
+
+    void setOperationDeadline(Long operationDeadline);
+}
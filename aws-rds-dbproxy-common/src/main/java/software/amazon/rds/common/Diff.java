@@ -0,0 +1,78 @@
+package software.amazon.rds.common;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+/**
+ * Reconciles a current and a desired collection by key in linear time. A key present on both sides with a different
+ * value is reported as changed rather than as a removal plus an addition. Neither input is modified, and entries keep
+ * the order in which they appear in their input.
+ *
+ * @param <K> key entries are matched on
+ * @param <V> value compared for entries present on both sides
+ */
+@Getter
+public class Diff<K, V> {
+    // Keys only present in the desired collection, with their desired values
+    private final Map<K, V> added = new LinkedHashMap<>();
+
+    // Keys only present in the current collection, with their current values
+    private final Map<K, V> removed = new LinkedHashMap<>();
+
+    // Keys present in both collections whose value differs, with their desired values
+    private final Map<K, V> changed = new LinkedHashMap<>();
+
+    private Diff() {
+    }
+
+    public static <T, K, V> Diff<K, V> of(final Collection<T> current,
+                                          final Collection<T> desired,
+                                          final Function<T, K> keyFunction,
+                                          final Function<T, V> valueFunction) {
+        final Map<K, V> currentByKey = index(current, keyFunction, valueFunction);
+        final Map<K, V> desiredByKey = index(desired, keyFunction, valueFunction);
+
+        final Diff<K, V> diff = new Diff<>();
+        for (Map.Entry<K, V> entry : desiredByKey.entrySet()) {
+            if (!currentByKey.containsKey(entry.getKey())) {
+                diff.added.put(entry.getKey(), entry.getValue());
+            } else if (!Objects.equals(currentByKey.get(entry.getKey()), entry.getValue())) {
+                diff.changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<K, V> entry : currentByKey.entrySet()) {
+            if (!desiredByKey.containsKey(entry.getKey())) {
+                diff.removed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Diffs collections whose elements are their own keys, such as identifiers, so only additions and removals occur.
+     */
+    public static <T> Diff<T, T> of(final Collection<T> current, final Collection<T> desired) {
+        return of(current, desired, Function.identity(), Function.identity());
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    private static <T, K, V> Map<K, V> index(final Collection<T> items,
+                                             final Function<T, K> keyFunction,
+                                             final Function<T, V> valueFunction) {
+        final Map<K, V> byKey = new LinkedHashMap<>();
+        for (T item : Optional.ofNullable(items).orElse(Collections.emptyList())) {
+            byKey.put(keyFunction.apply(item), valueFunction.apply(item));
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,61 @@
+package software.amazon.rds.common;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+/**
+ * The single wall-clock deadline of a create, update or delete. It is stamped once from the handler's Clock on the
+ * operation's first invocation and only ever read through that Clock afterwards, so every step, poll and fused run of
+ * the operation is bounded by the same instant.
+ */
+public class OperationDeadline {
+    // Time a whole create, update or delete may take, across every invocation and step
+    public static final long TIMEOUT_IN_MS = 60 * 60 * 1000L;
+
+    /**
+     * Starts the operation's deadline on its first invocation. Later invocations keep the start time and deadline
+     * their context carries, however many steps the operation has been through.
+     */
+    public static <C extends DeadlineContext> C start(final C callbackContext, final Clock clock) {
+        if (callbackContext.getOperationDeadline() == null) {
+            final long now = clock.millis();
+            callbackContext.setOperationStartTime(now);
+            callbackContext.setOperationDeadline(now + TIMEOUT_IN_MS);
+        }
+        return callbackContext;
+    }
+
+    public static boolean isPassed(final DeadlineContext callbackContext, final Clock clock) {
+        return callbackContext.getOperationDeadline() != null && clock.millis() >= callbackContext.getOperationDeadline();
+    }
+
+    /**
+     * Time since the operation started, or 0 before its first invocation has stamped it.
+     */
+    public static long elapsedMillis(final DeadlineContext callbackContext, final Clock clock) {
+        return callbackContext.getOperationStartTime() == null ? 0L : clock.millis() - callbackContext.getOperationStartTime();
+    }
+
+    /**
+     * Carries the operation's start time and deadline into the context of the next invocation, and brings the next
+     * invocation forward when the callback delay would run past the deadline, so a timeout is reported on time.
+     */
+    public static <M, C extends DeadlineContext> ProgressEvent<M, C> carry(final ProgressEvent<M, C> event,
+                                                                           final C callbackContext,
+                                                                           final Clock clock) {
+        final C next = event.getCallbackContext();
+        if (!event.isInProgress() || next == null || callbackContext.getOperationDeadline() == null) {
+            return event;
+        }
+        next.setOperationStartTime(callbackContext.getOperationStartTime());
+        next.setOperationDeadline(callbackContext.getOperationDeadline());
+
+        final long secondsLeft = Math.max(0, TimeUnit.MILLISECONDS.toSeconds(callbackContext.getOperationDeadline() - clock.millis()));
+        if (event.getCallbackDelaySeconds() > secondsLeft) {
+            event.setCallbackDelaySeconds((int) secondsLeft);
+        }
+        return event;
+    }
+}
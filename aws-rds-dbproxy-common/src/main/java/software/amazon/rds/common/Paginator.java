@@ -0,0 +1,60 @@
+package software.amazon.rds.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads up to a fixed number of pages of a marker-paginated describe call in one invocation, requesting each page
+ * while the previous one is being consumed. The marker of the first page left unread is handed back, so a listing
+ * larger than one invocation's share continues on the next call instead of running into the handler timeout.
+ */
+public class Paginator {
+    // Pages read per invocation when paging eagerly; at 100 records a page this lists 1000 resources per call
+    public static final int DEFAULT_MAX_PAGES = 10;
+
+    private static final int PREFETCH_THREADS = 4;
+
+    private final int maxPages;
+
+    // Owned by the paginator for its whole lifetime, so pages are never fetched on the common fork-join pool
+    private final Executor executor;
+
+    public Paginator(final int maxPages) {
+        this(maxPages, Concurrency.boundedPool("page-prefetch", PREFETCH_THREADS));
+    }
+
+    Paginator(final int maxPages, final Executor executor) {
+        this.maxPages = Math.max(1, maxPages);
+        this.executor = executor;
+    }
+
+    /**
+     * @param nextToken marker to start from, or null to start from the first page
+     * @param fetch     describe call returning the page at the given marker
+     * @param markerOf  marker of the page after the given one, or null on the last page
+     * @param consume   called with each page read, in order
+     * @return marker of the first page not read, or null once the last page has been read
+     */
+    public <P> String read(final String nextToken,
+                           final Function<String, P> fetch,
+                           final Function<P, String> markerOf,
+                           final Consumer<P> consume) {
+        P page = fetch.apply(nextToken);
+        for (int read = 1; ; read++) {
+            final String marker = markerOf.apply(page);
+            CompletableFuture<P> nextPage = null;
+            if (marker != null && read < maxPages) {
+                nextPage = CompletableFuture.supplyAsync(() -> fetch.apply(marker), executor);
+            }
+
+            consume.accept(page);
+
+            if (nextPage == null) {
+                return marker;
+            }
+            page = Concurrency.join(nextPage);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package software.amazon.rds.common;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+/**
+ * Picks the delay before the next stabilization poll from the last observed status. Each status starts from its own
+ * initial delay and backs off exponentially with jitter, up to a cap. How long polling may go on is bounded by the
+ * operation's {@link OperationDeadline}, not by the scheduler.
+ */
+@Builder(toBuilder = true)
+@Getter
+public class StabilizationScheduler {
+    // Keyed by status, compared case-insensitively
+    @Singular
+    private final Map<String, Integer> initialDelays;
+
+    @Builder.Default
+    private final int defaultInitialDelaySeconds = 5;
+
+    @Builder.Default
+    private final int maxDelaySeconds = 60;
+
+    @Builder.Default
+    private final double backoffMultiplier = 2.0;
+
+    // Fraction of the computed delay that may be shaved off at random
+    @Builder.Default
+    private final double jitterRatio = 0.2;
+
+    /**
+     * @param status  last observed status of the resource being stabilized
+     * @param attempt number of polls already made in the current stabilization step, starting at 0
+     */
+    public int nextDelaySeconds(final String status, final int attempt) {
+        int initialDelay = defaultInitialDelaySeconds;
+        if (status != null) {
+            for (Map.Entry<String, Integer> entry : initialDelays.entrySet()) {
+                if (entry.getKey().toLowerCase(Locale.ROOT).equals(status.toLowerCase(Locale.ROOT))) {
+                    initialDelay = entry.getValue();
+                    break;
+                }
+            }
+        }
+
+        double delay = Math.min(maxDelaySeconds, initialDelay * Math.pow(backoffMultiplier, Math.max(0, attempt)));
+        double jittered = delay * (1 - jitterRatio * ThreadLocalRandom.current().nextDouble());
+        return (int) Math.max(1, Math.round(jittered));
+    }
+}
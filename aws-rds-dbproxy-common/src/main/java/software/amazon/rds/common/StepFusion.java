@@ -0,0 +1,44 @@
+package software.amazon.rds.common;
+
+import java.time.Clock;
+import java.util.function.Function;
+
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+/**
+ * Runs consecutive steps of a handler's progress state machine in one invocation for as long as each step asks to be
+ * re-invoked without a delay, stopping at the first step that has to wait, finishes or fails, or once the time budget
+ * is spent. Each step checkpoints its progress in the callback context of its event, so whichever event ends the run
+ * resumes from the last completed step.
+ */
+public class StepFusion {
+    public static final long DEFAULT_BUDGET_IN_MS = 30 * 1000L;
+
+    /**
+     * A step that throws after earlier steps of the run have completed does not fail the invocation: the last
+     * in-progress event is returned instead, so the work those steps did is checkpointed and the failing step runs
+     * again, unfused, on the next invocation, where its exception surfaces as usual.
+     *
+     * @param step         one step of the state machine, given the callback context the previous step checkpointed
+     * @param budgetMillis time after which no further step is started
+     */
+    public static <M, C> ProgressEvent<M, C> run(final Function<C, ProgressEvent<M, C>> step,
+                                                 final C callbackContext,
+                                                 final Clock clock,
+                                                 final long budgetMillis) {
+        final long deadline = clock.millis() + budgetMillis;
+
+        ProgressEvent<M, C> event = step.apply(callbackContext);
+        while (event.isInProgress()
+               && event.getCallbackDelaySeconds() == 0
+               && event.getCallbackContext() != null
+               && clock.millis() < deadline) {
+            try {
+                event = step.apply(event.getCallbackContext());
+            } catch (RuntimeException e) {
+                return event;
+            }
+        }
+        return event;
+    }
+}
@@ -0,0 +1,104 @@
+package software.amazon.rds.common;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.ListTagsForResourceRequest;
+import com.amazonaws.services.rds.model.ListTagsForResourceResult;
+import com.amazonaws.services.rds.model.Tag;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+
+/**
+ * Fills in the tags of a page of listed resources. At most {@code parallelism} ListTagsForResource calls are in flight
+ * at once, across every page and invocation of the enricher's owner, and throttled calls are retried with exponential
+ * backoff.
+ *
+ * @param <M> resource model the tags are set on
+ */
+@Getter
+public class TagEnricher<M> {
+    private static final int DEFAULT_PARALLELISM = 8;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long DEFAULT_BASE_BACKOFF_MILLIS = 200L;
+
+    private final int parallelism;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+
+    // ARN of the resource a model describes
+    private final Function<M, String> resourceArn;
+
+    // Sets the tags of a model; only called for resources that have tags
+    private final BiConsumer<M, List<Tag>> tagSetter;
+
+    // Created once, so enriching a page does not start and stop a pool of its own
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService executor;
+
+    @Builder
+    private TagEnricher(final Integer parallelism,
+                        final Integer maxAttempts,
+                        final Long baseBackoffMillis,
+                        final Function<M, String> resourceArn,
+                        final BiConsumer<M, List<Tag>> tagSetter) {
+        this.parallelism = parallelism == null ? DEFAULT_PARALLELISM : parallelism;
+        this.maxAttempts = maxAttempts == null ? DEFAULT_MAX_ATTEMPTS : maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis == null ? DEFAULT_BASE_BACKOFF_MILLIS : baseBackoffMillis;
+        this.resourceArn = resourceArn;
+        this.tagSetter = tagSetter;
+        this.executor = Concurrency.boundedPool("tag-enricher", this.parallelism);
+    }
+
+    public List<M> enrich(final AmazonWebServicesClientProxy clientProxy,
+                          final AmazonRDS rdsClient,
+                          final List<M> models) {
+        if (models.isEmpty()) {
+            return models;
+        }
+
+        List<CompletableFuture<Void>> futures = models.stream()
+                .map(model -> CompletableFuture.runAsync(() -> {
+                    final List<Tag> tags = listTags(clientProxy, rdsClient, resourceArn.apply(model));
+                    if (!tags.isEmpty()) {
+                        tagSetter.accept(model, tags);
+                    }
+                }, executor))
+                .collect(Collectors.toList());
+        futures.forEach(Concurrency::join);
+        return models;
+    }
+
+    private List<Tag> listTags(final AmazonWebServicesClientProxy clientProxy,
+                               final AmazonRDS rdsClient,
+                               final String arn) {
+        ListTagsForResourceRequest request = new ListTagsForResourceRequest().withResourceName(arn);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ListTagsForResourceResult result = clientProxy.injectCredentialsAndInvoke(request, rdsClient::listTagsForResource);
+                return result == null ? Collections.emptyList() : result.getTagList();
+            } catch (AmazonServiceException e) {
+                if (attempt >= maxAttempts || !RetryUtils.isThrottlingException(e)) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(baseBackoffMillis << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
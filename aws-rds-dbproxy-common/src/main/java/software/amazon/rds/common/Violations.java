@@ -0,0 +1,48 @@
+package software.amazon.rds.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+/**
+ * Collects the rule violations a model is checked for locally, before any RDS call. Rules should only look at the
+ * properties the template sets: CloudFormation has already enforced the schema's required properties and types by the
+ * time a handler runs. Every violation is reported together, not just the first.
+ */
+public class Violations {
+    private final List<String> messages = new ArrayList<>();
+
+    /**
+     * Records the message when the rule is violated.
+     */
+    public Violations check(final boolean violated, final String message) {
+        if (violated) {
+            messages.add(message);
+        }
+        return this;
+    }
+
+    public Violations addAll(final List<String> otherMessages) {
+        messages.addAll(otherMessages);
+        return this;
+    }
+
+    public List<String> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * @return null if there are no violations, otherwise an InvalidRequest failure listing all of them
+     */
+    public static <M, C> ProgressEvent<M, C> failure(final List<String> messages) {
+        if (messages.isEmpty()) {
+            return null;
+        }
+        return ProgressEvent.defaultFailureHandler(new CfnInvalidRequestException(String.join(" ", messages)),
+                                                   HandlerErrorCode.InvalidRequest);
+    }
+}
@@ -0,0 +1,91 @@
+package software.amazon.rds.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * States how much work a handler scenario may do: how many invocations, how many RDS calls in total and how many
+ * calls to an operation, or to every operation starting with a prefix such as "Describe*". A change that adds round
+ * trips then fails the test that states the budget instead of going unnoticed until throttling in production.
+ *
+ * <pre>
+ * ApiBudget.expect("tag-only update").invocations(1).apiCalls(2).noCalls("ModifyDBProxy").assertWithin(report);
+ * </pre>
+ */
+public class ApiBudget {
+    private final String scenario;
+    private final Map<String, Integer> operationLimits = new LinkedHashMap<>();
+    private Integer maxInvocations;
+    private Integer maxApiCalls;
+
+    private ApiBudget(final String scenario) {
+        this.scenario = scenario;
+    }
+
+    public static ApiBudget expect(final String scenario) {
+        return new ApiBudget(scenario);
+    }
+
+    public ApiBudget invocations(final int atMost) {
+        maxInvocations = atMost;
+        return this;
+    }
+
+    public ApiBudget apiCalls(final int atMost) {
+        maxApiCalls = atMost;
+        return this;
+    }
+
+    /**
+     * Limits the calls to an operation, or to every operation matching a trailing "*" wildcard.
+     */
+    public ApiBudget calls(final String operation, final int atMost) {
+        operationLimits.put(operation, atMost);
+        return this;
+    }
+
+    public ApiBudget noCalls(final String operation) {
+        return calls(operation, 0);
+    }
+
+    public void assertWithin(final ApiUsage usage) {
+        assertWithin(usage.getInvocations(), usage.getApiCallsByOperation());
+    }
+
+    /**
+     * @throws AssertionError listing every limit the work exceeded and the calls that were made
+     */
+    public void assertWithin(final int invocations, final Map<String, Integer> apiCalls) {
+        final List<String> overruns = new ArrayList<>();
+        if (maxInvocations != null && invocations > maxInvocations) {
+            overruns.add(String.format("%d invocations, budget %d", invocations, maxInvocations));
+        }
+        final int totalApiCalls = apiCalls.values().stream().mapToInt(Integer::intValue).sum();
+        if (maxApiCalls != null && totalApiCalls > maxApiCalls) {
+            overruns.add(String.format("%d RDS calls, budget %d", totalApiCalls, maxApiCalls));
+        }
+        operationLimits.forEach((operation, atMost) -> {
+            final int made = calls(apiCalls, operation);
+            if (made > atMost) {
+                overruns.add(String.format("%d %s calls, budget %d", made, operation, atMost));
+            }
+        });
+        if (!overruns.isEmpty()) {
+            throw new AssertionError(scenario + " exceeded its API budget: " + String.join("; ", overruns) + ". Calls made: " + apiCalls);
+        }
+    }
+
+    private static int calls(final Map<String, Integer> apiCalls, final String operation) {
+        if (!operation.endsWith("*")) {
+            return apiCalls.getOrDefault(operation, 0);
+        }
+        final String prefix = operation.substring(0, operation.length() - 1);
+        return apiCalls.entrySet()
+                       .stream()
+                       .filter(e -> e.getKey().startsWith(prefix))
+                       .mapToInt(Map.Entry::getValue)
+                       .sum();
+    }
+}
@@ -0,0 +1,68 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import com.amazonaws.AmazonWebServiceResult;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+public class ApiBudgetTest {
+
+    @Test
+    public void assertWithin_reportsEveryOverrun() {
+        final ApiBudget budget = ApiBudget.expect("scenario").invocations(1).apiCalls(3).calls("Describe*", 1).noCalls("ModifyDBProxy");
+
+        budget.assertWithin(1, calls("DescribeDBProxies", 1, "ListTagsForResource", 2));
+        assertThatThrownBy(() -> budget.assertWithin(2, calls("DescribeDBProxies", 1, "DescribeDBProxyTargets", 1, "ModifyDBProxy", 2)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("scenario exceeded its API budget")
+                .hasMessageContaining("2 invocations, budget 1")
+                .hasMessageContaining("4 RDS calls, budget 3")
+                .hasMessageContaining("2 Describe* calls, budget 1")
+                .hasMessageContaining("2 ModifyDBProxy calls, budget 0");
+    }
+
+    @Test
+    public void countingProxy_countsInvocationsAndCallsByOperation() {
+        final AmazonWebServicesClientProxy delegate = mock(AmazonWebServicesClientProxy.class);
+        doReturn(new DescribeDBProxiesResult()).when(delegate).injectCredentialsAndInvoke(any(DescribeDBProxiesRequest.class),
+                ArgumentMatchers.<Function<DescribeDBProxiesRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final CountingProxy counting = new CountingProxy(delegate);
+        final CountingProxy.Handler<String, Void> handler = (proxy, request, context, logger) -> {
+            proxy.injectCredentialsAndInvoke(new DescribeDBProxiesRequest(), (DescribeDBProxiesRequest r) -> new DescribeDBProxiesResult());
+            proxy.injectCredentialsAndInvoke(new DescribeDBProxiesRequest(), (DescribeDBProxiesRequest r) -> new DescribeDBProxiesResult());
+            return ProgressEvent.<String, Void>builder().status(OperationStatus.SUCCESS).build();
+        };
+
+        counting.handle(handler, ResourceHandlerRequest.<String>builder().build(), null, mock(Logger.class));
+
+        assertThat(counting.getInvocations()).isEqualTo(1);
+        assertThat(counting.getApiCallsByOperation()).isEqualTo(calls("DescribeDBProxies", 2));
+        ApiBudget.expect("two describes").invocations(1).apiCalls(2).calls("Describe*", 2).assertWithin(counting);
+    }
+
+    private static Map<String, Integer> calls(final Object... operationsAndCounts) {
+        final Map<String, Integer> calls = new TreeMap<>();
+        for (int i = 0; i < operationsAndCounts.length; i += 2) {
+            calls.put((String) operationsAndCounts[i], (Integer) operationsAndCounts[i + 1]);
+        }
+        return calls;
+    }
+}
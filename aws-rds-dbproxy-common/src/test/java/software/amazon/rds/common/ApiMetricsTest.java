@@ -0,0 +1,152 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ApiMetricsTest {
+    private static final String RESOURCE_TYPE = "AWS::RDS::DBProxy";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ApiMetrics metrics;
+    private List<String> lines;
+
+    @BeforeEach
+    public void setup() {
+        metrics = new ApiMetrics("Test/Namespace", RESOURCE_TYPE);
+        lines = new ArrayList<>();
+    }
+
+    @Test
+    public void collectMetrics_recordsRetriesAndThrottles() {
+        final AWSRequestMetricsFullSupport requestMetrics = new AWSRequestMetricsFullSupport();
+        requestMetrics.setCounter(Field.RequestCount, 3);
+        requestMetrics.setCounter(Field.ThrottleException, 2);
+        requestMetrics.getTimingInfo().endTiming();
+
+        metrics.collectMetrics(request(requestMetrics, "DescribeDBProxies"), new Response<>(new DescribeDBProxiesResult(), null));
+        metrics.flush(lines::add);
+
+        assertThat(lines).hasSize(1);
+        final Map<String, Object> document = parse(lines.get(0));
+        assertThat(document.get("ResourceType")).isEqualTo(RESOURCE_TYPE);
+        assertThat(document.get("Operation")).isEqualTo("DescribeDBProxies");
+        assertThat(document.get("Calls")).isEqualTo(1);
+        assertThat(document.get("Retries")).isEqualTo(2);
+        assertThat(document.get("Throttles")).isEqualTo(2);
+        assertThat(document.get("Errors")).isEqualTo(0);
+        assertThat(document).doesNotContainKey("ErrorCodes");
+        assertThat((List<?>) document.get("Latency")).hasSize(1);
+    }
+
+    @Test
+    public void collectMetrics_recordsErrorCodeOfFailedCall() {
+        final AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+        final AWSRequestMetricsFullSupport requestMetrics = new AWSRequestMetricsFullSupport();
+        requestMetrics.setCounter(Field.RequestCount, 4);
+        requestMetrics.addProperty(Field.Exception, throttled);
+        requestMetrics.getTimingInfo().endTiming();
+
+        // Without an operation name in the handler context the request class names the operation
+        metrics.collectMetrics(request(requestMetrics, null), null);
+        metrics.flush(lines::add);
+
+        final Map<String, Object> document = parse(lines.get(0));
+        assertThat(document.get("Operation")).isEqualTo("DescribeDBProxies");
+        assertThat(document.get("Errors")).isEqualTo(1);
+        assertThat(document.get("ErrorCodes")).isEqualTo(Collections.singletonMap("Throttling", 1));
+    }
+
+    @Test
+    public void flush_aggregatesPerOperationAndResets() {
+        metrics.record("DescribeDBProxies", 10, 0, 0, null);
+        metrics.record("DescribeDBProxies", 30, 1, 1, null);
+        metrics.record("CreateDBProxy", 50, 0, 0, "DBProxyAlreadyExistsFault");
+
+        metrics.flush(lines::add);
+
+        assertThat(lines).hasSize(2);
+        final Map<String, Object> describe = lines.stream().map(this::parse)
+                                                  .filter(d -> "DescribeDBProxies".equals(d.get("Operation")))
+                                                  .findFirst()
+                                                  .get();
+        assertThat(describe.get("Calls")).isEqualTo(2);
+        assertThat(describe.get("Latency")).isEqualTo(Arrays.asList(10, 30));
+        assertThat(describe.get("Retries")).isEqualTo(1);
+
+        lines.clear();
+        metrics.flush(lines::add);
+        assertThat(lines).isEmpty();
+    }
+
+    @Test
+    public void flush_writesEmbeddedMetricFormatDirective() {
+        metrics.record("DescribeDBProxies", 10, 0, 0, null);
+
+        metrics.flush(lines::add);
+
+        final Map<String, Object> aws = asMap(parse(lines.get(0)).get("_aws"));
+        assertThat(aws.get("Timestamp")).isInstanceOf(Number.class);
+        final Map<String, Object> directive = asMap(((List<?>) aws.get("CloudWatchMetrics")).get(0));
+        assertThat(directive.get("Namespace")).isEqualTo("Test/Namespace");
+        assertThat(directive.get("Dimensions")).isEqualTo(Collections.singletonList(Arrays.asList("ResourceType", "Operation")));
+        assertThat((List<?>) directive.get("Metrics")).extracting(m -> asMap(m).get("Name"))
+                                                      .containsExactly("Latency", "Calls", "Retries", "Throttles", "Errors");
+    }
+
+    @Test
+    public void flush_splitsLatencySamplesAcrossDocuments() {
+        for (int i = 0; i < ApiMetrics.MAX_VALUES_PER_DOCUMENT + 1; i++) {
+            metrics.record("DescribeDBProxies", i, 0, 0, null);
+        }
+
+        metrics.flush(lines::add);
+
+        assertThat(lines).hasSize(2);
+        assertThat((List<?>) parse(lines.get(0)).get("Latency")).hasSize(ApiMetrics.MAX_VALUES_PER_DOCUMENT);
+        assertThat(parse(lines.get(0)).get("Calls")).isEqualTo(ApiMetrics.MAX_VALUES_PER_DOCUMENT + 1);
+        assertThat((List<?>) parse(lines.get(1)).get("Latency")).hasSize(1);
+        assertThat(parse(lines.get(1))).doesNotContainKey("Calls");
+    }
+
+    private DefaultRequest<DescribeDBProxiesRequest> request(AWSRequestMetricsFullSupport requestMetrics, String operation) {
+        final DefaultRequest<DescribeDBProxiesRequest> request = new DefaultRequest<>(new DescribeDBProxiesRequest(), "RDS");
+        request.setAWSRequestMetrics(requestMetrics);
+        if (operation != null) {
+            request.addHandlerContext(HandlerContextKey.OPERATION_NAME, operation);
+        }
+        return request;
+    }
+
+    private Map<String, Object> parse(String line) {
+        try {
+            return MAPPER.readValue(line, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -0,0 +1,153 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+import com.amazonaws.services.rds.model.ModifyDBProxyRequest;
+import com.google.common.collect.ImmutableMap;
+
+public class ApiRateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now;
+    private List<Long> sleeps;
+    private ApiRateLimiter limiter;
+
+    @BeforeEach
+    public void setup() {
+        now = 0;
+        sleeps = new ArrayList<>();
+        limiter = new ApiRateLimiter(ImmutableMap.of(ApiRateLimiter.ApiFamily.DESCRIBE, new ApiRateLimiter.Limit(2, 2, 0.5),
+                                                     ApiRateLimiter.ApiFamily.MUTATE, new ApiRateLimiter.Limit(1, 1, 0.5)),
+                                     () -> now,
+                                     nanos -> {
+                                         sleeps.add(nanos);
+                                         now += nanos;
+                                     });
+    }
+
+    @Test
+    public void beforeAttempt_passesBurstWithoutDelay() {
+        attempt(new DescribeDBProxiesRequest());
+        attempt(new DescribeDBProxiesRequest());
+
+        assertThat(sleeps).isEmpty();
+        assertThat(limiter.getDelayedCalls()).isEqualTo(0);
+    }
+
+    @Test
+    public void beforeAttempt_delaysCallsBeyondBurst() {
+        attempt(new DescribeDBProxiesRequest());
+        attempt(new DescribeDBProxiesRequest());
+        attempt(new DescribeDBProxiesRequest());
+
+        assertThat(sleeps).containsExactly(SECOND / 2);
+        assertThat(limiter.getDelayedCalls()).isEqualTo(1);
+        assertThat(limiter.getDelayMillis()).isEqualTo(500);
+    }
+
+    @Test
+    public void beforeAttempt_keepsApiFamiliesApart() {
+        attempt(new DescribeDBProxiesRequest());
+        attempt(new DescribeDBProxiesRequest());
+
+        attempt(new ModifyDBProxyRequest());
+
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    public void afterAttempt_halvesRateOnThrottlingAndRecoversOnSuccess() {
+        final AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+
+        complete(new DescribeDBProxiesRequest(), throttled);
+        assertThat(limiter.getRate(ApiRateLimiter.ApiFamily.DESCRIBE)).isEqualTo(1.0);
+        complete(new DescribeDBProxiesRequest(), throttled);
+        complete(new DescribeDBProxiesRequest(), throttled);
+        assertThat(limiter.getRate(ApiRateLimiter.ApiFamily.DESCRIBE)).isEqualTo(0.5);
+        assertThat(limiter.getThrottledCalls()).isEqualTo(3);
+
+        for (int i = 0; i < 100; i++) {
+            complete(new DescribeDBProxiesRequest(), null);
+        }
+        assertThat(limiter.getRate(ApiRateLimiter.ApiFamily.DESCRIBE)).isEqualTo(2.0);
+    }
+
+    @Test
+    public void afterAttempt_ignoresOtherErrors() {
+        complete(new DescribeDBProxiesRequest(), new AmazonServiceException("Proxy not found"));
+
+        assertThat(limiter.getRate(ApiRateLimiter.ApiFamily.DESCRIBE)).isEqualTo(2.0);
+        assertThat(limiter.getThrottledCalls()).isEqualTo(0);
+    }
+
+    @Test
+    public void afterAttempt_throttlingDropsSavedBurst() {
+        final AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+        complete(new DescribeDBProxiesRequest(), throttled);
+
+        attempt(new DescribeDBProxiesRequest());
+
+        assertThat(sleeps).containsExactly(SECOND);
+    }
+
+    @Test
+    public void acquire_waitsStayBoundedAfterConcurrentBurst() {
+        final AtomicLong clock = new AtomicLong();
+        final Queue<Long> waits = new ConcurrentLinkedQueue<>();
+        final ApiRateLimiter shared = new ApiRateLimiter(ImmutableMap.of(ApiRateLimiter.ApiFamily.DESCRIBE, new ApiRateLimiter.Limit(2, 2, 0.5)),
+                                                         clock::get,
+                                                         waits::add);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            final List<CompletableFuture<Void>> callers = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                callers.add(CompletableFuture.runAsync(() -> shared.acquire(ApiRateLimiter.ApiFamily.DESCRIBE), executor));
+            }
+            callers.forEach(Concurrency::join);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(waits).allMatch(wait -> wait <= ApiRateLimiter.MAX_DELAY_NANOS);
+
+        // Once the longest wait has passed, the next caller waits no longer than one token takes to refill
+        clock.addAndGet(ApiRateLimiter.MAX_DELAY_NANOS);
+        waits.clear();
+        shared.acquire(ApiRateLimiter.ApiFamily.DESCRIBE);
+
+        assertThat(waits).containsExactly(SECOND / 2);
+    }
+
+    private void attempt(final AmazonWebServiceRequest original) {
+        limiter.beforeAttempt(HandlerBeforeAttemptContext.builder().withRequest(request(original)).build());
+    }
+
+    private void complete(final AmazonWebServiceRequest original, final Exception exception) {
+        limiter.afterAttempt(HandlerAfterAttemptContext.builder().withRequest(request(original)).withException(exception).build());
+    }
+
+    private static DefaultRequest<AmazonWebServiceRequest> request(final AmazonWebServiceRequest original) {
+        return new DefaultRequest<>(original, "RDS");
+    }
+}
@@ -0,0 +1,14 @@
+package software.amazon.rds.common;
+
+import java.util.Map;
+
+/**
+ * Work a handler scenario did, as counted by a {@link CountingProxy} or a module's simulated RDS account, for an
+ * {@link ApiBudget} to hold it to.
+ */
+public interface ApiUsage {
+    int getInvocations();
+
+    // Calls made per operation, e.g. "DescribeDBProxies"
+    Map<String, Integer> getApiCallsByOperation();
+}
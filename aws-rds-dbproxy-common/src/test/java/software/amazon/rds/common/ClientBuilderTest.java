@@ -0,0 +1,67 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.AmazonWebServiceClient;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.DBProxyNotFoundException;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+
+public class ClientBuilderTest {
+
+    @Test
+    public void getClient_reusesClientForSameKey() {
+        final AmazonRDS client = ClientBuilder.getClient("us-east-1", null);
+
+        assertThat(ClientBuilder.getClient("us-east-1", null)).isSameAs(client);
+    }
+
+    @Test
+    public void getClient_separatesClientsByRegionAndEndpoint() {
+        final AmazonRDS client = ClientBuilder.getClient("us-east-1", null);
+
+        assertThat(ClientBuilder.getClient("us-west-2", null)).isNotSameAs(client);
+        assertThat(ClientBuilder.getClient("us-east-1", "https://rds.us-east-1.amazonaws.com")).isNotSameAs(client);
+    }
+
+    @Test
+    public void getClient_sharedClientHasNoMetricsCollector() {
+        final AmazonWebServiceClient client = (AmazonWebServiceClient) ClientBuilder.getClient("us-east-1", null);
+
+        assertThat(client.getRequestMetricsCollector()).isNull();
+    }
+
+    @Test
+    public void metered_attachesEachViewsCollectorToItsRequests() {
+        final AmazonRDS client = mock(AmazonRDS.class);
+        final ApiMetrics first = new ApiMetrics("AWS::RDS::DBProxy");
+        final ApiMetrics second = new ApiMetrics("AWS::RDS::DBProxy");
+        final DescribeDBProxiesRequest firstRequest = new DescribeDBProxiesRequest();
+        final DescribeDBProxiesRequest secondRequest = new DescribeDBProxiesRequest();
+
+        ClientBuilder.metered(client, first).describeDBProxies(firstRequest);
+        ClientBuilder.metered(client, second).describeDBProxies(secondRequest);
+
+        verify(client, times(2)).describeDBProxies(any());
+        assertThat(firstRequest.getRequestMetricCollector()).isSameAs(first);
+        assertThat(secondRequest.getRequestMetricCollector()).isSameAs(second);
+    }
+
+    @Test
+    public void metered_rethrowsClientExceptions() {
+        final AmazonRDS client = mock(AmazonRDS.class);
+        when(client.describeDBProxies(any())).thenThrow(new DBProxyNotFoundException("not found"));
+
+        assertThatThrownBy(() -> ClientBuilder.metered(client, new ApiMetrics("AWS::RDS::DBProxy"))
+                                              .describeDBProxies(new DescribeDBProxiesRequest()))
+                .isInstanceOf(DBProxyNotFoundException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrencyTest {
+
+    @Test
+    public void boundedPool_runsOnNamedDaemonThreads() {
+        final ExecutorService executor = Concurrency.boundedPool("test", 2);
+        try {
+            final Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).join();
+
+            assertThat(thread.isDaemon()).isTrue();
+            assertThat(thread.getName()).startsWith("test-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void join_rethrowsRuntimeCause() {
+        final IllegalStateException exception = new IllegalStateException();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(exception);
+
+        assertThatThrownBy(() -> Concurrency.join(future)).isSameAs(exception);
+    }
+
+    @Test
+    public void join_keepsCheckedCauseWrapped() {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new Exception());
+
+        assertThatThrownBy(() -> Concurrency.join(future)).isInstanceOf(CompletionException.class);
+    }
+}
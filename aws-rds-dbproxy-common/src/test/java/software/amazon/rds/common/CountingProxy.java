@@ -0,0 +1,92 @@
+package software.amazon.rds.common;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.mockito.ArgumentMatchers;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.AmazonWebServiceResult;
+import com.amazonaws.ResponseMetadata;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Wraps a client proxy, typically a Mockito mock with stubbed responses, and counts the handler invocations made
+ * through it and the RDS calls made by operation, e.g. "DescribeDBProxies", so unit tests can hold handlers to an
+ * {@link ApiBudget}.
+ */
+public class CountingProxy implements ApiUsage {
+    /**
+     * The handleRequest method of a module's handlers, which each module generates its own BaseHandler for.
+     */
+    @FunctionalInterface
+    public interface Handler<M, C> {
+        ProgressEvent<M, C> handleRequest(AmazonWebServicesClientProxy proxy,
+                                          ResourceHandlerRequest<M> request,
+                                          C callbackContext,
+                                          Logger logger);
+    }
+
+    private final AmazonWebServicesClientProxy delegate;
+    private final AmazonWebServicesClientProxy proxy;
+    // Guarded by this
+    private final Map<String, Integer> apiCalls = new TreeMap<>();
+    private int invocations;
+
+    public CountingProxy(final AmazonWebServicesClientProxy delegate) {
+        this.delegate = delegate;
+        // Lenient, so a scenario that makes no calls does not fail a strict-stubs test for this stub going unused
+        this.proxy = mock(AmazonWebServicesClientProxy.class, withSettings().lenient());
+        doAnswer(invocation -> {
+            final AmazonWebServiceRequest request = invocation.getArgument(0);
+            final Function<AmazonWebServiceRequest, AmazonWebServiceResult<ResponseMetadata>> requestFunction = invocation.getArgument(1);
+            count(request);
+            return this.delegate.injectCredentialsAndInvoke(request, requestFunction);
+        }).when(proxy)
+          .injectCredentialsAndInvoke(any(AmazonWebServiceRequest.class),
+                                      ArgumentMatchers.<Function<AmazonWebServiceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+    }
+
+    /**
+     * The counting client proxy, for handlers that are invoked directly.
+     */
+    public AmazonWebServicesClientProxy proxy() {
+        return proxy;
+    }
+
+    /**
+     * Invokes the handler once through the counting client proxy, e.g. {@code handle(handler::handleRequest, ...)}.
+     */
+    public <M, C> ProgressEvent<M, C> handle(final Handler<M, C> handler,
+                                             final ResourceHandlerRequest<M> request,
+                                             final C context,
+                                             final Logger logger) {
+        synchronized (this) {
+            invocations++;
+        }
+        return handler.handleRequest(proxy, request, context, logger);
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getApiCallsByOperation() {
+        return new TreeMap<>(apiCalls);
+    }
+
+    @Override
+    public synchronized int getInvocations() {
+        return invocations;
+    }
+
+    private synchronized void count(final AmazonWebServiceRequest request) {
+        apiCalls.merge(request.getClass().getSimpleName().replaceFirst("Request$", ""), 1, Integer::sum);
+    }
+}
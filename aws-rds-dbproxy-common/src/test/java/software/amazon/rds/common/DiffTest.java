@@ -0,0 +1,77 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+import java.time.Duration;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class DiffTest {
+
+    @Test
+    public void of_reportsAddedRemovedAndChangedByKey() {
+        final List<Map.Entry<String, String>> current = ImmutableList.of(entry("kept", "1"), entry("changed", "old"), entry("gone", "2"));
+        final List<Map.Entry<String, String>> desired = ImmutableList.of(entry("kept", "1"), entry("changed", "new"), entry("fresh", "3"));
+
+        final Diff<String, String> diff = Diff.of(current, desired, Map.Entry::getKey, Map.Entry::getValue);
+
+        assertThat(diff.getAdded()).containsOnly(entry("fresh", "3"));
+        assertThat(diff.getRemoved()).containsOnly(entry("gone", "2"));
+        assertThat(diff.getChanged()).containsOnly(entry("changed", "new"));
+        assertThat(diff.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void of_identityKeysOnlyAddAndRemove() {
+        final List<String> current = new ArrayList<>(ImmutableList.of("a", "b"));
+        final List<String> desired = new ArrayList<>(ImmutableList.of("b", "c"));
+
+        final Diff<String, String> diff = Diff.of(current, desired);
+
+        assertThat(diff.getAdded().keySet()).containsExactly("c");
+        assertThat(diff.getRemoved().keySet()).containsExactly("a");
+        assertThat(diff.getChanged()).isEmpty();
+        assertThat(current).containsExactly("a", "b");
+        assertThat(desired).containsExactly("b", "c");
+    }
+
+    @Test
+    public void of_treatsNullAsEmpty() {
+        assertThat(Diff.of(null, null).isEmpty()).isTrue();
+        assertThat(Diff.of(null, ImmutableList.of("a")).getAdded().keySet()).containsExactly("a");
+        assertThat(Diff.of(ImmutableList.of("a"), null).getRemoved().keySet()).containsExactly("a");
+    }
+
+    @Test
+    public void of_scalesToLargeInputs() {
+        final int size = 50000;
+        final List<Map.Entry<String, String>> current = new ArrayList<>();
+        final List<Map.Entry<String, String>> desired = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            current.add(entry("key" + i, "value" + i));
+            // Shift the desired keys by a quarter and change every other shared value
+            int key = i + size / 4;
+            desired.add(entry("key" + key, key % 2 == 0 ? "value" + key : "changed" + key));
+        }
+
+        final Diff<String, String> diff = assertTimeout(Duration.ofSeconds(5),
+                () -> Diff.of(current, desired, Map.Entry::getKey, Map.Entry::getValue));
+
+        assertThat(diff.getAdded()).hasSize(size / 4);
+        assertThat(diff.getRemoved()).hasSize(size / 4);
+        assertThat(diff.getChanged()).hasSize(size * 3 / 8);
+        assertThat(diff.getAdded().keySet().iterator().next()).isEqualTo("key" + size);
+        assertThat(diff.getRemoved().keySet().iterator().next()).isEqualTo("key0");
+    }
+
+    private static Map.Entry<String, String> entry(final String key, final String value) {
+        return new SimpleEntry<>(key, value);
+    }
+}
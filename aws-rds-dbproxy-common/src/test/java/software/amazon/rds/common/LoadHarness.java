@@ -0,0 +1,211 @@
+package software.amazon.rds.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import lombok.Value;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Drives many resource lifecycles at once through shared handler instances, each resource against a simulated account
+ * of its own, and accounts for what every operation type cost: re-invocations, RDS calls per operation, time spent
+ * waiting out callback delays versus running, payload sizes and completion time. Time is simulated, so a fleet of
+ * hundreds of resources runs in seconds. Each handler module supplies the lifecycle of its resource type.
+ *
+ * @param <M> resource model of the handlers driven
+ * @param <C> callback context of those handlers
+ */
+public class LoadHarness<M, C> {
+    public static final String CREATE = "Create";
+    public static final String UPDATE = "Update";
+    public static final String DELETE = "Delete";
+
+    private final int parallelism;
+    // Guarded by this
+    private final Map<String, List<SimulatedRds<M, C>.Report>> reports = new TreeMap<>();
+
+    public LoadHarness(final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the lifecycle once for every resource, up to the harness parallelism at a time.
+     *
+     * @param accounts supplies a fresh account for each resource
+     */
+    public void run(final int resources, final Supplier<? extends SimulatedRds<M, C>> accounts, final Lifecycle<M, C> lifecycle) {
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            final List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (int i = 0; i < resources; i++) {
+                final int resource = i;
+                final SimulatedRds<M, C> rds = accounts.get();
+                final Driver<M, C> driver = (operationType, handler, request) -> {
+                    final SimulatedRds<M, C>.Report report = rds.drive(handler, request);
+                    record(operationType, report);
+                    return report;
+                };
+                runs.add(CompletableFuture.runAsync(() -> lifecycle.run(resource, driver), executor));
+            }
+            runs.forEach(Concurrency::join);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the cost of every operation type driven so far, keyed by operation type
+     */
+    public synchronized Map<String, Summary> summarize() {
+        final Map<String, Summary> summaries = new TreeMap<>();
+        reports.forEach((operationType, operationReports) -> summaries.put(operationType, Summary.of(operationReports)));
+        return summaries;
+    }
+
+    public String format() {
+        final StringBuilder table = new StringBuilder(String.format("%-8s %6s %6s %8s %8s %10s %10s %10s %10s %9s %9s %10s %10s%n",
+                                                                    "Type", "Ops", "Failed", "Invokes", "ReInvoke", "ApiCalls",
+                                                                    "Sleep(s)", "Api(s)", "Work(ms)", "AvgBytes", "MaxBytes",
+                                                                    "p50(s)", "p99(s)"));
+        final StringBuilder calls = new StringBuilder();
+        summarize().forEach((operationType, summary) -> {
+            table.append(String.format("%-8s %6d %6d %8d %8d %10d %10.1f %10.1f %10d %9d %9d %10.1f %10.1f%n",
+                                       operationType,
+                                       summary.getOperations(),
+                                       summary.getFailures(),
+                                       summary.getInvocations(),
+                                       summary.getReInvocations(),
+                                       summary.getApiCalls().values().stream().mapToInt(Integer::intValue).sum(),
+                                       summary.getSleepMillis() / 1000.0,
+                                       summary.getApiMillis() / 1000.0,
+                                       summary.getWorkMillis(),
+                                       summary.getMeanPayloadBytes(),
+                                       summary.getMaxPayloadBytes(),
+                                       summary.getP50CompletionMillis() / 1000.0,
+                                       summary.getP99CompletionMillis() / 1000.0));
+            calls.append(String.format("%-8s %s%n", operationType, summary.getApiCalls()));
+        });
+        return table.append(System.lineSeparator()).append(calls).toString();
+    }
+
+    /**
+     * Runs a fleet sized from the command line and prints what each operation type cost, for the modules' main methods.
+     *
+     * @param args number of resources (default 200) and how many run at once (default 16)
+     */
+    public static <M, C> void runFromCommandLine(final String[] args,
+                                                 final Supplier<? extends SimulatedRds<M, C>> accounts,
+                                                 final Lifecycle<M, C> lifecycle) {
+        final int resources = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final LoadHarness<M, C> harness = new LoadHarness<>(args.length > 1 ? Integer.parseInt(args[1]) : 16);
+        harness.run(resources, accounts, lifecycle);
+        System.out.print(harness.format());
+    }
+
+    private synchronized void record(final String operationType, final SimulatedRds<M, C>.Report report) {
+        reports.computeIfAbsent(operationType, k -> new ArrayList<>()).add(report);
+    }
+
+    /**
+     * Nearest-rank percentile of the given values.
+     */
+    static long percentile(final List<Long> values, final double percentile) {
+        if (values.isEmpty()) {
+            return 0L;
+        }
+        final List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+
+    /**
+     * The operations of one resource, from its creation to its deletion. Lifecycles share their handler instances
+     * across resources, as a warm container does.
+     */
+    @FunctionalInterface
+    public interface Lifecycle<M, C> {
+        void run(int resource, Driver<M, C> driver);
+    }
+
+    /**
+     * Drives one resource's operations against its own account, recording each under its operation type.
+     */
+    @FunctionalInterface
+    public interface Driver<M, C> {
+        SimulatedRds<M, C>.Report drive(String operationType, CountingProxy.Handler<M, C> handler, ResourceHandlerRequest<M> request);
+    }
+
+    @Value
+    public static class Summary {
+        int operations;
+        int failures;
+        int invocations;
+        Map<String, Integer> apiCalls;
+        // Waiting out callback delays, which is not billed
+        long sleepMillis;
+        // Waiting on RDS inside invocations, which is billed
+        long apiMillis;
+        // Running handler code inside invocations, which is billed
+        long workMillis;
+        int meanPayloadBytes;
+        int maxPayloadBytes;
+        long p50CompletionMillis;
+        long p99CompletionMillis;
+
+        static <M, C> Summary of(final List<SimulatedRds<M, C>.Report> reports) {
+            final Map<String, Integer> apiCalls = new TreeMap<>();
+            final List<Long> completionMillis = new ArrayList<>();
+            int failures = 0;
+            int invocations = 0;
+            long sleepMillis = 0;
+            long workNanos = 0;
+            long payloadBytes = 0;
+            int maxPayloadBytes = 0;
+            for (SimulatedRds<M, C>.Report report : reports) {
+                report.getApiCallsByOperation().forEach((operation, count) -> apiCalls.merge(operation, count, Integer::sum));
+                completionMillis.add(report.getSimulatedMillis());
+                failures += report.getEvent().isFailed() ? 1 : 0;
+                invocations += report.getInvocations();
+                sleepMillis += report.getSleepMillis();
+                workNanos += report.getWorkNanos();
+                payloadBytes += report.getPayloadBytes();
+                maxPayloadBytes = Math.max(maxPayloadBytes, report.getMaxPayloadBytes());
+            }
+            final long simulatedMillis = completionMillis.stream().mapToLong(Long::longValue).sum();
+            return new Summary(reports.size(),
+                               failures,
+                               invocations,
+                               apiCalls,
+                               sleepMillis,
+                               simulatedMillis - sleepMillis,
+                               TimeUnit.NANOSECONDS.toMillis(workNanos),
+                               invocations == 0 ? 0 : (int) (payloadBytes / invocations),
+                               maxPayloadBytes,
+                               percentile(completionMillis, 50),
+                               percentile(completionMillis, 99));
+        }
+
+        /**
+         * Invocations beyond the first of each operation.
+         */
+        public int getReInvocations() {
+            return invocations - operations;
+        }
+
+        /**
+         * Billed Lambda time: waiting on RDS and running handler code, but not waiting out callback delays.
+         */
+        public double getLambdaSeconds() {
+            return (apiMillis + workMillis) / 1000.0;
+        }
+    }
+}
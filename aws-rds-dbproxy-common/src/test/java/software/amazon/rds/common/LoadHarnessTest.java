@@ -0,0 +1,96 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.exceptions.CfnNotFoundException;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+public class LoadHarnessTest {
+    private static final int RESOURCES = 20;
+    private static final int CALLBACK_DELAY_SECONDS = 5;
+
+    // Describes the proxy, waits out one callback delay, then describes it again
+    private static final CountingProxy.Handler<String, Integer> CREATE_HANDLER = (proxy, request, context, logger) -> {
+        proxy.injectCredentialsAndInvoke(new DescribeDBProxiesRequest(), ClientBuilder.getClient(null)::describeDBProxies);
+        return context == null
+               ? ProgressEvent.defaultInProgressHandler(1, CALLBACK_DELAY_SECONDS, request.getDesiredResourceState())
+               : ProgressEvent.defaultSuccessHandler(request.getDesiredResourceState());
+    };
+    private static final CountingProxy.Handler<String, Integer> DELETE_HANDLER = (proxy, request, context, logger) -> {
+        proxy.injectCredentialsAndInvoke(new DescribeDBProxiesRequest(), ClientBuilder.getClient(null)::describeDBProxies);
+        return ProgressEvent.defaultFailureHandler(new CfnNotFoundException("AWS::RDS::DBProxy", request.getDesiredResourceState()),
+                                                   HandlerErrorCode.NotFound);
+    };
+
+    @Test
+    public void run_accountsForEveryOperationType() {
+        final LoadHarness<String, Integer> harness = new LoadHarness<>(4);
+
+        harness.run(RESOURCES, Account::new, (resource, driver) -> {
+            driver.drive(LoadHarness.CREATE, CREATE_HANDLER, request(resource));
+            if (resource % 2 == 0) {
+                driver.drive(LoadHarness.DELETE, DELETE_HANDLER, request(resource));
+            }
+        });
+
+        final Map<String, LoadHarness.Summary> summaries = harness.summarize();
+        assertThat(summaries).containsOnlyKeys(LoadHarness.CREATE, LoadHarness.DELETE);
+
+        final LoadHarness.Summary create = summaries.get(LoadHarness.CREATE);
+        final long createMillis = CALLBACK_DELAY_SECONDS * 1000L + 2 * SimulatedRds.DEFAULT_LATENCY_MILLIS;
+        assertThat(create.getOperations()).isEqualTo(RESOURCES);
+        assertThat(create.getFailures()).isZero();
+        assertThat(create.getInvocations()).isEqualTo(2 * RESOURCES);
+        assertThat(create.getReInvocations()).isEqualTo(RESOURCES);
+        assertThat(create.getApiCalls()).containsOnly(entry("DescribeDBProxies", 2 * RESOURCES));
+        assertThat(create.getSleepMillis()).isEqualTo(RESOURCES * CALLBACK_DELAY_SECONDS * 1000L);
+        assertThat(create.getApiMillis()).isEqualTo(RESOURCES * 2 * SimulatedRds.DEFAULT_LATENCY_MILLIS);
+        assertThat(create.getLambdaSeconds()).isGreaterThanOrEqualTo(create.getApiMillis() / 1000.0);
+        assertThat(create.getMeanPayloadBytes()).isPositive().isLessThanOrEqualTo(create.getMaxPayloadBytes());
+        assertThat(create.getP50CompletionMillis()).isEqualTo(createMillis);
+        assertThat(create.getP99CompletionMillis()).isEqualTo(createMillis);
+
+        final LoadHarness.Summary delete = summaries.get(LoadHarness.DELETE);
+        assertThat(delete.getOperations()).isEqualTo(RESOURCES / 2);
+        assertThat(delete.getFailures()).isEqualTo(RESOURCES / 2);
+        assertThat(delete.getReInvocations()).isZero();
+        assertThat(delete.getSleepMillis()).isZero();
+
+        assertThat(harness.format()).contains("p99(s)", LoadHarness.CREATE, "DescribeDBProxies=" + 2 * RESOURCES);
+    }
+
+    @Test
+    public void percentile_usesNearestRank() {
+        assertThat(LoadHarness.percentile(ImmutableList.of(), 50)).isZero();
+        assertThat(LoadHarness.percentile(ImmutableList.of(5L), 99)).isEqualTo(5L);
+        assertThat(LoadHarness.percentile(ImmutableList.of(4L, 1L, 3L, 2L), 50)).isEqualTo(2L);
+        assertThat(LoadHarness.percentile(ImmutableList.of(4L, 1L, 3L, 2L), 99)).isEqualTo(4L);
+    }
+
+    private static ResourceHandlerRequest<String> request(final int resource) {
+        return ResourceHandlerRequest.<String>builder().desiredResourceState("proxy-" + resource).build();
+    }
+
+    private static class Account extends SimulatedRds<String, Integer> {
+        Account() {
+            super(new TypeReference<Integer>() {});
+        }
+
+        @Override
+        public DescribeDBProxiesResult describeDBProxies(final DescribeDBProxiesRequest request) {
+            return new DescribeDBProxiesResult().withDBProxies(new DBProxy());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.Data;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+public class OperationDeadlineTest {
+
+    @Test
+    public void start_setsDeadlineOnce() {
+        final Context started = OperationDeadline.start(new Context(), clockAt(1000L));
+
+        assertThat(started.getOperationStartTime()).isEqualTo(1000L);
+        assertThat(started.getOperationDeadline()).isEqualTo(1000L + OperationDeadline.TIMEOUT_IN_MS);
+
+        OperationDeadline.start(started, clockAt(5000L));
+
+        assertThat(started.getOperationStartTime()).isEqualTo(1000L);
+        assertThat(started.getOperationDeadline()).isEqualTo(1000L + OperationDeadline.TIMEOUT_IN_MS);
+    }
+
+    @Test
+    public void isPassed() {
+        final Context context = new Context();
+        context.setOperationDeadline(2000L);
+
+        assertThat(OperationDeadline.isPassed(context, clockAt(1999L))).isFalse();
+        assertThat(OperationDeadline.isPassed(context, clockAt(2000L))).isTrue();
+        assertThat(OperationDeadline.isPassed(new Context(), clockAt(2000L))).isFalse();
+    }
+
+    @Test
+    public void elapsedMillis() {
+        final Context context = new Context();
+
+        assertThat(OperationDeadline.elapsedMillis(context, clockAt(2000L))).isEqualTo(0L);
+
+        context.setOperationStartTime(500L);
+
+        assertThat(OperationDeadline.elapsedMillis(context, clockAt(2000L))).isEqualTo(1500L);
+    }
+
+    @Test
+    public void carry_capsDelayAtDeadline() {
+        final Context context = new Context();
+        context.setOperationStartTime(0L);
+        context.setOperationDeadline(30 * 1000L);
+
+        final ProgressEvent<String, Context> event = OperationDeadline.carry(inProgress(60), context, clockAt(20 * 1000L));
+
+        assertThat(event.getCallbackDelaySeconds()).isEqualTo(10);
+        assertThat(event.getCallbackContext().getOperationStartTime()).isEqualTo(0L);
+        assertThat(event.getCallbackContext().getOperationDeadline()).isEqualTo(30 * 1000L);
+        assertThat(OperationDeadline.carry(inProgress(5), context, clockAt(20 * 1000L)).getCallbackDelaySeconds()).isEqualTo(5);
+    }
+
+    private static Clock clockAt(final long millis) {
+        return Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static ProgressEvent<String, Context> inProgress(final int callbackDelaySeconds) {
+        return ProgressEvent.<String, Context>builder()
+                            .status(OperationStatus.IN_PROGRESS)
+                            .callbackContext(new Context())
+                            .callbackDelaySeconds(callbackDelaySeconds)
+                            .build();
+    }
+
+    @Data
+    private static class Context implements DeadlineContext {
+        private Long operationStartTime;
+        private Long operationDeadline;
+    }
+}
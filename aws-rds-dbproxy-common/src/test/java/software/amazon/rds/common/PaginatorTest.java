@@ -0,0 +1,62 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class PaginatorTest {
+    private final AtomicInteger prefetched = new AtomicInteger();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void read_readsEveryPageBelowTheCap() {
+        final List<Integer> pages = new ArrayList<>();
+
+        final String nextToken = paginator(10).read(null, this::fetch, page -> page < 3 ? String.valueOf(page + 1) : null, pages::add);
+
+        assertThat(nextToken).isNull();
+        assertThat(pages).containsExactly(0, 1, 2, 3);
+        assertThat(prefetched.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void read_returnsMarkerOfFirstUnreadPage() {
+        final List<Integer> pages = new ArrayList<>();
+
+        final String nextToken = paginator(2).read("5", this::fetch, page -> String.valueOf(page + 1), pages::add);
+
+        assertThat(nextToken).isEqualTo("7");
+        assertThat(pages).containsExactly(5, 6);
+    }
+
+    @Test
+    public void read_singlePageDoesNotPrefetch() {
+        final String nextToken = paginator(1).read(null, this::fetch, page -> String.valueOf(page + 1), page -> { });
+
+        assertThat(nextToken).isEqualTo("1");
+        assertThat(prefetched.get()).isEqualTo(0);
+    }
+
+    private Paginator paginator(final int maxPages) {
+        return new Paginator(maxPages, runnable -> {
+            prefetched.incrementAndGet();
+            executor.execute(runnable);
+        });
+    }
+
+    private Integer fetch(final String marker) {
+        return marker == null ? 0 : Integer.valueOf(marker);
+    }
+}
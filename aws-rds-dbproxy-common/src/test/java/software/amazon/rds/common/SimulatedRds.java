@@ -0,0 +1,424 @@
+package software.amazon.rds.common;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.mockito.ArgumentMatchers;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.AmazonWebServiceResult;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.rds.AbstractAmazonRDS;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.AmazonRDSException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.Value;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.resource.Serializer;
+
+/**
+ * In-process RDS account the modules' lifecycle tests and load harnesses drive handlers against. Subclasses implement
+ * the RDS operations of their resource type; this class serves them on a simulated clock, which advances by the latency
+ * of every call and by the callback delay between handler invocations, so full lifecycles run offline in
+ * milliseconds. Latencies, throttling and failures are configurable per operation.
+ *
+ * Handlers reach the account the way they reach RDS: {@link ClientBuilder#getClient(RequestMetricCollector)} hands it
+ * out, viewed through the handler's metrics collector. Every attempt then takes a token from an {@link ApiRateLimiter}
+ * with the production limits, failed attempts are retried as the production client's retry policy retries them, and
+ * each call is reported to the handler's {@link ApiMetrics}. Waiting for a token and backing off between retries take
+ * simulated time too.
+ *
+ * Attempts are applied one at a time, so handlers may call the account from several threads at once. Subclasses
+ * keep their resources in fields guarded by this, and synchronize the accessors tests read them through.
+ *
+ * @param <M> resource model of the handlers driven against the account
+ * @param <C> callback context of those handlers
+ */
+public abstract class SimulatedRds<M, C> extends AbstractAmazonRDS {
+    public static final long DEFAULT_LATENCY_MILLIS = 100;
+    // Guards against handlers that never stop asking to be re-invoked
+    public static final int MAX_INVOCATIONS = 1000;
+
+    private static final String SERVICE_NAME = "RDS";
+    private static final String REQUEST_SUFFIX = "Request";
+
+    private final TypeReference<C> contextType;
+    private final Serializer serializer = new Serializer();
+    private final ApiRateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final AmazonRDS client;
+
+    // Guarded by this
+    private final Map<String, Long> latencies = new HashMap<>();
+    private final Map<String, Integer> throttles = new HashMap<>();
+    private final Map<String, Deque<RuntimeException>> failures = new HashMap<>();
+    private final Map<String, Integer> apiCalls = new TreeMap<>();
+    private long nowNanos;
+    private int maxErrorRetry;
+
+    /**
+     * @param contextType type of the callback context, which is serialized between invocations as CloudFormation does
+     */
+    protected SimulatedRds(final TypeReference<C> contextType) {
+        final ClientConfiguration configuration = ClientBuilder.clientConfiguration();
+        this.contextType = contextType;
+        this.rateLimiter = new ApiRateLimiter(ClientBuilder.RATE_LIMITS, this::nanoTime, this::advance);
+        this.retryPolicy = configuration.getRetryPolicy();
+        this.maxErrorRetry = configuration.getMaxErrorRetry() >= 0
+                             ? configuration.getMaxErrorRetry()
+                             : retryPolicy.getMaxErrorRetry();
+        this.client = (AmazonRDS) Proxy.newProxyInstance(AmazonRDS.class.getClassLoader(), new Class<?>[] {AmazonRDS.class},
+                                                         (view, method, args) -> {
+            if (args != null && args.length == 1 && args[0] instanceof AmazonWebServiceRequest
+                && method.getReturnType() != ResponseMetadata.class) {
+                return call(method, (AmazonWebServiceRequest) args[0]);
+            }
+            return invoke(method, args);
+        });
+    }
+
+    /**
+     * Sets the simulated latency of every attempt at an operation, e.g. "DescribeDBProxies".
+     */
+    public synchronized SimulatedRds<M, C> latency(final String operation, final long millis) {
+        latencies.put(operation, millis);
+        return this;
+    }
+
+    /**
+     * Rejects the next attempts at an operation with a throttling error. The client retries throttled attempts, so the
+     * handler only sees the error once more attempts are throttled than the client retries.
+     */
+    public synchronized SimulatedRds<M, C> throttle(final String operation, final int times) {
+        throttles.put(operation, times);
+        return this;
+    }
+
+    /**
+     * Fails the next attempt at an operation with the given exception. Failures queue up in the order they are added.
+     */
+    public synchronized SimulatedRds<M, C> fail(final String operation, final RuntimeException failure) {
+        failures.computeIfAbsent(operation, k -> new ArrayDeque<>()).add(failure);
+        return this;
+    }
+
+    /**
+     * Sets how many times the client retries a failed call, e.g. 0 to hand the handler every throttling error as it
+     * does once the client has used up its retries.
+     */
+    public synchronized SimulatedRds<M, C> maxErrorRetry(final int retries) {
+        maxErrorRetry = retries;
+        return this;
+    }
+
+    /**
+     * Current simulated time, in milliseconds since the account was created.
+     */
+    public synchronized long now() {
+        return TimeUnit.NANOSECONDS.toMillis(nowNanos);
+    }
+
+    /**
+     * A clock reading the simulated time, for handlers that keep deadlines.
+     */
+    public Clock clock() {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(final ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now());
+            }
+        };
+    }
+
+    /**
+     * Attempts made per operation, including the ones that were throttled or failed.
+     */
+    public synchronized Map<String, Integer> getApiCalls() {
+        return new TreeMap<>(apiCalls);
+    }
+
+    public synchronized int totalApiCalls() {
+        return apiCalls.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public ApiRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * The account as the handlers see it: every call goes through the rate limiter, the retry policy and the metrics
+     * collector of the request.
+     */
+    public AmazonRDS client() {
+        return client;
+    }
+
+    /**
+     * A client proxy that applies each request function the handlers pass it, as CloudFormation's does.
+     */
+    public AmazonWebServicesClientProxy clientProxy() {
+        final AmazonWebServicesClientProxy proxy = mock(AmazonWebServicesClientProxy.class);
+        doAnswer(invocation -> {
+            final Function<AmazonWebServiceRequest, AmazonWebServiceResult<ResponseMetadata>> requestFunction = invocation.getArgument(1);
+            return requestFunction.apply(invocation.getArgument(0));
+        }).when(proxy)
+          .injectCredentialsAndInvoke(any(AmazonWebServiceRequest.class),
+                                      ArgumentMatchers.<Function<AmazonWebServiceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        return proxy;
+    }
+
+    /**
+     * Invokes the handler the way CloudFormation does: re-invoking it with the serialized callback context after each
+     * callback delay, until it stops reporting progress, with {@link ClientBuilder} handing out this account on the
+     * calling thread. Exceptions escaping the handler become failure events. The report accounts for the calls made,
+     * the time spent waiting between invocations and inside them, and the size of what CloudFormation sends to each
+     * invocation.
+     */
+    public Report drive(final CountingProxy.Handler<M, C> handler, final ResourceHandlerRequest<M> request) {
+        final AmazonWebServicesClientProxy proxy = clientProxy();
+        final Logger logger = mock(Logger.class);
+        final Map<String, Integer> callsBefore = getApiCalls();
+        final long start = now();
+
+        int invocations = 0;
+        long sleepMillis = 0;
+        long workNanos = 0;
+        long payloadBytes = 0;
+        int maxPayloadBytes = 0;
+        C context = null;
+        ProgressEvent<M, C> event;
+        ClientBuilder.overrideClient(client);
+        try {
+            do {
+                if (invocations == MAX_INVOCATIONS) {
+                    throw new AssertionError("Handler still in progress after " + MAX_INVOCATIONS + " invocations");
+                }
+                invocations++;
+                final int invocationPayloadBytes = payloadBytes(request, context);
+                payloadBytes += invocationPayloadBytes;
+                maxPayloadBytes = Math.max(maxPayloadBytes, invocationPayloadBytes);
+
+                final long invokedAtNanos = System.nanoTime();
+                event = invokeHandler(handler, proxy, request, context, logger);
+                workNanos += System.nanoTime() - invokedAtNanos;
+
+                context = roundTrip(event.getCallbackContext());
+                sleepMillis += event.getCallbackDelaySeconds() * 1000L;
+                advance(TimeUnit.SECONDS.toNanos(event.getCallbackDelaySeconds()));
+            } while (event.isInProgress());
+        } finally {
+            ClientBuilder.overrideClient(null);
+        }
+
+        final Map<String, Integer> calls = new TreeMap<>();
+        getApiCalls().forEach((operation, count) -> {
+            final int made = count - callsBefore.getOrDefault(operation, 0);
+            if (made > 0) {
+                calls.put(operation, made);
+            }
+        });
+        return new Report(event, invocations, calls.values().stream().mapToInt(Integer::intValue).sum(), now() - start,
+                          calls, sleepMillis, workNanos, payloadBytes, maxPayloadBytes);
+    }
+
+    // One call as the production client makes it: an attempt per retry, each behind the rate limiter
+    private Object call(final Method method, final AmazonWebServiceRequest request) {
+        final String operation = operationName(request);
+        final Request<AmazonWebServiceRequest> sdkRequest = new DefaultRequest<>(request, SERVICE_NAME);
+        sdkRequest.addHandlerContext(HandlerContextKey.OPERATION_NAME, operation);
+        final long startNanos = nanoTime();
+
+        int throttled = 0;
+        for (int retries = 0; ; retries++) {
+            rateLimiter.beforeAttempt(HandlerBeforeAttemptContext.builder().withRequest(sdkRequest).build());
+            try {
+                final Object result = attempt(operation, method, request);
+                rateLimiter.afterAttempt(HandlerAfterAttemptContext.builder().withRequest(sdkRequest).build());
+                record(request, operation, startNanos, retries, throttled, null);
+                return result;
+            } catch (RuntimeException e) {
+                rateLimiter.afterAttempt(HandlerAfterAttemptContext.builder().withRequest(sdkRequest).withException(e).build());
+                final boolean serviceError = e instanceof AmazonServiceException;
+                if (serviceError && RetryUtils.isThrottlingException((AmazonServiceException) e)) {
+                    throttled++;
+                }
+                if (!retryable(request, e, retries)) {
+                    record(request, operation, startNanos, retries, throttled,
+                           serviceError ? ((AmazonServiceException) e).getErrorCode() : e.getClass().getSimpleName());
+                    throw e;
+                }
+                advance(TimeUnit.MILLISECONDS.toNanos(retryPolicy.getBackoffStrategy()
+                                                                 .delayBeforeNextRetry(request, (AmazonClientException) e, retries)));
+            }
+        }
+    }
+
+    private synchronized Object attempt(final String operation, final Method method, final AmazonWebServiceRequest request) {
+        apiCalls.merge(operation, 1, Integer::sum);
+        nowNanos += TimeUnit.MILLISECONDS.toNanos(latencies.getOrDefault(operation, DEFAULT_LATENCY_MILLIS));
+
+        if (throttles.getOrDefault(operation, 0) > 0) {
+            throttles.merge(operation, -1, Integer::sum);
+            final AmazonRDSException throttled = new AmazonRDSException("Rate exceeded");
+            throttled.setErrorCode("Throttling");
+            throttled.setStatusCode(400);
+            throw throttled;
+        }
+        final Deque<RuntimeException> pending = failures.get(operation);
+        if (pending != null && !pending.isEmpty()) {
+            throw pending.poll();
+        }
+        return invoke(method, new Object[] {request});
+    }
+
+    private synchronized boolean retryable(final AmazonWebServiceRequest request, final RuntimeException e, final int retries) {
+        return e instanceof AmazonClientException
+               && retries < maxErrorRetry
+               && retryPolicy.getRetryCondition().shouldRetry(request, (AmazonClientException) e, retries);
+    }
+
+    // Subclasses implement the operations of their resource type; the rest throw UnsupportedOperationException
+    private Object invoke(final Method method, final Object[] args) {
+        try {
+            return method.invoke(this, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void record(final AmazonWebServiceRequest request,
+                        final String operation,
+                        final long startNanos,
+                        final int retries,
+                        final int throttled,
+                        final String errorCode) {
+        if (request.getRequestMetricCollector() instanceof ApiMetrics) {
+            ((ApiMetrics) request.getRequestMetricCollector()).record(operation,
+                                                                      TimeUnit.NANOSECONDS.toMillis(nanoTime() - startNanos),
+                                                                      retries,
+                                                                      throttled,
+                                                                      errorCode);
+        }
+    }
+
+    private synchronized long nanoTime() {
+        return nowNanos;
+    }
+
+    private synchronized void advance(final long nanos) {
+        nowNanos += nanos;
+    }
+
+    private ProgressEvent<M, C> invokeHandler(final CountingProxy.Handler<M, C> handler,
+                                              final AmazonWebServicesClientProxy proxy,
+                                              final ResourceHandlerRequest<M> request,
+                                              final C context,
+                                              final Logger logger) {
+        try {
+            return handler.handleRequest(proxy, request, context, logger);
+        } catch (AmazonServiceException e) {
+            return ProgressEvent.defaultFailureHandler(e, RetryUtils.isThrottlingException(e)
+                                                          ? HandlerErrorCode.Throttling
+                                                          : HandlerErrorCode.GeneralServiceException);
+        } catch (RuntimeException e) {
+            return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.InternalFailure);
+        }
+    }
+
+    // The models and the callback context are what CloudFormation serializes into every invocation
+    private int payloadBytes(final ResourceHandlerRequest<M> request, final C context) {
+        try {
+            int bytes = 0;
+            for (Object part : new Object[] {request.getDesiredResourceState(), request.getPreviousResourceState(), context}) {
+                if (part != null) {
+                    bytes += serializer.serialize(part).length();
+                }
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private C roundTrip(final C context) {
+        if (context == null) {
+            return null;
+        }
+        try {
+            return serializer.deserialize(serializer.serialize(context), contextType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String operationName(final AmazonWebServiceRequest request) {
+        final String requestClass = request.getClass().getSimpleName();
+        return requestClass.endsWith(REQUEST_SUFFIX)
+               ? requestClass.substring(0, requestClass.length() - REQUEST_SUFFIX.length())
+               : requestClass;
+    }
+
+    @Value
+    public class Report implements ApiUsage {
+        ProgressEvent<M, C> event;
+        int invocations;
+        int apiCalls;
+        long simulatedMillis;
+        // Calls made per operation, e.g. "DescribeDBProxies"
+        Map<String, Integer> apiCallsByOperation;
+        // Simulated time spent between invocations, waiting out callback delays
+        long sleepMillis;
+        // Real time spent inside the handler, excluding the simulated latency of its calls
+        long workNanos;
+        long payloadBytes;
+        int maxPayloadBytes;
+    }
+}
@@ -0,0 +1,127 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableMap;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+public class SimulatedRdsTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PROXY_NAME = "proxy";
+
+    private Account rds;
+    private ApiMetrics metrics;
+
+    @BeforeEach
+    public void setup() {
+        rds = new Account();
+        metrics = new ApiMetrics("Test/Namespace", "AWS::RDS::DBProxy");
+    }
+
+    @Test
+    public void drive_servesHandlersThroughClientBuilder() {
+        final Account.Report report = rds.drive(describeHandler(), request());
+
+        assertThat(report.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(report.getEvent().getResourceModel()).isEqualTo(PROXY_NAME);
+        assertThat(report.getApiCallsByOperation()).containsOnly(entry("DescribeDBProxies", 1));
+        assertThat(report.getSimulatedMillis()).isEqualTo(SimulatedRds.DEFAULT_LATENCY_MILLIS);
+    }
+
+    @Test
+    public void drive_retriesThrottledAttemptsAndReportsThemToTheMetrics() throws IOException {
+        rds.throttle("DescribeDBProxies", 2);
+
+        final Account.Report report = rds.drive(describeHandler(), request());
+
+        assertThat(report.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(report.getApiCallsByOperation()).containsOnly(entry("DescribeDBProxies", 3));
+        // Every attempt takes its latency, and the client backs off between them
+        assertThat(report.getSimulatedMillis()).isGreaterThan(3 * SimulatedRds.DEFAULT_LATENCY_MILLIS);
+        assertThat(rds.getRateLimiter().getThrottledCalls()).isEqualTo(2);
+
+        final Map<String, Object> document = flush();
+        assertThat(document.get("Calls")).isEqualTo(1);
+        assertThat(document.get("Retries")).isEqualTo(2);
+        assertThat(document.get("Throttles")).isEqualTo(2);
+        assertThat(document.get("Errors")).isEqualTo(0);
+    }
+
+    @Test
+    public void drive_surfacesThrottlingOnceRetriesAreUsedUp() throws IOException {
+        rds.maxErrorRetry(1).throttle("DescribeDBProxies", 5);
+
+        final Account.Report report = rds.drive(describeHandler(), request());
+
+        assertThat(report.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(report.getEvent().getErrorCode()).isEqualTo(HandlerErrorCode.Throttling);
+        assertThat(report.getApiCallsByOperation()).containsOnly(entry("DescribeDBProxies", 2));
+
+        final Map<String, Object> document = flush();
+        assertThat(document.get("Errors")).isEqualTo(1);
+        assertThat(document.get("ErrorCodes")).isEqualTo(ImmutableMap.of("Throttling", 1));
+    }
+
+    @Test
+    public void client_waitsForTokensOnTheSimulatedClock() {
+        rds.latency("DescribeDBProxies", 0);
+        final int burst = (int) ClientBuilder.RATE_LIMITS.get(ApiRateLimiter.ApiFamily.DESCRIBE).getBurst();
+
+        for (int i = 0; i < burst + 10; i++) {
+            rds.client().describeDBProxies(new DescribeDBProxiesRequest());
+        }
+
+        // The burst goes through at once; the ten calls after it take a token every 100 ms at 10 calls per second
+        assertThat(rds.getRateLimiter().getDelayedCalls()).isEqualTo(10);
+        assertThat(rds.now()).isEqualTo(1000);
+    }
+
+    private CountingProxy.Handler<String, Integer> describeHandler() {
+        return (proxy, request, context, logger) -> {
+            final AmazonRDS client = ClientBuilder.getClient(metrics);
+            final DescribeDBProxiesResult result = proxy.injectCredentialsAndInvoke(new DescribeDBProxiesRequest(),
+                                                                                    client::describeDBProxies);
+            return ProgressEvent.defaultSuccessHandler(result.getDBProxies().get(0).getDBProxyName());
+        };
+    }
+
+    private Map<String, Object> flush() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        metrics.flush(lines::add);
+        assertThat(lines).hasSize(1);
+        return MAPPER.readValue(lines.get(0), new TypeReference<Map<String, Object>>() {});
+    }
+
+    private static ResourceHandlerRequest<String> request() {
+        return ResourceHandlerRequest.<String>builder().desiredResourceState(PROXY_NAME).build();
+    }
+
+    private static class Account extends SimulatedRds<String, Integer> {
+        Account() {
+            super(new TypeReference<Integer>() {});
+        }
+
+        @Override
+        public DescribeDBProxiesResult describeDBProxies(final DescribeDBProxiesRequest request) {
+            return new DescribeDBProxiesResult().withDBProxies(new DBProxy().withDBProxyName(PROXY_NAME));
+        }
+    }
+}
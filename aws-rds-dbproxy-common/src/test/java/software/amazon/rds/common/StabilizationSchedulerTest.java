@@ -0,0 +1,39 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class StabilizationSchedulerTest {
+
+    private final StabilizationScheduler scheduler = StabilizationScheduler.builder()
+                                                                           .initialDelay("creating", 10)
+                                                                           .defaultInitialDelaySeconds(4)
+                                                                           .maxDelaySeconds(60)
+                                                                           .backoffMultiplier(2.0)
+                                                                           .jitterRatio(0)
+                                                                           .build();
+
+    @Test
+    public void nextDelaySeconds_backsOffFromStatusDelay() {
+        assertThat(scheduler.nextDelaySeconds("creating", 0)).isEqualTo(10);
+        assertThat(scheduler.nextDelaySeconds("CREATING", 1)).isEqualTo(20);
+        assertThat(scheduler.nextDelaySeconds("creating", 2)).isEqualTo(40);
+        assertThat(scheduler.nextDelaySeconds("creating", 10)).isEqualTo(60);
+    }
+
+    @Test
+    public void nextDelaySeconds_usesDefaultForUnknownStatus() {
+        assertThat(scheduler.nextDelaySeconds("modifying", 0)).isEqualTo(4);
+        assertThat(scheduler.nextDelaySeconds(null, 1)).isEqualTo(8);
+    }
+
+    @Test
+    public void nextDelaySeconds_jitterStaysWithinRatio() {
+        final StabilizationScheduler jittered = scheduler.toBuilder().jitterRatio(0.5).build();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(jittered.nextDelaySeconds("creating", 0)).isBetween(5, 10);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+public class StepFusionTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(0L), ZoneOffset.UTC);
+
+    @Test
+    public void run_stopsAtFirstStepThatWaits() {
+        final AtomicInteger steps = new AtomicInteger();
+
+        final ProgressEvent<String, Integer> event = StepFusion.run(
+                step -> inProgress(step + 1, steps.incrementAndGet() < 3 ? 0 : 5),
+                0,
+                CLOCK,
+                StepFusion.DEFAULT_BUDGET_IN_MS);
+
+        assertThat(steps.get()).isEqualTo(3);
+        assertThat(event.getCallbackDelaySeconds()).isEqualTo(5);
+    }
+
+    @Test
+    public void run_stopsOnceBudgetIsSpent() {
+        final AtomicInteger steps = new AtomicInteger();
+
+        final ProgressEvent<String, Integer> event = StepFusion.run(
+                step -> {
+                    steps.incrementAndGet();
+                    return inProgress(step + 1, 0);
+                },
+                0,
+                CLOCK,
+                0);
+
+        assertThat(steps.get()).isEqualTo(1);
+        assertThat(event.isInProgress()).isTrue();
+    }
+
+    @Test
+    public void run_stopsOnSuccess() {
+        final AtomicInteger steps = new AtomicInteger();
+
+        final ProgressEvent<String, Integer> event = StepFusion.run(
+                step -> steps.incrementAndGet() < 2
+                        ? inProgress(step + 1, 0)
+                        : ProgressEvent.<String, Integer>builder().status(OperationStatus.SUCCESS).build(),
+                0,
+                CLOCK,
+                StepFusion.DEFAULT_BUDGET_IN_MS);
+
+        assertThat(steps.get()).isEqualTo(2);
+        assertThat(event.isSuccess()).isTrue();
+    }
+
+    @Test
+    public void run_returnsLastCheckpointWhenLaterStepThrows() {
+        final ProgressEvent<String, Integer> event = StepFusion.run(
+                step -> {
+                    if (step == 2) {
+                        throw new IllegalStateException();
+                    }
+                    return inProgress(step + 1, 0);
+                },
+                0,
+                CLOCK,
+                StepFusion.DEFAULT_BUDGET_IN_MS);
+
+        assertThat(event.isInProgress()).isTrue();
+        assertThat(event.getCallbackContext()).isEqualTo(2);
+    }
+
+    @Test
+    public void run_rethrowsWhenFirstStepThrows() {
+        final IllegalStateException exception = new IllegalStateException();
+
+        assertThatThrownBy(() -> StepFusion.run(step -> {
+            throw exception;
+        }, 0, CLOCK, StepFusion.DEFAULT_BUDGET_IN_MS)).isSameAs(exception);
+    }
+
+    private static ProgressEvent<String, Integer> inProgress(final int step, final int callbackDelaySeconds) {
+        return ProgressEvent.<String, Integer>builder()
+                            .status(OperationStatus.IN_PROGRESS)
+                            .callbackContext(step)
+                            .callbackDelaySeconds(callbackDelaySeconds)
+                            .build();
+    }
+}
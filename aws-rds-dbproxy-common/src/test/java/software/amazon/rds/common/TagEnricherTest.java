@@ -0,0 +1,102 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceResult;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.ListTagsForResourceRequest;
+import com.amazonaws.services.rds.model.ListTagsForResourceResult;
+import com.amazonaws.services.rds.model.Tag;
+import com.google.common.collect.ImmutableList;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+
+public class TagEnricherTest {
+    private AmazonWebServicesClientProxy proxy;
+    private AmazonRDS rdsClient;
+
+    private final TagEnricher<Model> tagEnricher = TagEnricher.<Model>builder()
+                                                              .maxAttempts(2)
+                                                              .baseBackoffMillis(1L)
+                                                              .resourceArn(Model::getArn)
+                                                              .tagSetter(Model::setTags)
+                                                              .build();
+
+    @BeforeEach
+    public void setup() {
+        proxy = mock(AmazonWebServicesClientProxy.class);
+        rdsClient = mock(AmazonRDS.class);
+    }
+
+    @Test
+    public void enrich_emptyPage() {
+        final List<Model> models = new ArrayList<>();
+
+        assertThat(tagEnricher.enrich(proxy, rdsClient, models)).isEmpty();
+        verifyZeroInteractions(proxy);
+    }
+
+    @Test
+    public void enrich_noTags() {
+        doReturn(new ListTagsForResourceResult()).when(proxy).injectCredentialsAndInvoke(any(ListTagsForResourceRequest.class),
+                ArgumentMatchers.<Function<ListTagsForResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final List<Model> models = ImmutableList.of(new Model("arn", null));
+
+        assertThat(tagEnricher.enrich(proxy, rdsClient, models).get(0).getTags()).isNull();
+    }
+
+    @Test
+    public void enrich_rethrowsNonThrottlingErrors() {
+        final AmazonServiceException exception = new AmazonServiceException("Access denied");
+        exception.setErrorCode("AccessDenied");
+        doThrow(exception).when(proxy).injectCredentialsAndInvoke(any(ListTagsForResourceRequest.class),
+                ArgumentMatchers.<Function<ListTagsForResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final List<Model> models = ImmutableList.of(new Model("arn", null));
+
+        assertThatThrownBy(() -> tagEnricher.enrich(proxy, rdsClient, models)).isSameAs(exception);
+        verify(proxy, times(1)).injectCredentialsAndInvoke(any(ListTagsForResourceRequest.class),
+                ArgumentMatchers.<Function<ListTagsForResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+    }
+
+    @Test
+    public void enrich_givesUpAfterMaxAttempts() {
+        final AmazonServiceException exception = new AmazonServiceException("Rate exceeded");
+        exception.setErrorCode("Throttling");
+        doThrow(exception).when(proxy).injectCredentialsAndInvoke(any(ListTagsForResourceRequest.class),
+                ArgumentMatchers.<Function<ListTagsForResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final List<Model> models = ImmutableList.of(new Model("arn", null));
+
+        assertThatThrownBy(() -> tagEnricher.enrich(proxy, rdsClient, models)).isSameAs(exception);
+        verify(proxy, times(2)).injectCredentialsAndInvoke(any(ListTagsForResourceRequest.class),
+                ArgumentMatchers.<Function<ListTagsForResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Model {
+        private String arn;
+        private List<Tag> tags;
+    }
+}
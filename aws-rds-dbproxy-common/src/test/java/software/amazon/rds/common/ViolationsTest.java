@@ -0,0 +1,38 @@
+package software.amazon.rds.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+public class ViolationsTest {
+
+    @Test
+    public void check_recordsOnlyViolatedRulesInOrder() {
+        final Violations violations = new Violations().check(true, "first")
+                                                      .check(false, "passed")
+                                                      .addAll(ImmutableList.of("second", "third"));
+
+        assertThat(violations.getMessages()).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    public void failure_isNullWithoutViolations() {
+        assertThat(Violations.<Object, Object>failure(Collections.emptyList())).isNull();
+    }
+
+    @Test
+    public void failure_listsEveryViolationAsInvalidRequest() {
+        final ProgressEvent<Object, Object> failure = Violations.failure(ImmutableList.of("Name is too long.", "Port is out of range."));
+
+        assertThat(failure.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(failure.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        assertThat(failure.getMessage()).contains("Name is too long. Port is out of range.");
+    }
+}
@@ -1,22 +1,27 @@
 package software.amazon.rds.dbproxy;
 
-import java.util.List;
-
-import com.amazonaws.services.rds.model.DBProxy;
-import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import software.amazon.rds.common.DeadlineContext;
 
+// Contexts written by earlier releases must still deserialize, so fields are only ever added. ProxyState keeps the
+// property names of the SDK DBProxy earlier releases stored, and fields since removed are ignored.
+@JsonIgnoreProperties(ignoreUnknown = true)
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class CallbackContext {
-    private DBProxy proxy;
+public class CallbackContext implements DeadlineContext {
+    private ProxyState proxy;
     private boolean deleted;
-    private Integer stabilizationRetriesRemaining;
+    // Wall-clock start and deadline of the whole operation, in epoch milliseconds, set on its first invocation
+    private Long operationStartTime;
+    private Long operationDeadline;
+
+    private int stabilizationAttempt;
     private boolean tagsDeregistered;
     private boolean tagsRegistered;
 }
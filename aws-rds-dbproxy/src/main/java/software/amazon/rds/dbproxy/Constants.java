@@ -3,11 +3,20 @@ package software.amazon.rds.dbproxy;
 import java.util.List;
 
 import com.google.common.collect.ImmutableList;
+import software.amazon.rds.common.StabilizationScheduler;
 
 public class Constants {
     public static final String AVAILABLE_PROXY_STATE = "available";
     public static final List<String> TERMINAL_FAILURE_STATES = ImmutableList.of("incompatible-network",
                                                                                  "insufficient-resource-limits");
-    public static final int NUMBER_OF_STATE_POLL_RETRIES = 240;
-    public static final int POLL_RETRY_DELAY_IN_MS = 5000;
+    public static final int POLL_RETRY_DELAY_IN_SECONDS = 5;
+
+    // Proxy creation takes minutes, while modifications usually settle within seconds
+    public static final StabilizationScheduler STABILIZATION_SCHEDULER = StabilizationScheduler.builder()
+                                                                                               .initialDelay("creating", 30)
+                                                                                               .initialDelay("modifying", 5)
+                                                                                               .initialDelay("deleting", 10)
+                                                                                               .defaultInitialDelaySeconds(POLL_RETRY_DELAY_IN_SECONDS)
+                                                                                               .maxDelaySeconds(60)
+                                                                                               .build();
 }
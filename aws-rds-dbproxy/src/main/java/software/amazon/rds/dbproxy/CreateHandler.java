@@ -1,10 +1,11 @@
 package software.amazon.rds.dbproxy;
 
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.CreateDBProxyRequest;
 import com.amazonaws.services.rds.model.CreateDBProxyResult;
 import com.amazonaws.services.rds.model.DBProxy;
@@ -19,12 +20,23 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.OperationDeadline;
 
 public class CreateHandler extends BaseHandler<CallbackContext> {
     public static final String TIMED_OUT_MESSAGE = "Timed out waiting for proxy to become available.";
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
+
+    public CreateHandler() {
+        this(Clock.systemUTC());
+    }
+
+    CreateHandler(final Clock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -33,38 +45,42 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
         final CallbackContext callbackContext,
         final Logger logger) {
 
-        final ResourceModel model = request.getDesiredResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel model = request.getDesiredResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = callbackContext == null ?
-                                               CallbackContext.builder().stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES).build() :
-                                               callbackContext;
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
-        return createProxyAndUpdateProgress(model, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
+            return OperationDeadline.carry(createProxyAndUpdateProgress(proxy, rdsClient, model, currentContext), currentContext, clock);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> createProxyAndUpdateProgress(ResourceModel model,
+    private ProgressEvent<ResourceModel, CallbackContext> createProxyAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                       final AmazonRDS rdsClient,
+                                                                                       ResourceModel model,
                                                                                        CallbackContext callbackContext) {
         // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
-        final DBProxy proxyStateSoFar = callbackContext.getProxy();
+        final ProxyState proxyStateSoFar = callbackContext.getProxy();
 
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
         if (proxyStateSoFar == null) {
             try {
-                return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                return Optional.ofNullable(ModelValidator.check(model))
+                        .orElseGet(() -> ProgressEvent.<ResourceModel, CallbackContext>builder()
                         .resourceModel(model)
                         .status(OperationStatus.IN_PROGRESS)
                         .callbackContext(CallbackContext.builder()
-                                .proxy(createProxy(model))
-                                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                .proxy(ProxyState.from(createProxy(clientProxy, rdsClient, model)))
                                 .build())
-                        .build();
+                        .build());
             } catch (DBProxyAlreadyExistsException e) {
                 return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.AlreadyExists);
             }
@@ -93,25 +109,23 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
             model.setIdleClientTimeout(proxyStateSoFar.getIdleClientTimeout());
             model.setRequireTLS(proxyStateSoFar.getRequireTLS());
 
-            try {
-                Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
 
-            DBProxy proxy = updatedProxyProgress(proxyStateSoFar.getDBProxyName());
+            DBProxy proxy = updatedProxyProgress(clientProxy, rdsClient, proxyStateSoFar.getDBProxyName());
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                            .resourceModel(model)
                            .status(OperationStatus.IN_PROGRESS)
+                           .callbackDelaySeconds(Constants.AVAILABLE_PROXY_STATE.equals(proxy.getStatus())
+                                                 ? 0
+                                                 : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(proxy.getStatus(), callbackContext.getStabilizationAttempt()))
                            .callbackContext(CallbackContext.builder()
-                                                           .proxy(proxy)
-                                                           .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                                                           .proxy(ProxyState.from(proxy))
+                                                           .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                                                            .build())
                            .build();
         }
     }
 
-    private DBProxy createProxy(ResourceModel model) {
+    private DBProxy createProxy(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel model) {
         List<UserAuthConfig> userAuthConfig = Utility.getUserAuthConfigs(model);
         List<Tag> tags = getTags(model);
 
@@ -145,7 +159,7 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
         return tags;
     }
 
-    private DBProxy updatedProxyProgress(String proxyName) {
+    private DBProxy updatedProxyProgress(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyName) {
         DescribeDBProxiesRequest describeDBProxiesRequest;
         DescribeDBProxiesResult describeDBProxiesResult;
 
@@ -1,7 +1,8 @@
 package software.amazon.rds.dbproxy;
 
+import java.time.Clock;
+
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.DBProxy;
 import com.amazonaws.services.rds.model.DBProxyNotFoundException;
 import com.amazonaws.services.rds.model.DeleteDBProxyRequest;
@@ -13,12 +14,23 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.OperationDeadline;
 
 public class DeleteHandler extends BaseHandler<CallbackContext> {
     private static final String TIMED_OUT_MESSAGE = "Timed out waiting for proxy to terminate.";
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
+
+    public DeleteHandler() {
+        this(Clock.systemUTC());
+    }
+
+    DeleteHandler(final Clock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -27,22 +39,26 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        final ResourceModel model = request.getDesiredResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel model = request.getDesiredResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = callbackContext == null ?
-                                               CallbackContext.builder().stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES).build() :
-                                               callbackContext;
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
-        return deleteProxyAndUpdateProgress(model, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
+            return OperationDeadline.carry(deleteProxyAndUpdateProgress(proxy, rdsClient, model, currentContext), currentContext, clock);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> deleteProxyAndUpdateProgress(ResourceModel model,
+    private ProgressEvent<ResourceModel, CallbackContext> deleteProxyAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                       final AmazonRDS rdsClient,
+                                                                                       ResourceModel model,
                                                                                        CallbackContext callbackContext) {
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
@@ -52,8 +68,7 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
                            .resourceModel(model)
                            .status(OperationStatus.IN_PROGRESS)
                            .callbackContext(CallbackContext.builder()
-                                                           .proxy(deleteProxy(model.getDBProxyName()))
-                                                           .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                                           .proxy(ProxyState.from(deleteProxy(clientProxy, rdsClient, model.getDBProxyName())))
                                                            .build())
                            .build();
             } catch (DBProxyNotFoundException e) {
@@ -64,31 +79,30 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
                        .status(OperationStatus.SUCCESS)
                        .build();
         } else {
-            try {
-                Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+            boolean deleted = !doesProxyExist(clientProxy, rdsClient, model.getDBProxyName());
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                            .resourceModel(model)
                            .status(OperationStatus.IN_PROGRESS)
+                           .callbackDelaySeconds(deleted
+                                                 ? 0
+                                                 : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(callbackContext.getProxy().getStatus(), callbackContext.getStabilizationAttempt()))
                            .callbackContext(CallbackContext.builder()
                                                            .proxy(callbackContext.getProxy())
-                                                           .deleted(!doesProxyExist(model.getDBProxyName()))
-                                                           .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                                                           .deleted(deleted)
+                                                           .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                                                            .build())
                            .build();
         }
     }
 
-    private DBProxy deleteProxy(String proxyName) {
+    private DBProxy deleteProxy(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyName) {
         DeleteDBProxyRequest request = new DeleteDBProxyRequest().withDBProxyName(proxyName);
 
         DeleteDBProxyResult result = clientProxy.injectCredentialsAndInvoke(request, rdsClient::deleteDBProxy);
         return result.getDBProxy();
     }
 
-    private boolean doesProxyExist(String proxyName) {
+    private boolean doesProxyExist(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyName) {
         DescribeDBProxiesRequest describeDBProxiesRequest;
 
         describeDBProxiesRequest = new DescribeDBProxiesRequest().withDBProxyName(proxyName);
@@ -1,10 +1,10 @@
 package software.amazon.rds.dbproxy;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
@@ -12,13 +12,43 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.Paginator;
+import software.amazon.rds.common.TagEnricher;
 
 public class ListHandler extends BaseHandler<CallbackContext> {
 
-    private static final int MAX_RESULTS = 100;
+    static final int MAX_RESULTS = 100;
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Reads up to Paginator.DEFAULT_MAX_PAGES pages per invocation when paging eagerly, and a single page otherwise.
+    // Tagged listings always read a single page, so an invocation makes at most MAX_RESULTS ListTagsForResource calls
+    private final Paginator paginator;
+
+    // When set, listed models are returned with their tags
+    private final TagEnricher<ResourceModel> tagEnricher;
+
+    public ListHandler() {
+        this(false, tagEnricher().build());
+    }
+
+    public ListHandler(final boolean eagerPaging) {
+        this(eagerPaging, null);
+    }
+
+    public ListHandler(final boolean eagerPaging, final TagEnricher<ResourceModel> tagEnricher) {
+        this.paginator = new Paginator(eagerPaging && tagEnricher == null ? Paginator.DEFAULT_MAX_PAGES : 1);
+        this.tagEnricher = tagEnricher;
+    }
+
+    /**
+     * Enricher filling in the tags of listed proxies.
+     */
+    static TagEnricher.TagEnricherBuilder<ResourceModel> tagEnricher() {
+        return TagEnricher.<ResourceModel>builder()
+                          .resourceArn(ResourceModel::getDBProxyArn)
+                          .tagSetter((model, tags) -> model.setTags(Utility.convertTags(tags)));
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -27,24 +57,38 @@ public class ListHandler extends BaseHandler<CallbackContext> {
         final CallbackContext callbackContext,
         final Logger logger) {
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final List<ResourceModel> models = listProxies(request.getNextToken());
+            final List<ResourceModel> models = new ArrayList<>();
+            final String nextToken = paginator.read(request.getNextToken(),
+                                                    marker -> describeProxies(proxy, rdsClient,  marker),
+                                                    DescribeDBProxiesResult::getMarker,
+                                                    page -> models.addAll(toModels(proxy, rdsClient, page)));
 
-        return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                       .resourceModels(models)
-                       .status(OperationStatus.SUCCESS)
-                       .build();
+            return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                           .resourceModels(models)
+                           .nextToken(nextToken)
+                           .status(OperationStatus.SUCCESS)
+                           .build();
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private List<ResourceModel> listProxies(String nextToken) {
+    private DescribeDBProxiesResult describeProxies(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String nextToken) {
         DescribeDBProxiesRequest request = new DescribeDBProxiesRequest().withMaxRecords(MAX_RESULTS).withMarker(nextToken);
 
-        DescribeDBProxiesResult result = clientProxy.injectCredentialsAndInvoke(request, rdsClient::describeDBProxies);
+        return clientProxy.injectCredentialsAndInvoke(request, rdsClient::describeDBProxies);
+    }
 
+    private List<ResourceModel> toModels(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, DescribeDBProxiesResult result) {
         List<ResourceModel> models = result.getDBProxies().stream().map(r -> Utility.resultToModel(r)).collect(Collectors.toList());
 
+        if (tagEnricher != null) {
+            tagEnricher.enrich(clientProxy, rdsClient, models);
+        }
         return models;
     }
 }
@@ -0,0 +1,62 @@
+package software.amazon.rds.dbproxy;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.rds.common.Violations;
+
+/**
+ * Proxy rules RDS would otherwise only enforce after a round trip or after the proxy has been created: the name format,
+ * the auth entries, the network settings and the idle client timeout range.
+ */
+public class ModelValidator {
+    static final int MAX_NAME_LENGTH = 64;
+    static final int MIN_SUBNETS = 2;
+    static final int MIN_IDLE_CLIENT_TIMEOUT = 1;
+    static final int MAX_IDLE_CLIENT_TIMEOUT = 28800;
+    static final String SECRETS_AUTH_SCHEME = "SECRETS";
+
+    // A letter, then letters, digits and single hyphens, not ending in a hyphen
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z](-?[A-Za-z0-9])*");
+
+    public static List<String> validate(ResourceModel model) {
+        Violations violations = new Violations();
+
+        String name = model.getDBProxyName();
+        violations.check(name != null && (name.length() > MAX_NAME_LENGTH || !NAME_PATTERN.matcher(name).matches()),
+                         "DBProxyName must be 1 to " + MAX_NAME_LENGTH + " letters, digits or hyphens, start with a letter, "
+                         + "and neither end with a hyphen nor contain two consecutive hyphens.");
+
+        if (model.getAuth() != null) {
+            violations.check(model.getAuth().isEmpty(), "Auth must contain at least one entry.");
+            for (int i = 0; i < model.getAuth().size(); i++) {
+                AuthFormat auth = model.getAuth().get(i);
+                // An entry without an AuthScheme is left to RDS, which decides what it defaults to
+                violations.check(SECRETS_AUTH_SCHEME.equals(auth.getAuthScheme()) && StringUtils.isBlank(auth.getSecretArn()),
+                                 "Auth entry " + (i + 1) + " uses SECRETS authentication but has no SecretArn.");
+            }
+        }
+
+        violations.check(model.getVpcSubnetIds() != null && model.getVpcSubnetIds().size() < MIN_SUBNETS,
+                         "VpcSubnetIds must contain at least " + MIN_SUBNETS + " subnets.");
+
+        violations.check(model.getVpcSecurityGroupIds() != null && model.getVpcSecurityGroupIds().isEmpty(),
+                         "VpcSecurityGroupIds must contain at least one security group.");
+
+        Integer idleClientTimeout = model.getIdleClientTimeout();
+        violations.check(idleClientTimeout != null && (idleClientTimeout < MIN_IDLE_CLIENT_TIMEOUT || idleClientTimeout > MAX_IDLE_CLIENT_TIMEOUT),
+                         "IdleClientTimeout must be between " + MIN_IDLE_CLIENT_TIMEOUT + " and " + MAX_IDLE_CLIENT_TIMEOUT + " seconds.");
+
+        return violations.getMessages();
+    }
+
+    /**
+     * @return null if the model is valid, otherwise an InvalidRequest failure listing every violation
+     */
+    static ProgressEvent<ResourceModel, CallbackContext> check(ResourceModel model) {
+        return Violations.failure(validate(model));
+    }
+}
@@ -0,0 +1,45 @@
+package software.amazon.rds.dbproxy;
+
+import com.amazonaws.services.rds.model.DBProxy;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The subset of a {@link DBProxy} that the handlers read back from the callback context. Property names match the SDK
+ * type, so contexts written before the compact format still deserialize; SDK properties not kept here are skipped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProxyState {
+    private String dBProxyName;
+    private String dBProxyArn;
+    private String status;
+    private String endpoint;
+    private String vpcId;
+    private Boolean debugLogging;
+    private Integer idleClientTimeout;
+    private Boolean requireTLS;
+
+    public static ProxyState from(final DBProxy proxy) {
+        if (proxy == null) {
+            return null;
+        }
+
+        return ProxyState.builder()
+                         .dBProxyName(proxy.getDBProxyName())
+                         .dBProxyArn(proxy.getDBProxyArn())
+                         .status(proxy.getStatus())
+                         .endpoint(proxy.getEndpoint())
+                         .vpcId(proxy.getVpcId())
+                         .debugLogging(proxy.getDebugLogging())
+                         .idleClientTimeout(proxy.getIdleClientTimeout())
+                         .requireTLS(proxy.getRequireTLS())
+                         .build();
+    }
+}
@@ -1,17 +1,12 @@
 package software.amazon.rds.dbproxy;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.DBProxy;
 import com.amazonaws.services.rds.model.DBProxyNotFoundException;
 import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
 import com.amazonaws.services.rds.model.ListTagsForResourceRequest;
 import com.amazonaws.services.rds.model.ListTagsForResourceResult;
-import com.amazonaws.services.rds.model.Tag;
 import software.amazon.cloudformation.exceptions.CfnNotFoundException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
@@ -19,11 +14,10 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
 
 public class ReadHandler extends BaseHandler<CallbackContext> {
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
-
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -31,23 +25,27 @@ public class ReadHandler extends BaseHandler<CallbackContext> {
         final CallbackContext callbackContext,
         final Logger logger) {
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
-
-        final ResourceModel model;
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
         try {
-            model = describeDBProxy(request.getDesiredResourceState().getDBProxyName());
-        } catch (DBProxyNotFoundException | CfnNotFoundException e) {
-            return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.NotFound);
-        }
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                       .resourceModel(model)
-                       .status(OperationStatus.SUCCESS)
-                       .build();
+            final ResourceModel model;
+            try {
+                model = describeDBProxy(proxy, rdsClient, request.getDesiredResourceState().getDBProxyName());
+            } catch (DBProxyNotFoundException | CfnNotFoundException e) {
+                return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.NotFound);
+            }
+
+            return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                           .resourceModel(model)
+                           .status(OperationStatus.SUCCESS)
+                           .build();
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ResourceModel describeDBProxy(final String proxyName) {
+    private ResourceModel describeDBProxy(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, final String proxyName) {
         DescribeDBProxiesRequest request = new DescribeDBProxiesRequest().withDBProxyName(proxyName);
 
         final DescribeDBProxiesResult result = clientProxy.injectCredentialsAndInvoke(request, rdsClient::describeDBProxies);
@@ -59,28 +57,11 @@ public class ReadHandler extends BaseHandler<CallbackContext> {
 
             final ListTagsForResourceResult tagResult = clientProxy.injectCredentialsAndInvoke(tagRequest, rdsClient::listTagsForResource);
             if (tagResult != null && tagResult.getTagList()!= null && tagResult.getTagList().size() > 0) {
-                resourceModel.setTags(convertTags(tagResult.getTagList()));
+                resourceModel.setTags(Utility.convertTags(tagResult.getTagList()));
             }
             return resourceModel;
         } else {
             throw new CfnNotFoundException(ResourceModel.TYPE_NAME, proxyName);
         }
     }
-
-    private List<TagFormat> convertTags(List<Tag> tags) {
-        List<TagFormat> convertedTags = new ArrayList<>();
-
-        if (tags == null || tags.size() == 0) {
-            return convertedTags;
-        }
-
-        for(Tag tag : tags){
-            convertedTags.add(TagFormat.builder()
-                                       .key(tag.getKey())
-                                       .value(tag.getValue())
-                                       .build());
-        }
-
-        return convertedTags;
-    }
 }
@@ -1,12 +1,15 @@
 package software.amazon.rds.dbproxy;
 
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.AddTagsToResourceRequest;
 import com.amazonaws.services.rds.model.DBProxy;
 import com.amazonaws.services.rds.model.DBProxyNotFoundException;
@@ -16,20 +19,39 @@ import com.amazonaws.services.rds.model.ModifyDBProxyRequest;
 import com.amazonaws.services.rds.model.ModifyDBProxyResult;
 import com.amazonaws.services.rds.model.RemoveTagsFromResourceRequest;
 import com.amazonaws.services.rds.model.Tag;
-import com.amazonaws.services.rds.model.UserAuthConfig;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.Diff;
+import software.amazon.rds.common.OperationDeadline;
+import software.amazon.rds.common.StepFusion;
 
 public class UpdateHandler extends BaseHandler<CallbackContext> {
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
-    private Logger log;
+    // Time this invocation may keep running steps that do not wait on the resource before handing back to the caller
+    private final long stepFusionBudgetMillis;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
 
     private static final String TIMED_OUT_MESSAGE = "Timed out waiting for proxy to finish modification.";
+
+    public UpdateHandler() {
+        this(StepFusion.DEFAULT_BUDGET_IN_MS, Clock.systemUTC());
+    }
+
+    public UpdateHandler(final long stepFusionBudgetMillis) {
+        this(stepFusionBudgetMillis, Clock.systemUTC());
+    }
+
+    UpdateHandler(final long stepFusionBudgetMillis, final Clock clock) {
+        this.stepFusionBudgetMillis = stepFusionBudgetMillis;
+        this.clock = clock;
+    }
+
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
             final AmazonWebServicesClientProxy proxy,
@@ -37,40 +59,54 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        final ResourceModel newModel = request.getDesiredResourceState();
-        final ResourceModel oldModel = request.getPreviousResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel newModel = request.getDesiredResourceState();
+            final ResourceModel oldModel = request.getPreviousResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
-        log = logger;
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = callbackContext == null ?
-                                               CallbackContext.builder().stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES).build() :
-                                               callbackContext;
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
-        return updateProxyAndUpdateProgress(newModel, oldModel, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
+            // Steps that do not wait on the resource run back-to-back within this invocation.
+            return StepFusion.run(context -> OperationDeadline.carry(updateProxyAndUpdateProgress(proxy, rdsClient, newModel, oldModel, context), context, clock),
+                                  currentContext,
+                                  clock,
+                                  stepFusionBudgetMillis);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateProxyAndUpdateProgress(ResourceModel newModel,
+    private ProgressEvent<ResourceModel, CallbackContext> updateProxyAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                       final AmazonRDS rdsClient,
+                                                                                       ResourceModel newModel,
                                                                                        ResourceModel oldModel,
                                                                                        CallbackContext callbackContext) {
         // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
-        final DBProxy proxyStateSoFar = callbackContext.getProxy();
+        final ProxyState proxyStateSoFar = callbackContext.getProxy();
 
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
         // Update proxy settings
         if (proxyStateSoFar == null) {
+            ProgressEvent<ResourceModel, CallbackContext> invalid = ModelValidator.check(newModel);
+            if (invalid != null) {
+                return invalid;
+            }
             try {
+                // Without a setting to change there is nothing for the proxy to apply, so its current state is read
+                // instead and the tag steps run straight away
+                final DBProxy proxy = modifyRequest(oldModel, newModel).map(r -> updateProxySettings(clientProxy, rdsClient, r))
+                                                                       .orElseGet(() -> updatedProxyProgress(clientProxy, rdsClient, oldModel.getDBProxyName()));
                 return ProgressEvent.<ResourceModel, CallbackContext>builder()
                         .resourceModel(newModel)
                         .status(OperationStatus.IN_PROGRESS)
                         .callbackContext(CallbackContext.builder()
-                                .proxy(updateProxySettings(oldModel, newModel))
-                                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                .proxy(ProxyState.from(proxy))
                                 .build())
                         .build();
             } catch (DBProxyNotFoundException e) {
@@ -85,8 +121,7 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                            .status(OperationStatus.IN_PROGRESS)
                            .callbackContext(CallbackContext.builder()
                                                            .proxy(proxyStateSoFar)
-                                                           .tagsDeregistered(deregisterOldTags(oldModel, newModel, proxyStateSoFar))
-                                                           .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                                           .tagsDeregistered(deregisterOldTags(clientProxy, rdsClient, oldModel, newModel, proxyStateSoFar))
                                                            .build())
                            .build();
         }
@@ -98,8 +133,7 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                            .callbackContext(CallbackContext.builder()
                                                            .proxy(proxyStateSoFar)
                                                            .tagsDeregistered(callbackContext.isTagsDeregistered())
-                                                           .tagsRegistered(registerNewTags(oldModel, newModel, proxyStateSoFar))
-                                                           .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                                           .tagsRegistered(registerNewTags(clientProxy, rdsClient, oldModel, newModel, proxyStateSoFar))
                                                            .build())
                            .build();
         }
@@ -120,46 +154,35 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                            .errorCode(HandlerErrorCode.NotFound)
                            .build();
         } else {
-            try {
-                Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
 
-            DBProxy proxy = updatedProxyProgress(proxyStateSoFar.getDBProxyName());
+            DBProxy proxy = updatedProxyProgress(clientProxy, rdsClient, proxyStateSoFar.getDBProxyName());
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                            .resourceModel(newModel)
                            .status(OperationStatus.IN_PROGRESS)
+                           .callbackDelaySeconds(Constants.AVAILABLE_PROXY_STATE.equals(proxy.getStatus())
+                                                 ? 0
+                                                 : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(proxy.getStatus(), callbackContext.getStabilizationAttempt()))
                            .callbackContext(CallbackContext.builder()
                                                            .tagsDeregistered(callbackContext.isTagsDeregistered())
                                                            .tagsRegistered(callbackContext.isTagsRegistered())
-                                                           .proxy(proxy)
-                                                           .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                                                           .proxy(ProxyState.from(proxy))
+                                                           .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                                                            .build())
                            .build();
         }
     }
 
-    private List<TagFormat> getTagKeys(ResourceModel model) {
-        return Optional.ofNullable(model.getTags()).orElse(new ArrayList<>()).stream().collect(Collectors.toList());
-    }
-
-    private List<TagFormat> listNewTags(List<TagFormat> list1, List<TagFormat> list2) {
-        if (list1.size() > 0 && list2.size() > 0) {
-            list1.removeAll(list2);
-        }
-        return list1;
+    private Diff<String, String> diffTags(ResourceModel oldModel, ResourceModel newModel) {
+        return Diff.of(oldModel.getTags(), newModel.getTags(), TagFormat::getKey, TagFormat::getValue);
     }
 
-    private List<Tag> toRDSTags(List<TagFormat> tagList) {
-        return tagList.stream().map(t -> new Tag().withKey(t.getKey()).withValue(t.getValue())).collect(Collectors.toList());
+    private List<Tag> toRDSTags(Map<String, String> tags) {
+        return tags.entrySet().stream().map(t -> new Tag().withKey(t.getKey()).withValue(t.getValue())).collect(Collectors.toList());
     }
 
-    private boolean deregisterOldTags(ResourceModel oldModel, ResourceModel newModel, DBProxy proxy) {
-        List<TagFormat> oldTags = getTagKeys(oldModel);
-        List<TagFormat> newTags = getTagKeys(newModel);
-        List<TagFormat> tagsToRemove = listNewTags(oldTags, newTags);
-        List<String> tagKeyList = tagsToRemove.stream().map(t -> t.getKey()).collect(Collectors.toList());
+    private boolean deregisterOldTags(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel oldModel, ResourceModel newModel, ProxyState proxy) {
+        // Tags whose value changed are overwritten in place by registerNewTags, so only keys that are gone are removed
+        List<String> tagKeyList = new ArrayList<>(diffTags(oldModel, newModel).getRemoved().keySet());
 
         if (tagKeyList.size() > 0) {
             RemoveTagsFromResourceRequest removeTagsRequest = new RemoveTagsFromResourceRequest()
@@ -170,10 +193,11 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
         return true;
     }
 
-    private boolean registerNewTags(ResourceModel oldModel, ResourceModel newModel, DBProxy proxy) {
-        List<TagFormat> oldTags = getTagKeys(oldModel);
-        List<TagFormat> newTags = getTagKeys(newModel);
-        List<TagFormat> tagsToAdd = listNewTags(newTags, oldTags);
+    private boolean registerNewTags(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel oldModel, ResourceModel newModel, ProxyState proxy) {
+        Diff<String, String> tagDiff = diffTags(oldModel, newModel);
+        Map<String, String> tagsToAdd = new LinkedHashMap<>(tagDiff.getAdded());
+        tagsToAdd.putAll(tagDiff.getChanged());
+
         if (tagsToAdd.size() > 0 ) {
             AddTagsToResourceRequest addTagsRequest = new AddTagsToResourceRequest()
                                                               .withResourceName(proxy.getDBProxyArn())
@@ -183,22 +207,47 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
         return true;
     }
 
-    private DBProxy updateProxySettings(ResourceModel oldModel, ResourceModel newModel) {
-        List<UserAuthConfig> userAuthConfig = Utility.getUserAuthConfigs(newModel);
+    /**
+     * Builds a ModifyDBProxy request carrying only the settings that differ between the previous and the desired model,
+     * or none when no setting changed. As before, a setting removed from the template is left as it is on the proxy.
+     * Like the endpoint and target group updates, this compares templates rather than the live proxy: a setting changed
+     * outside CloudFormation is not put back unless the template changes that setting too.
+     */
+    static Optional<ModifyDBProxyRequest> modifyRequest(ResourceModel oldModel, ResourceModel newModel) {
         ModifyDBProxyRequest request = new ModifyDBProxyRequest()
-                                               .withAuth(userAuthConfig)
                                                .withDBProxyName(oldModel.getDBProxyName())
-                                               .withDebugLogging(newModel.getDebugLogging())
-                                               .withIdleClientTimeout(newModel.getIdleClientTimeout())
-                                               .withRequireTLS(newModel.getRequireTLS())
-                                               .withRoleArn(newModel.getRoleArn())
-                                               .withSecurityGroups(newModel.getVpcSecurityGroupIds());
+                                               .withDebugLogging(changed(oldModel.getDebugLogging(), newModel.getDebugLogging()))
+                                               .withIdleClientTimeout(changed(oldModel.getIdleClientTimeout(), newModel.getIdleClientTimeout()))
+                                               .withRequireTLS(changed(oldModel.getRequireTLS(), newModel.getRequireTLS()))
+                                               .withRoleArn(changed(oldModel.getRoleArn(), newModel.getRoleArn()))
+                                               .withSecurityGroups(changedIgnoringOrder(oldModel.getVpcSecurityGroupIds(), newModel.getVpcSecurityGroupIds()));
+        if (changedIgnoringOrder(oldModel.getAuth(), newModel.getAuth()) != null) {
+            request.setAuth(Utility.getUserAuthConfigs(newModel));
+        }
+
+        if (request.equals(new ModifyDBProxyRequest().withDBProxyName(oldModel.getDBProxyName()))) {
+            return Optional.empty();
+        }
+        return Optional.of(request);
+    }
+
+    private static <T> T changed(T oldValue, T newValue) {
+        return newValue == null || newValue.equals(oldValue) ? null : newValue;
+    }
+
+    private static <T> List<T> changedIgnoringOrder(List<T> oldValues, List<T> newValues) {
+        if (newValues == null || (oldValues != null && new HashSet<>(oldValues).equals(new HashSet<>(newValues)))) {
+            return null;
+        }
+        return newValues;
+    }
 
+    private DBProxy updateProxySettings(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ModifyDBProxyRequest request) {
         ModifyDBProxyResult result = clientProxy.injectCredentialsAndInvoke(request, rdsClient::modifyDBProxy);
         return result.getDBProxy();
     }
 
-    private DBProxy updatedProxyProgress(String proxyName) {
+    private DBProxy updatedProxyProgress(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyName) {
         DescribeDBProxiesRequest describeDBProxiesRequest;
         DescribeDBProxiesResult describeDBProxiesResult;
 
@@ -9,6 +9,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.Tag;
 import com.amazonaws.services.rds.model.UserAuthConfig;
 import com.amazonaws.services.rds.model.UserAuthConfigInfo;
 
@@ -65,4 +66,21 @@ public class Utility {
         }
         return userAuthConfigList;
     }
+
+    public static List<TagFormat> convertTags(List<Tag> tags) {
+        List<TagFormat> convertedTags = new ArrayList<>();
+
+        if (tags == null || tags.size() == 0) {
+            return convertedTags;
+        }
+
+        for(Tag tag : tags){
+            convertedTags.add(TagFormat.builder()
+                                       .key(tag.getKey())
+                                       .value(tag.getValue())
+                                       .build());
+        }
+
+        return convertedTags;
+    }
 }
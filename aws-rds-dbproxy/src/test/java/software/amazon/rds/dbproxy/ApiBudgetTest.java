@@ -0,0 +1,122 @@
+package software.amazon.rds.dbproxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
+
+public class ApiBudgetTest {
+    private static final String PROXY_NAME = "proxy";
+
+    private FakeRds rds;
+
+    // Transitions settle before the first poll, so the budgets do not depend on the jitter of the callback delays
+    @BeforeEach
+    public void setup() {
+        rds = new FakeRds().transition("creating", 1)
+                           .transition("modifying", 1)
+                           .transition("deleting", 1);
+    }
+
+    @Test
+    public void create() {
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(600, ImmutableList.of(new TagFormat("k1", "v1"))), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("proxy create").invocations(4).apiCalls(3).calls("CreateDBProxy", 1).calls("Describe*", 2).assertWithin(create);
+    }
+
+    @Test
+    public void update_tagOnly() {
+        final ResourceModel created = created(ImmutableList.of(new TagFormat("k1", "v1")));
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(model(600, ImmutableList.of(new TagFormat("k1", "changed"))), created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("proxy tag-only update").invocations(1).apiCalls(2).noCalls("ModifyDBProxy").assertWithin(update);
+    }
+
+    @Test
+    public void update_settingOnly() {
+        final ResourceModel created = created(null);
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(model(900, null), created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("proxy setting-only update").invocations(2).apiCalls(3).calls("ModifyDBProxy", 1).noCalls("*Tags*").assertWithin(update);
+    }
+
+    @Test
+    public void update_unchanged() {
+        final ResourceModel created = created(ImmutableList.of(new TagFormat("k1", "v1")));
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(created, created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("proxy no-op update").invocations(1).apiCalls(1).noCalls("ModifyDBProxy").noCalls("*Tags*").assertWithin(update);
+    }
+
+    @Test
+    public void delete() {
+        final ResourceModel created = created(null);
+
+        final FakeRds.Report delete = rds.drive(new DeleteHandler(), request(created, null));
+
+        assertThat(delete.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("proxy delete").invocations(4).apiCalls(3).calls("DeleteDBProxy", 1).assertWithin(delete);
+    }
+
+    @Test
+    public void read() {
+        final ResourceModel created = created(ImmutableList.of(new TagFormat("k1", "v1")));
+
+        final FakeRds.Report read = rds.drive(new ReadHandler(), request(created, null));
+
+        assertThat(read.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("proxy read").invocations(1).apiCalls(2).assertWithin(read);
+    }
+
+    @Test
+    public void invalidModel_makesNoCalls() {
+        final CountingProxy proxy = new CountingProxy(mock(AmazonWebServicesClientProxy.class));
+
+        proxy.handle(new CreateHandler()::handleRequest, request(model(-1, null), null), null, mock(Logger.class));
+
+        ApiBudget.expect("invalid proxy create").invocations(1).apiCalls(0).assertWithin(proxy);
+    }
+
+    private ResourceModel created(final List<TagFormat> tags) {
+        final ResourceModel model = model(600, tags);
+        assertThat(rds.drive(new CreateHandler(), request(model, null)).getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        return model;
+    }
+
+    private ResourceModel model(final int idleClientTimeout, final List<TagFormat> tags) {
+        return ResourceModel.builder()
+                            .dBProxyName(PROXY_NAME)
+                            .engineFamily("MYSQL")
+                            .roleArn("arn:aws:iam::123456789012:role/proxy")
+                            .vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2"))
+                            .idleClientTimeout(idleClientTimeout)
+                            .tags(tags)
+                            .build();
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request(final ResourceModel desired, final ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
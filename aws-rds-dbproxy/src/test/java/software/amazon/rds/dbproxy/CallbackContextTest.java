@@ -0,0 +1,120 @@
+package software.amazon.rds.dbproxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.UserAuthConfigInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableMap;
+import software.amazon.cloudformation.resource.Serializer;
+
+public class CallbackContextTest {
+    private static final TypeReference<CallbackContext> CALLBACK_CONTEXT_TYPE = new TypeReference<CallbackContext>() {};
+
+    // A context as the baseline release wrote it: the SDK DBProxy as RDS described it, and a retry countdown instead of
+    // the operation deadline
+    private static final String BASELINE_CONTEXT = "{\"proxy\":{\"status\":\"creating\",\"engineFamily\":\"MYSQL\",\"vpcId\":\"vpc-0123456789abcdef\"," +
+                                                   "\"vpcSecurityGroupIds\":[\"sg-0123456789abcdef\"],\"vpcSubnetIds\":[\"subnet-01234567\"]," +
+                                                   "\"auth\":[{\"authScheme\":\"SECRETS\"," +
+                                                   "\"secretArn\":\"arn:aws:secretsmanager:us-east-1:123456789012:secret:proxy\",\"iamauth\":\"DISABLED\"}]," +
+                                                   "\"roleArn\":\"arn:aws:iam::123456789012:role/proxy\"," +
+                                                   "\"endpoint\":\"proxy.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com\",\"requireTLS\":true," +
+                                                   "\"idleClientTimeout\":1800,\"debugLogging\":false,\"createdDate\":1600000000000," +
+                                                   "\"updatedDate\":1600000000000,\"dbproxyName\":\"proxy\"," +
+                                                   "\"dbproxyArn\":\"arn:aws:rds:us-east-1:123456789012:db-proxy:prx-0123456789abcdef\"}," +
+                                                   "\"deleted\":false,\"stabilizationRetriesRemaining\":60,\"tagsDeregistered\":true," +
+                                                   "\"tagsRegistered\":false}";
+
+    private final Serializer serializer = new Serializer();
+
+    @Test
+    public void roundTrip_keepsCompactProxyState() throws IOException {
+        final CallbackContext context = CallbackContext.builder()
+                                                       .proxy(ProxyState.from(fullProxy()))
+                                                       .stabilizationAttempt(2)
+                                                       .tagsDeregistered(true)
+                                                       .build();
+
+        final CallbackContext decoded = serializer.deserialize(serializer.serialize(context), CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded).isEqualTo(context);
+    }
+
+    @Test
+    public void deserialize_readsVersionOneContext() throws IOException {
+        final DBProxy proxy = fullProxy();
+        final Map<String, Object> legacy = ImmutableMap.of("proxy", proxy,
+                                                           "stabilizationRetriesRemaining", 10,
+                                                           "tagsDeregistered", true);
+
+        final CallbackContext decoded = serializer.deserialize(serializer.serialize(legacy), CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded.getProxy()).isEqualTo(ProxyState.from(proxy));
+        assertThat(decoded.getOperationDeadline()).isNull();
+        assertThat(decoded.isTagsDeregistered()).isTrue();
+    }
+
+    @Test
+    public void deserialize_readsBaselineReleaseContext() throws IOException {
+        final CallbackContext decoded = serializer.deserialize(BASELINE_CONTEXT, CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded.getProxy()).isEqualTo(ProxyState.builder()
+                                                           .dBProxyName("proxy")
+                                                           .dBProxyArn("arn:aws:rds:us-east-1:123456789012:db-proxy:prx-0123456789abcdef")
+                                                           .status("creating")
+                                                           .endpoint("proxy.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com")
+                                                           .vpcId("vpc-0123456789abcdef")
+                                                           .debugLogging(false)
+                                                           .idleClientTimeout(1800)
+                                                           .requireTLS(true)
+                                                           .build());
+        assertThat(decoded.isTagsDeregistered()).isTrue();
+        assertThat(decoded.isTagsRegistered()).isFalse();
+        assertThat(decoded.getStabilizationAttempt()).isEqualTo(0);
+        assertThat(decoded.getOperationDeadline()).isNull();
+    }
+
+    @Test
+    public void serialize_isSmallerThanVersionOne() throws IOException {
+        final DBProxy proxy = fullProxy();
+        final Map<String, Object> legacy = ImmutableMap.of("proxy", proxy);
+        final CallbackContext compact = CallbackContext.builder().proxy(ProxyState.from(proxy)).build();
+
+        assertThat(serializer.serialize(compact).length()).isLessThan(serializer.serialize(legacy).length());
+    }
+
+    @Test
+    public void from_null() {
+        assertThat(ProxyState.from(null)).isNull();
+    }
+
+    private DBProxy fullProxy() {
+        final List<UserAuthConfigInfo> auth = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            auth.add(new UserAuthConfigInfo().withAuthScheme("SECRETS")
+                                             .withIAMAuth("DISABLED")
+                                             .withSecretArn("arn:aws:secretsmanager:us-east-1:123456789012:secret:proxy-" + i));
+        }
+
+        return new DBProxy().withDBProxyName("proxy")
+                            .withDBProxyArn("arn:aws:rds:us-east-1:123456789012:db-proxy:prx-0123456789abcdef")
+                            .withStatus("modifying")
+                            .withEngineFamily("MYSQL")
+                            .withAuth(auth)
+                            .withRoleArn("arn:aws:iam::123456789012:role/proxy")
+                            .withEndpoint("proxy.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com")
+                            .withVpcId("vpc-0123456789abcdef")
+                            .withVpcSecurityGroupIds("sg-0123456789abcdef")
+                            .withVpcSubnetIds("subnet-01234567", "subnet-89abcdef")
+                            .withRequireTLS(true)
+                            .withIdleClientTimeout(1800)
+                            .withDebugLogging(false);
+    }
+}
@@ -27,6 +27,8 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class CreateHandlerTest {
@@ -34,12 +36,15 @@ public class CreateHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -58,24 +63,23 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .proxy(dbProxy)
+                                                                    .proxy(ProxyState.from(dbProxy))
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_InitialRunCreateProxy").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -93,20 +97,20 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .proxy(ProxyState.from(dbProxy))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+        assertThat(response.getCallbackDelaySeconds()).isPositive().isLessThanOrEqualTo(Constants.STABILIZATION_SCHEDULER.getMaxDelaySeconds());
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_Creating").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -122,12 +126,11 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .proxy(ProxyState.from(dbProxy))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -137,6 +140,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_Available").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -150,12 +154,11 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(60)
-                                                       .proxy(new DBProxy().withStatus("incompatible-network"))
+                                                       .proxy(ProxyState.from(new DBProxy().withStatus("incompatible-network")))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -165,6 +168,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        ApiBudget.expect("handleRequest_terminalState").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -178,14 +182,15 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(0)
-                                                       .proxy(new DBProxy().withStatus("creating"))
+                                                       .operationDeadline(0L)
+                                                       .proxy(ProxyState.from(new DBProxy().withStatus("creating")))
                                                        .build();
 
         try {
-            handler.handleRequest(proxy, request, context, logger);
+            counting.handle(handler::handleRequest, request, context, logger);
         } catch (RuntimeException e) {
             assertThat(e.getMessage()).isEqualTo(CreateHandler.TIMED_OUT_MESSAGE);
         }
+        ApiBudget.expect("testStabilizationTimeout").invocations(1).apiCalls(0).assertWithin(counting);
     }
 }
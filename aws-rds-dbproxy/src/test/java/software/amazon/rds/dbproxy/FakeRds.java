@@ -0,0 +1,246 @@
+package software.amazon.rds.dbproxy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.amazonaws.services.rds.model.AddTagsToResourceRequest;
+import com.amazonaws.services.rds.model.AddTagsToResourceResult;
+import com.amazonaws.services.rds.model.CreateDBProxyRequest;
+import com.amazonaws.services.rds.model.CreateDBProxyResult;
+import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.DBProxyAlreadyExistsException;
+import com.amazonaws.services.rds.model.DBProxyNotFoundException;
+import com.amazonaws.services.rds.model.DeleteDBProxyRequest;
+import com.amazonaws.services.rds.model.DeleteDBProxyResult;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
+import com.amazonaws.services.rds.model.ListTagsForResourceRequest;
+import com.amazonaws.services.rds.model.ListTagsForResourceResult;
+import com.amazonaws.services.rds.model.ModifyDBProxyRequest;
+import com.amazonaws.services.rds.model.ModifyDBProxyResult;
+import com.amazonaws.services.rds.model.RemoveTagsFromResourceRequest;
+import com.amazonaws.services.rds.model.RemoveTagsFromResourceResult;
+import com.amazonaws.services.rds.model.Tag;
+import com.amazonaws.services.rds.model.UserAuthConfig;
+import com.amazonaws.services.rds.model.UserAuthConfigInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.SimulatedRds;
+
+/**
+ * Simulated RDS account serving the DB Proxy APIs the handlers call. Proxies move through their transitional statuses
+ * on the account's simulated clock; transition times and the statuses proxies settle in are configurable.
+ */
+public class FakeRds extends SimulatedRds<ResourceModel, CallbackContext> {
+    public static final int DEFAULT_TRANSITION_SECONDS = 60;
+
+    private static final String DELETED = "deleted";
+
+    // Guarded by this
+    private final Map<String, Integer> transitionSeconds = new HashMap<>();
+    private final Map<String, String> outcomes = new HashMap<>();
+    private final Map<String, FakeProxy> proxies = new LinkedHashMap<>();
+    private final Map<String, Map<String, String>> tags = new HashMap<>();
+    private int proxyCount;
+
+    public FakeRds() {
+        super(new TypeReference<CallbackContext>() {});
+    }
+
+    /**
+     * Sets how long a proxy stays in a transitional status such as "creating", "modifying" or "deleting".
+     */
+    public synchronized FakeRds transition(final String status, final int seconds) {
+        transitionSeconds.put(status, seconds);
+        return this;
+    }
+
+    /**
+     * Makes proxies leaving a transitional status settle in the given status instead of "available".
+     */
+    public synchronized FakeRds outcome(final String status, final String settledStatus) {
+        outcomes.put(status, settledStatus);
+        return this;
+    }
+
+    public synchronized Optional<DBProxy> proxy(final String proxyName) {
+        return Optional.ofNullable(settle(proxyName)).map(p -> p.getProxy().clone());
+    }
+
+    public synchronized Map<String, String> tags(final String arn) {
+        return new LinkedHashMap<>(tags.getOrDefault(arn, new LinkedHashMap<>()));
+    }
+
+    public Report drive(final BaseHandler<CallbackContext> handler, final ResourceHandlerRequest<ResourceModel> request) {
+        return drive(handler::handleRequest, request);
+    }
+
+    @Override
+    public CreateDBProxyResult createDBProxy(final CreateDBProxyRequest request) {
+        if (settle(request.getDBProxyName()) != null) {
+            throw new DBProxyAlreadyExistsException("Proxy " + request.getDBProxyName() + " already exists");
+        }
+
+        final List<UserAuthConfigInfo> auth = Optional.ofNullable(request.getAuth())
+                                                      .orElse(new ArrayList<>())
+                                                      .stream()
+                                                      .map(FakeRds::toAuthInfo)
+                                                      .collect(Collectors.toList());
+        final DBProxy proxy = new DBProxy().withDBProxyName(request.getDBProxyName())
+                                           .withDBProxyArn("arn:aws:rds:us-east-1:123456789012:db-proxy:prx-" + (++proxyCount))
+                                           .withEngineFamily(request.getEngineFamily())
+                                           .withAuth(auth)
+                                           .withRoleArn(request.getRoleArn())
+                                           .withVpcId("vpc-fake")
+                                           .withVpcSubnetIds(request.getVpcSubnetIds())
+                                           .withVpcSecurityGroupIds(request.getVpcSecurityGroupIds())
+                                           .withEndpoint(request.getDBProxyName() + ".proxy-fake.us-east-1.rds.amazonaws.com")
+                                           .withRequireTLS(Optional.ofNullable(request.getRequireTLS()).orElse(false))
+                                           .withIdleClientTimeout(Optional.ofNullable(request.getIdleClientTimeout()).orElse(1800))
+                                           .withDebugLogging(Optional.ofNullable(request.getDebugLogging()).orElse(false));
+        final FakeProxy fakeProxy = new FakeProxy(proxy);
+        fakeProxy.begin("creating", now());
+        proxies.put(proxy.getDBProxyName(), fakeProxy);
+        tags.put(proxy.getDBProxyArn(), toMap(request.getTags()));
+
+        return new CreateDBProxyResult().withDBProxy(proxy.clone());
+    }
+
+    @Override
+    public DescribeDBProxiesResult describeDBProxies(final DescribeDBProxiesRequest request) {
+        if (request.getDBProxyName() != null) {
+            return new DescribeDBProxiesResult().withDBProxies(existing(request.getDBProxyName()).getProxy().clone());
+        }
+
+        final List<DBProxy> all = new ArrayList<>();
+        for (String name : new ArrayList<>(proxies.keySet())) {
+            Optional.ofNullable(settle(name)).ifPresent(p -> all.add(p.getProxy().clone()));
+        }
+        final int from = Optional.ofNullable(request.getMarker()).map(Integer::parseInt).orElse(0);
+        final int to = Math.min(all.size(), from + Optional.ofNullable(request.getMaxRecords()).orElse(100));
+        return new DescribeDBProxiesResult().withDBProxies(all.subList(from, to))
+                                            .withMarker(to < all.size() ? String.valueOf(to) : null);
+    }
+
+    @Override
+    public ModifyDBProxyResult modifyDBProxy(final ModifyDBProxyRequest request) {
+        final FakeProxy fakeProxy = existing(request.getDBProxyName());
+        final DBProxy proxy = fakeProxy.getProxy();
+        if (request.getAuth() != null) {
+            proxy.setAuth(request.getAuth().stream().map(FakeRds::toAuthInfo).collect(Collectors.toList()));
+        }
+        Optional.ofNullable(request.getDebugLogging()).ifPresent(proxy::setDebugLogging);
+        Optional.ofNullable(request.getIdleClientTimeout()).ifPresent(proxy::setIdleClientTimeout);
+        Optional.ofNullable(request.getRequireTLS()).ifPresent(proxy::setRequireTLS);
+        Optional.ofNullable(request.getRoleArn()).ifPresent(proxy::setRoleArn);
+        Optional.ofNullable(request.getSecurityGroups()).ifPresent(proxy::setVpcSecurityGroupIds);
+        fakeProxy.begin("modifying", now());
+
+        return new ModifyDBProxyResult().withDBProxy(proxy.clone());
+    }
+
+    @Override
+    public DeleteDBProxyResult deleteDBProxy(final DeleteDBProxyRequest request) {
+        final FakeProxy fakeProxy = existing(request.getDBProxyName());
+        fakeProxy.begin("deleting", now());
+
+        return new DeleteDBProxyResult().withDBProxy(fakeProxy.getProxy().clone());
+    }
+
+    @Override
+    public AddTagsToResourceResult addTagsToResource(final AddTagsToResourceRequest request) {
+        taggedResource(request.getResourceName()).putAll(toMap(request.getTags()));
+        return new AddTagsToResourceResult();
+    }
+
+    @Override
+    public RemoveTagsFromResourceResult removeTagsFromResource(final RemoveTagsFromResourceRequest request) {
+        taggedResource(request.getResourceName()).keySet().removeAll(request.getTagKeys());
+        return new RemoveTagsFromResourceResult();
+    }
+
+    @Override
+    public ListTagsForResourceResult listTagsForResource(final ListTagsForResourceRequest request) {
+        return new ListTagsForResourceResult().withTagList(taggedResource(request.getResourceName()).entrySet()
+                                                                                                     .stream()
+                                                                                                     .map(t -> new Tag().withKey(t.getKey()).withValue(t.getValue()))
+                                                                                                     .collect(Collectors.toList()));
+    }
+
+    private FakeProxy settle(final String proxyName) {
+        final FakeProxy fakeProxy = proxies.get(proxyName);
+        if (fakeProxy == null || !fakeProxy.settle(now())) {
+            return fakeProxy;
+        }
+        if (DELETED.equals(fakeProxy.getProxy().getStatus())) {
+            proxies.remove(proxyName);
+            tags.remove(fakeProxy.getProxy().getDBProxyArn());
+            return null;
+        }
+        return fakeProxy;
+    }
+
+    private FakeProxy existing(final String proxyName) {
+        return Optional.ofNullable(settle(proxyName))
+                       .orElseThrow(() -> new DBProxyNotFoundException("Proxy " + proxyName + " not found"));
+    }
+
+    private Map<String, String> taggedResource(final String arn) {
+        final Map<String, String> resourceTags = tags.get(arn);
+        if (resourceTags == null) {
+            throw new DBProxyNotFoundException("Resource " + arn + " not found");
+        }
+        return resourceTags;
+    }
+
+    private static Map<String, String> toMap(final List<Tag> tagList) {
+        final Map<String, String> map = new LinkedHashMap<>();
+        Optional.ofNullable(tagList).orElse(new ArrayList<>()).forEach(t -> map.put(t.getKey(), t.getValue()));
+        return map;
+    }
+
+    private static UserAuthConfigInfo toAuthInfo(final UserAuthConfig auth) {
+        return new UserAuthConfigInfo().withAuthScheme(auth.getAuthScheme())
+                                       .withDescription(auth.getDescription())
+                                       .withIAMAuth(auth.getIAMAuth())
+                                       .withSecretArn(auth.getSecretArn())
+                                       .withUserName(auth.getUserName());
+    }
+
+    private class FakeProxy {
+        private final DBProxy proxy;
+        private String settledStatus;
+        private long settleAtMillis;
+
+        FakeProxy(final DBProxy proxy) {
+            this.proxy = proxy;
+        }
+
+        DBProxy getProxy() {
+            return proxy;
+        }
+
+        void begin(final String status, final long now) {
+            proxy.setStatus(status);
+            settledStatus = "deleting".equals(status)
+                            ? DELETED
+                            : outcomes.getOrDefault(status, Constants.AVAILABLE_PROXY_STATE);
+            settleAtMillis = now + transitionSeconds.getOrDefault(status, DEFAULT_TRANSITION_SECONDS) * 1000L;
+        }
+
+        // Returns true when the proxy reached its settled status on this call
+        boolean settle(final long now) {
+            if (settledStatus == null || now < settleAtMillis) {
+                return false;
+            }
+            proxy.setStatus(settledStatus);
+            settledStatus = null;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package software.amazon.rds.dbproxy;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.LoadHarness;
+
+/**
+ * Lifecycle of one resource in a {@link LoadHarness} fleet of proxies. Creates a proxy, changes its idle timeout and
+ * tags, then deletes it, all through shared handler instances.
+ *
+ * To size a fleet from the command line, after mvn test-compile:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=software.amazon.rds.dbproxy.FleetLifecycle -Dexec.args="500 32"
+ */
+public class FleetLifecycle implements LoadHarness.Lifecycle<ResourceModel, CallbackContext> {
+    private final CreateHandler createHandler = new CreateHandler();
+    private final UpdateHandler updateHandler = new UpdateHandler();
+    private final DeleteHandler deleteHandler = new DeleteHandler();
+
+    /**
+     * Creates, updates and deletes a fleet of proxies and prints what each operation type cost.
+     *
+     * @param args number of proxies (default 200) and how many run at once (default 16)
+     */
+    public static void main(final String[] args) {
+        LoadHarness.runFromCommandLine(args, FakeRds::new, new FleetLifecycle());
+    }
+
+    @Override
+    public void run(final int resource, final LoadHarness.Driver<ResourceModel, CallbackContext> driver) {
+        final ResourceModel created = proxyModel(resource, 1800, ImmutableList.of(new TagFormat("owner", "team-" + resource)));
+        final ResourceModel updated = proxyModel(resource, 900, ImmutableList.of(new TagFormat("owner", "team-" + resource),
+                                                                                 new TagFormat("stage", "prod")));
+        driver.drive(LoadHarness.CREATE, createHandler::handleRequest, request(created, null));
+        driver.drive(LoadHarness.UPDATE, updateHandler::handleRequest, request(updated, proxyModel(resource, 1800, created.getTags())));
+        driver.drive(LoadHarness.DELETE, deleteHandler::handleRequest, request(updated, null));
+    }
+
+    private static ResourceModel proxyModel(final int resource, final int idleClientTimeout, final List<TagFormat> tags) {
+        return ResourceModel.builder()
+                            .dBProxyName("proxy-" + resource)
+                            .engineFamily("MYSQL")
+                            .roleArn("arn:aws:iam::123456789012:role/proxy")
+                            .auth(ImmutableList.of(AuthFormat.builder()
+                                                             .authScheme("SECRETS")
+                                                             .secretArn("arn:aws:secretsmanager:us-east-1:123456789012:secret:proxy-" + resource)
+                                                             .build()))
+                            .vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2"))
+                            .idleClientTimeout(idleClientTimeout)
+                            .tags(tags)
+                            .build();
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel desired, final ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
@@ -0,0 +1,172 @@
+package software.amazon.rds.dbproxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxy;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.Concurrency;
+
+public class LifecycleTest {
+    private static final String PROXY_NAME = "proxy";
+
+    private FakeRds rds;
+
+    @BeforeEach
+    public void setup() {
+        rds = new FakeRds().transition("creating", 300)
+                           .transition("modifying", 20)
+                           .transition("deleting", 60);
+    }
+
+    @Test
+    public void createUpdateDelete() {
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(600, ImmutableList.of(new TagFormat("k1", "v1"),
+                                                                                                         new TagFormat("k2", "v2"))), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(create.getSimulatedMillis()).isGreaterThanOrEqualTo(300 * 1000L);
+        assertThat(create.getApiCalls()).isEqualTo(rds.getApiCalls().get("CreateDBProxy") + rds.getApiCalls().get("DescribeDBProxies"));
+        final DBProxy created = rds.proxy(PROXY_NAME).get();
+        assertThat(created.getStatus()).isEqualTo(Constants.AVAILABLE_PROXY_STATE);
+        assertThat(create.getEvent().getResourceModel().getDBProxyArn()).isEqualTo(created.getDBProxyArn());
+        assertThat(rds.tags(created.getDBProxyArn())).isEqualTo(ImmutableMap.of("k1", "v1", "k2", "v2"));
+
+        final ResourceModel previous = model(600, ImmutableList.of(new TagFormat("k1", "v1"), new TagFormat("k2", "v2")));
+        final ResourceModel desired = model(900, ImmutableList.of(new TagFormat("k2", "changed"), new TagFormat("k3", "v3")));
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(desired, previous));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(update.getSimulatedMillis()).isGreaterThanOrEqualTo(20 * 1000L);
+        assertThat(rds.proxy(PROXY_NAME).get().getIdleClientTimeout()).isEqualTo(900);
+        assertThat(rds.tags(created.getDBProxyArn())).isEqualTo(ImmutableMap.of("k2", "changed", "k3", "v3"));
+
+        final FakeRds.Report delete = rds.drive(new DeleteHandler(), request(desired, null));
+
+        assertThat(delete.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(delete.getSimulatedMillis()).isGreaterThanOrEqualTo(60 * 1000L);
+        assertThat(rds.proxy(PROXY_NAME)).isEmpty();
+    }
+
+    @Test
+    public void update_tagOnlyChangeCompletesInOneInvocation() {
+        final ResourceModel created = model(600, ImmutableList.of(new TagFormat("k1", "v1")));
+        rds.drive(new CreateHandler(), request(created, null));
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(model(600, ImmutableList.of(new TagFormat("k1", "changed"))), created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(update.getInvocations()).isEqualTo(1);
+        assertThat(rds.getApiCalls()).doesNotContainKey("ModifyDBProxy");
+        assertThat(rds.tags(rds.proxy(PROXY_NAME).get().getDBProxyArn())).isEqualTo(ImmutableMap.of("k1", "changed"));
+    }
+
+    @Test
+    public void create_failsWhenProxySettlesInTerminalState() {
+        rds.outcome("creating", "incompatible-network");
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(600, null), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(rds.proxy(PROXY_NAME).get().getStatus()).isEqualTo("incompatible-network");
+    }
+
+    @Test
+    public void create_surfacesThrottling() {
+        // As once the client has used up its retries
+        rds.maxErrorRetry(0).throttle("CreateDBProxy", 1);
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(600, null), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(create.getEvent().getErrorCode()).isEqualTo(HandlerErrorCode.Throttling);
+        assertThat(create.getInvocations()).isEqualTo(1);
+        assertThat(rds.proxy(PROXY_NAME)).isEmpty();
+    }
+
+    @Test
+    public void create_clientRetriesThrottledCalls() {
+        rds.throttle("CreateDBProxy", 1);
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(600, null), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(create.getApiCallsByOperation()).containsEntry("CreateDBProxy", 2);
+        assertThat(rds.getRateLimiter().getThrottledCalls()).isEqualTo(1);
+        assertThat(rds.proxy(PROXY_NAME).get().getStatus()).isEqualTo(Constants.AVAILABLE_PROXY_STATE);
+    }
+
+    @Test
+    public void read_afterCreate() {
+        rds.drive(new CreateHandler(), request(model(600, ImmutableList.of(new TagFormat("k1", "v1"))), null));
+
+        final FakeRds.Report read = rds.drive(new ReadHandler(), request(model(600, null), null));
+
+        assertThat(read.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(read.getEvent().getResourceModel().getTags()).containsExactly(new TagFormat("k1", "v1"));
+        assertThat(read.getApiCalls()).isEqualTo(2);
+    }
+
+    @Test
+    public void sharedHandlersServeConcurrentRequests() {
+        final int resources = 8;
+        final CreateHandler createHandler = new CreateHandler();
+        final UpdateHandler updateHandler = new UpdateHandler();
+        final ExecutorService executor = Executors.newFixedThreadPool(resources);
+        try {
+            final List<FakeRds> accounts = new ArrayList<>();
+            final List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (int i = 0; i < resources; i++) {
+                final FakeRds account = new FakeRds().transition("creating", 300).transition("modifying", 20);
+                final int idleClientTimeout = 1000 + i;
+                accounts.add(account);
+                runs.add(CompletableFuture.runAsync(() -> {
+                    assertThat(account.drive(createHandler, request(model(600, null), null)).getEvent().getStatus())
+                            .isEqualTo(OperationStatus.SUCCESS);
+                    assertThat(account.drive(updateHandler, request(model(idleClientTimeout, null), model(600, null))).getEvent().getStatus())
+                            .isEqualTo(OperationStatus.SUCCESS);
+                }, executor));
+            }
+            runs.forEach(Concurrency::join);
+
+            // Every request reached only its own account, so no handler state leaked between concurrent invocations
+            for (int i = 0; i < resources; i++) {
+                assertThat(accounts.get(i).getApiCalls().get("CreateDBProxy")).isEqualTo(1);
+                assertThat(accounts.get(i).getApiCalls().get("ModifyDBProxy")).isEqualTo(1);
+                assertThat(accounts.get(i).proxy(PROXY_NAME).get().getIdleClientTimeout()).isEqualTo(1000 + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ResourceModel model(int idleClientTimeout, List<TagFormat> tags) {
+        return ResourceModel.builder()
+                            .dBProxyName(PROXY_NAME)
+                            .engineFamily("MYSQL")
+                            .roleArn("arn:aws:iam::123456789012:role/proxy")
+                            .vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2"))
+                            .idleClientTimeout(idleClientTimeout)
+                            .tags(tags)
+                            .build();
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request(ResourceModel desired, ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
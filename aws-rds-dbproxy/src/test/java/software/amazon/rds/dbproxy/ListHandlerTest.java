@@ -2,11 +2,14 @@ package software.amazon.rds.dbproxy;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static software.amazon.rds.dbproxy.Matchers.assertThatModelsAreEqual;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -16,17 +19,24 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceResult;
 import com.amazonaws.ResponseMetadata;
 import com.amazonaws.services.rds.model.DBProxy;
 import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
+import com.amazonaws.services.rds.model.ListTagsForResourceRequest;
+import com.amazonaws.services.rds.model.ListTagsForResourceResult;
+import com.amazonaws.services.rds.model.Tag;
 import com.google.common.collect.ImmutableList;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
+import software.amazon.rds.common.Paginator;
 
 @ExtendWith(MockitoExtension.class)
 public class ListHandlerTest {
@@ -34,12 +44,15 @@ public class ListHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -64,7 +77,7 @@ public class ListHandlerTest {
             .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response =
-            handler.handleRequest(proxy, request, null, logger);
+            counting.handle(handler::handleRequest, request, null, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -76,5 +89,161 @@ public class ListHandlerTest {
         assertThatModelsAreEqual(response.getResourceModels().get(1), proxy2);
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(3).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_ReturnsNextToken() {
+        final ListHandler handler = new ListHandler(false);
+
+        DBProxy page1 = new DBProxy().withDBProxyName("proxy1");
+
+        doReturn(new DescribeDBProxiesResult().withDBProxies(page1).withMarker("marker"))
+                .when(proxy)
+                .injectCredentialsAndInvoke(any(DescribeDBProxiesRequest.class),
+                        ArgumentMatchers.<Function<DescribeDBProxiesRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isEqualTo("marker");
+        assertThat(response.getResourceModels().size()).isEqualTo(1);
+        assertThatModelsAreEqual(response.getResourceModels().get(0), page1);
+        ApiBudget.expect("handleRequest_ReturnsNextToken").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_EagerPagingStopsAtPageCap() {
+        final ListHandler handler = new ListHandler(true);
+
+        DBProxy page1 = new DBProxy().withDBProxyName("proxy1");
+
+        doReturn(new DescribeDBProxiesResult().withDBProxies(page1).withMarker("marker"))
+                .when(proxy)
+                .injectCredentialsAndInvoke(any(DescribeDBProxiesRequest.class),
+                        ArgumentMatchers.<Function<DescribeDBProxiesRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isEqualTo("marker");
+        assertThat(response.getResourceModels().size()).isEqualTo(Paginator.DEFAULT_MAX_PAGES);
+        ApiBudget.expect("handleRequest_EagerPagingStopsAtPageCap").invocations(1).apiCalls(10).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_TaggedListingReadsOnePage() {
+        final ListHandler handler = new ListHandler(true, ListHandler.tagEnricher().build());
+
+        // Every page is full and another one always follows
+        doAnswer(invocation -> {
+            DescribeDBProxiesRequest describeRequest = invocation.getArgument(0);
+            final int from = describeRequest.getMarker() == null ? 0 : Integer.parseInt(describeRequest.getMarker());
+            final List<DBProxy> page = new ArrayList<>();
+            for (int i = from; i < from + ListHandler.MAX_RESULTS; i++) {
+                page.add(new DBProxy().withDBProxyName("proxy" + i).withDBProxyArn("arn:aws:rds:us-east-1:123456789012:db-proxy:prx-" + i));
+            }
+            return new DescribeDBProxiesResult().withDBProxies(page).withMarker(String.valueOf(from + ListHandler.MAX_RESULTS));
+        }).when(proxy)
+           .injectCredentialsAndInvoke(any(DescribeDBProxiesRequest.class),
+                   ArgumentMatchers.<Function<DescribeDBProxiesRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isEqualTo(String.valueOf(ListHandler.MAX_RESULTS));
+        assertThat(response.getResourceModels().size()).isEqualTo(ListHandler.MAX_RESULTS);
+        ApiBudget.expect("handleRequest_TaggedListingReadsOnePage")
+                 .invocations(1)
+                 .apiCalls(1 + ListHandler.MAX_RESULTS)
+                 .calls("ListTagsForResource", ListHandler.MAX_RESULTS)
+                 .assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_EagerPagingFetchesAllPages() {
+        final ListHandler handler = new ListHandler(true);
+
+        DBProxy page1 = new DBProxy().withDBProxyName("proxy1");
+        DBProxy page2 = new DBProxy().withDBProxyName("proxy2");
+
+        doAnswer(invocation -> {
+            DescribeDBProxiesRequest describeRequest = invocation.getArgument(0);
+            return describeRequest.getMarker() == null
+                   ? new DescribeDBProxiesResult().withDBProxies(page1).withMarker("marker")
+                   : new DescribeDBProxiesResult().withDBProxies(page2);
+        }).when(proxy)
+           .injectCredentialsAndInvoke(any(DescribeDBProxiesRequest.class),
+                   ArgumentMatchers.<Function<DescribeDBProxiesRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isNull();
+        assertThat(response.getResourceModels().size()).isEqualTo(2);
+        assertThatModelsAreEqual(response.getResourceModels().get(0), page1);
+        assertThatModelsAreEqual(response.getResourceModels().get(1), page2);
+        ApiBudget.expect("handleRequest_EagerPagingFetchesAllPages").invocations(1).apiCalls(2).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_TagEnrichmentRetriesThrottledCalls() {
+        final ListHandler handler = new ListHandler(false, ListHandler.tagEnricher().parallelism(2).baseBackoffMillis(1L).build());
+
+        DBProxy page1 = new DBProxy().withDBProxyName("proxy1").withDBProxyArn("arn1");
+        DBProxy page2 = new DBProxy().withDBProxyName("proxy2").withDBProxyArn("arn2");
+
+        doReturn(new DescribeDBProxiesResult().withDBProxies(page1, page2))
+                .when(proxy)
+                .injectCredentialsAndInvoke(any(DescribeDBProxiesRequest.class),
+                        ArgumentMatchers.<Function<DescribeDBProxiesRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final AtomicBoolean throttled = new AtomicBoolean(false);
+        doAnswer(invocation -> {
+            ListTagsForResourceRequest tagRequest = invocation.getArgument(0);
+            if ("arn1".equals(tagRequest.getResourceName()) && throttled.compareAndSet(false, true)) {
+                AmazonServiceException e = new AmazonServiceException("Rate exceeded");
+                e.setErrorCode("Throttling");
+                throw e;
+            }
+            return new ListTagsForResourceResult().withTagList(new Tag().withKey("name").withValue(tagRequest.getResourceName()));
+        }).when(proxy)
+           .injectCredentialsAndInvoke(any(ListTagsForResourceRequest.class),
+                   ArgumentMatchers.<Function<ListTagsForResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(throttled.get()).isTrue();
+        assertThat(response.getResourceModels().get(0).getTags())
+                .containsExactly(TagFormat.builder().key("name").value("arn1").build());
+        assertThat(response.getResourceModels().get(1).getTags())
+                .containsExactly(TagFormat.builder().key("name").value("arn2").build());
+        ApiBudget.expect("handleRequest_TagEnrichmentRetriesThrottledCalls").invocations(1).apiCalls(4).assertWithin(counting);
     }
 }
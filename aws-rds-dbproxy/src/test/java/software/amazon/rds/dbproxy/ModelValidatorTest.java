@@ -0,0 +1,98 @@
+package software.amazon.rds.dbproxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+public class ModelValidatorTest {
+
+    @Test
+    public void validate_acceptsValidModel() {
+        assertThat(ModelValidator.validate(validModel().build())).isEmpty();
+    }
+
+    @Test
+    public void validate_ignoresPropertiesTheTemplateLeavesOut() {
+        assertThat(ModelValidator.validate(ResourceModel.builder().build())).isEmpty();
+    }
+
+    @Test
+    public void validate_reportsEveryViolation() {
+        final ResourceModel model = validModel().dBProxyName("1-proxy-")
+                                                .auth(ImmutableList.of(AuthFormat.builder().authScheme("SECRETS").build()))
+                                                .vpcSubnetIds(ImmutableList.of("subnet-1"))
+                                                .vpcSecurityGroupIds(ImmutableList.of())
+                                                .idleClientTimeout(0)
+                                                .build();
+
+        assertThat(ModelValidator.validate(model)).hasSize(5);
+    }
+
+    @Test
+    public void validate_requiresSecretArnForSecretsAuth() {
+        final ResourceModel model = validModel().auth(ImmutableList.of(AuthFormat.builder().authScheme("SECRETS").secretArn("arn").build(),
+                                                                       AuthFormat.builder().authScheme("SECRETS").iAMAuth("REQUIRED").build()))
+                                                .build();
+
+        assertThat(ModelValidator.validate(model)).containsExactly("Auth entry 2 uses SECRETS authentication but has no SecretArn.");
+    }
+
+    @Test
+    public void validate_leavesAuthWithoutSchemeToRds() {
+        final ResourceModel model = validModel().auth(ImmutableList.of(AuthFormat.builder().iAMAuth("REQUIRED").build())).build();
+
+        assertThat(ModelValidator.validate(model)).isEmpty();
+    }
+
+    @Test
+    public void validate_checksNameLength() {
+        final String name = "p" + StringUtils.repeat("x", ModelValidator.MAX_NAME_LENGTH - 1);
+
+        assertThat(ModelValidator.validate(validModel().dBProxyName(name).build())).isEmpty();
+        assertThat(ModelValidator.validate(validModel().dBProxyName(name + "x").build())).hasSize(1);
+    }
+
+    @Test
+    public void validate_checksIdleClientTimeoutRange() {
+        assertThat(ModelValidator.validate(validModel().idleClientTimeout(ModelValidator.MAX_IDLE_CLIENT_TIMEOUT).build())).isEmpty();
+        assertThat(ModelValidator.validate(validModel().idleClientTimeout(ModelValidator.MAX_IDLE_CLIENT_TIMEOUT + 1).build())).hasSize(1);
+    }
+
+    @Test
+    public void createHandler_failsBeforeCallingRds() {
+        final AmazonWebServicesClientProxy proxy = mock(AmazonWebServicesClientProxy.class);
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(validModel().vpcSubnetIds(ImmutableList.of("subnet-1"))
+                                                                                                        .idleClientTimeout(-1)
+                                                                                                        .build())
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = new CreateHandler().handleRequest(proxy, request, null, mock(Logger.class));
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        assertThat(response.getMessage()).contains("VpcSubnetIds", "IdleClientTimeout");
+        verifyZeroInteractions(proxy);
+    }
+
+    private static ResourceModel.ResourceModelBuilder validModel() {
+        return ResourceModel.builder()
+                            .dBProxyName("my-proxy")
+                            .engineFamily("MYSQL")
+                            .roleArn("arn:aws:iam::123456789012:role/proxy")
+                            .auth(ImmutableList.of(AuthFormat.builder().authScheme("SECRETS").secretArn("arn").build()))
+                            .vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2"))
+                            .idleClientTimeout(1800);
+    }
+}
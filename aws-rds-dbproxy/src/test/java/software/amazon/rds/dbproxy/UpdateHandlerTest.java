@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static software.amazon.rds.dbproxy.Constants.AVAILABLE_PROXY_STATE;
 
@@ -21,16 +22,21 @@ import com.amazonaws.AmazonWebServiceResult;
 import com.amazonaws.ResponseMetadata;
 import com.amazonaws.services.rds.model.AddTagsToResourceRequest;
 import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.DescribeDBProxiesRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxiesResult;
 import com.amazonaws.services.rds.model.ModifyDBProxyRequest;
 import com.amazonaws.services.rds.model.ModifyDBProxyResult;
 import com.amazonaws.services.rds.model.RemoveTagsFromResourceRequest;
 import com.amazonaws.services.rds.model.Tag;
+import com.amazonaws.services.rds.model.UserAuthConfig;
 import com.google.common.collect.ImmutableList;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class UpdateHandlerTest {
@@ -38,12 +44,15 @@ public class UpdateHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -51,13 +60,12 @@ public class UpdateHandlerTest {
     public void handleRequest_SimpleSuccess() {
         DBProxy dbProxy = new DBProxy().withStatus(AVAILABLE_PROXY_STATE);
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .proxy(ProxyState.from(dbProxy))
                                                        .tagsRegistered(true)
                                                        .tagsDeregistered(true)
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         final ResourceModel model = ResourceModel.builder().build();
 
@@ -67,7 +75,7 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -77,6 +85,7 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -86,13 +95,12 @@ public class UpdateHandlerTest {
                 ArgumentMatchers.<Function<ModifyDBProxyRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
-        final ResourceModel desiredModel = ResourceModel.builder().build();
-        final ResourceModel oldModel = ResourceModel.builder().build();
+        final ResourceModel desiredModel = ResourceModel.builder().dBProxyName("proxy").idleClientTimeout(900).requireTLS(true).build();
+        final ResourceModel oldModel = ResourceModel.builder().dBProxyName("proxy").idleClientTimeout(600).requireTLS(true).build();
 
         final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
                                                                       .desiredResourceState(desiredModel)
@@ -100,31 +108,69 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .proxy(dbProxy)
+                                                                    .proxy(ProxyState.from(dbProxy))
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+
+        ArgumentCaptor<ModifyDBProxyRequest> captor = ArgumentCaptor.forClass(ModifyDBProxyRequest.class);
+        verify(proxy).injectCredentialsAndInvoke(captor.capture(),
+                ArgumentMatchers.<Function<ModifyDBProxyRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        assertThat(captor.getValue()).isEqualTo(new ModifyDBProxyRequest().withDBProxyName("proxy").withIdleClientTimeout(900));
+        ApiBudget.expect("testModifyProxy").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testModifyRequest_noChanges() {
+        final ResourceModel model = ResourceModel.builder()
+                                                 .dBProxyName("proxy")
+                                                 .auth(ImmutableList.of(AuthFormat.builder().authScheme("SECRETS").secretArn("a").build(),
+                                                                        AuthFormat.builder().authScheme("SECRETS").secretArn("b").build()))
+                                                 .vpcSecurityGroupIds(ImmutableList.of("sg-1", "sg-2"))
+                                                 .idleClientTimeout(600)
+                                                 .build();
+        final ResourceModel reordered = ResourceModel.builder()
+                                                     .dBProxyName("proxy")
+                                                     .auth(ImmutableList.of(model.getAuth().get(1), model.getAuth().get(0)))
+                                                     .vpcSecurityGroupIds(ImmutableList.of("sg-2", "sg-1"))
+                                                     .idleClientTimeout(600)
+                                                     .tags(ImmutableList.of(new TagFormat("key", "value")))
+                                                     .build();
+
+        assertThat(UpdateHandler.modifyRequest(model, reordered)).isEmpty();
+    }
+
+    @Test
+    public void testModifyRequest_sendsChangedAuthInFull() {
+        final AuthFormat first = AuthFormat.builder().authScheme("SECRETS").secretArn("a").build();
+        final AuthFormat second = AuthFormat.builder().authScheme("SECRETS").secretArn("b").build();
+        final ResourceModel oldModel = ResourceModel.builder().dBProxyName("proxy").auth(ImmutableList.of(first)).debugLogging(false).build();
+        final ResourceModel newModel = ResourceModel.builder().dBProxyName("proxy").auth(ImmutableList.of(first, second)).debugLogging(false).build();
+
+        final ModifyDBProxyRequest request = UpdateHandler.modifyRequest(oldModel, newModel).get();
+
+        assertThat(request.getAuth()).extracting(UserAuthConfig::getSecretArn).containsExactly("a", "b");
+        assertThat(request.getDebugLogging()).isNull();
+        assertThat(request.getSecurityGroups()).isNullOrEmpty();
     }
 
     @Test
     public void testDeregisterTags() {
         DBProxy dbProxy = new DBProxy().withStatus(AVAILABLE_PROXY_STATE);
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
-                                                       .proxy(dbProxy)
+                                                       .proxy(ProxyState.from(dbProxy))
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         TagFormat tag1 = new TagFormat();
         tag1.setKey("key1");
@@ -141,17 +187,16 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .proxy(dbProxy)
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                                                    .proxy(ProxyState.from(dbProxy))
                                                                     .tagsDeregistered(true)
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
@@ -162,18 +207,18 @@ public class UpdateHandlerTest {
                 ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
         RemoveTagsFromResourceRequest removeTagsRequest = captor.getValue();
         assertThat(removeTagsRequest.getTagKeys().size()).isEqualTo(2);
+        ApiBudget.expect("testDeregisterTags").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testRegisterTags() {
         DBProxy dbProxy = new DBProxy().withStatus(AVAILABLE_PROXY_STATE);
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .tagsDeregistered(true)
-                                                       .proxy(dbProxy)
+                                                       .proxy(ProxyState.from(dbProxy))
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         TagFormat tag1 = new TagFormat();
         tag1.setKey("key1");
@@ -191,18 +236,17 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .tagsDeregistered(true)
-                                                                    .proxy(dbProxy)
+                                                                    .proxy(ProxyState.from(dbProxy))
                                                                     .tagsRegistered(true)
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
@@ -213,17 +257,17 @@ public class UpdateHandlerTest {
                 ArgumentMatchers.<Function<AddTagsToResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
         AddTagsToResourceRequest removeTagsRequest = captor.getValue();
         assertThat(removeTagsRequest.getTags().size()).isEqualTo(2);
+        ApiBudget.expect("testRegisterTags").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testChangedTagValue_deregister() {
         DBProxy dbProxy = new DBProxy().withStatus(AVAILABLE_PROXY_STATE);
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
-                                                       .proxy(dbProxy)
+                                                       .proxy(ProxyState.from(dbProxy))
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         String sharedKey = "key1";
         TagFormat tag1 = new TagFormat();
@@ -245,40 +289,36 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .tagsDeregistered(true)
-                                                                    .proxy(dbProxy)
+                                                                    .proxy(ProxyState.from(dbProxy))
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
-        ArgumentCaptor<RemoveTagsFromResourceRequest> captor = ArgumentCaptor.forClass(RemoveTagsFromResourceRequest.class);
-        verify(proxy).injectCredentialsAndInvoke(captor.capture(),
+        // The changed value is overwritten in place when tags are registered, so nothing is removed
+        verify(proxy, never()).injectCredentialsAndInvoke(any(RemoveTagsFromResourceRequest.class),
                 ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
-        RemoveTagsFromResourceRequest removeTagsRequest = captor.getValue();
-        assertThat(removeTagsRequest.getTagKeys().size()).isEqualTo(1);
-        assertThat(removeTagsRequest.getTagKeys().get(0)).isEqualTo(sharedKey);
+        ApiBudget.expect("testChangedTagValue_deregister").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
     public void testChangedTagValue_Register() {
         DBProxy dbProxy = new DBProxy().withStatus(AVAILABLE_PROXY_STATE);
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .tagsDeregistered(true)
-                                                       .proxy(dbProxy)
+                                                       .proxy(ProxyState.from(dbProxy))
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         String sharedKey = "key1";
         String newValue = "value3";
@@ -301,18 +341,17 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .tagsDeregistered(true)
                                                                     .tagsRegistered(true)
-                                                                    .proxy(dbProxy)
+                                                                    .proxy(ProxyState.from(dbProxy))
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
@@ -326,5 +365,78 @@ public class UpdateHandlerTest {
         Tag addedTag = addTagRequest.getTags().get(0);
         assertThat(addedTag.getKey()).isEqualTo(sharedKey);
         assertThat(addedTag.getValue()).isEqualTo(newValue);
+        ApiBudget.expect("testChangedTagValue_Register").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testFusedStepsCompleteInOneInvocation() {
+        DBProxy resource = new DBProxy().withStatus(AVAILABLE_PROXY_STATE).withDBProxyArn("arn");
+        doReturn(new ModifyDBProxyResult().withDBProxy(resource)).when(proxy).injectCredentialsAndInvoke(any(ModifyDBProxyRequest.class),
+                ArgumentMatchers.<Function<ModifyDBProxyRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final UpdateHandler handler = new UpdateHandler();
+
+        final ResourceModel oldModel = ResourceModel.builder()
+                                                    .idleClientTimeout(600)
+                                                    .tags(ImmutableList.of(new TagFormat("oldKey", "value")))
+                                                    .build();
+        final ResourceModel desiredModel = ResourceModel.builder()
+                                                        .idleClientTimeout(900)
+                                                        .tags(ImmutableList.of(new TagFormat("newKey", "value")))
+                                                        .build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext()).isNull();
+        verify(proxy).injectCredentialsAndInvoke(any(ModifyDBProxyRequest.class),
+                ArgumentMatchers.<Function<ModifyDBProxyRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(RemoveTagsFromResourceRequest.class),
+                ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(AddTagsToResourceRequest.class),
+                ArgumentMatchers.<Function<AddTagsToResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        ApiBudget.expect("testFusedStepsCompleteInOneInvocation").invocations(1).apiCalls(3).assertWithin(counting);
+    }
+
+    @Test
+    public void testTagOnlyUpdateSkipsModify() {
+        DBProxy resource = new DBProxy().withStatus(AVAILABLE_PROXY_STATE).withDBProxyArn("arn");
+        doReturn(new DescribeDBProxiesResult().withDBProxies(resource)).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxiesRequest.class),
+                ArgumentMatchers.<Function<DescribeDBProxiesRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final UpdateHandler handler = new UpdateHandler();
+
+        final ResourceModel oldModel = ResourceModel.builder()
+                                                    .dBProxyName("proxy")
+                                                    .tags(ImmutableList.of(new TagFormat("oldKey", "value")))
+                                                    .build();
+        final ResourceModel desiredModel = ResourceModel.builder()
+                                                        .dBProxyName("proxy")
+                                                        .tags(ImmutableList.of(new TagFormat("newKey", "value")))
+                                                        .build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(proxy, never()).injectCredentialsAndInvoke(any(ModifyDBProxyRequest.class),
+                ArgumentMatchers.<Function<ModifyDBProxyRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(RemoveTagsFromResourceRequest.class),
+                ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(AddTagsToResourceRequest.class),
+                ArgumentMatchers.<Function<AddTagsToResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        ApiBudget.expect("testTagOnlyUpdateSkipsModify").invocations(1).apiCalls(3).assertWithin(counting);
     }
 }
@@ -0,0 +1,18 @@
+package software.amazon.rds.dbproxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.Tag;
+import com.google.common.collect.ImmutableList;
+
+public class UtilityTest {
+
+    @Test
+    public void convertTags() {
+        assertThat(Utility.convertTags(null)).isEmpty();
+        assertThat(Utility.convertTags(ImmutableList.of(new Tag().withKey("key").withValue("value"))))
+                .containsExactly(TagFormat.builder().key("key").value("value").build());
+    }
+}
@@ -1,19 +1,27 @@
 package software.amazon.rds.dbproxyendpoint;
 
-import com.amazonaws.services.rds.model.DBProxyEndpoint;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import software.amazon.rds.common.DeadlineContext;
 
+// Contexts written by earlier releases must still deserialize, so fields are only ever added. ProxyEndpointState keeps
+// the property names of the SDK DBProxyEndpoint earlier releases stored, and fields since removed are ignored.
+@JsonIgnoreProperties(ignoreUnknown = true)
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class CallbackContext {
-    private DBProxyEndpoint proxyEndpoint;
+public class CallbackContext implements DeadlineContext {
+    private ProxyEndpointState proxyEndpoint;
     private boolean deleted;
-    private Integer stabilizationRetriesRemaining;
+    // Wall-clock start and deadline of the whole operation, in epoch milliseconds, set on its first invocation
+    private Long operationStartTime;
+    private Long operationDeadline;
+
+    private int stabilizationAttempt;
     private boolean tagsDeregistered;
     private boolean tagsRegistered;
 }
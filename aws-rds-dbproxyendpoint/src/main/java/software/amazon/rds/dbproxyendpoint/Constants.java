@@ -3,11 +3,20 @@ package software.amazon.rds.dbproxyendpoint;
 import java.util.List;
 
 import com.google.common.collect.ImmutableList;
+import software.amazon.rds.common.StabilizationScheduler;
 
 public class Constants {
     public static final String AVAILABLE_ENDPOINT_STATE = "available";
     public static final List<String> TERMINAL_FAILURE_STATES = ImmutableList.of("incompatible-network",
             "insufficient-resource-limits");
-    public static final int NUMBER_OF_STATE_POLL_RETRIES = 240;
-    public static final int POLL_RETRY_DELAY_IN_MS = 5000;
+    public static final int POLL_RETRY_DELAY_IN_SECONDS = 5;
+
+    // Endpoint modifications settle within seconds, creation takes a few minutes
+    public static final StabilizationScheduler STABILIZATION_SCHEDULER = StabilizationScheduler.builder()
+            .initialDelay("creating", 10)
+            .initialDelay("modifying", 2)
+            .initialDelay("deleting", 5)
+            .defaultInitialDelaySeconds(POLL_RETRY_DELAY_IN_SECONDS)
+            .maxDelaySeconds(30)
+            .build();
 }
@@ -1,5 +1,6 @@
 package software.amazon.rds.dbproxyendpoint;
 
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -7,7 +8,6 @@ import java.util.Optional;
 import org.apache.commons.lang3.StringUtils;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.CreateDBProxyEndpointRequest;
 import com.amazonaws.services.rds.model.CreateDBProxyEndpointResult;
 import com.amazonaws.services.rds.model.DBProxyEndpoint;
@@ -15,13 +15,16 @@ import com.amazonaws.services.rds.model.DBProxyEndpointAlreadyExistsException;
 import com.amazonaws.services.rds.model.DescribeDBProxyEndpointsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyEndpointsResult;
 import com.amazonaws.services.rds.model.Tag;
-import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.OperationDeadline;
+import software.amazon.rds.common.Violations;
 
 public class CreateHandler extends BaseHandler<CallbackContext> {
     public static final String TIMED_OUT_MESSAGE = "Timed out waiting for proxyEndpoint to become available.";
@@ -30,8 +33,16 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
     public static final String IS_DEFAULT_READ_ONLY_MESSAGE = "IsDefault is a read-only property.";
     public static final String VPC_ID_READ_ONLY_MESSAGE = "VpcId is a read-only property.";
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
+
+    public CreateHandler() {
+        this(Clock.systemUTC());
+    }
+
+    CreateHandler(final Clock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -40,26 +51,29 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
         final CallbackContext callbackContext,
         final Logger logger) {
 
-        final ResourceModel model = request.getDesiredResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel model = request.getDesiredResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = Optional.ofNullable(callbackContext)
-                .orElse(CallbackContext.builder()
-                        .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                        .build());
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when state stabilizes.
-        return createProxyEndpointAndUpdateProgress(model, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when state stabilizes.
+            return OperationDeadline.carry(createProxyEndpointAndUpdateProgress(proxy, rdsClient, model, currentContext), currentContext, clock);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> createProxyEndpointAndUpdateProgress(ResourceModel model,
+    private ProgressEvent<ResourceModel, CallbackContext> createProxyEndpointAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                       final AmazonRDS rdsClient,
+                                                                                       ResourceModel model,
                                                                                        CallbackContext callbackContext) {
         // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when state stabilizes.
-        final DBProxyEndpoint endpointStateSoFar = callbackContext.getProxyEndpoint();
+        final ProxyEndpointState endpointStateSoFar = callbackContext.getProxyEndpoint();
 
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
@@ -71,8 +85,7 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
                         .resourceModel(model)
                         .status(OperationStatus.IN_PROGRESS)
                         .callbackContext(CallbackContext.builder()
-                                .proxyEndpoint(createProxyEndpoint(model))
-                                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                .proxyEndpoint(ProxyEndpointState.from(createProxyEndpoint(clientProxy, rdsClient, model)))
                                 .build())
                         .build());
             } catch (DBProxyEndpointAlreadyExistsException e) {
@@ -95,25 +108,23 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
             model.setDBProxyEndpointArn(endpointStateSoFar.getDBProxyEndpointArn());
             model.setEndpoint(endpointStateSoFar.getEndpoint());
 
-            try {
-                Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
 
-            DBProxyEndpoint proxyEndpoint = updatedProxyEndpointProgress(endpointStateSoFar.getDBProxyEndpointName());
+            DBProxyEndpoint proxyEndpoint = updatedProxyEndpointProgress(clientProxy, rdsClient, endpointStateSoFar.getDBProxyEndpointName());
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                     .resourceModel(model)
                     .status(OperationStatus.IN_PROGRESS)
+                    .callbackDelaySeconds(Constants.AVAILABLE_ENDPOINT_STATE.equals(proxyEndpoint.getStatus())
+                            ? 0
+                            : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(proxyEndpoint.getStatus(), callbackContext.getStabilizationAttempt()))
                     .callbackContext(CallbackContext.builder()
-                            .proxyEndpoint(proxyEndpoint)
-                            .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                            .proxyEndpoint(ProxyEndpointState.from(proxyEndpoint))
+                            .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                             .build())
                     .build();
         }
     }
 
-    private DBProxyEndpoint createProxyEndpoint(ResourceModel model) {
+    private DBProxyEndpoint createProxyEndpoint(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel model) {
         List<Tag> tags = getTags(model);
 
         CreateDBProxyEndpointRequest request = new CreateDBProxyEndpointRequest()
@@ -142,7 +153,7 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
         return tags;
     }
 
-    private DBProxyEndpoint updatedProxyEndpointProgress(String proxyEndpointName) {
+    private DBProxyEndpoint updatedProxyEndpointProgress(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyEndpointName) {
         DescribeDBProxyEndpointsRequest describeDBProxyEndpointsRequest;
         DescribeDBProxyEndpointsResult describeDBProxyEndpointsResult;
 
@@ -155,35 +166,30 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
     }
 
     /**
-     * Validate the model in the first run.
+     * Validate the model in the first run, reporting every violation at once.
      * @return null if validation passed.
      *         ProgressEvent if validation failed
      */
     private ProgressEvent<ResourceModel, CallbackContext> validateModel(ResourceModel model) {
+        List<String> violations = new ArrayList<>();
+
         if (StringUtils.isNotEmpty(model.getDBProxyEndpointArn())){
-            return ProgressEvent.defaultFailureHandler(
-                    new CfnInvalidRequestException(DB_PROXY_ENDPOINT_ARN_READ_ONLY_MESSAGE),
-                    HandlerErrorCode.InvalidRequest);
+            violations.add(DB_PROXY_ENDPOINT_ARN_READ_ONLY_MESSAGE);
         }
 
         if (StringUtils.isNotEmpty(model.getEndpoint())){
-            return ProgressEvent.defaultFailureHandler(
-                    new CfnInvalidRequestException(ENDPOINT_READ_ONLY_MESSAGE),
-                    HandlerErrorCode.InvalidRequest);
+            violations.add(ENDPOINT_READ_ONLY_MESSAGE);
         }
 
         if (StringUtils.isNotEmpty(model.getVpcId())){
-            return ProgressEvent.defaultFailureHandler(
-                    new CfnInvalidRequestException(VPC_ID_READ_ONLY_MESSAGE),
-                    HandlerErrorCode.InvalidRequest);
+            violations.add(VPC_ID_READ_ONLY_MESSAGE);
         }
 
         if (model.getIsDefault() != null){
-            return ProgressEvent.defaultFailureHandler(
-                    new CfnInvalidRequestException(IS_DEFAULT_READ_ONLY_MESSAGE),
-                    HandlerErrorCode.InvalidRequest);
+            violations.add(IS_DEFAULT_READ_ONLY_MESSAGE);
         }
 
-        return null;
+        violations.addAll(ModelValidator.validate(model));
+        return Violations.failure(violations);
     }
 }
@@ -1,7 +1,8 @@
 package software.amazon.rds.dbproxyendpoint;
 
+import java.time.Clock;
+
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.DBProxyEndpoint;
 import com.amazonaws.services.rds.model.DBProxyEndpointNotFoundException;
 import com.amazonaws.services.rds.model.DeleteDBProxyEndpointRequest;
@@ -13,12 +14,23 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.OperationDeadline;
 
 public class DeleteHandler extends BaseHandler<CallbackContext> {
     private static final String TIMED_OUT_MESSAGE = "Timed out waiting for proxyEndpoint to terminate.";
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
+
+    public DeleteHandler() {
+        this(Clock.systemUTC());
+    }
+
+    DeleteHandler(final Clock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -27,22 +39,26 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        final ResourceModel model = request.getDesiredResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel model = request.getDesiredResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = callbackContext == null ?
-                CallbackContext.builder().stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES).build() :
-                callbackContext;
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when deleted.
-        return deleteProxyEndpointAndUpdateProgress(model, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when deleted.
+            return OperationDeadline.carry(deleteProxyEndpointAndUpdateProgress(proxy, rdsClient, model, currentContext), currentContext, clock);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> deleteProxyEndpointAndUpdateProgress(ResourceModel model,
+    private ProgressEvent<ResourceModel, CallbackContext> deleteProxyEndpointAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                       final AmazonRDS rdsClient,
+                                                                                       ResourceModel model,
                                                                                        CallbackContext callbackContext) {
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
@@ -52,8 +68,7 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
                         .resourceModel(model)
                         .status(OperationStatus.IN_PROGRESS)
                         .callbackContext(CallbackContext.builder()
-                                .proxyEndpoint(deleteProxyEndpoint(model.getDBProxyEndpointName()))
-                                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                .proxyEndpoint(ProxyEndpointState.from(deleteProxyEndpoint(clientProxy, rdsClient, model.getDBProxyEndpointName())))
                                 .build())
                         .build();
             } catch (DBProxyEndpointNotFoundException e) {
@@ -64,31 +79,30 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
                     .status(OperationStatus.SUCCESS)
                     .build();
         } else {
-            try {
-                Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+            boolean deleted = !doesProxyEndpointExist(clientProxy, rdsClient, model.getDBProxyEndpointName());
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                     .resourceModel(model)
                     .status(OperationStatus.IN_PROGRESS)
+                    .callbackDelaySeconds(deleted
+                            ? 0
+                            : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(callbackContext.getProxyEndpoint().getStatus(), callbackContext.getStabilizationAttempt()))
                     .callbackContext(CallbackContext.builder()
                             .proxyEndpoint(callbackContext.getProxyEndpoint())
-                            .deleted(!doesProxyEndpointExist(model.getDBProxyEndpointName()))
-                            .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                            .deleted(deleted)
+                            .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                             .build())
                     .build();
         }
     }
 
-    private DBProxyEndpoint deleteProxyEndpoint(String proxyEndpointName) {
+    private DBProxyEndpoint deleteProxyEndpoint(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyEndpointName) {
         DeleteDBProxyEndpointRequest request = new DeleteDBProxyEndpointRequest().withDBProxyEndpointName(proxyEndpointName);
 
         DeleteDBProxyEndpointResult result = clientProxy.injectCredentialsAndInvoke(request, rdsClient::deleteDBProxyEndpoint);
         return result.getDBProxyEndpoint();
     }
 
-    private boolean doesProxyEndpointExist(String proxyEndpointName) {
+    private boolean doesProxyEndpointExist(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyEndpointName) {
         DescribeDBProxyEndpointsRequest describeDBProxyEndpointsRequest;
 
         describeDBProxyEndpointsRequest = new DescribeDBProxyEndpointsRequest().withDBProxyEndpointName(proxyEndpointName);
@@ -0,0 +1,43 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.rds.common.Violations;
+
+/**
+ * Endpoint rules RDS would otherwise only enforce after a round trip or after the endpoint has been created: the name
+ * format and the network settings.
+ */
+public class ModelValidator {
+    static final int MAX_NAME_LENGTH = 64;
+    static final int MIN_SUBNETS = 2;
+
+    // A letter, then letters, digits and single hyphens, not ending in a hyphen
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z](-?[A-Za-z0-9])*");
+
+    public static List<String> validate(ResourceModel model) {
+        Violations violations = new Violations();
+
+        String name = model.getDBProxyEndpointName();
+        violations.check(name != null && (name.length() > MAX_NAME_LENGTH || !NAME_PATTERN.matcher(name).matches()),
+                         "DBProxyEndpointName must be 1 to " + MAX_NAME_LENGTH + " letters, digits or hyphens, start with a letter, "
+                         + "and neither end with a hyphen nor contain two consecutive hyphens.");
+
+        violations.check(model.getVpcSubnetIds() != null && model.getVpcSubnetIds().size() < MIN_SUBNETS,
+                         "VpcSubnetIds must contain at least " + MIN_SUBNETS + " subnets.");
+
+        violations.check(model.getVpcSecurityGroupIds() != null && model.getVpcSecurityGroupIds().isEmpty(),
+                         "VpcSecurityGroupIds must contain at least one security group.");
+
+        return violations.getMessages();
+    }
+
+    /**
+     * @return null if the model is valid, otherwise an InvalidRequest failure listing every violation
+     */
+    static ProgressEvent<ResourceModel, CallbackContext> check(ResourceModel model) {
+        return Violations.failure(validate(model));
+    }
+}
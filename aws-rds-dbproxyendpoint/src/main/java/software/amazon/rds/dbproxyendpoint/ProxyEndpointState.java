@@ -0,0 +1,38 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import com.amazonaws.services.rds.model.DBProxyEndpoint;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The subset of a {@link DBProxyEndpoint} that the handlers read back from the callback context. Property names match
+ * the SDK type, so contexts written before the compact format still deserialize; SDK properties not kept here are
+ * skipped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProxyEndpointState {
+    private String dBProxyEndpointName;
+    private String dBProxyEndpointArn;
+    private String status;
+    private String endpoint;
+
+    public static ProxyEndpointState from(final DBProxyEndpoint proxyEndpoint) {
+        if (proxyEndpoint == null) {
+            return null;
+        }
+
+        return ProxyEndpointState.builder()
+                                 .dBProxyEndpointName(proxyEndpoint.getDBProxyEndpointName())
+                                 .dBProxyEndpointArn(proxyEndpoint.getDBProxyEndpointArn())
+                                 .status(proxyEndpoint.getStatus())
+                                 .endpoint(proxyEndpoint.getEndpoint())
+                                 .build();
+    }
+}
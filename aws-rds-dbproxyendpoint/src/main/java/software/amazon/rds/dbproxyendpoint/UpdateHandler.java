@@ -2,15 +2,17 @@ package software.amazon.rds.dbproxyendpoint;
 
 import static software.amazon.rds.dbproxyendpoint.Utility.listEqualsIgnoreOrder;
 
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.AddTagsToResourceRequest;
 import com.amazonaws.services.rds.model.DBProxyEndpoint;
 import com.amazonaws.services.rds.model.DBProxyEndpointNotFoundException;
@@ -27,6 +29,11 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.Diff;
+import software.amazon.rds.common.OperationDeadline;
+import software.amazon.rds.common.StepFusion;
 
 public class UpdateHandler extends BaseHandler<CallbackContext> {
     public static final String DB_PROXY_NAME_CREATE_ONLY_MESSAGE = "DBProxyName is a create-only property and cannot be updated.";
@@ -34,11 +41,26 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
     public static final String VPC_SUBNET_ID_CREATE_ONLY_MESSAGE = "VPCSubnetId is a create-only property and cannot be updated.";
     public static final String TARGET_ROLE_CREATE_ONLY_MESSAGE = "TargetRole is a create-only property and cannot be updated.";
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
-    private Logger log;
+    // Time this invocation may keep running steps that do not wait on the resource before handing back to the caller
+    private final long stepFusionBudgetMillis;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
 
     private static final String TIMED_OUT_MESSAGE = "Timed out waiting for proxyEndpoint to finish modification.";
+
+    public UpdateHandler() {
+        this(StepFusion.DEFAULT_BUDGET_IN_MS, Clock.systemUTC());
+    }
+
+    public UpdateHandler(final long stepFusionBudgetMillis) {
+        this(stepFusionBudgetMillis, Clock.systemUTC());
+    }
+
+    UpdateHandler(final long stepFusionBudgetMillis, final Clock clock) {
+        this.stepFusionBudgetMillis = stepFusionBudgetMillis;
+        this.clock = clock;
+    }
+
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
             final AmazonWebServicesClientProxy proxy,
@@ -46,28 +68,35 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        final ResourceModel newModel = request.getDesiredResourceState();
-        final ResourceModel oldModel = request.getPreviousResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel newModel = request.getDesiredResourceState();
+            final ResourceModel oldModel = request.getPreviousResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
-        log = logger;
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = callbackContext == null ?
-                CallbackContext.builder().stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES).build() :
-                callbackContext;
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when deleted.
-        return updateProxyEndpointAndUpdateProgress(newModel, oldModel, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when deleted.
+            // Steps that do not wait on the resource run back-to-back within this invocation.
+            return StepFusion.run(context -> OperationDeadline.carry(updateProxyEndpointAndUpdateProgress(proxy, rdsClient, newModel, oldModel, context), context, clock),
+                                  currentContext,
+                                  clock,
+                                  stepFusionBudgetMillis);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateProxyEndpointAndUpdateProgress(ResourceModel newModel,
+    private ProgressEvent<ResourceModel, CallbackContext> updateProxyEndpointAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                       final AmazonRDS rdsClient,
+                                                                                       ResourceModel newModel,
                                                                                        ResourceModel oldModel,
                                                                                        CallbackContext callbackContext) {
         // This Lambda will continually be re-invoked with the current state of the proxyEndpoint, finally succeeding when state stabilizes.
-        final DBProxyEndpoint proxyEndpointStateSoFar = callbackContext.getProxyEndpoint();
+        final ProxyEndpointState proxyEndpointStateSoFar = callbackContext.getProxyEndpoint();
 
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
@@ -79,8 +108,10 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                         .resourceModel(newModel)
                         .status(OperationStatus.IN_PROGRESS)
                         .callbackContext(CallbackContext.builder()
-                                .proxyEndpoint(updateProxyEndpointSettings(oldModel, newModel))
-                                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                .proxyEndpoint(ProxyEndpointState.from(isModifyNeeded(oldModel, newModel)
+                                                                       ? updateProxyEndpointSettings(clientProxy, rdsClient, oldModel, newModel)
+                                                                       // Nothing to apply, so the endpoint stays as it is and only its tags are updated
+                                                                       : updatedProxyEndpointProgress(clientProxy, rdsClient, oldModel.getDBProxyEndpointName())))
                                 .build())
                         .build());
             } catch (DBProxyEndpointNotFoundException e) {
@@ -95,8 +126,7 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                     .status(OperationStatus.IN_PROGRESS)
                     .callbackContext(CallbackContext.builder()
                             .proxyEndpoint(proxyEndpointStateSoFar)
-                            .tagsDeregistered(deregisterOldTags(oldModel, newModel, proxyEndpointStateSoFar))
-                            .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                            .tagsDeregistered(deregisterOldTags(clientProxy, rdsClient, oldModel, newModel, proxyEndpointStateSoFar))
                             .build())
                     .build();
         }
@@ -108,8 +138,7 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                     .callbackContext(CallbackContext.builder()
                             .proxyEndpoint(proxyEndpointStateSoFar)
                             .tagsDeregistered(callbackContext.isTagsDeregistered())
-                            .tagsRegistered(registerNewTags(oldModel, newModel, proxyEndpointStateSoFar))
-                            .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                            .tagsRegistered(registerNewTags(clientProxy, rdsClient, oldModel, newModel, proxyEndpointStateSoFar))
                             .build())
                     .build();
         }
@@ -125,46 +154,35 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                     .errorCode(HandlerErrorCode.NotFound)
                     .build();
         } else {
-            try {
-                Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
 
-            DBProxyEndpoint proxyEndpoint = updatedProxyEndpointProgress(proxyEndpointStateSoFar.getDBProxyEndpointName());
+            DBProxyEndpoint proxyEndpoint = updatedProxyEndpointProgress(clientProxy, rdsClient, proxyEndpointStateSoFar.getDBProxyEndpointName());
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                     .resourceModel(newModel)
                     .status(OperationStatus.IN_PROGRESS)
+                    .callbackDelaySeconds(Constants.AVAILABLE_ENDPOINT_STATE.equals(proxyEndpoint.getStatus())
+                            ? 0
+                            : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(proxyEndpoint.getStatus(), callbackContext.getStabilizationAttempt()))
                     .callbackContext(CallbackContext.builder()
                             .tagsDeregistered(callbackContext.isTagsDeregistered())
                             .tagsRegistered(callbackContext.isTagsRegistered())
-                            .proxyEndpoint(proxyEndpoint)
-                            .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                            .proxyEndpoint(ProxyEndpointState.from(proxyEndpoint))
+                            .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                             .build())
                     .build();
         }
     }
 
-    private List<TagFormat> getTagKeys(ResourceModel model) {
-        return Optional.ofNullable(model.getTags()).orElse(new ArrayList<>()).stream().collect(Collectors.toList());
+    private Diff<String, String> diffTags(ResourceModel oldModel, ResourceModel newModel) {
+        return Diff.of(oldModel.getTags(), newModel.getTags(), TagFormat::getKey, TagFormat::getValue);
     }
 
-    private List<TagFormat> listNewTags(List<TagFormat> list1, List<TagFormat> list2) {
-        if (list1.size() > 0 && list2.size() > 0) {
-            list1.removeAll(list2);
-        }
-        return list1;
+    private List<Tag> toRDSTags(Map<String, String> tags) {
+        return tags.entrySet().stream().map(t -> new Tag().withKey(t.getKey()).withValue(t.getValue())).collect(Collectors.toList());
     }
 
-    private List<Tag> toRDSTags(List<TagFormat> tagList) {
-        return tagList.stream().map(t -> new Tag().withKey(t.getKey()).withValue(t.getValue())).collect(Collectors.toList());
-    }
-
-    private boolean deregisterOldTags(ResourceModel oldModel, ResourceModel newModel, DBProxyEndpoint proxyEndpoint) {
-        List<TagFormat> oldTags = getTagKeys(oldModel);
-        List<TagFormat> newTags = getTagKeys(newModel);
-        List<TagFormat> tagsToRemove = listNewTags(oldTags, newTags);
-        List<String> tagKeyList = tagsToRemove.stream().map(t -> t.getKey()).collect(Collectors.toList());
+    private boolean deregisterOldTags(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel oldModel, ResourceModel newModel, ProxyEndpointState proxyEndpoint) {
+        // Tags whose value changed are overwritten in place by registerNewTags, so only keys that are gone are removed
+        List<String> tagKeyList = new ArrayList<>(diffTags(oldModel, newModel).getRemoved().keySet());
 
         if (tagKeyList.size() > 0) {
             RemoveTagsFromResourceRequest removeTagsRequest = new RemoveTagsFromResourceRequest()
@@ -175,10 +193,11 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
         return true;
     }
 
-    private boolean registerNewTags(ResourceModel oldModel, ResourceModel newModel, DBProxyEndpoint proxyEndpoint) {
-        List<TagFormat> oldTags = getTagKeys(oldModel);
-        List<TagFormat> newTags = getTagKeys(newModel);
-        List<TagFormat> tagsToAdd = listNewTags(newTags, oldTags);
+    private boolean registerNewTags(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel oldModel, ResourceModel newModel, ProxyEndpointState proxyEndpoint) {
+        Diff<String, String> tagDiff = diffTags(oldModel, newModel);
+        Map<String, String> tagsToAdd = new LinkedHashMap<>(tagDiff.getAdded());
+        tagsToAdd.putAll(tagDiff.getChanged());
+
         if (tagsToAdd.size() > 0 ) {
             AddTagsToResourceRequest addTagsRequest = new AddTagsToResourceRequest()
                     .withResourceName(proxyEndpoint.getDBProxyEndpointArn())
@@ -188,7 +207,16 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
         return true;
     }
 
-    private DBProxyEndpoint updateProxyEndpointSettings(ResourceModel oldModel, ResourceModel newModel) {
+    /**
+     * VpcSecurityGroupIds is the only endpoint setting that can be modified. Leaving it out of the template leaves the
+     * endpoint's security groups as they are.
+     */
+    static boolean isModifyNeeded(ResourceModel oldModel, ResourceModel newModel) {
+        return newModel.getVpcSecurityGroupIds() != null
+                && (oldModel.getVpcSecurityGroupIds() == null || !listEqualsIgnoreOrder(newModel.getVpcSecurityGroupIds(), oldModel.getVpcSecurityGroupIds()));
+    }
+
+    private DBProxyEndpoint updateProxyEndpointSettings(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel oldModel, ResourceModel newModel) {
         ModifyDBProxyEndpointRequest request = new ModifyDBProxyEndpointRequest()
                 .withDBProxyEndpointName(oldModel.getDBProxyEndpointName())
                 .withVpcSecurityGroupIds(newModel.getVpcSecurityGroupIds());
@@ -197,7 +225,7 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
         return result.getDBProxyEndpoint();
     }
 
-    private DBProxyEndpoint updatedProxyEndpointProgress(String proxyEndpointName) {
+    private DBProxyEndpoint updatedProxyEndpointProgress(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String proxyEndpointName) {
         DescribeDBProxyEndpointsRequest describeDBProxyEndpointsRequest;
         DescribeDBProxyEndpointsResult describeDBProxyEndpointsResult;
 
@@ -242,7 +270,7 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                     HandlerErrorCode.NotUpdatable);
         }
 
-        return null;
+        return ModelValidator.check(newModel);
     }
 
 }
@@ -1,9 +1,11 @@
 package software.amazon.rds.dbproxyendpoint;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 
 import com.amazonaws.services.rds.model.DBProxyEndpoint;
+import com.amazonaws.services.rds.model.Tag;
 
 public class Utility {
 
@@ -25,4 +27,21 @@ public class Utility {
     public static <T> boolean listEqualsIgnoreOrder(List<T> list1, List<T> list2) {
         return new HashSet<>(list1).equals(new HashSet<>(list2));
     }
+
+    public static List<TagFormat> convertTags(List<Tag> tags) {
+        List<TagFormat> convertedTags = new ArrayList<>();
+
+        if (tags == null || tags.size() == 0) {
+            return convertedTags;
+        }
+
+        for(Tag tag : tags){
+            convertedTags.add(TagFormat.builder()
+                    .key(tag.getKey())
+                    .value(tag.getValue())
+                    .build());
+        }
+
+        return convertedTags;
+    }
 }
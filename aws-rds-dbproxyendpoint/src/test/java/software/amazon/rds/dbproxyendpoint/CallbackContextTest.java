@@ -0,0 +1,100 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxyEndpoint;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableMap;
+import software.amazon.cloudformation.resource.Serializer;
+
+public class CallbackContextTest {
+    private static final TypeReference<CallbackContext> CALLBACK_CONTEXT_TYPE = new TypeReference<CallbackContext>() {};
+
+    // A context as the baseline release wrote it: the SDK DBProxyEndpoint as RDS described it, and a retry countdown instead of
+    // the operation deadline
+    private static final String BASELINE_CONTEXT = "{\"proxyEndpoint\":{\"status\":\"creating\",\"vpcId\":\"vpc-0123456789abcdef\"," +
+                                                   "\"vpcSecurityGroupIds\":[\"sg-0123456789abcdef\"],\"vpcSubnetIds\":[\"subnet-01234567\"]," +
+                                                   "\"endpoint\":\"endpoint.endpoint.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com\"," +
+                                                   "\"createdDate\":1600000000000,\"targetRole\":\"READ_WRITE\",\"isDefault\":false,\"default\":false," +
+                                                   "\"dbproxyName\":\"proxy\",\"dbproxyEndpointName\":\"endpoint\"," +
+                                                   "\"dbproxyEndpointArn\":\"arn:aws:rds:us-east-1:123456789012:db-proxy-endpoint:prx-endpoint-0123456789abcdef\"}," +
+                                                   "\"deleted\":false,\"stabilizationRetriesRemaining\":60,\"tagsDeregistered\":true," +
+                                                   "\"tagsRegistered\":false}";
+
+    private final Serializer serializer = new Serializer();
+
+    @Test
+    public void roundTrip_keepsCompactEndpointState() throws IOException {
+        final CallbackContext context = CallbackContext.builder()
+                                                       .proxyEndpoint(ProxyEndpointState.from(fullEndpoint()))
+                                                       .stabilizationAttempt(2)
+                                                       .tagsDeregistered(true)
+                                                       .build();
+
+        final CallbackContext decoded = serializer.deserialize(serializer.serialize(context), CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded).isEqualTo(context);
+    }
+
+    @Test
+    public void deserialize_readsVersionOneContext() throws IOException {
+        final DBProxyEndpoint proxyEndpoint = fullEndpoint();
+        final Map<String, Object> legacy = ImmutableMap.of("proxyEndpoint", proxyEndpoint,
+                                                           "stabilizationRetriesRemaining", 10,
+                                                           "tagsDeregistered", true);
+
+        final CallbackContext decoded = serializer.deserialize(serializer.serialize(legacy), CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded.getProxyEndpoint()).isEqualTo(ProxyEndpointState.from(proxyEndpoint));
+        assertThat(decoded.getOperationDeadline()).isNull();
+        assertThat(decoded.isTagsDeregistered()).isTrue();
+    }
+
+    @Test
+    public void deserialize_readsBaselineReleaseContext() throws IOException {
+        final CallbackContext decoded = serializer.deserialize(BASELINE_CONTEXT, CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded.getProxyEndpoint()).isEqualTo(ProxyEndpointState.builder()
+                                                                           .dBProxyEndpointName("endpoint")
+                                                                           .dBProxyEndpointArn("arn:aws:rds:us-east-1:123456789012:db-proxy-endpoint:prx-endpoint-0123456789abcdef")
+                                                                           .status("creating")
+                                                                           .endpoint("endpoint.endpoint.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com")
+                                                                           .build());
+        assertThat(decoded.isTagsDeregistered()).isTrue();
+        assertThat(decoded.isTagsRegistered()).isFalse();
+        assertThat(decoded.getStabilizationAttempt()).isEqualTo(0);
+        assertThat(decoded.getOperationDeadline()).isNull();
+    }
+
+    @Test
+    public void serialize_isSmallerThanVersionOne() throws IOException {
+        final DBProxyEndpoint proxyEndpoint = fullEndpoint();
+        final Map<String, Object> legacy = ImmutableMap.of("proxyEndpoint", proxyEndpoint);
+        final CallbackContext compact = CallbackContext.builder().proxyEndpoint(ProxyEndpointState.from(proxyEndpoint)).build();
+
+        assertThat(serializer.serialize(compact).length()).isLessThan(serializer.serialize(legacy).length());
+    }
+
+    @Test
+    public void from_null() {
+        assertThat(ProxyEndpointState.from(null)).isNull();
+    }
+
+    private DBProxyEndpoint fullEndpoint() {
+        return new DBProxyEndpoint().withDBProxyEndpointName("endpoint")
+                                    .withDBProxyEndpointArn("arn:aws:rds:us-east-1:123456789012:db-proxy-endpoint:prx-endpoint-0123456789abcdef")
+                                    .withDBProxyName("proxy")
+                                    .withStatus("modifying")
+                                    .withVpcId("vpc-0123456789abcdef")
+                                    .withVpcSecurityGroupIds("sg-0123456789abcdef")
+                                    .withVpcSubnetIds("subnet-01234567", "subnet-89abcdef")
+                                    .withEndpoint("endpoint.endpoint.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com")
+                                    .withTargetRole("READ_ONLY")
+                                    .withIsDefault(false);
+    }
+}
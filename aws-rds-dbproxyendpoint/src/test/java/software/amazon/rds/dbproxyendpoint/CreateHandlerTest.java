@@ -29,6 +29,8 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class CreateHandlerTest {
@@ -36,12 +38,15 @@ public class CreateHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -61,24 +66,23 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_InitialRunCreateProxyEndpoint").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -96,11 +100,10 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -110,6 +113,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isEqualTo(exception.getMessage());
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.AlreadyExists);
+        ApiBudget.expect("handleRequest_CreateProxyEndpointAlreadyExists").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -123,11 +127,10 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -137,6 +140,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(CreateHandler.ENDPOINT_READ_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        ApiBudget.expect("handleRequest_CreateProxyEndpointWithEndpointProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -150,11 +154,10 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -164,6 +167,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(CreateHandler.DB_PROXY_ENDPOINT_ARN_READ_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        ApiBudget.expect("handleRequest_CreateProxyEndpointWithDBProxyEndpointArnProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -177,11 +181,10 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -191,6 +194,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(CreateHandler.VPC_ID_READ_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        ApiBudget.expect("handleRequest_CreateProxyEndpointWithVpcIdProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -204,11 +208,10 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -218,6 +221,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(CreateHandler.IS_DEFAULT_READ_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        ApiBudget.expect("handleRequest_CreateProxyEndpointWithIsDefaultProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -236,20 +240,20 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .proxyEndpoint(dbProxyEndpoint)
-                .stabilizationRetriesRemaining(1)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+        assertThat(response.getCallbackDelaySeconds()).isPositive().isLessThanOrEqualTo(Constants.STABILIZATION_SCHEDULER.getMaxDelaySeconds());
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_Creating").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -265,12 +269,11 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .proxyEndpoint(dbProxyEndpoint)
-                .stabilizationRetriesRemaining(1)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -280,6 +283,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_Available").invocations(1).apiCalls(0).assertWithin(counting);
     }
     @Test
     public void handleRequest_terminalState() {
@@ -292,12 +296,11 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(60)
-                .proxyEndpoint(new DBProxyEndpoint().withStatus("incompatible-network"))
+                .proxyEndpoint(ProxyEndpointState.from(new DBProxyEndpoint().withStatus("incompatible-network")))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -307,6 +310,7 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        ApiBudget.expect("handleRequest_terminalState").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -320,14 +324,15 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(0)
-                .proxyEndpoint(new DBProxyEndpoint().withStatus("creating"))
+                .operationDeadline(0L)
+                .proxyEndpoint(ProxyEndpointState.from(new DBProxyEndpoint().withStatus("creating")))
                 .build();
 
         try {
-            handler.handleRequest(proxy, request, context, logger);
+            counting.handle(handler::handleRequest, request, context, logger);
         } catch (RuntimeException e) {
             assertThat(e.getMessage()).isEqualTo(CreateHandler.TIMED_OUT_MESSAGE);
         }
+        ApiBudget.expect("testStabilizationTimeout").invocations(1).apiCalls(0).assertWithin(counting);
     }
 }
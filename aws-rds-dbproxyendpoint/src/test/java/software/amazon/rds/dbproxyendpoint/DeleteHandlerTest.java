@@ -29,6 +29,8 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class DeleteHandlerTest {
@@ -36,12 +38,15 @@ public class DeleteHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -58,13 +63,12 @@ public class DeleteHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .deleted(true)
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -74,6 +78,7 @@ public class DeleteHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -91,15 +96,13 @@ public class DeleteHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                .proxyEndpoint(new DBProxyEndpoint())
+                .proxyEndpoint(ProxyEndpointState.from(new DBProxyEndpoint()))
                 .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -109,6 +112,7 @@ public class DeleteHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isEqualTo(exception.getMessage());
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        ApiBudget.expect("handleRequest_alreadyDeletedTest").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -127,24 +131,23 @@ public class DeleteHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_deleteTest").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -163,25 +166,25 @@ public class DeleteHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(60)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(59)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
+                .stabilizationAttempt(1)
                 .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
-        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
+        assertThat(response.getCallbackDelaySeconds()).isPositive().isLessThanOrEqualTo(Constants.STABILIZATION_SCHEDULER.getMaxDelaySeconds());
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_deletingTest").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -200,25 +203,25 @@ public class DeleteHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(60)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(59)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .deleted(true)
+                .stabilizationAttempt(1)
                 .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_deletedTest").invocations(1).apiCalls(1).assertWithin(counting);
     }
 }
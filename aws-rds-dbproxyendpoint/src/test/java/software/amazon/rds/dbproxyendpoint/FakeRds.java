@@ -0,0 +1,224 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.amazonaws.services.rds.model.AddTagsToResourceRequest;
+import com.amazonaws.services.rds.model.AddTagsToResourceResult;
+import com.amazonaws.services.rds.model.CreateDBProxyEndpointRequest;
+import com.amazonaws.services.rds.model.CreateDBProxyEndpointResult;
+import com.amazonaws.services.rds.model.DBProxyEndpoint;
+import com.amazonaws.services.rds.model.DBProxyEndpointAlreadyExistsException;
+import com.amazonaws.services.rds.model.DBProxyEndpointNotFoundException;
+import com.amazonaws.services.rds.model.DeleteDBProxyEndpointRequest;
+import com.amazonaws.services.rds.model.DeleteDBProxyEndpointResult;
+import com.amazonaws.services.rds.model.DescribeDBProxyEndpointsRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxyEndpointsResult;
+import com.amazonaws.services.rds.model.ListTagsForResourceRequest;
+import com.amazonaws.services.rds.model.ListTagsForResourceResult;
+import com.amazonaws.services.rds.model.ModifyDBProxyEndpointRequest;
+import com.amazonaws.services.rds.model.ModifyDBProxyEndpointResult;
+import com.amazonaws.services.rds.model.RemoveTagsFromResourceRequest;
+import com.amazonaws.services.rds.model.RemoveTagsFromResourceResult;
+import com.amazonaws.services.rds.model.Tag;
+import com.fasterxml.jackson.core.type.TypeReference;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.SimulatedRds;
+
+/**
+ * Simulated RDS account serving the DB Proxy endpoint APIs the handlers call. Endpoints move through their transitional
+ * statuses on the account's simulated clock; transition times and the statuses endpoints settle in are configurable.
+ */
+public class FakeRds extends SimulatedRds<ResourceModel, CallbackContext> {
+    public static final int DEFAULT_TRANSITION_SECONDS = 60;
+
+    private static final String DELETED = "deleted";
+
+    // Guarded by this
+    private final Map<String, Integer> transitionSeconds = new HashMap<>();
+    private final Map<String, String> outcomes = new HashMap<>();
+    private final Map<String, FakeProxyEndpoint> proxyEndpoints = new LinkedHashMap<>();
+    private final Map<String, Map<String, String>> tags = new HashMap<>();
+    private int proxyEndpointCount;
+
+    public FakeRds() {
+        super(new TypeReference<CallbackContext>() {});
+    }
+
+    /**
+     * Sets how long an endpoint stays in a transitional status such as "creating", "modifying" or "deleting".
+     */
+    public synchronized FakeRds transition(final String status, final int seconds) {
+        transitionSeconds.put(status, seconds);
+        return this;
+    }
+
+    /**
+     * Makes endpoints leaving a transitional status settle in the given status instead of "available".
+     */
+    public synchronized FakeRds outcome(final String status, final String settledStatus) {
+        outcomes.put(status, settledStatus);
+        return this;
+    }
+
+    public synchronized Optional<DBProxyEndpoint> proxyEndpoint(final String proxyEndpointName) {
+        return Optional.ofNullable(settle(proxyEndpointName)).map(e -> e.getProxyEndpoint().clone());
+    }
+
+    public synchronized Map<String, String> tags(final String arn) {
+        return new LinkedHashMap<>(tags.getOrDefault(arn, new LinkedHashMap<>()));
+    }
+
+    public Report drive(final BaseHandler<CallbackContext> handler, final ResourceHandlerRequest<ResourceModel> request) {
+        return drive(handler::handleRequest, request);
+    }
+
+    @Override
+    public CreateDBProxyEndpointResult createDBProxyEndpoint(final CreateDBProxyEndpointRequest request) {
+        if (settle(request.getDBProxyEndpointName()) != null) {
+            throw new DBProxyEndpointAlreadyExistsException("Endpoint " + request.getDBProxyEndpointName() + " already exists");
+        }
+
+        final DBProxyEndpoint proxyEndpoint = new DBProxyEndpoint().withDBProxyEndpointName(request.getDBProxyEndpointName())
+                                                                   .withDBProxyEndpointArn("arn:aws:rds:us-east-1:123456789012:db-proxy-endpoint:prx-endpoint-" + (++proxyEndpointCount))
+                                                                   .withDBProxyName(request.getDBProxyName())
+                                                                   .withVpcId("vpc-fake")
+                                                                   .withVpcSubnetIds(request.getVpcSubnetIds())
+                                                                   .withVpcSecurityGroupIds(request.getVpcSecurityGroupIds())
+                                                                   .withEndpoint(request.getDBProxyEndpointName() + ".endpoint.proxy-fake.us-east-1.rds.amazonaws.com")
+                                                                   .withTargetRole(Optional.ofNullable(request.getTargetRole()).orElse("READ_WRITE"))
+                                                                   .withIsDefault(false);
+        final FakeProxyEndpoint fakeProxyEndpoint = new FakeProxyEndpoint(proxyEndpoint);
+        fakeProxyEndpoint.begin("creating", now());
+        proxyEndpoints.put(proxyEndpoint.getDBProxyEndpointName(), fakeProxyEndpoint);
+        tags.put(proxyEndpoint.getDBProxyEndpointArn(), toMap(request.getTags()));
+
+        return new CreateDBProxyEndpointResult().withDBProxyEndpoint(proxyEndpoint.clone());
+    }
+
+    @Override
+    public DescribeDBProxyEndpointsResult describeDBProxyEndpoints(final DescribeDBProxyEndpointsRequest request) {
+        if (request.getDBProxyEndpointName() != null) {
+            return new DescribeDBProxyEndpointsResult().withDBProxyEndpoints(existing(request.getDBProxyEndpointName()).getProxyEndpoint().clone());
+        }
+
+        final List<DBProxyEndpoint> all = new ArrayList<>();
+        for (String name : new ArrayList<>(proxyEndpoints.keySet())) {
+            Optional.ofNullable(settle(name))
+                    .map(FakeProxyEndpoint::getProxyEndpoint)
+                    .filter(e -> request.getDBProxyName() == null || request.getDBProxyName().equals(e.getDBProxyName()))
+                    .ifPresent(e -> all.add(e.clone()));
+        }
+        final int from = Optional.ofNullable(request.getMarker()).map(Integer::parseInt).orElse(0);
+        final int to = Math.min(all.size(), from + Optional.ofNullable(request.getMaxRecords()).orElse(100));
+        return new DescribeDBProxyEndpointsResult().withDBProxyEndpoints(all.subList(from, to))
+                                                   .withMarker(to < all.size() ? String.valueOf(to) : null);
+    }
+
+    @Override
+    public ModifyDBProxyEndpointResult modifyDBProxyEndpoint(final ModifyDBProxyEndpointRequest request) {
+        final FakeProxyEndpoint fakeProxyEndpoint = existing(request.getDBProxyEndpointName());
+        final DBProxyEndpoint proxyEndpoint = fakeProxyEndpoint.getProxyEndpoint();
+        Optional.ofNullable(request.getVpcSecurityGroupIds()).ifPresent(proxyEndpoint::setVpcSecurityGroupIds);
+        fakeProxyEndpoint.begin("modifying", now());
+
+        return new ModifyDBProxyEndpointResult().withDBProxyEndpoint(proxyEndpoint.clone());
+    }
+
+    @Override
+    public DeleteDBProxyEndpointResult deleteDBProxyEndpoint(final DeleteDBProxyEndpointRequest request) {
+        final FakeProxyEndpoint fakeProxyEndpoint = existing(request.getDBProxyEndpointName());
+        fakeProxyEndpoint.begin("deleting", now());
+
+        return new DeleteDBProxyEndpointResult().withDBProxyEndpoint(fakeProxyEndpoint.getProxyEndpoint().clone());
+    }
+
+    @Override
+    public AddTagsToResourceResult addTagsToResource(final AddTagsToResourceRequest request) {
+        taggedResource(request.getResourceName()).putAll(toMap(request.getTags()));
+        return new AddTagsToResourceResult();
+    }
+
+    @Override
+    public RemoveTagsFromResourceResult removeTagsFromResource(final RemoveTagsFromResourceRequest request) {
+        taggedResource(request.getResourceName()).keySet().removeAll(request.getTagKeys());
+        return new RemoveTagsFromResourceResult();
+    }
+
+    @Override
+    public ListTagsForResourceResult listTagsForResource(final ListTagsForResourceRequest request) {
+        return new ListTagsForResourceResult().withTagList(taggedResource(request.getResourceName()).entrySet()
+                                                                                                     .stream()
+                                                                                                     .map(t -> new Tag().withKey(t.getKey()).withValue(t.getValue()))
+                                                                                                     .collect(Collectors.toList()));
+    }
+
+    private FakeProxyEndpoint settle(final String proxyEndpointName) {
+        final FakeProxyEndpoint fakeProxyEndpoint = proxyEndpoints.get(proxyEndpointName);
+        if (fakeProxyEndpoint == null || !fakeProxyEndpoint.settle(now())) {
+            return fakeProxyEndpoint;
+        }
+        if (DELETED.equals(fakeProxyEndpoint.getProxyEndpoint().getStatus())) {
+            proxyEndpoints.remove(proxyEndpointName);
+            tags.remove(fakeProxyEndpoint.getProxyEndpoint().getDBProxyEndpointArn());
+            return null;
+        }
+        return fakeProxyEndpoint;
+    }
+
+    private FakeProxyEndpoint existing(final String proxyEndpointName) {
+        return Optional.ofNullable(settle(proxyEndpointName))
+                       .orElseThrow(() -> new DBProxyEndpointNotFoundException("Endpoint " + proxyEndpointName + " not found"));
+    }
+
+    private Map<String, String> taggedResource(final String arn) {
+        final Map<String, String> resourceTags = tags.get(arn);
+        if (resourceTags == null) {
+            throw new DBProxyEndpointNotFoundException("Resource " + arn + " not found");
+        }
+        return resourceTags;
+    }
+
+    private static Map<String, String> toMap(final List<Tag> tagList) {
+        final Map<String, String> map = new LinkedHashMap<>();
+        Optional.ofNullable(tagList).orElse(new ArrayList<>()).forEach(t -> map.put(t.getKey(), t.getValue()));
+        return map;
+    }
+
+    private class FakeProxyEndpoint {
+        private final DBProxyEndpoint proxyEndpoint;
+        private String settledStatus;
+        private long settleAtMillis;
+
+        FakeProxyEndpoint(final DBProxyEndpoint proxyEndpoint) {
+            this.proxyEndpoint = proxyEndpoint;
+        }
+
+        DBProxyEndpoint getProxyEndpoint() {
+            return proxyEndpoint;
+        }
+
+        void begin(final String status, final long now) {
+            proxyEndpoint.setStatus(status);
+            settledStatus = "deleting".equals(status)
+                            ? DELETED
+                            : outcomes.getOrDefault(status, Constants.AVAILABLE_ENDPOINT_STATE);
+            settleAtMillis = now + transitionSeconds.getOrDefault(status, DEFAULT_TRANSITION_SECONDS) * 1000L;
+        }
+
+        // Returns true when the endpoint reached its settled status on this call
+        boolean settle(final long now) {
+            if (settledStatus == null || now < settleAtMillis) {
+                return false;
+            }
+            proxyEndpoint.setStatus(settledStatus);
+            settledStatus = null;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.LoadHarness;
+
+/**
+ * Lifecycle of one resource in a {@link LoadHarness} fleet of proxy endpoints. Creates a proxy endpoint, moves it to
+ * another security group and adds a tag, then deletes it, all through shared handler instances.
+ *
+ * To size a fleet from the command line, after mvn test-compile:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=software.amazon.rds.dbproxyendpoint.FleetLifecycle -Dexec.args="500 32"
+ */
+public class FleetLifecycle implements LoadHarness.Lifecycle<ResourceModel, CallbackContext> {
+    private final CreateHandler createHandler = new CreateHandler();
+    private final UpdateHandler updateHandler = new UpdateHandler();
+    private final DeleteHandler deleteHandler = new DeleteHandler();
+
+    /**
+     * Creates, updates and deletes a fleet of proxy endpoints and prints what each operation type cost.
+     *
+     * @param args number of proxy endpoints (default 200) and how many run at once (default 16)
+     */
+    public static void main(final String[] args) {
+        LoadHarness.runFromCommandLine(args, FakeRds::new, new FleetLifecycle());
+    }
+
+    @Override
+    public void run(final int resource, final LoadHarness.Driver<ResourceModel, CallbackContext> driver) {
+        final ResourceModel created = endpointModel(resource, "sg-1", ImmutableList.of(new TagFormat("owner", "team-" + resource)));
+        final ResourceModel updated = endpointModel(resource, "sg-2", ImmutableList.of(new TagFormat("owner", "team-" + resource),
+                                                                                       new TagFormat("stage", "prod")));
+        driver.drive(LoadHarness.CREATE, createHandler::handleRequest, request(created, null));
+        driver.drive(LoadHarness.UPDATE, updateHandler::handleRequest, request(updated, endpointModel(resource, "sg-1", created.getTags())));
+        driver.drive(LoadHarness.DELETE, deleteHandler::handleRequest, request(updated, null));
+    }
+
+    private static ResourceModel endpointModel(final int resource, final String securityGroup, final List<TagFormat> tags) {
+        return ResourceModel.builder()
+                            .dBProxyName("proxy")
+                            .dBProxyEndpointName("endpoint-" + resource)
+                            .vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2"))
+                            .vpcSecurityGroupIds(ImmutableList.of(securityGroup))
+                            .targetRole("READ_ONLY")
+                            .tags(tags)
+                            .build();
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel desired, final ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
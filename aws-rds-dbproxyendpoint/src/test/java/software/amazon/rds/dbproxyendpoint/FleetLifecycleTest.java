@@ -0,0 +1,37 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import software.amazon.rds.common.LoadHarness;
+
+public class FleetLifecycleTest {
+    private static final int RESOURCES = 50;
+
+    @Test
+    public void run_completesEveryOperationOfTheFleet() {
+        final LoadHarness<ResourceModel, CallbackContext> harness = new LoadHarness<>(8);
+
+        harness.run(RESOURCES, FakeRds::new, new FleetLifecycle());
+
+        final Map<String, LoadHarness.Summary> summaries = harness.summarize();
+        assertThat(summaries).containsOnlyKeys(LoadHarness.CREATE, LoadHarness.UPDATE, LoadHarness.DELETE);
+        summaries.values().forEach(summary -> {
+            assertThat(summary.getOperations()).isEqualTo(RESOURCES);
+            assertThat(summary.getFailures()).isZero();
+        });
+
+        final LoadHarness.Summary create = summaries.get(LoadHarness.CREATE);
+        assertThat(create.getApiCalls()).containsEntry("CreateDBProxyEndpoint", RESOURCES);
+        // Creation waits out the default transition, so it is dominated by callback delays rather than billed time
+        assertThat(create.getSleepMillis()).isGreaterThan(create.getApiMillis());
+        assertThat(create.getP50CompletionMillis()).isGreaterThanOrEqualTo(FakeRds.DEFAULT_TRANSITION_SECONDS * 1000L);
+        assertThat(summaries.get(LoadHarness.UPDATE).getApiCalls()).containsEntry("ModifyDBProxyEndpoint", RESOURCES)
+                                                                   .containsEntry("AddTagsToResource", RESOURCES)
+                                                                   .doesNotContainKey("RemoveTagsFromResource");
+        assertThat(summaries.get(LoadHarness.DELETE).getApiCalls()).containsEntry("DeleteDBProxyEndpoint", RESOURCES);
+    }
+}
@@ -0,0 +1,148 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxyEndpoint;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.Concurrency;
+
+public class LifecycleTest {
+    private static final String PROXY_ENDPOINT_NAME = "endpoint";
+
+    private FakeRds rds;
+
+    @BeforeEach
+    public void setup() {
+        rds = new FakeRds().transition("creating", 120)
+                           .transition("modifying", 10)
+                           .transition("deleting", 30);
+    }
+
+    @Test
+    public void createUpdateDelete() {
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(ImmutableList.of("sg-1"), ImmutableList.of(new TagFormat("k1", "v1"),
+                                                                                                                              new TagFormat("k2", "v2"))), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(create.getSimulatedMillis()).isGreaterThanOrEqualTo(120 * 1000L);
+        final DBProxyEndpoint created = rds.proxyEndpoint(PROXY_ENDPOINT_NAME).get();
+        assertThat(created.getStatus()).isEqualTo(Constants.AVAILABLE_ENDPOINT_STATE);
+        assertThat(create.getEvent().getResourceModel().getDBProxyEndpointArn()).isEqualTo(created.getDBProxyEndpointArn());
+        assertThat(rds.tags(created.getDBProxyEndpointArn())).isEqualTo(ImmutableMap.of("k1", "v1", "k2", "v2"));
+
+        final ResourceModel previous = model(ImmutableList.of("sg-1"), ImmutableList.of(new TagFormat("k1", "v1"), new TagFormat("k2", "v2")));
+        final ResourceModel desired = model(ImmutableList.of("sg-2"), ImmutableList.of(new TagFormat("k2", "changed"), new TagFormat("k3", "v3")));
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(desired, previous));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(update.getSimulatedMillis()).isGreaterThanOrEqualTo(10 * 1000L);
+        assertThat(rds.proxyEndpoint(PROXY_ENDPOINT_NAME).get().getVpcSecurityGroupIds()).containsExactly("sg-2");
+        assertThat(rds.tags(created.getDBProxyEndpointArn())).isEqualTo(ImmutableMap.of("k2", "changed", "k3", "v3"));
+
+        final FakeRds.Report delete = rds.drive(new DeleteHandler(), request(desired, null));
+
+        assertThat(delete.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(delete.getSimulatedMillis()).isGreaterThanOrEqualTo(30 * 1000L);
+        assertThat(rds.proxyEndpoint(PROXY_ENDPOINT_NAME)).isEmpty();
+    }
+
+    @Test
+    public void update_tagOnlyChangeCompletesInOneInvocation() {
+        final ResourceModel created = model(ImmutableList.of("sg-1", "sg-2"), ImmutableList.of(new TagFormat("k1", "v1")));
+        rds.drive(new CreateHandler(), request(created, null));
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(model(ImmutableList.of("sg-2", "sg-1"),
+                                                                                   ImmutableList.of(new TagFormat("k1", "changed"))), created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(update.getInvocations()).isEqualTo(1);
+        assertThat(update.getSimulatedMillis()).isLessThan(10 * 1000L);
+        assertThat(rds.getApiCalls()).doesNotContainKey("ModifyDBProxyEndpoint");
+        assertThat(rds.tags(rds.proxyEndpoint(PROXY_ENDPOINT_NAME).get().getDBProxyEndpointArn())).isEqualTo(ImmutableMap.of("k1", "changed"));
+    }
+
+    @Test
+    public void create_failsWhenEndpointSettlesInTerminalState() {
+        rds.outcome("creating", "incompatible-network");
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(ImmutableList.of("sg-1"), null), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(rds.proxyEndpoint(PROXY_ENDPOINT_NAME).get().getStatus()).isEqualTo("incompatible-network");
+    }
+
+    @Test
+    public void create_surfacesThrottling() {
+        // As once the client has used up its retries
+        rds.maxErrorRetry(0).throttle("CreateDBProxyEndpoint", 1);
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(ImmutableList.of("sg-1"), null), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(create.getEvent().getErrorCode()).isEqualTo(HandlerErrorCode.Throttling);
+        assertThat(create.getInvocations()).isEqualTo(1);
+        assertThat(rds.proxyEndpoint(PROXY_ENDPOINT_NAME)).isEmpty();
+    }
+
+    @Test
+    public void sharedHandlersServeConcurrentRequests() {
+        final int resources = 8;
+        final CreateHandler createHandler = new CreateHandler();
+        final UpdateHandler updateHandler = new UpdateHandler();
+        final ExecutorService executor = Executors.newFixedThreadPool(resources);
+        try {
+            final List<FakeRds> accounts = new ArrayList<>();
+            final List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (int i = 0; i < resources; i++) {
+                final FakeRds account = new FakeRds().transition("creating", 120).transition("modifying", 10);
+                final ResourceModel created = model(ImmutableList.of("sg-1"), null);
+                final ResourceModel updated = model(ImmutableList.of("sg-" + (i + 2)), null);
+                accounts.add(account);
+                runs.add(CompletableFuture.runAsync(() -> {
+                    assertThat(account.drive(createHandler, request(created, null)).getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+                    assertThat(account.drive(updateHandler, request(updated, created)).getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+                }, executor));
+            }
+            runs.forEach(Concurrency::join);
+
+            // Every request reached only its own account, so no handler state leaked between concurrent invocations
+            for (int i = 0; i < resources; i++) {
+                assertThat(accounts.get(i).getApiCalls().get("CreateDBProxyEndpoint")).isEqualTo(1);
+                assertThat(accounts.get(i).proxyEndpoint(PROXY_ENDPOINT_NAME).get().getVpcSecurityGroupIds()).containsExactly("sg-" + (i + 2));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ResourceModel model(List<String> securityGroups, List<TagFormat> tags) {
+        return ResourceModel.builder()
+                            .dBProxyName("proxy")
+                            .dBProxyEndpointName(PROXY_ENDPOINT_NAME)
+                            .vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2"))
+                            .vpcSecurityGroupIds(securityGroups)
+                            .targetRole("READ_ONLY")
+                            .tags(tags)
+                            .build();
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request(ResourceModel desired, ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
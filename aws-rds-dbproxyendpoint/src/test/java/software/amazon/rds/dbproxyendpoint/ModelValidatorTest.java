@@ -0,0 +1,63 @@
+package software.amazon.rds.dbproxyendpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+public class ModelValidatorTest {
+
+    @Test
+    public void validate_acceptsValidModel() {
+        assertThat(ModelValidator.validate(validModel().build())).isEmpty();
+    }
+
+    @Test
+    public void validate_ignoresPropertiesTheTemplateLeavesOut() {
+        assertThat(ModelValidator.validate(ResourceModel.builder().build())).isEmpty();
+    }
+
+    @Test
+    public void validate_reportsEveryViolation() {
+        final ResourceModel model = validModel().dBProxyEndpointName("endpoint--1")
+                                                .vpcSubnetIds(ImmutableList.of("subnet-1"))
+                                                .vpcSecurityGroupIds(ImmutableList.of())
+                                                .build();
+
+        assertThat(ModelValidator.validate(model)).hasSize(3);
+    }
+
+    @Test
+    public void createHandler_reportsReadOnlyAndValueViolationsTogether() {
+        final AmazonWebServicesClientProxy proxy = mock(AmazonWebServicesClientProxy.class);
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(validModel().endpoint("test-endpoint")
+                                                                                                        .vpcSubnetIds(ImmutableList.of("subnet-1"))
+                                                                                                        .build())
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = new CreateHandler().handleRequest(proxy, request, null, mock(Logger.class));
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        assertThat(response.getMessage()).contains(CreateHandler.ENDPOINT_READ_ONLY_MESSAGE, "VpcSubnetIds");
+        verifyZeroInteractions(proxy);
+    }
+
+    private static ResourceModel.ResourceModelBuilder validModel() {
+        return ResourceModel.builder()
+                            .dBProxyName("my-proxy")
+                            .dBProxyEndpointName("my-endpoint")
+                            .vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2"))
+                            .vpcSecurityGroupIds(ImmutableList.of("sg-1"));
+    }
+}
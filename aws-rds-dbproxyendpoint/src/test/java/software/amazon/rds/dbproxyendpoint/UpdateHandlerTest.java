@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static software.amazon.rds.dbproxyendpoint.Constants.AVAILABLE_ENDPOINT_STATE;
 
@@ -23,6 +24,8 @@ import com.amazonaws.ResponseMetadata;
 import com.amazonaws.services.rds.model.AddTagsToResourceRequest;
 import com.amazonaws.services.rds.model.DBProxyEndpoint;
 import com.amazonaws.services.rds.model.DBProxyEndpointNotFoundException;
+import com.amazonaws.services.rds.model.DescribeDBProxyEndpointsRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxyEndpointsResult;
 import com.amazonaws.services.rds.model.ModifyDBProxyEndpointRequest;
 import com.amazonaws.services.rds.model.ModifyDBProxyEndpointResult;
 import com.amazonaws.services.rds.model.RemoveTagsFromResourceRequest;
@@ -34,6 +37,8 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class UpdateHandlerTest {
@@ -41,12 +46,15 @@ public class UpdateHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -54,13 +62,12 @@ public class UpdateHandlerTest {
     public void handleRequest_SimpleSuccess() {
         DBProxyEndpoint dbProxyEndpoint = new DBProxyEndpoint().withStatus(AVAILABLE_ENDPOINT_STATE);
         final CallbackContext context = CallbackContext.builder()
-                .proxyEndpoint(dbProxyEndpoint)
-                .stabilizationRetriesRemaining(1)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .tagsRegistered(true)
                 .tagsDeregistered(true)
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         final ResourceModel model = ResourceModel.builder().build();
 
@@ -70,7 +77,7 @@ public class UpdateHandlerTest {
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -80,6 +87,7 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -89,13 +97,12 @@ public class UpdateHandlerTest {
                 ArgumentMatchers.<Function<ModifyDBProxyEndpointRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
-        final ResourceModel desiredModel = ResourceModel.builder().build();
-        final ResourceModel oldModel = ResourceModel.builder().build();
+        final ResourceModel desiredModel = ResourceModel.builder().vpcSecurityGroupIds(ImmutableList.of("sg-2")).build();
+        final ResourceModel oldModel = ResourceModel.builder().vpcSecurityGroupIds(ImmutableList.of("sg-1")).build();
 
         final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
                 .desiredResourceState(desiredModel)
@@ -103,7 +110,7 @@ public class UpdateHandlerTest {
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -113,15 +120,15 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isEqualTo(exception.getMessage());
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        ApiBudget.expect("testModifyNonExistProxyEndpoint").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testModifyDBProxyNameCreateOnlyProperty() {
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         final ResourceModel desiredModel = ResourceModel.builder().dBProxyName("new-proxy-name").build();
         final ResourceModel oldModel = ResourceModel.builder().dBProxyName("old-proxy-name").build();
@@ -132,7 +139,7 @@ public class UpdateHandlerTest {
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -142,15 +149,15 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(UpdateHandler.DB_PROXY_NAME_CREATE_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotUpdatable);
+        ApiBudget.expect("testModifyDBProxyNameCreateOnlyProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
     public void testModifyDBProxyEndpointNameCreateOnlyProperty() {
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         final ResourceModel desiredModel = ResourceModel.builder().dBProxyEndpointName("new-proxy-endpoint-name").build();
         final ResourceModel oldModel = ResourceModel.builder().dBProxyEndpointName("old-proxy-endpoint-name").build();
@@ -161,7 +168,7 @@ public class UpdateHandlerTest {
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -171,15 +178,15 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(UpdateHandler.DB_PROXY_ENDPOINT_NAME_CREATE_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotUpdatable);
+        ApiBudget.expect("testModifyDBProxyEndpointNameCreateOnlyProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
     public void testModifyVpcSubnetIdsCreateOnlyProperty() {
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         final ResourceModel desiredModel = ResourceModel.builder().vpcSubnetIds(ImmutableList.of("subnet-1")).build();
         final ResourceModel oldModel = ResourceModel.builder().vpcSubnetIds(ImmutableList.of("subnet-1", "subnet-2")).build();
@@ -190,7 +197,7 @@ public class UpdateHandlerTest {
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -200,15 +207,15 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(UpdateHandler.VPC_SUBNET_ID_CREATE_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotUpdatable);
+        ApiBudget.expect("testModifyVpcSubnetIdsCreateOnlyProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
     public void testModifyTargetRoleCreateOnlyProperty() {
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         final ResourceModel desiredModel = ResourceModel.builder().targetRole("READ_ONLY").build();
         final ResourceModel oldModel = ResourceModel.builder().targetRole("READ_WRITE").build();
@@ -219,7 +226,7 @@ public class UpdateHandlerTest {
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -229,6 +236,7 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).contains(UpdateHandler.TARGET_ROLE_CREATE_ONLY_MESSAGE);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotUpdatable);
+        ApiBudget.expect("testModifyTargetRoleCreateOnlyProperty").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -239,13 +247,12 @@ public class UpdateHandlerTest {
                 ArgumentMatchers.<Function<ModifyDBProxyEndpointRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
-        final ResourceModel desiredModel = ResourceModel.builder().build();
-        final ResourceModel oldModel = ResourceModel.builder().build();
+        final ResourceModel desiredModel = ResourceModel.builder().vpcSecurityGroupIds(ImmutableList.of("sg-2")).build();
+        final ResourceModel oldModel = ResourceModel.builder().vpcSecurityGroupIds(ImmutableList.of("sg-1")).build();
 
         final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
                 .desiredResourceState(desiredModel)
@@ -253,31 +260,30 @@ public class UpdateHandlerTest {
                 .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testModifyProxyEndpoint").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testDeregisterTags() {
         DBProxyEndpoint dbProxyEndpoint = new DBProxyEndpoint().withStatus(AVAILABLE_ENDPOINT_STATE);
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         TagFormat tag1 = new TagFormat();
         tag1.setKey("key1");
@@ -294,17 +300,16 @@ public class UpdateHandlerTest {
                 .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .proxyEndpoint(dbProxyEndpoint)
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .tagsDeregistered(true)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
@@ -315,18 +320,18 @@ public class UpdateHandlerTest {
                 ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
         RemoveTagsFromResourceRequest removeTagsRequest = captor.getValue();
         assertThat(removeTagsRequest.getTagKeys().size()).isEqualTo(2);
+        ApiBudget.expect("testDeregisterTags").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testRegisterTags() {
         DBProxyEndpoint dbProxyEndpoint = new DBProxyEndpoint().withStatus(AVAILABLE_ENDPOINT_STATE);
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .tagsDeregistered(true)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         TagFormat tag1 = new TagFormat();
         tag1.setKey("key1");
@@ -344,18 +349,17 @@ public class UpdateHandlerTest {
                 .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                 .tagsDeregistered(true)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .tagsRegistered(true)
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
@@ -366,17 +370,17 @@ public class UpdateHandlerTest {
                 ArgumentMatchers.<Function<AddTagsToResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
         AddTagsToResourceRequest removeTagsRequest = captor.getValue();
         assertThat(removeTagsRequest.getTags().size()).isEqualTo(2);
+        ApiBudget.expect("testRegisterTags").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testChangedTagValue_deregister() {
         DBProxyEndpoint dbProxyEndpoint = new DBProxyEndpoint().withStatus(AVAILABLE_ENDPOINT_STATE);
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         String sharedKey = "key1";
         TagFormat tag1 = new TagFormat();
@@ -398,40 +402,36 @@ public class UpdateHandlerTest {
                 .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                 .tagsDeregistered(true)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
-        ArgumentCaptor<RemoveTagsFromResourceRequest> captor = ArgumentCaptor.forClass(RemoveTagsFromResourceRequest.class);
-        verify(proxy).injectCredentialsAndInvoke(captor.capture(),
+        // The changed value is overwritten in place when tags are registered, so nothing is removed
+        verify(proxy, never()).injectCredentialsAndInvoke(any(RemoveTagsFromResourceRequest.class),
                 ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
-        RemoveTagsFromResourceRequest removeTagsRequest = captor.getValue();
-        assertThat(removeTagsRequest.getTagKeys().size()).isEqualTo(1);
-        assertThat(removeTagsRequest.getTagKeys().get(0)).isEqualTo(sharedKey);
+        ApiBudget.expect("testChangedTagValue_deregister").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
     public void testChangedTagValue_Register() {
         DBProxyEndpoint dbProxyEndpoint = new DBProxyEndpoint().withStatus(AVAILABLE_ENDPOINT_STATE);
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(1)
                 .tagsDeregistered(true)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         String sharedKey = "key1";
         String newValue = "value3";
@@ -454,18 +454,17 @@ public class UpdateHandlerTest {
                 .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                 .tagsDeregistered(true)
                 .tagsRegistered(true)
-                .proxyEndpoint(dbProxyEndpoint)
+                .proxyEndpoint(ProxyEndpointState.from(dbProxyEndpoint))
                 .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
@@ -479,5 +478,89 @@ public class UpdateHandlerTest {
         Tag addedTag = addTagRequest.getTags().get(0);
         assertThat(addedTag.getKey()).isEqualTo(sharedKey);
         assertThat(addedTag.getValue()).isEqualTo(newValue);
+        ApiBudget.expect("testChangedTagValue_Register").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testFusedStepsCompleteInOneInvocation() {
+        DBProxyEndpoint resource = new DBProxyEndpoint().withStatus(AVAILABLE_ENDPOINT_STATE).withDBProxyEndpointArn("arn");
+        doReturn(new ModifyDBProxyEndpointResult().withDBProxyEndpoint(resource)).when(proxy).injectCredentialsAndInvoke(any(ModifyDBProxyEndpointRequest.class),
+                ArgumentMatchers.<Function<ModifyDBProxyEndpointRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final UpdateHandler handler = new UpdateHandler();
+
+        final ResourceModel oldModel = ResourceModel.builder()
+                                                    .vpcSecurityGroupIds(ImmutableList.of("sg-1"))
+                                                    .tags(ImmutableList.of(new TagFormat("oldKey", "value")))
+                                                    .build();
+        final ResourceModel desiredModel = ResourceModel.builder()
+                                                        .vpcSecurityGroupIds(ImmutableList.of("sg-2"))
+                                                        .tags(ImmutableList.of(new TagFormat("newKey", "value")))
+                                                        .build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext()).isNull();
+        verify(proxy).injectCredentialsAndInvoke(any(ModifyDBProxyEndpointRequest.class),
+                ArgumentMatchers.<Function<ModifyDBProxyEndpointRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(RemoveTagsFromResourceRequest.class),
+                ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(AddTagsToResourceRequest.class),
+                ArgumentMatchers.<Function<AddTagsToResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        ApiBudget.expect("testFusedStepsCompleteInOneInvocation").invocations(1).apiCalls(3).assertWithin(counting);
+    }
+
+    @Test
+    public void testTagOnlyUpdateSkipsModify() {
+        DBProxyEndpoint resource = new DBProxyEndpoint().withStatus(AVAILABLE_ENDPOINT_STATE).withDBProxyEndpointArn("arn");
+        doReturn(new DescribeDBProxyEndpointsResult().withDBProxyEndpoints(resource)).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyEndpointsRequest.class),
+                ArgumentMatchers.<Function<DescribeDBProxyEndpointsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final UpdateHandler handler = new UpdateHandler();
+
+        final ResourceModel oldModel = ResourceModel.builder()
+                                                    .vpcSecurityGroupIds(ImmutableList.of("sg-1", "sg-2"))
+                                                    .tags(ImmutableList.of(new TagFormat("oldKey", "value")))
+                                                    .build();
+        final ResourceModel desiredModel = ResourceModel.builder()
+                                                        .vpcSecurityGroupIds(ImmutableList.of("sg-2", "sg-1"))
+                                                        .tags(ImmutableList.of(new TagFormat("newKey", "value")))
+                                                        .build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(proxy, never()).injectCredentialsAndInvoke(any(ModifyDBProxyEndpointRequest.class),
+                ArgumentMatchers.<Function<ModifyDBProxyEndpointRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(RemoveTagsFromResourceRequest.class),
+                ArgumentMatchers.<Function<RemoveTagsFromResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        verify(proxy).injectCredentialsAndInvoke(any(AddTagsToResourceRequest.class),
+                ArgumentMatchers.<Function<AddTagsToResourceRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        ApiBudget.expect("testTagOnlyUpdateSkipsModify").invocations(1).apiCalls(3).assertWithin(counting);
+    }
+
+    @Test
+    public void testIsModifyNeeded() {
+        final ResourceModel unset = ResourceModel.builder().build();
+        final ResourceModel sg1 = ResourceModel.builder().vpcSecurityGroupIds(ImmutableList.of("sg-1")).build();
+
+        assertThat(UpdateHandler.isModifyNeeded(sg1, unset)).isFalse();
+        assertThat(UpdateHandler.isModifyNeeded(sg1, sg1)).isFalse();
+        assertThat(UpdateHandler.isModifyNeeded(unset, sg1)).isTrue();
+        assertThat(UpdateHandler.isModifyNeeded(sg1, ResourceModel.builder().vpcSecurityGroupIds(ImmutableList.of("sg-2")).build())).isTrue();
     }
 }
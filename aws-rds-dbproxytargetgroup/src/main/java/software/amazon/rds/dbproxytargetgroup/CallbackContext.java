@@ -1,25 +1,37 @@
 package software.amazon.rds.dbproxytargetgroup;
 
 import java.util.List;
+import java.util.Map;
 
-import com.amazonaws.services.rds.model.DBProxy;
-import com.amazonaws.services.rds.model.DBProxyTarget;
-import com.amazonaws.services.rds.model.DBProxyTargetGroup;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import software.amazon.rds.common.DeadlineContext;
 
+// Contexts written by earlier releases must still deserialize, so fields are only ever added. TargetGroupState and
+// TargetState keep the property names of the SDK objects earlier releases stored, and fields since removed are ignored.
+@JsonIgnoreProperties(ignoreUnknown = true)
 @Builder(toBuilder = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class CallbackContext {
-    private DBProxy proxy;
-    private DBProxyTargetGroup targetGroupStatus;
-    private List<DBProxyTarget> targets;
+public class CallbackContext implements DeadlineContext {
+    private TargetGroupState targetGroupStatus;
+    private List<TargetState> targets;
+    // Registration batches that were throttled and still need to be sent; targets holds what has been registered
+    private List<List<TargetState>> registrationBatches;
     private boolean allTargetsHealthy;
+    // Last known health of each target by RDS resource id, so targets already available are not evaluated again
+    private Map<String, String> targetHealth;
     private boolean targetsDeregistered;
+    // Deregistration batches that have not succeeded yet, or null before the targets have been planned
+    private List<List<TargetState>> deregistrationBatches;
 
-    private Integer stabilizationRetriesRemaining;
+    // Wall-clock start and deadline of the whole operation, in epoch milliseconds, set on its first invocation
+    private Long operationStartTime;
+    private Long operationDeadline;
+
+    private int stabilizationAttempt;
 }
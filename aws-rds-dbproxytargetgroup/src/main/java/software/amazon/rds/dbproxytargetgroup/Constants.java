@@ -1,10 +1,36 @@
 package software.amazon.rds.dbproxytargetgroup;
 
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.rds.common.StabilizationScheduler;
+
 public class Constants {
     public static final String DELETING_PROXY_STATE = "deleting";
     public static final String AVAILABLE_STATE = "AVAILABLE";
     public static final String TRACKED_CLUSTER = "TRACKED_CLUSTER";
     public static final String RDS_INSTANCE = "RDS_INSTANCE";
-    public static final int NUMBER_OF_STATE_POLL_RETRIES = 240;
-    public static final int POLL_RETRY_DELAY_IN_MS = 5000;
+    // Health reasons that persist until the user fixes the proxy secret, security groups or replication topology
+    public static final List<String> TERMINAL_HEALTH_REASONS = ImmutableList.of("AUTH_FAILURE",
+                                                                                "CONNECTION_FAILED",
+                                                                                "INVALID_REPLICATION_STATE");
+    public static final String UNHEALTHY_TARGET_MESSAGE = "Target %s is %s with reason %s.";
+    public static final String PENDING_TARGETS_MESSAGE = "Waiting for %d target(s) to become available: %s";
+    public static final int POLL_RETRY_DELAY_IN_SECONDS = 5;
+    // How long a terminal health reason is tolerated after the operation starts before the handler gives up on the target
+    public static final long TERMINAL_HEALTH_GRACE_PERIOD_IN_MS = 0L;
+    // DeregisterDBProxyTargets batches sent at once when a target group is deleted, and the targets in each batch
+    public static final int DEREGISTRATION_PARALLELISM = 4;
+    public static final int DEREGISTRATION_BATCH_SIZE = 20;
+    // RegisterDBProxyTargets batches sent at once when targets are added, and the identifiers in each batch
+    public static final int REGISTRATION_PARALLELISM = 4;
+    public static final int REGISTRATION_BATCH_SIZE = 20;
+
+    // Targets waiting on proxy capacity take far longer to become available than targets still registering
+    public static final StabilizationScheduler STABILIZATION_SCHEDULER = StabilizationScheduler.builder()
+                                                                                               .initialDelay("REGISTERING", 5)
+                                                                                               .initialDelay("PENDING_PROXY_CAPACITY", 15)
+                                                                                               .defaultInitialDelaySeconds(POLL_RETRY_DELAY_IN_SECONDS)
+                                                                                               .maxDelaySeconds(30)
+                                                                                               .build();
 }
@@ -1,38 +1,43 @@
 package software.amazon.rds.dbproxytargetgroup;
 
-import static software.amazon.rds.dbproxytargetgroup.Utility.validateHealth;
-
-import java.util.ArrayList;
+import java.time.Clock;
 import java.util.List;
 import java.util.Optional;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.ConnectionPoolConfiguration;
-import com.amazonaws.services.rds.model.DBProxy;
 import com.amazonaws.services.rds.model.DBProxyNotFoundException;
-import com.amazonaws.services.rds.model.DBProxyTarget;
 import com.amazonaws.services.rds.model.DBProxyTargetGroup;
 import com.amazonaws.services.rds.model.DBProxyTargetGroupNotFoundException;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
 import com.amazonaws.services.rds.model.ModifyDBProxyTargetGroupRequest;
-import com.amazonaws.services.rds.model.RegisterDBProxyTargetsRequest;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.OperationDeadline;
 
 public class CreateHandler extends BaseHandler<CallbackContext> {
     public static final String TIMED_OUT_MESSAGE = "Timed out waiting for target group to become available.";
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
+
+    private final TargetRegistrar registrar = TargetRegistrar.builder().build();
 
-    private Logger log;
+    public CreateHandler() {
+        this(Clock.systemUTC());
+    }
+
+    CreateHandler(final Clock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -40,117 +45,93 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
             final ResourceHandlerRequest<ResourceModel> request,
             final CallbackContext callbackContext,
             final Logger logger) {
-        final ResourceModel model = request.getDesiredResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
-        log = logger;
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel model = request.getDesiredResourceState();
 
-        final CallbackContext currentContext = Optional.ofNullable(callbackContext)
-                                                       .orElse(CallbackContext.builder()
-                                                                              .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                              .build());
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
-        try {
-            return createTargetGroupAndUpdateProgress(model, currentContext);
-        } catch (DBProxyNotFoundException | DBProxyTargetGroupNotFoundException e) {
-            return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.NotFound);
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
+
+            // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
+            try {
+                return OperationDeadline.carry(createTargetGroupAndUpdateProgress(proxy, rdsClient, model, currentContext), currentContext, clock);
+            } catch (DBProxyNotFoundException | DBProxyTargetGroupNotFoundException e) {
+                return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.NotFound);
+            }
+        } finally {
+            metrics.flush(logger);
         }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> createTargetGroupAndUpdateProgress(ResourceModel model,
+    private ProgressEvent<ResourceModel, CallbackContext> createTargetGroupAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                             final AmazonRDS rdsClient,
+                                                                                             ResourceModel model,
                                                                                              CallbackContext callbackContext) {
         // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
-        final DBProxy proxyStateSoFar = callbackContext.getProxy();
-
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
         if (callbackContext.getTargetGroupStatus() == null) {
-            DBProxyTargetGroup targetGroupSettings = modifyProxyTargetGroup(model);
+            ProgressEvent<ResourceModel, CallbackContext> invalid = ModelValidator.check(model);
+            if (invalid != null) {
+                return invalid;
+            }
+            DBProxyTargetGroup targetGroupSettings = modifyProxyTargetGroup(clientProxy, rdsClient, model);
             model.setTargetGroupArn(targetGroupSettings.getTargetGroupArn());
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                            .resourceModel(model)
                            .status(OperationStatus.IN_PROGRESS)
                            .callbackContext(CallbackContext.builder()
-                                                           .proxy(proxyStateSoFar)
-                                                           .targetGroupStatus(targetGroupSettings)
-                                                           .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                                           .targetGroupStatus(TargetGroupState.from(targetGroupSettings))
                                                            .build())
                            .build();
 
         } else {
-            if (callbackContext.getTargets() == null) {
+            if (callbackContext.getTargets() == null || callbackContext.getRegistrationBatches() != null) {
                 //If targets have not been setup, register them
-                List<DBProxyTarget> targets = registerDefaultTarget(model);
-                return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                               .resourceModel(model)
-                               .status(OperationStatus.IN_PROGRESS)
-                               .callbackContext(CallbackContext.builder()
-                                                               .proxy(proxyStateSoFar)
-                                                               .targetGroupStatus(callbackContext.getTargetGroupStatus())
-                                                               .targets(targets)
-                                                               .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                               .build())
-                               .build();
+                return registerTargets(clientProxy, rdsClient, model, callbackContext, Utility.getClusters(model), Utility.getInstances(model));
             } else {
                 if (!callbackContext.isAllTargetsHealthy()) {
-                    boolean allTargetsHealthy = checkTargetHealth(model);
-
-                    try {
-                        Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
+                    HealthEvaluation health = HealthEvaluation.of(ProxyTargets.of(marker -> describeTargets(clientProxy, rdsClient, model, marker)),
+                                                                  callbackContext.getTargetHealth());
+                    if (health.isTerminal()
+                            && OperationDeadline.elapsedMillis(callbackContext, clock) >= Constants.TERMINAL_HEALTH_GRACE_PERIOD_IN_MS) {
+                        return ProgressEvent.failed(model, null, HandlerErrorCode.NotStabilized, health.getFailureMessage());
                     }
+                    boolean allTargetsHealthy = health.isHealthy();
 
                     return ProgressEvent.<ResourceModel, CallbackContext>builder()
                                    .resourceModel(model)
                                    .status(OperationStatus.IN_PROGRESS)
+                                   .message(health.getProgressMessage())
+                                   .callbackDelaySeconds(allTargetsHealthy
+                                                         ? 0
+                                                         : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(health.getPendingState(),
+                                                                                                              callbackContext.getStabilizationAttempt()))
                                    .callbackContext(CallbackContext.builder()
-                                       .proxy(proxyStateSoFar)
                                        .targetGroupStatus(callbackContext.getTargetGroupStatus())
                                        .targets(callbackContext.getTargets())
-                                       .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                                       .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                                        .allTargetsHealthy(allTargetsHealthy)
+                                       .targetHealth(health.getTargetHealth())
                                        .build())
                                    .build();
                 } else {
-                    if (!callbackContext.isAllTargetsHealthy()) {
-                        boolean allTargetsHealthy = checkTargetHealth(model);
-
-                        try {
-                            Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        }
-
-                        return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                                       .resourceModel(model)
-                                       .status(OperationStatus.IN_PROGRESS)
-                                       .callbackContext(CallbackContext.builder()
-                                           .proxy(proxyStateSoFar)
-                                           .targetGroupStatus(callbackContext.getTargetGroupStatus())
-                                           .targets(callbackContext.getTargets())
-                                           .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
-                                           .allTargetsHealthy(allTargetsHealthy)
-                                           .build())
-                                       .build();
-                    } else {
-                        //All setup has been completed
-                        return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                                       .resourceModel(model)
-                                       .status(OperationStatus.SUCCESS)
-                                       .build();
-                    }
+                    //All setup has been completed
+                    return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                                   .resourceModel(model)
+                                   .status(OperationStatus.SUCCESS)
+                                   .build();
                 }
             }
         }
 
     }
 
-    private DBProxyTargetGroup modifyProxyTargetGroup(ResourceModel model) {
+    private DBProxyTargetGroup modifyProxyTargetGroup(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel model) {
         ConnectionPoolConfigurationInfoFormat modelConnectionPoolConfig = model.getConnectionPoolConfigurationInfo();
 
         if (modelConnectionPoolConfig == null) {
@@ -176,29 +157,45 @@ public class CreateHandler extends BaseHandler<CallbackContext> {
         return clientProxy.injectCredentialsAndInvoke(request, rdsClient::modifyDBProxyTargetGroup).getDBProxyTargetGroup();
     }
 
-    private List<DBProxyTarget> registerDefaultTarget(ResourceModel model) {
-        List<String> newClusters = Utility.getClusters(model);
-        List<String> newInstances = Utility.getInstances(model);
-
-        if (newClusters.size() == 0 && newInstances.size() == 0) {
-            return new ArrayList<>();
+    private ProgressEvent<ResourceModel, CallbackContext> registerTargets(final AmazonWebServicesClientProxy clientProxy,
+                                                                          final AmazonRDS rdsClient,
+                                                                          ResourceModel model,
+                                                                          CallbackContext callbackContext,
+                                                                          List<String> clusters,
+                                                                          List<String> instances) {
+        List<List<TargetState>> pending = Optional.ofNullable(callbackContext.getRegistrationBatches())
+                                                  .orElseGet(() -> registrar.plan(clusters, instances));
+        // Records what was registered in the context, even when a batch fails for good
+        List<List<TargetState>> remaining = registrar.register(clientProxy, rdsClient, model.getDBProxyName(), model.getTargetGroupName(), pending, callbackContext);
+
+        if (remaining.isEmpty()) {
+            return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                           .resourceModel(model)
+                           .status(OperationStatus.IN_PROGRESS)
+                           .callbackContext(CallbackContext.builder()
+                                                           .targetGroupStatus(callbackContext.getTargetGroupStatus())
+                                                           .targets(callbackContext.getTargets())
+                                                           .build())
+                           .build();
         }
 
-        RegisterDBProxyTargetsRequest registerRequest = new RegisterDBProxyTargetsRequest()
-                                                                .withDBProxyName(model.getDBProxyName())
-                                                                .withTargetGroupName(model.getTargetGroupName())
-                                                                .withDBClusterIdentifiers(newClusters)
-                                                                .withDBInstanceIdentifiers(newInstances);
-
-        return clientProxy.injectCredentialsAndInvoke(registerRequest, rdsClient::registerDBProxyTargets).getDBProxyTargets();
+        // Back off before sending the throttled batches again, keeping what was registered so far
+        return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                       .resourceModel(model)
+                       .status(OperationStatus.IN_PROGRESS)
+                       .callbackDelaySeconds(Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(null, callbackContext.getStabilizationAttempt()))
+                       .callbackContext(callbackContext.toBuilder()
+                                                       .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
+                                                       .build())
+                       .build();
     }
 
-    private boolean checkTargetHealth(ResourceModel model) {
+    private DescribeDBProxyTargetsResult describeTargets(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel model, String marker) {
         DescribeDBProxyTargetsRequest describeDBProxyTargetsRequest = new DescribeDBProxyTargetsRequest()
                                                                               .withDBProxyName(model.getDBProxyName())
-                                                                              .withTargetGroupName(model.getTargetGroupName());
+                                                                              .withTargetGroupName(model.getTargetGroupName())
+                                                                              .withMarker(marker);
 
-        DescribeDBProxyTargetsResult describeResult = clientProxy.injectCredentialsAndInvoke(describeDBProxyTargetsRequest, rdsClient::describeDBProxyTargets);
-        return validateHealth(describeResult);
+        return clientProxy.injectCredentialsAndInvoke(describeDBProxyTargetsRequest, rdsClient::describeDBProxyTargets);
     }
 }
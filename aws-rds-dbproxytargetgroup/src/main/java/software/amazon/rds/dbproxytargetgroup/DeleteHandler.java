@@ -1,14 +1,13 @@
 package software.amazon.rds.dbproxytargetgroup;
 
-import java.util.ArrayList;
+import java.time.Clock;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.DBProxyNotFoundException;
-import com.amazonaws.services.rds.model.DBProxyTarget;
-import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
+import com.amazonaws.services.rds.model.DBProxyTargetNotFoundException;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
 import com.amazonaws.services.rds.model.InvalidDBProxyStateException;
@@ -17,12 +16,25 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.OperationDeadline;
 
 public class DeleteHandler extends BaseHandler<CallbackContext> {
+    public static final String TIMED_OUT_MESSAGE = "Timed out waiting for targets to be deregistered.";
 
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
-    private Logger logger;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
+
+    private final TargetDeregistrar deregistrar = TargetDeregistrar.builder().build();
+
+    public DeleteHandler() {
+        this(Clock.systemUTC());
+    }
+
+    DeleteHandler(final Clock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -31,34 +43,32 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        final ResourceModel model = request.getDesiredResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel model = request.getDesiredResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
-        this.logger = logger;
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = Optional.ofNullable(callbackContext)
-                                                       .orElse(CallbackContext.builder()
-                                                                              .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                              .build());
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
-        return deleteProxyTargetGroup(model, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
+            return OperationDeadline.carry(deleteProxyTargetGroup(proxy, rdsClient, model, currentContext), currentContext, clock);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> deleteProxyTargetGroup(ResourceModel model,
+    private ProgressEvent<ResourceModel, CallbackContext> deleteProxyTargetGroup(final AmazonWebServicesClientProxy clientProxy,
+                                                                                 final AmazonRDS rdsClient,
+                                                                                 ResourceModel model,
                                                                                  CallbackContext callbackContext) {
+        // Checked before any call, so an invocation that starts past the deadline does no further work
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
+            throw new RuntimeException(TIMED_OUT_MESSAGE);
+        }
 
         if (!callbackContext.isTargetsDeregistered()) {
-            boolean deregistered = deregisterOldTargetsHelper(model);
-            return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                           .resourceModel(model)
-                           .status(OperationStatus.IN_PROGRESS)
-                           .callbackContext(CallbackContext.builder()
-                                                           .targetsDeregistered(deregistered)
-                                                           .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                           .build())
-                           .build();
+            return deregisterOldTargetsHelper(clientProxy, rdsClient, model, callbackContext);
         }
 
         return ProgressEvent.<ResourceModel, CallbackContext>builder()
@@ -66,53 +76,70 @@ public class DeleteHandler extends BaseHandler<CallbackContext> {
                        .build();
     }
 
-    private boolean deregisterOldTargetsHelper(ResourceModel model) {
+    private ProgressEvent<ResourceModel, CallbackContext> deregisterOldTargetsHelper(final AmazonWebServicesClientProxy clientProxy,
+                                                                                     final AmazonRDS rdsClient,
+                                                                                     ResourceModel model,
+                                                                                    CallbackContext callbackContext) {
+        List<List<TargetState>> remaining;
         try {
-            return deregisterOldTargets(model);
+            remaining = deregisterOldTargets(clientProxy, rdsClient, model, callbackContext);
         } catch (DBProxyNotFoundException e) {
             // Proxy is already deleted, no need to deregister
-            return true;
+            remaining = Collections.emptyList();
+        } catch (DBProxyTargetNotFoundException e) {
+            // A target went away since the batches were planned; plan again from the targets still registered
+            remaining = null;
         } catch (InvalidDBProxyStateException e) {
-            if (e.getMessage().contains("DELETING")) {
-                // Proxy is deleting, no need to deregister
-                return true;
+            if (!e.getMessage().contains("DELETING")) {
+                throw e;
             }
-            throw e;
+            // Proxy is deleting, no need to deregister
+            remaining = Collections.emptyList();
         }
+
+        if (remaining != null && remaining.isEmpty()) {
+            return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                           .resourceModel(model)
+                           .status(OperationStatus.IN_PROGRESS)
+                           .callbackContext(CallbackContext.builder()
+                                                           .targetsDeregistered(true)
+                                                           .build())
+                           .build();
+        }
+
+        // Back off before resuming with only the batches that were throttled or failed transiently
+        return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                       .resourceModel(model)
+                       .status(OperationStatus.IN_PROGRESS)
+                       .callbackContext(callbackContext.toBuilder()
+                                                       .deregistrationBatches(remaining)
+                                                       .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
+                                                       .build())
+                       .callbackDelaySeconds(Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(null, callbackContext.getStabilizationAttempt()))
+                       .build();
     }
 
-    private boolean deregisterOldTargets(ResourceModel model) {
+    /**
+     * Deregisters the batches of the context, planning them from every registered target first when there are none yet.
+     *
+     * @return the batches that still need to be sent
+     */
+    private List<List<TargetState>> deregisterOldTargets(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel model, CallbackContext callbackContext) {
         String proxyName = model.getDBProxyName();
         String targetGroupName = Optional.ofNullable(model.getTargetGroupName()).orElse("default");
 
+        List<List<TargetState>> pending = callbackContext.getDeregistrationBatches() != null
+                                          ? callbackContext.getDeregistrationBatches()
+                                          : deregistrar.plan(ProxyTargets.of(marker -> describeTargets(clientProxy, rdsClient, proxyName, targetGroupName, marker)));
+        return deregistrar.deregister(clientProxy, rdsClient, proxyName, targetGroupName, pending, callbackContext);
+    }
+
+    private DescribeDBProxyTargetsResult describeTargets(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, final String proxyName, final String targetGroupName, final String marker) {
         DescribeDBProxyTargetsRequest describeDBProxyTargetsRequest = new DescribeDBProxyTargetsRequest()
                                                                               .withDBProxyName(proxyName)
-                                                                              .withTargetGroupName(targetGroupName);
-
-        DescribeDBProxyTargetsResult describeResult = clientProxy.injectCredentialsAndInvoke(describeDBProxyTargetsRequest, rdsClient::describeDBProxyTargets);
-
-        List<String> dbClusters = new ArrayList<>();
-        List<String> dbInstances = new ArrayList<>();
-        for (DBProxyTarget target: describeResult.getTargets()) {
-            if (target.getType().equals("TRACKED_CLUSTER")) {
-                dbClusters.add(target.getRdsResourceId());
-            } else {
-                dbInstances.add(target.getRdsResourceId());
-            }
-        }
-
-        if (dbClusters.size() > 0) {
-            DeregisterDBProxyTargetsRequest deregisterRequest = new DeregisterDBProxyTargetsRequest()
-                                                                        .withDBProxyName(model.getDBProxyName())
-                                                                        .withDBClusterIdentifiers(dbClusters);
-            clientProxy.injectCredentialsAndInvoke(deregisterRequest, rdsClient::deregisterDBProxyTargets);
-        } else if (dbInstances.size() > 0){
-            DeregisterDBProxyTargetsRequest deregisterRequest = new DeregisterDBProxyTargetsRequest()
-                                                                        .withDBProxyName(model.getDBProxyName())
-                                                                        .withDBInstanceIdentifiers(dbInstances);
-            clientProxy.injectCredentialsAndInvoke(deregisterRequest, rdsClient::deregisterDBProxyTargets);
-        }
+                                                                              .withTargetGroupName(targetGroupName)
+                                                                              .withMarker(marker);
 
-        return true;
+        return clientProxy.injectCredentialsAndInvoke(describeDBProxyTargetsRequest, rdsClient::describeDBProxyTargets);
     }
 }
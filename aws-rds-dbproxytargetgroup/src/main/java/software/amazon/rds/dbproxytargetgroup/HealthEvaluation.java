@@ -0,0 +1,164 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static software.amazon.rds.dbproxytargetgroup.Constants.AVAILABLE_STATE;
+import static software.amazon.rds.dbproxytargetgroup.Constants.RDS_INSTANCE;
+import static software.amazon.rds.dbproxytargetgroup.Constants.TERMINAL_HEALTH_REASONS;
+import static software.amazon.rds.dbproxytargetgroup.Constants.TRACKED_CLUSTER;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.TargetHealth;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Health of a target group's registered targets, reduced to the target that decides whether stabilization can finish:
+ * the first target whose health reason cannot recover without user action, otherwise the first target still waiting
+ * to become available. The health of every target is kept so the next poll can skip targets that are already
+ * available.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class HealthEvaluation {
+    static final String UNKNOWN_HEALTH_STATE = "UNKNOWN";
+    private static final int MAX_TARGETS_IN_MESSAGE = 10;
+
+    public enum Verdict {
+        HEALTHY,
+        // Still registering, waiting on proxy capacity, or unhealthy for a reason that may clear on its own
+        TRANSIENT,
+        // Unhealthy for a reason that needs the user to fix credentials, networking or replication
+        TERMINAL
+    }
+
+    Verdict verdict;
+    DBProxyTarget target;
+    // Last known health of each evaluated target by RDS resource id, in the order the targets were described
+    Map<String, String> targetHealth;
+
+    public static HealthEvaluation of(final Iterable<DBProxyTarget> targets) {
+        return of(targets, null);
+    }
+
+    /**
+     * @param previousHealth health recorded by an earlier poll, or null; targets it already knows to be available are
+     *                       carried over without being evaluated again
+     */
+    public static HealthEvaluation of(final Iterable<DBProxyTarget> targets, final Map<String, String> previousHealth) {
+        final Map<String, String> targetHealth = new LinkedHashMap<>();
+        DBProxyTarget firstTerminal = null;
+        DBProxyTarget firstTransient = null;
+        for (DBProxyTarget target : targets) {
+            final String id = target.getRdsResourceId();
+            if (id != null && previousHealth != null && AVAILABLE_STATE.equals(previousHealth.get(id))) {
+                targetHealth.put(id, AVAILABLE_STATE);
+                continue;
+            }
+
+            final Verdict verdict = classify(target);
+            if (id != null) {
+                targetHealth.put(id, verdict == Verdict.HEALTHY
+                                     ? AVAILABLE_STATE
+                                     : Optional.ofNullable(reasonOrState(target)).orElse(UNKNOWN_HEALTH_STATE));
+            }
+            if (verdict == Verdict.TERMINAL && firstTerminal == null) {
+                firstTerminal = target;
+            } else if (verdict == Verdict.TRANSIENT && firstTransient == null) {
+                firstTransient = target;
+            }
+        }
+
+        if (firstTerminal != null) {
+            return new HealthEvaluation(Verdict.TERMINAL, firstTerminal, targetHealth);
+        }
+        return firstTransient == null
+               ? new HealthEvaluation(Verdict.HEALTHY, null, targetHealth)
+               : new HealthEvaluation(Verdict.TRANSIENT, firstTransient, targetHealth);
+    }
+
+    static Verdict classify(final DBProxyTarget target) {
+        final boolean trackedCluster = target.getType().equalsIgnoreCase(TRACKED_CLUSTER);
+        if (!trackedCluster && !target.getType().equalsIgnoreCase(RDS_INSTANCE)) {
+            return Verdict.HEALTHY;
+        }
+
+        final TargetHealth health = target.getTargetHealth();
+        if (health == null || health.getState() == null) {
+            // Tracked clusters do not currently report their own health; instances report it once registered
+            return trackedCluster ? Verdict.HEALTHY : Verdict.TRANSIENT;
+        }
+        if (health.getState().equalsIgnoreCase(AVAILABLE_STATE)) {
+            return Verdict.HEALTHY;
+        }
+        return health.getReason() != null && TERMINAL_HEALTH_REASONS.contains(health.getReason())
+               ? Verdict.TERMINAL
+               : Verdict.TRANSIENT;
+    }
+
+    public boolean isHealthy() {
+        return verdict == Verdict.HEALTHY;
+    }
+
+    public boolean isTerminal() {
+        return verdict == Verdict.TERMINAL;
+    }
+
+    /**
+     * Health reason (or state, when no reason is reported) of the deciding target, used to pace the next poll.
+     */
+    public String getPendingState() {
+        return target == null ? null : reasonOrState(target);
+    }
+
+    /**
+     * Targets that are not available yet, with their last known health.
+     */
+    public Map<String, String> getPendingTargets() {
+        final Map<String, String> pending = new LinkedHashMap<>();
+        targetHealth.forEach((id, health) -> {
+            if (!AVAILABLE_STATE.equals(health)) {
+                pending.put(id, health);
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Progress message naming the targets that are still pending, or null when there are none.
+     */
+    public String getProgressMessage() {
+        final Map<String, String> pending = getPendingTargets();
+        if (pending.isEmpty()) {
+            return null;
+        }
+        final String listed = pending.entrySet()
+                                     .stream()
+                                     .limit(MAX_TARGETS_IN_MESSAGE)
+                                     .map(e -> String.format("%s (%s)", e.getKey(), e.getValue()))
+                                     .collect(Collectors.joining(", "));
+        return String.format(Constants.PENDING_TARGETS_MESSAGE, pending.size(), listed)
+               + (pending.size() > MAX_TARGETS_IN_MESSAGE ? String.format(", and %d more", pending.size() - MAX_TARGETS_IN_MESSAGE) : "");
+    }
+
+    public String getFailureMessage() {
+        if (!isTerminal()) {
+            return null;
+        }
+        final TargetHealth health = target.getTargetHealth();
+        final String message = String.format(Constants.UNHEALTHY_TARGET_MESSAGE, target.getRdsResourceId(), health.getState(), health.getReason());
+        return health.getDescription() == null ? message : message + " " + health.getDescription();
+    }
+
+    private static String reasonOrState(final DBProxyTarget target) {
+        final TargetHealth health = target.getTargetHealth();
+        if (health == null) {
+            return null;
+        }
+        return Optional.ofNullable(health.getReason()).orElse(health.getState());
+    }
+}
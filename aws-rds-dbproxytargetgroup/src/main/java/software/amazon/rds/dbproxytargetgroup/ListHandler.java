@@ -1,10 +1,10 @@
 package software.amazon.rds.dbproxytargetgroup;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsResult;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
@@ -12,11 +12,22 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.Paginator;
 
 public class ListHandler extends BaseHandler<CallbackContext> {
     private static final int MAX_RESULTS = 100;
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Reads up to Paginator.DEFAULT_MAX_PAGES pages per invocation when paging eagerly, and a single page otherwise
+    private final Paginator paginator;
+
+    public ListHandler() {
+        this(true);
+    }
+
+    public ListHandler(final boolean eagerPaging) {
+        this.paginator = new Paginator(eagerPaging ? Paginator.DEFAULT_MAX_PAGES : 1);
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -25,29 +36,38 @@ public class ListHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final List<ResourceModel> models = listProxyTargetGroups(
-                request.getDesiredResourceState().getDBProxyName(),
-                request.getNextToken());
+            final String dbProxyName = request.getDesiredResourceState().getDBProxyName();
 
-        return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                       .resourceModels(models)
-                       .status(OperationStatus.SUCCESS)
-                       .build();
+            final List<ResourceModel> models = new ArrayList<>();
+            final String nextToken = paginator.read(request.getNextToken(),
+                                                    marker -> describeProxyTargetGroups(proxy, rdsClient, dbProxyName, marker),
+                                                    DescribeDBProxyTargetGroupsResult::getMarker,
+                                                    page -> models.addAll(toModels(page)));
+
+            return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                           .resourceModels(models)
+                           .nextToken(nextToken)
+                           .status(OperationStatus.SUCCESS)
+                           .build();
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private List<ResourceModel> listProxyTargetGroups(String dbProxyName, String nextToken) {
+    private DescribeDBProxyTargetGroupsResult describeProxyTargetGroups(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, String dbProxyName, String nextToken) {
         DescribeDBProxyTargetGroupsRequest request = new DescribeDBProxyTargetGroupsRequest()
                 .withDBProxyName(dbProxyName)
                 .withMaxRecords(MAX_RESULTS)
                 .withMarker(nextToken);
 
-        DescribeDBProxyTargetGroupsResult result = clientProxy.injectCredentialsAndInvoke(request, rdsClient::describeDBProxyTargetGroups);
-
-        List<ResourceModel> models = result.getTargetGroups().stream().map(r -> Utility.resultToModel(r)).collect(Collectors.toList());
+        return clientProxy.injectCredentialsAndInvoke(request, rdsClient::describeDBProxyTargetGroups);
+    }
 
-        return models;
+    private List<ResourceModel> toModels(DescribeDBProxyTargetGroupsResult result) {
+        return result.getTargetGroups().stream().map(r -> Utility.resultToModel(r)).collect(Collectors.toList());
     }
 }
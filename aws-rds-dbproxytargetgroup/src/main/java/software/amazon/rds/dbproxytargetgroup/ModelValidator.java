@@ -0,0 +1,41 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.util.List;
+
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.rds.common.Violations;
+
+/**
+ * Target group rules RDS would otherwise only enforce after a round trip: the documented ranges of the connection pool
+ * settings. Which targets may be combined is left to RDS.
+ */
+public class ModelValidator {
+    static final int MAX_PERCENT = 100;
+    static final int MAX_CONNECTION_BORROW_TIMEOUT = 3600;
+
+    public static List<String> validate(ResourceModel model) {
+        Violations violations = new Violations();
+
+        ConnectionPoolConfigurationInfoFormat pool = model.getConnectionPoolConfigurationInfo();
+        if (pool != null) {
+            Integer maxConnections = pool.getMaxConnectionsPercent();
+            violations.check(maxConnections != null && (maxConnections < 1 || maxConnections > MAX_PERCENT),
+                             "MaxConnectionsPercent must be between 1 and " + MAX_PERCENT + ".");
+            Integer maxIdleConnections = pool.getMaxIdleConnectionsPercent();
+            violations.check(maxIdleConnections != null && (maxIdleConnections < 0 || maxIdleConnections > MAX_PERCENT),
+                             "MaxIdleConnectionsPercent must be between 0 and " + MAX_PERCENT + ".");
+            Integer borrowTimeout = pool.getConnectionBorrowTimeout();
+            violations.check(borrowTimeout != null && (borrowTimeout < 0 || borrowTimeout > MAX_CONNECTION_BORROW_TIMEOUT),
+                             "ConnectionBorrowTimeout must be between 0 and " + MAX_CONNECTION_BORROW_TIMEOUT + " seconds.");
+        }
+
+        return violations.getMessages();
+    }
+
+    /**
+     * @return null if the model is valid, otherwise an InvalidRequest failure listing every violation
+     */
+    static ProgressEvent<ResourceModel, CallbackContext> check(ResourceModel model) {
+        return Violations.failure(validate(model));
+    }
+}
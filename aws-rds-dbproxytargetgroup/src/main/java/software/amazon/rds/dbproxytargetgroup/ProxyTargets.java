@@ -0,0 +1,70 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
+
+/**
+ * Targets of a target group across every page of DescribeDBProxyTargets. Pages are fetched lazily as iteration
+ * reaches them, so callers that stop early never request the remaining pages and no caller holds more than one page
+ * at a time. Each iteration starts again from the first page.
+ */
+public class ProxyTargets implements Iterable<DBProxyTarget> {
+    // Fetches the page starting at the given marker, or the first page for a null marker
+    private final Function<String, DescribeDBProxyTargetsResult> fetchPage;
+
+    private ProxyTargets(final Function<String, DescribeDBProxyTargetsResult> fetchPage) {
+        this.fetchPage = fetchPage;
+    }
+
+    public static ProxyTargets of(final Function<String, DescribeDBProxyTargetsResult> fetchPage) {
+        return new ProxyTargets(fetchPage);
+    }
+
+    @Override
+    public Iterator<DBProxyTarget> iterator() {
+        return new PageIterator();
+    }
+
+    public Stream<DBProxyTarget> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private class PageIterator implements Iterator<DBProxyTarget> {
+        private Iterator<DBProxyTarget> page = Collections.emptyIterator();
+        private String marker;
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            // Pages may come back empty while still carrying a marker
+            while (!page.hasNext() && !lastPage) {
+                final DescribeDBProxyTargetsResult result = fetchPage.apply(marker);
+                if (result == null) {
+                    lastPage = true;
+                    break;
+                }
+                page = result.getTargets() == null ? Collections.emptyIterator() : result.getTargets().iterator();
+                marker = result.getMarker();
+                lastPage = marker == null;
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public DBProxyTarget next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+}
@@ -5,9 +5,7 @@ import java.util.List;
 import java.util.Optional;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.DBProxyTarget;
-import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsResult;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsRequest;
@@ -18,11 +16,10 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
 
 public class ReadHandler extends BaseHandler<CallbackContext> {
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
-
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
             final AmazonWebServicesClientProxy proxy,
@@ -30,23 +27,29 @@ public class ReadHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        final ResourceModel desiredResource = request.getDesiredResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel desiredResource = request.getDesiredResourceState();
 
-        String proxyName = desiredResource.getDBProxyName();
-        String targetGroupName = Optional.ofNullable(desiredResource.getTargetGroupName()).orElse("default");
+            String proxyName = desiredResource.getDBProxyName();
+            String targetGroupName = Optional.ofNullable(desiredResource.getTargetGroupName()).orElse("default");
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final ResourceModel model = describeDBProxyTargetGroup(proxyName, targetGroupName);
+            final ResourceModel model = describeDBProxyTargetGroup(proxy, rdsClient, proxyName, targetGroupName);
 
-        return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                       .resourceModel(model)
-                       .status(OperationStatus.SUCCESS)
-                       .build();
+            return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                           .resourceModel(model)
+                           .status(OperationStatus.SUCCESS)
+                           .build();
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ResourceModel describeDBProxyTargetGroup(final String proxyName,
+    private ResourceModel describeDBProxyTargetGroup(final AmazonWebServicesClientProxy clientProxy,
+                                                     final AmazonRDS rdsClient,
+                                                     final String proxyName,
                                                      final String targetGroupName) {
         DescribeDBProxyTargetGroupsRequest request = new DescribeDBProxyTargetGroupsRequest()
                                                              .withDBProxyName(proxyName)
@@ -57,26 +60,20 @@ public class ReadHandler extends BaseHandler<CallbackContext> {
         if (result != null && result.getTargetGroups() != null && result.getTargetGroups().size() == 1) {
             ResourceModel resourceModel = Utility.resultToModel(result.getTargetGroups().get(0));
 
-            DescribeDBProxyTargetsRequest targetsRequest = new DescribeDBProxyTargetsRequest()
-                                                                         .withDBProxyName(proxyName)
-                                                                         .withTargetGroupName(targetGroupName);
-            final DescribeDBProxyTargetsResult targetsResult = clientProxy.injectCredentialsAndInvoke(targetsRequest, rdsClient::describeDBProxyTargets);
-            if (targetsResult != null) {
-                List<String> dbClusters = new ArrayList<>();
-                List<String> dbInstances = new ArrayList<>();
-                for (DBProxyTarget target: targetsResult.getTargets()) {
-                    if (target.getType().equals("TRACKED_CLUSTER")) {
-                        dbClusters.add(target.getRdsResourceId());
-                    } else {
-                        dbInstances.add(target.getRdsResourceId());
-                    }
+            List<String> dbClusters = new ArrayList<>();
+            List<String> dbInstances = new ArrayList<>();
+            for (DBProxyTarget target: ProxyTargets.of(marker -> describeTargets(clientProxy, rdsClient, proxyName, targetGroupName, marker))) {
+                if (target.getType().equals("TRACKED_CLUSTER")) {
+                    dbClusters.add(target.getRdsResourceId());
+                } else {
+                    dbInstances.add(target.getRdsResourceId());
                 }
+            }
 
-                if (dbClusters.size() > 0) {
-                    resourceModel.setDBClusterIdentifiers(dbClusters);
-                } else if (dbInstances.size() > 0){
-                    resourceModel.setDBInstanceIdentifiers(dbInstances);
-                }
+            if (dbClusters.size() > 0) {
+                resourceModel.setDBClusterIdentifiers(dbClusters);
+            } else if (dbInstances.size() > 0){
+                resourceModel.setDBInstanceIdentifiers(dbInstances);
             }
             return resourceModel;
         } else {
@@ -84,4 +81,12 @@ public class ReadHandler extends BaseHandler<CallbackContext> {
             throw new CfnNotFoundException(ResourceModel.TYPE_NAME, name);
         }
     }
+
+    private DescribeDBProxyTargetsResult describeTargets(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, final String proxyName, final String targetGroupName, final String marker) {
+        DescribeDBProxyTargetsRequest targetsRequest = new DescribeDBProxyTargetsRequest()
+                                                               .withDBProxyName(proxyName)
+                                                               .withTargetGroupName(targetGroupName)
+                                                               .withMarker(marker);
+        return clientProxy.injectCredentialsAndInvoke(targetsRequest, rdsClient::describeDBProxyTargets);
+    }
 }
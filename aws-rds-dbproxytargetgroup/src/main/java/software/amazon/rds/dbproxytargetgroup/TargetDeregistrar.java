@@ -0,0 +1,108 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
+import com.google.common.collect.Lists;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.rds.common.Concurrency;
+
+/**
+ * Deregisters every target of a target group in batches of at most {@code batchSize} targets, with at most
+ * {@code parallelism} DeregisterDBProxyTargets calls in flight at once. Clusters and standalone instances share
+ * batches; instances that belong to a tracked cluster are left to the cluster's deregistration.
+ */
+@Getter
+public class TargetDeregistrar {
+    private final int batchSize;
+    private final int parallelism;
+
+    // Created once, so each deregistration does not start and stop a pool of its own
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService executor;
+
+    @Builder
+    private TargetDeregistrar(final Integer batchSize, final Integer parallelism) {
+        this.batchSize = batchSize == null ? Constants.DEREGISTRATION_BATCH_SIZE : batchSize;
+        this.parallelism = parallelism == null ? Constants.DEREGISTRATION_PARALLELISM : parallelism;
+        this.executor = Concurrency.boundedPool("target-deregistrar", this.parallelism);
+    }
+
+    public List<List<TargetState>> plan(final Iterable<DBProxyTarget> registeredTargets) {
+        final List<TargetState> targets = new ArrayList<>();
+        for (DBProxyTarget target : registeredTargets) {
+            if (target.getTrackedClusterId() == null) {
+                targets.add(TargetState.from(target));
+            }
+        }
+        return new ArrayList<>(Lists.partition(targets, batchSize));
+    }
+
+    /**
+     * Sends the given batches and records the ones that failed as the deregistration batches of
+     * {@code callbackContext}, so a later attempt can resume with only those.
+     *
+     * @return the batches that failed with a throttling or otherwise retryable error
+     * @throws AmazonServiceException the first non-retryable failure, once every batch has been attempted and the
+     *                                failed batches recorded
+     */
+    public List<List<TargetState>> deregister(final AmazonWebServicesClientProxy clientProxy,
+                                              final AmazonRDS rdsClient,
+                                              final String proxyName,
+                                              final String targetGroupName,
+                                              final List<List<TargetState>> batches,
+                                              final CallbackContext callbackContext) {
+        final List<CompletableFuture<Void>> results = Utility.sendBatches(
+                executor, batches, batch -> deregisterBatch(clientProxy, rdsClient, proxyName, targetGroupName, batch));
+
+        final List<List<TargetState>> remaining = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int i = 0; i < batches.size(); i++) {
+            try {
+                Concurrency.join(results.get(i));
+            } catch (RuntimeException e) {
+                if (!Utility.isRetryable(e)) {
+                    failure = Optional.ofNullable(failure).orElse(e);
+                }
+                remaining.add(batches.get(i));
+            }
+        }
+        callbackContext.setDeregistrationBatches(remaining);
+        if (failure != null) {
+            throw failure;
+        }
+        return remaining;
+    }
+
+    private Void deregisterBatch(final AmazonWebServicesClientProxy clientProxy,
+                                 final AmazonRDS rdsClient,
+                                 final String proxyName,
+                                 final String targetGroupName,
+                                 final List<TargetState> batch) {
+        DeregisterDBProxyTargetsRequest request = new DeregisterDBProxyTargetsRequest()
+                                                          .withDBProxyName(proxyName)
+                                                          .withTargetGroupName(targetGroupName)
+                                                          .withDBClusterIdentifiers(idsOf(batch, true))
+                                                          .withDBInstanceIdentifiers(idsOf(batch, false));
+        clientProxy.injectCredentialsAndInvoke(request, rdsClient::deregisterDBProxyTargets);
+        return null;
+    }
+
+    static List<String> idsOf(final List<TargetState> batch, final boolean clusters) {
+        return batch.stream()
+                    .filter(target -> Constants.TRACKED_CLUSTER.equals(target.getType()) == clusters)
+                    .map(TargetState::getRdsResourceId)
+                    .collect(Collectors.toList());
+    }
+}
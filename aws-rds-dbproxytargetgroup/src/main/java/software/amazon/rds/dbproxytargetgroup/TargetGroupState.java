@@ -0,0 +1,35 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import com.amazonaws.services.rds.model.DBProxyTargetGroup;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The subset of a {@link DBProxyTargetGroup} that the handlers keep in the callback context. Property names match the
+ * SDK type, so contexts written before the compact format still deserialize; SDK properties not kept here are skipped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TargetGroupState {
+    private String targetGroupName;
+    private String targetGroupArn;
+    private String status;
+
+    public static TargetGroupState from(final DBProxyTargetGroup targetGroup) {
+        if (targetGroup == null) {
+            return null;
+        }
+
+        return TargetGroupState.builder()
+                               .targetGroupName(targetGroup.getTargetGroupName())
+                               .targetGroupArn(targetGroup.getTargetGroupArn())
+                               .status(targetGroup.getStatus())
+                               .build();
+    }
+}
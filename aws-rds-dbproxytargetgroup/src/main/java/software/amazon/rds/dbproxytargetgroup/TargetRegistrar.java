@@ -0,0 +1,98 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.RegisterDBProxyTargetsRequest;
+import com.google.common.collect.Lists;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.rds.common.Concurrency;
+
+/**
+ * Registers clusters and instances with a target group in batches of at most {@code batchSize} identifiers, with at
+ * most {@code parallelism} RegisterDBProxyTargets calls in flight at once. Batches that are throttled are handed back
+ * rather than failing the whole registration, so the caller can back off and send only those again.
+ */
+@Getter
+public class TargetRegistrar {
+    private final int batchSize;
+    private final int parallelism;
+
+    // Created once, so each registration does not start and stop a pool of its own
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService executor;
+
+    @Builder
+    private TargetRegistrar(final Integer batchSize, final Integer parallelism) {
+        this.batchSize = batchSize == null ? Constants.REGISTRATION_BATCH_SIZE : batchSize;
+        this.parallelism = parallelism == null ? Constants.REGISTRATION_PARALLELISM : parallelism;
+        this.executor = Concurrency.boundedPool("target-registrar", this.parallelism);
+    }
+
+    public List<List<TargetState>> plan(final List<String> clusters, final List<String> instances) {
+        final List<TargetState> targets = new ArrayList<>();
+        clusters.forEach(id -> targets.add(new TargetState(id, Constants.TRACKED_CLUSTER)));
+        instances.forEach(id -> targets.add(new TargetState(id, Constants.RDS_INSTANCE)));
+        return new ArrayList<>(Lists.partition(targets, batchSize));
+    }
+
+    /**
+     * Sends the given batches and records the outcome in {@code callbackContext}: the targets the successful batches
+     * created are added to its targets, and the batches that failed become its registration batches.
+     *
+     * @return the batches that failed with a throttling or otherwise retryable error
+     * @throws AmazonServiceException the first non-retryable failure, once every batch has been attempted and the
+     *                                outcome recorded, so a later attempt does not send the successful batches again
+     */
+    public List<List<TargetState>> register(final AmazonWebServicesClientProxy clientProxy,
+                                            final AmazonRDS rdsClient,
+                                            final String proxyName,
+                                            final String targetGroupName,
+                                            final List<List<TargetState>> batches,
+                                            final CallbackContext callbackContext) {
+        final List<CompletableFuture<List<DBProxyTarget>>> results = Utility.sendBatches(
+                executor, batches, batch -> registerBatch(clientProxy, rdsClient, proxyName, targetGroupName, batch));
+
+        final List<TargetState> targets = new ArrayList<>(Optional.ofNullable(callbackContext.getTargets()).orElse(new ArrayList<>()));
+        final List<List<TargetState>> remaining = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int i = 0; i < batches.size(); i++) {
+            try {
+                Optional.ofNullable(TargetState.fromAll(Concurrency.join(results.get(i)))).ifPresent(targets::addAll);
+            } catch (RuntimeException e) {
+                if (!Utility.isRetryable(e)) {
+                    failure = Optional.ofNullable(failure).orElse(e);
+                }
+                remaining.add(batches.get(i));
+            }
+        }
+        callbackContext.setTargets(targets);
+        callbackContext.setRegistrationBatches(remaining);
+        if (failure != null) {
+            throw failure;
+        }
+        return remaining;
+    }
+
+    private List<DBProxyTarget> registerBatch(final AmazonWebServicesClientProxy clientProxy,
+                                              final AmazonRDS rdsClient,
+                                              final String proxyName,
+                                              final String targetGroupName,
+                                              final List<TargetState> batch) {
+        RegisterDBProxyTargetsRequest request = new RegisterDBProxyTargetsRequest()
+                                                        .withDBProxyName(proxyName)
+                                                        .withTargetGroupName(targetGroupName)
+                                                        .withDBClusterIdentifiers(TargetDeregistrar.idsOf(batch, true))
+                                                        .withDBInstanceIdentifiers(TargetDeregistrar.idsOf(batch, false));
+        return clientProxy.injectCredentialsAndInvoke(request, rdsClient::registerDBProxyTargets).getDBProxyTargets();
+    }
+}
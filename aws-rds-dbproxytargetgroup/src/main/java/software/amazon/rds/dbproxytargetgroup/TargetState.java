@@ -0,0 +1,41 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Identifies a registered {@link DBProxyTarget} in the callback context without the rest of its description. Property
+ * names match the SDK type, so contexts written before the compact format still deserialize; SDK properties not kept
+ * here are skipped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TargetState {
+    private String rdsResourceId;
+    private String type;
+
+    public static TargetState from(final DBProxyTarget target) {
+        return TargetState.builder()
+                          .rdsResourceId(target.getRdsResourceId())
+                          .type(target.getType())
+                          .build();
+    }
+
+    public static List<TargetState> fromAll(final List<DBProxyTarget> targets) {
+        if (targets == null) {
+            return null;
+        }
+
+        return targets.stream().map(TargetState::from).collect(Collectors.toList());
+    }
+}
@@ -1,15 +1,13 @@
 package software.amazon.rds.dbproxytargetgroup;
 
-import static software.amazon.rds.dbproxytargetgroup.Utility.validateHealth;
-
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
 import com.amazonaws.services.rds.AmazonRDS;
-import com.amazonaws.services.rds.AmazonRDSClientBuilder;
 import com.amazonaws.services.rds.model.ConnectionPoolConfiguration;
-import com.amazonaws.services.rds.model.DBProxyTarget;
 import com.amazonaws.services.rds.model.DBProxyTargetGroup;
 import com.amazonaws.services.rds.model.DBProxyTargetGroupNotFoundException;
 import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
@@ -17,20 +15,41 @@ import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
 import com.amazonaws.services.rds.model.ModifyDBProxyTargetGroupRequest;
-import com.amazonaws.services.rds.model.RegisterDBProxyTargetsRequest;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiMetrics;
+import software.amazon.rds.common.ClientBuilder;
+import software.amazon.rds.common.Diff;
+import software.amazon.rds.common.OperationDeadline;
+import software.amazon.rds.common.StepFusion;
 
 public class UpdateHandler extends BaseHandler<CallbackContext> {
-    private AmazonWebServicesClientProxy clientProxy;
-    private AmazonRDS rdsClient;
+    // Time this invocation may keep running steps that do not wait on the resource before handing back to the caller
+    private final long stepFusionBudgetMillis;
+    // Source of wall-clock time for the operation deadline
+    private final Clock clock;
+
+    private final TargetRegistrar registrar = TargetRegistrar.builder().build();
 
     private static final String TIMED_OUT_MESSAGE = "Timed out waiting for ProxyTargetGroup to finish modification.";
 
+    public UpdateHandler() {
+        this(StepFusion.DEFAULT_BUDGET_IN_MS, Clock.systemUTC());
+    }
+
+    public UpdateHandler(final long stepFusionBudgetMillis) {
+        this(stepFusionBudgetMillis, Clock.systemUTC());
+    }
+
+    UpdateHandler(final long stepFusionBudgetMillis, final Clock clock) {
+        this.stepFusionBudgetMillis = stepFusionBudgetMillis;
+        this.clock = clock;
+    }
+
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
             final AmazonWebServicesClientProxy proxy,
@@ -38,38 +57,48 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
             final CallbackContext callbackContext,
             final Logger logger) {
 
-        final ResourceModel newModel = request.getDesiredResourceState();
-        final ResourceModel oldModel = request.getPreviousResourceState();
+        final ApiMetrics metrics = new ApiMetrics(ResourceModel.TYPE_NAME);
+        try {
+            final ResourceModel newModel = request.getDesiredResourceState();
+            final ResourceModel oldModel = request.getPreviousResourceState();
 
-        clientProxy = proxy;
-        rdsClient = AmazonRDSClientBuilder.defaultClient();
+            final AmazonRDS rdsClient = ClientBuilder.getClient(metrics);
 
-        final CallbackContext currentContext = Optional.ofNullable(callbackContext)
-                                                       .orElse(CallbackContext.builder()
-                                                                              .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                              .build());
+            final CallbackContext currentContext = OperationDeadline.start(callbackContext == null ? CallbackContext.builder().build() : callbackContext, clock);
 
-        // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
-        return updateProxyAndUpdateProgress(newModel, oldModel, currentContext);
+            // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when deleted.
+            // Steps that do not wait on the resource run back-to-back within this invocation.
+            return StepFusion.run(context -> OperationDeadline.carry(updateProxyAndUpdateProgress(proxy, rdsClient, newModel, oldModel, context), context, clock),
+                                  currentContext,
+                                  clock,
+                                  stepFusionBudgetMillis);
+        } finally {
+            metrics.flush(logger);
+        }
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateProxyAndUpdateProgress(ResourceModel newModel,
+    private ProgressEvent<ResourceModel, CallbackContext> updateProxyAndUpdateProgress(final AmazonWebServicesClientProxy clientProxy,
+                                                                                       final AmazonRDS rdsClient,
+                                                                                       ResourceModel newModel,
                                                                                        ResourceModel oldModel,
                                                                                        CallbackContext callbackContext) {
         // This Lambda will continually be re-invoked with the current state of the proxy, finally succeeding when state stabilizes.
-        if (callbackContext.getStabilizationRetriesRemaining() == 0) {
+        if (OperationDeadline.isPassed(callbackContext, clock)) {
             throw new RuntimeException(TIMED_OUT_MESSAGE);
         }
 
         // Update target-group settings
         if (callbackContext.getTargetGroupStatus() == null) {
+            ProgressEvent<ResourceModel, CallbackContext> invalid = ModelValidator.check(newModel);
+            if (invalid != null) {
+                return invalid;
+            }
             try {
                 return ProgressEvent.<ResourceModel, CallbackContext>builder()
                         .resourceModel(newModel)
                         .status(OperationStatus.IN_PROGRESS)
                         .callbackContext(CallbackContext.builder()
-                                .targetGroupStatus(modifyProxyTargetGroup(oldModel, newModel))
-                                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                .targetGroupStatus(TargetGroupState.from(modifyProxyTargetGroup(clientProxy, rdsClient, oldModel, newModel)))
                                 .build())
                         .build();
             } catch (DBProxyTargetGroupNotFoundException e) {
@@ -84,43 +113,43 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                            .status(OperationStatus.IN_PROGRESS)
                            .callbackContext(CallbackContext.builder()
                                                            .targetGroupStatus(callbackContext.getTargetGroupStatus())
-                                                           .targetsDeregistered(deregisterOldTargets(oldModel, newModel))
-                                                           .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
+                                                           .targetsDeregistered(deregisterOldTargets(clientProxy, rdsClient, oldModel, newModel))
                                                            .build())
                            .build();
         }
 
-        if (callbackContext.getTargets() == null) {
-            return ProgressEvent.<ResourceModel, CallbackContext>builder()
-                           .resourceModel(newModel)
-                           .status(OperationStatus.IN_PROGRESS)
-                           .callbackContext(CallbackContext.builder()
-                                                           .targetGroupStatus(callbackContext.getTargetGroupStatus())
-                                                           .targetsDeregistered(callbackContext.isTargetsDeregistered())
-                                                           .targets(registerNewTargets(oldModel, newModel))
-                                                           .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                           .build())
-                           .build();
+        if (callbackContext.getTargets() == null || callbackContext.getRegistrationBatches() != null) {
+            List<String> clustersToAdd = new ArrayList<>(Diff.of(Utility.getClusters(oldModel), Utility.getClusters(newModel)).getAdded().keySet());
+            List<String> instancesToAdd = new ArrayList<>(Diff.of(Utility.getInstances(oldModel), Utility.getInstances(newModel)).getAdded().keySet());
+            return registerTargets(clientProxy, rdsClient, newModel, callbackContext, clustersToAdd, instancesToAdd);
         }
 
-        if (!callbackContext.isAllTargetsHealthy()) {
-            boolean allTargetsHealthy = checkTargetHealth(newModel);
-
-            try {
-                Thread.sleep(Constants.POLL_RETRY_DELAY_IN_MS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+        // Pool settings apply to connections the proxy opens from now on, so with the same databases registered there is
+        // no new target whose health has to be waited for
+        if (!callbackContext.isAllTargetsHealthy() && isMembershipChanged(oldModel, newModel)) {
+            HealthEvaluation health = HealthEvaluation.of(ProxyTargets.of(marker -> describeTargets(clientProxy, rdsClient, newModel, marker)),
+                                                          callbackContext.getTargetHealth());
+            if (health.isTerminal()
+                    && OperationDeadline.elapsedMillis(callbackContext, clock) >= Constants.TERMINAL_HEALTH_GRACE_PERIOD_IN_MS) {
+                return ProgressEvent.failed(newModel, null, HandlerErrorCode.NotStabilized, health.getFailureMessage());
             }
+            boolean allTargetsHealthy = health.isHealthy();
 
             return ProgressEvent.<ResourceModel, CallbackContext>builder()
                            .resourceModel(newModel)
                            .status(OperationStatus.IN_PROGRESS)
+                           .message(health.getProgressMessage())
+                           .callbackDelaySeconds(allTargetsHealthy
+                                                 ? 0
+                                                 : Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(health.getPendingState(),
+                                                                                                      callbackContext.getStabilizationAttempt()))
                            .callbackContext(CallbackContext.builder()
                                .targetGroupStatus(callbackContext.getTargetGroupStatus())
                                .targetsDeregistered(callbackContext.isTargetsDeregistered())
                                .targets(callbackContext.getTargets())
-                               .stabilizationRetriesRemaining(callbackContext.getStabilizationRetriesRemaining() - 1)
+                               .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
                                .allTargetsHealthy(allTargetsHealthy)
+                               .targetHealth(health.getTargetHealth())
                                .build())
                            .build();
         }
@@ -131,64 +160,103 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
                        .build();
     }
 
-    private DBProxyTargetGroup modifyProxyTargetGroup(ResourceModel oldModel, ResourceModel newModel) {
+    private DBProxyTargetGroup modifyProxyTargetGroup(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel oldModel, ResourceModel newModel) {
         if (oldModel.equals(newModel)) {
             return new DBProxyTargetGroup();
         }
 
-        ConnectionPoolConfigurationInfoFormat modelConnectionPoolConfig = newModel.getConnectionPoolConfigurationInfo();
-        if (modelConnectionPoolConfig == null) {
+        if (newModel.getConnectionPoolConfigurationInfo() == null) {
             DescribeDBProxyTargetGroupsRequest describeRequest = new DescribeDBProxyTargetGroupsRequest()
                                                                          .withDBProxyName(newModel.getDBProxyName())
                                                                          .withTargetGroupName(newModel.getTargetGroupName());
             return clientProxy.injectCredentialsAndInvoke(describeRequest, rdsClient::describeDBProxyTargetGroups).getTargetGroups().get(0);
         }
 
+        return modifyRequest(oldModel, newModel)
+                       .map(request -> clientProxy.injectCredentialsAndInvoke(request, rdsClient::modifyDBProxyTargetGroup).getDBProxyTargetGroup())
+                       .orElseGet(DBProxyTargetGroup::new);
+    }
+
+    /**
+     * Builds a ModifyDBProxyTargetGroup request carrying only the connection pool settings that differ between the
+     * previous and the desired model, or none when no setting changed. As before, a setting removed from the template is
+     * left as it is on the target group.
+     */
+    static Optional<ModifyDBProxyTargetGroupRequest> modifyRequest(ResourceModel oldModel, ResourceModel newModel) {
+        ConnectionPoolConfigurationInfoFormat oldConfig = Optional.ofNullable(oldModel.getConnectionPoolConfigurationInfo())
+                                                                  .orElseGet(() -> ConnectionPoolConfigurationInfoFormat.builder().build());
+        ConnectionPoolConfigurationInfoFormat newConfig = newModel.getConnectionPoolConfigurationInfo();
+
         ConnectionPoolConfiguration connectionPoolConfiguration =
                 new ConnectionPoolConfiguration()
-                        .withMaxConnectionsPercent(modelConnectionPoolConfig.getMaxConnectionsPercent())
-                        .withMaxIdleConnectionsPercent(modelConnectionPoolConfig.getMaxIdleConnectionsPercent())
-                        .withConnectionBorrowTimeout(modelConnectionPoolConfig.getConnectionBorrowTimeout())
-                        .withSessionPinningFilters(modelConnectionPoolConfig.getSessionPinningFilters())
-                        .withInitQuery(modelConnectionPoolConfig.getInitQuery());
-
-        ModifyDBProxyTargetGroupRequest request = new ModifyDBProxyTargetGroupRequest()
-                                                          .withDBProxyName(newModel.getDBProxyName())
-                                                          .withTargetGroupName(newModel.getTargetGroupName())
-                                                          .withConnectionPoolConfig(connectionPoolConfiguration);
-
-        return clientProxy.injectCredentialsAndInvoke(request, rdsClient::modifyDBProxyTargetGroup).getDBProxyTargetGroup();
-    }
+                        .withMaxConnectionsPercent(changed(oldConfig.getMaxConnectionsPercent(), newConfig.getMaxConnectionsPercent()))
+                        .withMaxIdleConnectionsPercent(changed(oldConfig.getMaxIdleConnectionsPercent(), newConfig.getMaxIdleConnectionsPercent()))
+                        .withConnectionBorrowTimeout(changed(oldConfig.getConnectionBorrowTimeout(), newConfig.getConnectionBorrowTimeout()))
+                        .withSessionPinningFilters(changedIgnoringOrder(oldConfig.getSessionPinningFilters(), newConfig.getSessionPinningFilters()))
+                        .withInitQuery(changed(oldConfig.getInitQuery(), newConfig.getInitQuery()));
+        if (connectionPoolConfiguration.equals(new ConnectionPoolConfiguration())) {
+            return Optional.empty();
+        }
 
-    private List<DBProxyTarget> registerNewTargets(ResourceModel oldModel, ResourceModel newModel) {
-        List<String> oldClusters = Utility.getClusters(oldModel);
-        List<String> newClusters = Utility.getClusters(newModel);
-        List<String> clustersToAdd =  listNewObjects(newClusters, oldClusters);
+        return Optional.of(new ModifyDBProxyTargetGroupRequest()
+                                   .withDBProxyName(newModel.getDBProxyName())
+                                   .withTargetGroupName(newModel.getTargetGroupName())
+                                   .withConnectionPoolConfig(connectionPoolConfiguration));
+    }
 
-        List<String> oldInstances = Utility.getInstances(oldModel);
-        List<String> newInstances = Utility.getInstances(newModel);
-        List<String> instancesToAdd =  listNewObjects(newInstances, oldInstances);
+    private static <T> T changed(T oldValue, T newValue) {
+        return newValue == null || newValue.equals(oldValue) ? null : newValue;
+    }
 
-        if (clustersToAdd.size() == 0 && instancesToAdd.size() == 0) {
-            return new ArrayList<>();
+    private static <T> List<T> changedIgnoringOrder(List<T> oldValues, List<T> newValues) {
+        if (newValues == null || (oldValues != null && new HashSet<>(oldValues).equals(new HashSet<>(newValues)))) {
+            return null;
         }
+        return newValues;
+    }
 
-        RegisterDBProxyTargetsRequest registerRequest = new RegisterDBProxyTargetsRequest()
-                                                                .withDBProxyName(newModel.getDBProxyName())
-                                                                .withTargetGroupName(newModel.getTargetGroupName())
-                                                                .withDBClusterIdentifiers(clustersToAdd)
-                                                                .withDBInstanceIdentifiers(instancesToAdd);
-        return clientProxy.injectCredentialsAndInvoke(registerRequest, rdsClient::registerDBProxyTargets).getDBProxyTargets();
+    private static boolean isMembershipChanged(ResourceModel oldModel, ResourceModel newModel) {
+        return !Diff.of(Utility.getClusters(oldModel), Utility.getClusters(newModel)).isEmpty()
+                || !Diff.of(Utility.getInstances(oldModel), Utility.getInstances(newModel)).isEmpty();
     }
 
-    private boolean deregisterOldTargets(ResourceModel oldModel, ResourceModel newModel) {
-        List<String> oldClusters = Utility.getClusters(oldModel);
-        List<String> newClusters = Utility.getClusters(newModel);
-        List<String> clustersToRemove =  listNewObjects(oldClusters, newClusters);
+    private ProgressEvent<ResourceModel, CallbackContext> registerTargets(final AmazonWebServicesClientProxy clientProxy,
+                                                                          final AmazonRDS rdsClient,
+                                                                          ResourceModel model,
+                                                                          CallbackContext callbackContext,
+                                                                          List<String> clusters,
+                                                                          List<String> instances) {
+        List<List<TargetState>> pending = Optional.ofNullable(callbackContext.getRegistrationBatches())
+                                                  .orElseGet(() -> registrar.plan(clusters, instances));
+        // Records what was registered in the context, even when a batch fails for good
+        List<List<TargetState>> remaining = registrar.register(clientProxy, rdsClient, model.getDBProxyName(), model.getTargetGroupName(), pending, callbackContext);
+
+        if (remaining.isEmpty()) {
+            return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                           .resourceModel(model)
+                           .status(OperationStatus.IN_PROGRESS)
+                           .callbackContext(CallbackContext.builder()
+                                                           .targetGroupStatus(callbackContext.getTargetGroupStatus())
+                                                           .targetsDeregistered(callbackContext.isTargetsDeregistered())
+                                                           .targets(callbackContext.getTargets())
+                                                           .build())
+                           .build();
+        }
+
+        // Back off before sending the throttled batches again, keeping what was registered so far
+        return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                       .resourceModel(model)
+                       .status(OperationStatus.IN_PROGRESS)
+                       .callbackDelaySeconds(Constants.STABILIZATION_SCHEDULER.nextDelaySeconds(null, callbackContext.getStabilizationAttempt()))
+                       .callbackContext(callbackContext.toBuilder()
+                                                       .stabilizationAttempt(callbackContext.getStabilizationAttempt() + 1)
+                                                       .build())
+                       .build();
+    }
 
-        List<String> oldInstances = Utility.getInstances(oldModel);
-        List<String> newInstances = Utility.getInstances(newModel);
-        List<String> instancesToRemove =  listNewObjects(oldInstances, newInstances);
+    private boolean deregisterOldTargets(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel oldModel, ResourceModel newModel) {
+        List<String> clustersToRemove = new ArrayList<>(Diff.of(Utility.getClusters(oldModel), Utility.getClusters(newModel)).getRemoved().keySet());
+        List<String> instancesToRemove = new ArrayList<>(Diff.of(Utility.getInstances(oldModel), Utility.getInstances(newModel)).getRemoved().keySet());
 
         if (clustersToRemove.size() == 0 && instancesToRemove.size() == 0) {
             return true;
@@ -203,22 +271,15 @@ public class UpdateHandler extends BaseHandler<CallbackContext> {
         return true;
     }
 
-    private List<String> listNewObjects(List<String> list1, List<String> list2) {
-        if (list1.size() > 0 && list2.size() > 0) {
-            list1.removeAll(list2);
-        }
-        return list1;
-    }
-
-    private boolean checkTargetHealth(ResourceModel model) {
+    private DescribeDBProxyTargetsResult describeTargets(final AmazonWebServicesClientProxy clientProxy, final AmazonRDS rdsClient, ResourceModel model, String marker) {
         String proxyName = model.getDBProxyName();
         String targetGroupName = Optional.ofNullable(model.getTargetGroupName()).orElse("default");
 
         DescribeDBProxyTargetsRequest describeDBProxyTargetsRequest = new DescribeDBProxyTargetsRequest()
                                                                               .withDBProxyName(proxyName)
-                                                                              .withTargetGroupName(targetGroupName);
+                                                                              .withTargetGroupName(targetGroupName)
+                                                                              .withMarker(marker);
 
-        DescribeDBProxyTargetsResult describeResult = clientProxy.injectCredentialsAndInvoke(describeDBProxyTargetsRequest, rdsClient::describeDBProxyTargets);
-        return validateHealth(describeResult);
+        return clientProxy.injectCredentialsAndInvoke(describeDBProxyTargetsRequest, rdsClient::describeDBProxyTargets);
     }
 }
@@ -1,17 +1,17 @@
 package software.amazon.rds.dbproxytargetgroup;
 
-import static software.amazon.rds.dbproxytargetgroup.Constants.AVAILABLE_STATE;
-import static software.amazon.rds.dbproxytargetgroup.Constants.RDS_INSTANCE;
-import static software.amazon.rds.dbproxytargetgroup.Constants.TRACKED_CLUSTER;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.rds.model.ConnectionPoolConfigurationInfo;
-import com.amazonaws.services.rds.model.DBProxyTarget;
 import com.amazonaws.services.rds.model.DBProxyTargetGroup;
-import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
 
 public class Utility {
     public static ResourceModel resultToModel(DBProxyTargetGroup targetGroup){
@@ -43,26 +43,28 @@ public class Utility {
         return Optional.ofNullable(model.getDBInstanceIdentifiers()).orElse(new ArrayList<>());
     }
 
-    static boolean validateHealth(DescribeDBProxyTargetsResult describeResult) {
-        for (DBProxyTarget target:describeResult.getTargets()) {
-            // Tracked cluster do not currently have their own health state, adding optional
-            // health checks for future proofing
-            if (target.getType().equalsIgnoreCase(TRACKED_CLUSTER)){
-                if (target.getTargetHealth() != null
-                    && target.getTargetHealth().getState() != null
-                    && !target.getTargetHealth().getState().equalsIgnoreCase(AVAILABLE_STATE)) {
-                    return false;
-                }
-            }
+    /**
+     * Sends every batch on the given executor, which bounds the calls in flight, and waits for all of them, so one
+     * failed batch never abandons the others. The returned futures are complete and in batch order.
+     */
+    static <T, R> List<CompletableFuture<R>> sendBatches(final Executor executor,
+                                                         final List<List<T>> batches,
+                                                         final Function<List<T>, R> send) {
+        List<CompletableFuture<R>> futures = batches.stream()
+                                                    .map(batch -> CompletableFuture.supplyAsync(() -> send.apply(batch), executor))
+                                                    .collect(Collectors.toList());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((result, e) -> null).join();
+        return futures;
+    }
 
-            if (target.getType().equalsIgnoreCase(RDS_INSTANCE)){
-                if (target.getTargetHealth() == null ||
-                    !target.getTargetHealth().getState().equalsIgnoreCase(AVAILABLE_STATE)) {
-                    return false;
-                }
-            }
+    /**
+     * Whether a failed call may succeed if sent again later: throttling, and service errors the SDK itself retries.
+     */
+    static boolean isRetryable(RuntimeException failure) {
+        if (!(failure instanceof AmazonServiceException)) {
+            return false;
         }
-
-        return true;
+        AmazonServiceException serviceException = (AmazonServiceException) failure;
+        return RetryUtils.isThrottlingException(serviceException) || RetryUtils.isRetryableServiceException(serviceException);
     }
 }
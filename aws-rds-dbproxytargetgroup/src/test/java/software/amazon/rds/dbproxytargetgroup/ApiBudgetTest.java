@@ -0,0 +1,120 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
+
+public class ApiBudgetTest {
+    private static final String PROXY_NAME = "proxy";
+    private static final String TARGET_GROUP_NAME = "default";
+    private static final List<String> TEN_INSTANCES = IntStream.rangeClosed(1, 10)
+                                                               .mapToObj(i -> "db-" + i)
+                                                               .collect(Collectors.toList());
+
+    private FakeRds rds;
+
+    // Registration settles before the first poll, so the budgets do not depend on the jitter of the callback delays
+    @BeforeEach
+    public void setup() {
+        rds = new FakeRds().proxy(PROXY_NAME).registration(1);
+    }
+
+    @Test
+    public void create_tenInstances() {
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(TEN_INSTANCES, 80), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("target group create with 10 instances").invocations(5).apiCalls(4).calls("RegisterDBProxyTargets", 1)
+                 .calls("Describe*", 2).assertWithin(create);
+    }
+
+    @Test
+    public void update_addOneInstance() {
+        final ResourceModel created = created(TEN_INSTANCES);
+        final List<String> eleven = ImmutableList.<String>builder().addAll(TEN_INSTANCES).add("db-11").build();
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(model(eleven, 80), created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("target group update adding 1 instance").invocations(2).apiCalls(3).calls("RegisterDBProxyTargets", 1)
+                 .noCalls("DeregisterDBProxyTargets").calls("Describe*", 2).assertWithin(update);
+    }
+
+    @Test
+    public void update_poolSettingsOnly() {
+        final ResourceModel created = created(TEN_INSTANCES);
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(model(TEN_INSTANCES, 60), created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("target group pool-only update").invocations(1).apiCalls(1).noCalls("Describe*").assertWithin(update);
+    }
+
+    @Test
+    public void delete_tenInstances() {
+        final ResourceModel created = created(TEN_INSTANCES);
+
+        final FakeRds.Report delete = rds.drive(new DeleteHandler(), request(created, null));
+
+        assertThat(delete.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("target group delete with 10 instances").invocations(2).apiCalls(2).calls("DeregisterDBProxyTargets", 1)
+                 .assertWithin(delete);
+    }
+
+    @Test
+    public void read_tenInstances() {
+        final ResourceModel created = created(TEN_INSTANCES);
+
+        final FakeRds.Report read = rds.drive(new ReadHandler(), request(created, null));
+
+        assertThat(read.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        ApiBudget.expect("target group read with 10 instances").invocations(1).apiCalls(2).assertWithin(read);
+    }
+
+    @Test
+    public void invalidModel_makesNoCalls() {
+        final CountingProxy proxy = new CountingProxy(mock(AmazonWebServicesClientProxy.class));
+
+        proxy.handle(new CreateHandler()::handleRequest, request(model(TEN_INSTANCES, 101), null), null, mock(Logger.class));
+
+        ApiBudget.expect("invalid target group create").invocations(1).apiCalls(0).assertWithin(proxy);
+    }
+
+    private ResourceModel created(final List<String> instances) {
+        final ResourceModel model = model(instances, 80);
+        assertThat(rds.drive(new CreateHandler(), request(model, null)).getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        return model;
+    }
+
+    private ResourceModel model(final List<String> instances, final int maxConnectionsPercent) {
+        return ResourceModel.builder()
+                            .dBProxyName(PROXY_NAME)
+                            .targetGroupName(TARGET_GROUP_NAME)
+                            .dBInstanceIdentifiers(instances)
+                            .connectionPoolConfigurationInfo(ConnectionPoolConfigurationInfoFormat.builder()
+                                                                                                  .maxConnectionsPercent(maxConnectionsPercent)
+                                                                                                  .build())
+                            .build();
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request(final ResourceModel desired, final ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
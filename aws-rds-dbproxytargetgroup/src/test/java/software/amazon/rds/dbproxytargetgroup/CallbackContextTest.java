@@ -0,0 +1,138 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.ConnectionPoolConfigurationInfo;
+import com.amazonaws.services.rds.model.DBProxy;
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DBProxyTargetGroup;
+import com.amazonaws.services.rds.model.TargetHealth;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableMap;
+import software.amazon.cloudformation.resource.Serializer;
+
+public class CallbackContextTest {
+    private static final TypeReference<CallbackContext> CALLBACK_CONTEXT_TYPE = new TypeReference<CallbackContext>() {};
+
+    // A context as the baseline release wrote it: the SDK DBProxy, DBProxyTargetGroup and DBProxyTarget objects as RDS
+    // described them, and a retry countdown instead of the operation deadline
+    private static final String BASELINE_CONTEXT = "{\"proxy\":{\"status\":\"available\",\"engineFamily\":\"MYSQL\",\"vpcId\":\"vpc-0123456789abcdef\"," +
+                                                   "\"vpcSecurityGroupIds\":[\"sg-0123456789abcdef\"],\"vpcSubnetIds\":[\"subnet-01234567\"]," +
+                                                   "\"auth\":[{\"authScheme\":\"SECRETS\"," +
+                                                   "\"secretArn\":\"arn:aws:secretsmanager:us-east-1:123456789012:secret:proxy\",\"iamauth\":\"DISABLED\"}]," +
+                                                   "\"roleArn\":\"arn:aws:iam::123456789012:role/proxy\"," +
+                                                   "\"endpoint\":\"proxy.proxy-abcdefghijkl.us-east-1.rds.amazonaws.com\",\"requireTLS\":true," +
+                                                   "\"idleClientTimeout\":1800,\"debugLogging\":false,\"createdDate\":1600000000000," +
+                                                   "\"updatedDate\":1600000000000,\"dbproxyName\":\"proxy\"," +
+                                                   "\"dbproxyArn\":\"arn:aws:rds:us-east-1:123456789012:db-proxy:prx-0123456789abcdef\"}," +
+                                                   "\"targetGroupStatus\":{\"targetGroupName\":\"default\"," +
+                                                   "\"targetGroupArn\":\"arn:aws:rds:us-east-1:123456789012:target-group:prx-tg-0123456789abcdef\"," +
+                                                   "\"isDefault\":true,\"status\":\"available\",\"connectionPoolConfig\":{\"maxConnectionsPercent\":100," +
+                                                   "\"maxIdleConnectionsPercent\":50,\"connectionBorrowTimeout\":120,\"sessionPinningFilters\":[]}," +
+                                                   "\"createdDate\":1600000000000,\"updatedDate\":1600000000000,\"default\":true,\"dbproxyName\":\"proxy\"}," +
+                                                   "\"targets\":[{\"targetArn\":\"arn:aws:rds:us-east-1:123456789012:db:db-1\"," +
+                                                   "\"endpoint\":\"db-1.abcdefghijkl.us-east-1.rds.amazonaws.com\",\"rdsResourceId\":\"db-1\",\"port\":3306," +
+                                                   "\"type\":\"RDS_INSTANCE\",\"role\":\"READ_WRITE\",\"targetHealth\":{\"state\":\"REGISTERING\"}}]," +
+                                                   "\"allTargetsHealthy\":false,\"targetsDeregistered\":false,\"stabilizationRetriesRemaining\":60}";
+
+    private final Serializer serializer = new Serializer();
+
+    @Test
+    public void roundTrip_keepsCompactTargetState() throws IOException {
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(fullTargetGroup()))
+                                                       .targets(TargetState.fromAll(fullTargets(10)))
+                                                       .targetsDeregistered(true)
+                                                       .targetHealth(ImmutableMap.of("db-1", Constants.AVAILABLE_STATE, "db-2", "PENDING_PROXY_CAPACITY"))
+                                                       .stabilizationAttempt(2)
+                                                       .build();
+
+        final CallbackContext decoded = serializer.deserialize(serializer.serialize(context), CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded).isEqualTo(context);
+    }
+
+    @Test
+    public void deserialize_readsVersionOneContext() throws IOException {
+        final DBProxyTargetGroup targetGroup = fullTargetGroup();
+        final List<DBProxyTarget> targets = fullTargets(3);
+        final Map<String, Object> legacy = ImmutableMap.of("proxy", new DBProxy().withDBProxyName("proxy").withStatus("available"),
+                                                           "targetGroupStatus", targetGroup,
+                                                           "targets", targets,
+                                                           "targetsDeregistered", true,
+                                                           "stabilizationRetriesRemaining", 10);
+
+        final CallbackContext decoded = serializer.deserialize(serializer.serialize(legacy), CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded.getTargetGroupStatus()).isEqualTo(TargetGroupState.from(targetGroup));
+        assertThat(decoded.getTargets()).isEqualTo(TargetState.fromAll(targets));
+        assertThat(decoded.isTargetsDeregistered()).isTrue();
+        assertThat(decoded.getOperationDeadline()).isNull();
+    }
+
+    @Test
+    public void deserialize_readsBaselineReleaseContext() throws IOException {
+        final CallbackContext decoded = serializer.deserialize(BASELINE_CONTEXT, CALLBACK_CONTEXT_TYPE);
+
+        assertThat(decoded.getTargetGroupStatus()).isEqualTo(TargetGroupState.builder()
+                                                                             .targetGroupName("default")
+                                                                             .targetGroupArn("arn:aws:rds:us-east-1:123456789012:target-group:prx-tg-0123456789abcdef")
+                                                                             .status("available")
+                                                                             .build());
+        assertThat(decoded.getTargets()).containsExactly(new TargetState("db-1", Constants.RDS_INSTANCE));
+        assertThat(decoded.isAllTargetsHealthy()).isFalse();
+        assertThat(decoded.isTargetsDeregistered()).isFalse();
+        assertThat(decoded.getStabilizationAttempt()).isEqualTo(0);
+        assertThat(decoded.getOperationDeadline()).isNull();
+    }
+
+    @Test
+    public void serialize_isSmallerThanVersionOne() throws IOException {
+        final List<DBProxyTarget> targets = fullTargets(100);
+        final Map<String, Object> legacy = ImmutableMap.of("targetGroupStatus", fullTargetGroup(), "targets", targets);
+        final CallbackContext compact = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(fullTargetGroup()))
+                                                       .targets(TargetState.fromAll(targets))
+                                                       .build();
+
+        assertThat(serializer.serialize(compact).length()).isLessThan(serializer.serialize(legacy).length() / 2);
+    }
+
+    @Test
+    public void from_null() {
+        assertThat(TargetGroupState.from(null)).isNull();
+        assertThat(TargetState.fromAll(null)).isNull();
+    }
+
+    private DBProxyTargetGroup fullTargetGroup() {
+        return new DBProxyTargetGroup().withDBProxyName("proxy")
+                                       .withTargetGroupName("default")
+                                       .withTargetGroupArn("arn:aws:rds:us-east-1:123456789012:target-group:prx-tg-0123456789abcdef")
+                                       .withIsDefault(true)
+                                       .withStatus("available")
+                                       .withConnectionPoolConfig(new ConnectionPoolConfigurationInfo().withMaxConnectionsPercent(100)
+                                                                                                      .withMaxIdleConnectionsPercent(50)
+                                                                                                      .withConnectionBorrowTimeout(120));
+    }
+
+    private List<DBProxyTarget> fullTargets(int count) {
+        final List<DBProxyTarget> targets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            targets.add(new DBProxyTarget().withRdsResourceId("db-" + i)
+                                           .withTargetArn("arn:aws:rds:us-east-1:123456789012:db:db-" + i)
+                                           .withEndpoint("db-" + i + ".abcdefghijkl.us-east-1.rds.amazonaws.com")
+                                           .withPort(3306)
+                                           .withType("RDS_INSTANCE")
+                                           .withRole("READ_WRITE")
+                                           .withTargetHealth(new TargetHealth().withState("REGISTERING")));
+        }
+        return targets;
+    }
+}
@@ -6,6 +6,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,14 +15,15 @@ import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceResult;
 import com.amazonaws.ResponseMetadata;
 import com.amazonaws.services.rds.model.ConnectionPoolConfigurationInfo;
-import com.amazonaws.services.rds.model.DBProxy;
 import com.amazonaws.services.rds.model.DBProxyNotFoundException;
 import com.amazonaws.services.rds.model.DBProxyTarget;
 import com.amazonaws.services.rds.model.DBProxyTargetGroup;
@@ -36,12 +38,15 @@ import com.amazonaws.services.rds.model.RegisterDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.RegisterDBProxyTargetsResult;
 import com.amazonaws.services.rds.model.TargetHealth;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class CreateHandlerTest {
@@ -49,18 +54,20 @@ public class CreateHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
     @Test
     public void handleRequest_SimpleSuccess() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         List<DBProxyTarget> proxyTargets = new ArrayList<>();
 
@@ -73,15 +80,13 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .targets(proxyTargets)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targets(TargetState.fromAll(proxyTargets))
                                                        .allTargetsHealthy(true)
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -91,11 +96,11 @@ public class CreateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
     public void testModifyNoConnectionPoolConfig() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         ImmutableList<String> clusterId = ImmutableList.of("clusterId");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         doReturn(new DescribeDBProxyTargetGroupsResult().withTargetGroups(dbProxyTargetGroup)).when(proxy)
@@ -110,26 +115,23 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testModifyNoConnectionPoolConfig").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -140,7 +142,6 @@ public class CreateHandlerTest {
         String initQuery = "initQuery";
         String sessionPinningFilters = "sessionPinningFilters";
 
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         ConnectionPoolConfigurationInfo connectionPoolConfigurationInfo = new ConnectionPoolConfigurationInfo()
                                                                                   .withConnectionBorrowTimeout(connectionBorrowTimeout)
                                                                                   .withMaxConnectionsPercent(maxConnectionsPercent)
@@ -171,31 +172,27 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testModifyConnectionConfigProxy").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testCheckTargetHealth() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         List<DBProxyTarget> proxyTargets = new ArrayList<>();
         DBProxyTarget target = new DBProxyTarget()
@@ -216,36 +213,34 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .targets(proxyTargets)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targets(TargetState.fromAll(proxyTargets))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(0)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
-                                                                    .targets(proxyTargets)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(TargetState.fromAll(proxyTargets))
                                                                     .allTargetsHealthy(true)
+                                                                    .targetHealth(ImmutableMap.of("resourceId", Constants.AVAILABLE_STATE))
+                                                                    .stabilizationAttempt(1)
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testCheckTargetHealth").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testCheckTargetHealth_nullInstanceHealth() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         List<DBProxyTarget> proxyTargets = new ArrayList<>();
         DBProxyTarget target = new DBProxyTarget()
@@ -265,36 +260,34 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .targets(proxyTargets)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targets(TargetState.fromAll(proxyTargets))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(0)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
-                                                                    .targets(proxyTargets)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(TargetState.fromAll(proxyTargets))
                                                                     .allTargetsHealthy(false)
+                                                                    .targetHealth(ImmutableMap.of("resourceId", "UNKNOWN"))
+                                                                    .stabilizationAttempt(1)
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
-        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
+        assertThat(response.getCallbackDelaySeconds()).isPositive().isLessThanOrEqualTo(Constants.STABILIZATION_SCHEDULER.getMaxDelaySeconds());
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
-        assertThat(response.getMessage()).isNull();
+        assertThat(response.getMessage()).isEqualTo("Waiting for 1 target(s) to become available: resourceId (UNKNOWN)");
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testCheckTargetHealth_nullInstanceHealth").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testCheckTargetHealth_unhealthy() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         List<DBProxyTarget> proxyTargets = new ArrayList<>();
         DBProxyTarget target = new DBProxyTarget()
@@ -314,36 +307,111 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .targets(proxyTargets)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targets(TargetState.fromAll(proxyTargets))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(0)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
-                                                                    .targets(proxyTargets)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(TargetState.fromAll(proxyTargets))
                                                                     .allTargetsHealthy(false)
+                                                                    .targetHealth(ImmutableMap.of("resourceId", "unhealthy"))
+                                                                    .stabilizationAttempt(1)
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
-        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
+        assertThat(response.getCallbackDelaySeconds()).isPositive().isLessThanOrEqualTo(Constants.STABILIZATION_SCHEDULER.getMaxDelaySeconds());
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
-        assertThat(response.getMessage()).isNull();
+        assertThat(response.getMessage()).isEqualTo("Waiting for 1 target(s) to become available: resourceId (unhealthy)");
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testCheckTargetHealth_unhealthy").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testCheckTargetHealth_skipsTargetsAlreadyAvailable() {
+        // db-1 was available on an earlier poll, so its current health is not evaluated again
+        DBProxyTarget first = new DBProxyTarget()
+                                      .withRdsResourceId("db-1")
+                                      .withType("RDS_INSTANCE")
+                                      .withTargetHealth(new TargetHealth().withState("UNAVAILABLE").withReason("CONNECTION_FAILED"));
+        DBProxyTarget second = new DBProxyTarget()
+                                       .withRdsResourceId("db-2")
+                                       .withType("RDS_INSTANCE")
+                                       .withTargetHealth(new TargetHealth().withState(Constants.AVAILABLE_STATE));
+
+        doReturn(new DescribeDBProxyTargetsResult().withTargets(first, second)).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class), ArgumentMatchers.<Function<DescribeDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final CreateHandler handler = new CreateHandler();
+
+        final ResourceModel model = ResourceModel.builder().build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(model)
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(new DBProxyTargetGroup()))
+                                                       .targets(TargetState.fromAll(new ArrayList<>()))
+                                                       .targetHealth(ImmutableMap.of("db-1", Constants.AVAILABLE_STATE, "db-2", "REGISTERING"))
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext().isAllTargetsHealthy()).isTrue();
+        assertThat(response.getCallbackContext().getTargetHealth()).isEqualTo(ImmutableMap.of("db-1", Constants.AVAILABLE_STATE,
+                                                                                              "db-2", Constants.AVAILABLE_STATE));
+        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+        assertThat(response.getMessage()).isNull();
+        ApiBudget.expect("testCheckTargetHealth_skipsTargetsAlreadyAvailable").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testCheckTargetHealth_terminalReason() {
+        DBProxyTarget target = new DBProxyTarget()
+                                       .withRdsResourceId("resourceId")
+                                       .withType("RDS_INSTANCE")
+                                       .withTargetHealth(new TargetHealth().withState("UNAVAILABLE")
+                                                                           .withReason("AUTH_FAILURE")
+                                                                           .withDescription("Proxy does not have any registered credentials."));
+
+        doReturn(new DescribeDBProxyTargetsResult().withTargets(target)).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class), ArgumentMatchers.<Function<DescribeDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final CreateHandler handler = new CreateHandler();
+
+        final ResourceModel model = ResourceModel.builder().build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(model)
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(new DBProxyTargetGroup()))
+                                                       .targets(TargetState.fromAll(new ArrayList<>()))
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotStabilized);
+        assertThat(response.getMessage()).isEqualTo("Target resourceId is UNAVAILABLE with reason AUTH_FAILURE. "
+                                                     + "Proxy does not have any registered credentials.");
+        assertThat(response.getCallbackContext()).isNull();
+        ApiBudget.expect("testCheckTargetHealth_terminalReason").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testCheckTargetHealth_cluster() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         List<DBProxyTarget> proxyTargets = new ArrayList<>();
         DBProxyTarget target = new DBProxyTarget()
@@ -368,36 +436,34 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .targets(proxyTargets)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targets(TargetState.fromAll(proxyTargets))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(0)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
-                                                                    .targets(proxyTargets)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(TargetState.fromAll(proxyTargets))
                                                                     .allTargetsHealthy(true)
+                                                                    .targetHealth(ImmutableMap.of("resourceId-c", Constants.AVAILABLE_STATE, "resourceId-i", Constants.AVAILABLE_STATE))
+                                                                    .stabilizationAttempt(1)
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testCheckTargetHealth_cluster").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testCheckTargetHealth_noTargets() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         List<DBProxyTarget> proxyTargets = new ArrayList<>();
         doReturn(new DescribeDBProxyTargetsResult()).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class),
@@ -412,36 +478,34 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .targets(proxyTargets)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targets(TargetState.fromAll(proxyTargets))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(0)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
-                                                                    .targets(proxyTargets)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(TargetState.fromAll(proxyTargets))
                                                                     .allTargetsHealthy(true)
+                                                                    .targetHealth(ImmutableMap.of())
+                                                                    .stabilizationAttempt(1)
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testCheckTargetHealth_noTargets").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testRegistration_Available(){
-        DBProxy dbProxy = new DBProxy().withStatus("available");
 
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         DBProxyTarget dbProxyTarget = new DBProxyTarget();
@@ -459,23 +523,19 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
-                                                                    .targets(ImmutableList.of(dbProxyTarget))
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(TargetState.fromAll(ImmutableList.of(dbProxyTarget)))
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
@@ -485,7 +545,6 @@ public class CreateHandlerTest {
 
     @Test
     public void testRegistration_Creating(){
-        DBProxy dbProxy = new DBProxy().withStatus("creating");
 
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         DBProxyTarget dbProxyTarget = new DBProxyTarget();
@@ -503,23 +562,19 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
-                                                                    .targets(ImmutableList.of(dbProxyTarget))
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(TargetState.fromAll(ImmutableList.of(dbProxyTarget)))
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
@@ -527,6 +582,80 @@ public class CreateHandlerTest {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void testRegistration_ResumesThrottledBatches() {
+        DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
+        DBProxyTarget dbProxyTarget = new DBProxyTarget().withRdsResourceId("db-2").withType(Constants.RDS_INSTANCE);
+        doReturn(new RegisterDBProxyTargetsResult().withDBProxyTargets(dbProxyTarget)).when(proxy)
+                .injectCredentialsAndInvoke(any(RegisterDBProxyTargetsRequest.class),
+                        ArgumentMatchers.<Function<RegisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final CreateHandler handler = new CreateHandler();
+
+        final ResourceModel model = ResourceModel.builder().dBInstanceIdentifiers(ImmutableList.of("db-1", "db-2")).build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(model)
+                                                                      .build();
+
+        // db-1 was registered by an earlier invocation in which the batch holding db-2 was throttled
+        final TargetState registered = new TargetState("db-1", Constants.RDS_INSTANCE);
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targets(ImmutableList.of(registered))
+                                                       .registrationBatches(ImmutableList.of(ImmutableList.of(new TargetState("db-2", Constants.RDS_INSTANCE))))
+                                                       .stabilizationAttempt(1)
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+
+        final CallbackContext desiredOutputContext = CallbackContext.builder()
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targets(ImmutableList.of(registered, TargetState.from(dbProxyTarget)))
+                                                                    .build();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
+        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+
+        ArgumentCaptor<RegisterDBProxyTargetsRequest> captor = ArgumentCaptor.forClass(RegisterDBProxyTargetsRequest.class);
+        verify(proxy).injectCredentialsAndInvoke(captor.capture(),
+                ArgumentMatchers.<Function<RegisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        assertThat(captor.getValue().getDBInstanceIdentifiers()).containsExactly("db-2");
+        ApiBudget.expect("testRegistration_ResumesThrottledBatches").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testRegistration_Throttled() {
+        final AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+        doThrow(throttled).when(proxy)
+                .injectCredentialsAndInvoke(any(RegisterDBProxyTargetsRequest.class),
+                        ArgumentMatchers.<Function<RegisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final CreateHandler handler = new CreateHandler();
+
+        final ResourceModel model = ResourceModel.builder().dBInstanceIdentifiers(ImmutableList.of("db-1")).build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(model)
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(new DBProxyTargetGroup()))
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext().getTargets()).isEmpty();
+        assertThat(response.getCallbackContext().getRegistrationBatches())
+                .containsExactly(ImmutableList.of(new TargetState("db-1", Constants.RDS_INSTANCE)));
+        assertThat(response.getCallbackContext().getOperationDeadline()).isNotNull();
+        assertThat(response.getCallbackContext().getStabilizationAttempt()).isEqualTo(1);
+        assertThat(response.getCallbackDelaySeconds()).isGreaterThan(0);
+        ApiBudget.expect("testRegistration_Throttled").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
     @Test
     public void testProxyDoesNotExist() {
         doThrow(new DBProxyNotFoundException("")).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyTargetGroupsRequest.class),
@@ -540,11 +669,11 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                        .build();
 
-        ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, context, logger);
+        ProgressEvent<ResourceModel, CallbackContext> response = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        ApiBudget.expect("testProxyDoesNotExist").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -560,11 +689,11 @@ public class CreateHandlerTest {
                 .build();
 
         final CallbackContext context = CallbackContext.builder()
-                .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                 .build();
 
-        ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, context, logger);
+        ProgressEvent<ResourceModel, CallbackContext> response = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotFound);
+        ApiBudget.expect("testProxyTargetGroupDoesNotExist").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -578,14 +707,14 @@ public class CreateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(0)
-                                                       .proxy(new DBProxy().withStatus("creating"))
+                                                       .operationDeadline(0L)
                                                        .build();
 
         try {
-            handler.handleRequest(proxy, request, context, logger);
+            counting.handle(handler::handleRequest, request, context, logger);
         } catch (RuntimeException e) {
             assertThat(e.getMessage()).isEqualTo(CreateHandler.TIMED_OUT_MESSAGE);
         }
+        ApiBudget.expect("testStabilizationTimeout").invocations(1).apiCalls(0).assertWithin(counting);
     }
 }
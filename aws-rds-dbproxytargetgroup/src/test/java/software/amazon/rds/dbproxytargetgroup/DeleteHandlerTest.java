@@ -1,14 +1,17 @@
 package software.amazon.rds.dbproxytargetgroup;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -19,10 +22,12 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceResult;
 import com.amazonaws.ResponseMetadata;
 import com.amazonaws.services.rds.model.DBProxyNotFoundException;
 import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DBProxyTargetNotFoundException;
 import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
@@ -33,6 +38,8 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class DeleteHandlerTest {
@@ -40,12 +47,15 @@ public class DeleteHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -60,13 +70,12 @@ public class DeleteHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .targets(new ArrayList<>())
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targets(TargetState.fromAll(new ArrayList<>()))
                                                        .targetsDeregistered(true)
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
         assertThat(response.getCallbackContext()).isNull();
@@ -75,6 +84,7 @@ public class DeleteHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -92,24 +102,23 @@ public class DeleteHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .targetsDeregistered(true)
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_DeregisterEmpty").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -130,19 +139,17 @@ public class DeleteHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .targetsDeregistered(true)
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
@@ -156,6 +163,7 @@ public class DeleteHandlerTest {
         DeregisterDBProxyTargetsRequest deregisterDBProxyTargetsRequest = captor.getValue();
         assertThat(deregisterDBProxyTargetsRequest.getDBInstanceIdentifiers()).isEqualTo(ImmutableList.of(instanceId));
         assertThat(deregisterDBProxyTargetsRequest.getDBClusterIdentifiers().size()).isEqualTo(0);
+        ApiBudget.expect("handleRequest_DeregisterInstance").invocations(1).apiCalls(2).assertWithin(counting);
     }
 
     @Test
@@ -177,19 +185,17 @@ public class DeleteHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .targetsDeregistered(true)
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
@@ -202,8 +208,11 @@ public class DeleteHandlerTest {
         verify(proxy, times(2)).injectCredentialsAndInvoke(captor.capture(),
                 ArgumentMatchers.<Function<DeregisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
         DeregisterDBProxyTargetsRequest deregisterDBProxyTargetsRequest = captor.getValue();
+        // Clusters and standalone instances are deregistered together from the model's target group
         assertThat(deregisterDBProxyTargetsRequest.getDBClusterIdentifiers()).isEqualTo(ImmutableList.of(clusterName));
-        assertThat(deregisterDBProxyTargetsRequest.getDBInstanceIdentifiers().size()).isEqualTo(0);
+        assertThat(deregisterDBProxyTargetsRequest.getDBInstanceIdentifiers()).isEqualTo(ImmutableList.of(instanceId));
+        assertThat(deregisterDBProxyTargetsRequest.getTargetGroupName()).isEqualTo("default");
+        ApiBudget.expect("handleRequest_DeregisterCluster").invocations(1).apiCalls(2).assertWithin(counting);
     }
 
     @Test
@@ -220,24 +229,23 @@ public class DeleteHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .targetsDeregistered(true)
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_DeregisterProxyDeleted").invocations(1).apiCalls(1).assertWithin(counting);
     }
     @Test
     public void handleRequest_DeregisterProxyDeleting() {
@@ -254,23 +262,129 @@ public class DeleteHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
                                                                     .targetsDeregistered(true)
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_DeregisterProxyDeleting").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_ResumesFromPendingBatches() {
+        final DeleteHandler handler = new DeleteHandler();
+
+        final ResourceModel model = ResourceModel.builder().dBProxyName("proxy").targetGroupName("default").build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(model)
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .deregistrationBatches(ImmutableList.of(ImmutableList.of(
+                                                               new TargetState("db2", Constants.RDS_INSTANCE))))
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext().isTargetsDeregistered()).isTrue();
+        assertThat(response.getCallbackContext().getDeregistrationBatches()).isNull();
+
+        // Only the pending batch is sent; the targets are not described again
+        ArgumentCaptor<DeregisterDBProxyTargetsRequest> captor = ArgumentCaptor.forClass(DeregisterDBProxyTargetsRequest.class);
+        verify(proxy).injectCredentialsAndInvoke(captor.capture(),
+                ArgumentMatchers.<Function<DeregisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        assertThat(captor.getValue().getDBInstanceIdentifiers()).isEqualTo(ImmutableList.of("db2"));
+        assertThat(captor.getValue().getDBClusterIdentifiers()).isEmpty();
+        ApiBudget.expect("handleRequest_ResumesFromPendingBatches").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_KeepsThrottledBatches() {
+        final AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+        doThrow(throttled).when(proxy).injectCredentialsAndInvoke(any(DeregisterDBProxyTargetsRequest.class),
+                ArgumentMatchers.<Function<DeregisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final DeleteHandler handler = new DeleteHandler();
+
+        final ResourceModel model = ResourceModel.builder().dBProxyName("proxy").build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(model)
+                                                                      .build();
+
+        final List<List<TargetState>> batches = ImmutableList.of(ImmutableList.of(new TargetState("db1", Constants.RDS_INSTANCE)));
+        final CallbackContext context = CallbackContext.builder()
+                                                       .deregistrationBatches(batches)
+                                                       .stabilizationAttempt(2)
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext().isTargetsDeregistered()).isFalse();
+        assertThat(response.getCallbackContext().getDeregistrationBatches()).isEqualTo(batches);
+        assertThat(response.getCallbackContext().getOperationDeadline()).isNotNull();
+        // Backs off like registration does: the third retry waits longer than the scheduler's initial delay
+        assertThat(response.getCallbackContext().getStabilizationAttempt()).isEqualTo(3);
+        assertThat(response.getCallbackDelaySeconds()).isGreaterThan(Constants.STABILIZATION_SCHEDULER.getDefaultInitialDelaySeconds())
+                                                      .isLessThanOrEqualTo(Constants.STABILIZATION_SCHEDULER.getMaxDelaySeconds());
+        ApiBudget.expect("handleRequest_KeepsThrottledBatches").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_DeadlinePassedBeforeAnyCall() {
+        final DeleteHandler handler = new DeleteHandler();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(ResourceModel.builder().build())
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .operationDeadline(0L)
+                                                       .deregistrationBatches(ImmutableList.of(ImmutableList.of(
+                                                               new TargetState("db1", Constants.RDS_INSTANCE))))
+                                                       .build();
+
+        assertThatThrownBy(() -> counting.handle(handler::handleRequest, request, context, logger))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage(DeleteHandler.TIMED_OUT_MESSAGE);
+        verifyZeroInteractions(proxy);
+        ApiBudget.expect("handleRequest_DeadlinePassedBeforeAnyCall").invocations(1).apiCalls(0).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_ReplansWhenTargetAlreadyGone() {
+        doThrow(new DBProxyTargetNotFoundException("")).when(proxy).injectCredentialsAndInvoke(any(DeregisterDBProxyTargetsRequest.class),
+                ArgumentMatchers.<Function<DeregisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final DeleteHandler handler = new DeleteHandler();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(ResourceModel.builder().build())
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .deregistrationBatches(ImmutableList.of(ImmutableList.of(
+                                                               new TargetState("db1", Constants.RDS_INSTANCE))))
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext().isTargetsDeregistered()).isFalse();
+        assertThat(response.getCallbackContext().getDeregistrationBatches()).isNull();
+        ApiBudget.expect("handleRequest_ReplansWhenTargetAlreadyGone").invocations(1).apiCalls(1).assertWithin(counting);
     }
 }
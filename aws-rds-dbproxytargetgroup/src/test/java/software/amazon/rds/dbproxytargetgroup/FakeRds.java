@@ -0,0 +1,239 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.amazonaws.services.rds.model.ConnectionPoolConfiguration;
+import com.amazonaws.services.rds.model.ConnectionPoolConfigurationInfo;
+import com.amazonaws.services.rds.model.DBProxyNotFoundException;
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DBProxyTargetAlreadyRegisteredException;
+import com.amazonaws.services.rds.model.DBProxyTargetGroup;
+import com.amazonaws.services.rds.model.DBProxyTargetGroupNotFoundException;
+import com.amazonaws.services.rds.model.DBProxyTargetNotFoundException;
+import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
+import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsResult;
+import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxyTargetGroupsResult;
+import com.amazonaws.services.rds.model.DescribeDBProxyTargetsRequest;
+import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
+import com.amazonaws.services.rds.model.ModifyDBProxyTargetGroupRequest;
+import com.amazonaws.services.rds.model.ModifyDBProxyTargetGroupResult;
+import com.amazonaws.services.rds.model.RegisterDBProxyTargetsRequest;
+import com.amazonaws.services.rds.model.RegisterDBProxyTargetsResult;
+import com.amazonaws.services.rds.model.TargetHealth;
+import com.fasterxml.jackson.core.type.TypeReference;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.SimulatedRds;
+
+/**
+ * Simulated RDS account serving the DB Proxy target APIs the handlers call. Registered targets move from REGISTERING
+ * to their settled health on the account's simulated clock; registration times and unhealthy targets are configurable.
+ */
+public class FakeRds extends SimulatedRds<ResourceModel, CallbackContext> {
+    public static final int DEFAULT_REGISTRATION_SECONDS = 30;
+    // Page size DescribeDBProxyTargets uses when the request does not set MaxRecords
+    public static final int DEFAULT_MAX_RECORDS = 100;
+
+    private static final String DEFAULT_TARGET_GROUP = "default";
+    private static final String REGISTERING_STATE = "REGISTERING";
+    private static final String UNAVAILABLE_STATE = "UNAVAILABLE";
+
+    // Guarded by this
+    private final Map<String, String> unhealthyReasons = new HashMap<>();
+    // Target groups keyed by proxy name, then target-group name
+    private final Map<String, Map<String, DBProxyTargetGroup>> targetGroups = new LinkedHashMap<>();
+    // Targets keyed by proxy name and target-group name, then RDS resource id
+    private final Map<String, Map<String, FakeTarget>> targets = new HashMap<>();
+    private int registrationSeconds = DEFAULT_REGISTRATION_SECONDS;
+
+    public FakeRds() {
+        super(new TypeReference<CallbackContext>() {});
+    }
+
+    /**
+     * Adds an available proxy with its default target group.
+     */
+    public synchronized FakeRds proxy(final String proxyName) {
+        final DBProxyTargetGroup targetGroup = new DBProxyTargetGroup().withDBProxyName(proxyName)
+                                                                       .withTargetGroupName(DEFAULT_TARGET_GROUP)
+                                                                       .withTargetGroupArn("arn:aws:rds:us-east-1:123456789012:target-group:prx-tg-" + proxyName)
+                                                                       .withIsDefault(true)
+                                                                       .withStatus("available")
+                                                                       .withConnectionPoolConfig(new ConnectionPoolConfigurationInfo().withMaxConnectionsPercent(100)
+                                                                                                                                      .withMaxIdleConnectionsPercent(50)
+                                                                                                                                      .withConnectionBorrowTimeout(120));
+        targetGroups.computeIfAbsent(proxyName, k -> new LinkedHashMap<>()).put(DEFAULT_TARGET_GROUP, targetGroup);
+        return this;
+    }
+
+    /**
+     * Sets how long newly registered targets stay REGISTERING.
+     */
+    public synchronized FakeRds registration(final int seconds) {
+        registrationSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Makes the target with the given RDS resource id settle as UNAVAILABLE with the given health reason.
+     */
+    public synchronized FakeRds unhealthy(final String rdsResourceId, final String reason) {
+        unhealthyReasons.put(rdsResourceId, reason);
+        return this;
+    }
+
+    public synchronized Optional<DBProxyTargetGroup> targetGroup(final String proxyName, final String targetGroupName) {
+        return Optional.ofNullable(targetGroups.getOrDefault(proxyName, new HashMap<>()).get(targetGroupName))
+                       .map(DBProxyTargetGroup::clone);
+    }
+
+    public synchronized List<DBProxyTarget> targets(final String proxyName, final String targetGroupName) {
+        return targetsOf(proxyName, targetGroupName).values()
+                                                    .stream()
+                                                    .map(t -> t.settle(now()).clone())
+                                                    .collect(Collectors.toList());
+    }
+
+    public Report drive(final BaseHandler<CallbackContext> handler, final ResourceHandlerRequest<ResourceModel> request) {
+        return drive(handler::handleRequest, request);
+    }
+
+    @Override
+    public DescribeDBProxyTargetGroupsResult describeDBProxyTargetGroups(final DescribeDBProxyTargetGroupsRequest request) {
+        final DBProxyTargetGroup targetGroup = existing(request.getDBProxyName(), request.getTargetGroupName());
+        return new DescribeDBProxyTargetGroupsResult().withTargetGroups(targetGroup.clone());
+    }
+
+    @Override
+    public ModifyDBProxyTargetGroupResult modifyDBProxyTargetGroup(final ModifyDBProxyTargetGroupRequest request) {
+        final DBProxyTargetGroup targetGroup = existing(request.getDBProxyName(), request.getTargetGroupName());
+        final ConnectionPoolConfiguration config = request.getConnectionPoolConfig();
+        if (config != null) {
+            final ConnectionPoolConfigurationInfo info = targetGroup.getConnectionPoolConfig();
+            Optional.ofNullable(config.getMaxConnectionsPercent()).ifPresent(info::setMaxConnectionsPercent);
+            Optional.ofNullable(config.getMaxIdleConnectionsPercent()).ifPresent(info::setMaxIdleConnectionsPercent);
+            Optional.ofNullable(config.getConnectionBorrowTimeout()).ifPresent(info::setConnectionBorrowTimeout);
+            Optional.ofNullable(config.getSessionPinningFilters()).ifPresent(info::setSessionPinningFilters);
+            Optional.ofNullable(config.getInitQuery()).ifPresent(info::setInitQuery);
+        }
+        return new ModifyDBProxyTargetGroupResult().withDBProxyTargetGroup(targetGroup.clone());
+    }
+
+    @Override
+    public RegisterDBProxyTargetsResult registerDBProxyTargets(final RegisterDBProxyTargetsRequest request) {
+        existing(request.getDBProxyName(), request.getTargetGroupName());
+        final Map<String, FakeTarget> registered = targetsOf(request.getDBProxyName(), request.getTargetGroupName());
+
+        final List<String> ids = new ArrayList<>(Optional.ofNullable(request.getDBClusterIdentifiers()).orElse(new ArrayList<>()));
+        ids.addAll(Optional.ofNullable(request.getDBInstanceIdentifiers()).orElse(new ArrayList<>()));
+        for (String id : ids) {
+            if (registered.containsKey(id)) {
+                throw new DBProxyTargetAlreadyRegisteredException("Target " + id + " is already registered");
+            }
+        }
+
+        final List<DBProxyTarget> added = new ArrayList<>();
+        for (String cluster : Optional.ofNullable(request.getDBClusterIdentifiers()).orElse(new ArrayList<>())) {
+            added.add(register(registered, new DBProxyTarget().withRdsResourceId(cluster)
+                                                              .withType(Constants.TRACKED_CLUSTER)));
+            // A tracked cluster brings in its writer instance as a target of its own
+            added.add(register(registered, new DBProxyTarget().withRdsResourceId(cluster + "-instance-1")
+                                                              .withTrackedClusterId(cluster)
+                                                              .withType(Constants.RDS_INSTANCE)));
+        }
+        for (String instance : Optional.ofNullable(request.getDBInstanceIdentifiers()).orElse(new ArrayList<>())) {
+            added.add(register(registered, new DBProxyTarget().withRdsResourceId(instance)
+                                                              .withType(Constants.RDS_INSTANCE)));
+        }
+
+        return new RegisterDBProxyTargetsResult().withDBProxyTargets(added);
+    }
+
+    @Override
+    public DeregisterDBProxyTargetsResult deregisterDBProxyTargets(final DeregisterDBProxyTargetsRequest request) {
+        existing(request.getDBProxyName(), request.getTargetGroupName());
+        final Map<String, FakeTarget> registered = targetsOf(request.getDBProxyName(), request.getTargetGroupName());
+
+        final List<String> ids = new ArrayList<>(Optional.ofNullable(request.getDBClusterIdentifiers()).orElse(new ArrayList<>()));
+        ids.addAll(Optional.ofNullable(request.getDBInstanceIdentifiers()).orElse(new ArrayList<>()));
+        for (String id : ids) {
+            if (!registered.containsKey(id)) {
+                throw new DBProxyTargetNotFoundException("Target " + id + " is not registered");
+            }
+        }
+        for (String id : ids) {
+            registered.remove(id);
+            registered.values().removeIf(t -> id.equals(t.getTarget().getTrackedClusterId()));
+        }
+
+        return new DeregisterDBProxyTargetsResult();
+    }
+
+    @Override
+    public DescribeDBProxyTargetsResult describeDBProxyTargets(final DescribeDBProxyTargetsRequest request) {
+        existing(request.getDBProxyName(), request.getTargetGroupName());
+        final List<DBProxyTarget> all = targets(request.getDBProxyName(), targetGroupName(request.getTargetGroupName()));
+
+        final int from = Optional.ofNullable(request.getMarker()).map(Integer::parseInt).orElse(0);
+        final int to = Math.min(all.size(), from + Optional.ofNullable(request.getMaxRecords()).orElse(DEFAULT_MAX_RECORDS));
+        return new DescribeDBProxyTargetsResult().withTargets(all.subList(from, to))
+                                                 .withMarker(to < all.size() ? String.valueOf(to) : null);
+    }
+
+    private DBProxyTargetGroup existing(final String proxyName, final String targetGroupName) {
+        final Map<String, DBProxyTargetGroup> groups = targetGroups.get(proxyName);
+        if (groups == null) {
+            throw new DBProxyNotFoundException("Proxy " + proxyName + " not found");
+        }
+        return Optional.ofNullable(groups.get(targetGroupName(targetGroupName)))
+                       .orElseThrow(() -> new DBProxyTargetGroupNotFoundException("Target group " + targetGroupName + " not found"));
+    }
+
+    private Map<String, FakeTarget> targetsOf(final String proxyName, final String targetGroupName) {
+        return targets.computeIfAbsent(proxyName + ":" + targetGroupName(targetGroupName), k -> new LinkedHashMap<>());
+    }
+
+    private DBProxyTarget register(final Map<String, FakeTarget> registered, final DBProxyTarget target) {
+        final boolean trackedCluster = Constants.TRACKED_CLUSTER.equals(target.getType());
+        final FakeTarget fakeTarget = new FakeTarget(target.withTargetHealth(trackedCluster ? null : new TargetHealth().withState(REGISTERING_STATE)),
+                                                     now() + registrationSeconds * 1000L);
+        registered.put(target.getRdsResourceId(), fakeTarget);
+        return target.clone();
+    }
+
+    // The APIs fall back to the default target group when none is named
+    private static String targetGroupName(final String targetGroupName) {
+        return Optional.ofNullable(targetGroupName).orElse(DEFAULT_TARGET_GROUP);
+    }
+
+    private class FakeTarget {
+        private final DBProxyTarget target;
+        private final long settleAtMillis;
+
+        FakeTarget(final DBProxyTarget target, final long settleAtMillis) {
+            this.target = target;
+            this.settleAtMillis = settleAtMillis;
+        }
+
+        DBProxyTarget getTarget() {
+            return target;
+        }
+
+        DBProxyTarget settle(final long now) {
+            final TargetHealth health = target.getTargetHealth();
+            if (health != null && REGISTERING_STATE.equals(health.getState()) && now >= settleAtMillis) {
+                final String reason = unhealthyReasons.get(target.getRdsResourceId());
+                target.setTargetHealth(reason == null
+                                       ? new TargetHealth().withState(Constants.AVAILABLE_STATE)
+                                       : new TargetHealth().withState(UNAVAILABLE_STATE).withReason(reason));
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.LoadHarness;
+
+/**
+ * Lifecycle of one resource in a {@link LoadHarness} fleet of target groups. Registers three instances, replaces one of
+ * them and changes the pool size, then deregisters them, all through shared handler instances.
+ *
+ * To size a fleet from the command line, after mvn test-compile:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=software.amazon.rds.dbproxytargetgroup.FleetLifecycle -Dexec.args="500 32"
+ */
+public class FleetLifecycle implements LoadHarness.Lifecycle<ResourceModel, CallbackContext> {
+    private static final String PROXY_NAME = "proxy";
+    private static final String TARGET_GROUP_NAME = "default";
+
+    private final CreateHandler createHandler = new CreateHandler();
+    private final UpdateHandler updateHandler = new UpdateHandler();
+    private final DeleteHandler deleteHandler = new DeleteHandler();
+
+    /**
+     * Creates, updates and deletes a fleet of target groups and prints what each operation type cost.
+     *
+     * @param args number of target groups (default 200) and how many run at once (default 16)
+     */
+    public static void main(final String[] args) {
+        LoadHarness.runFromCommandLine(args, FleetLifecycle::account, new FleetLifecycle());
+    }
+
+    /**
+     * An account holding the proxy whose default target group the lifecycle manages.
+     */
+    public static FakeRds account() {
+        return new FakeRds().proxy(PROXY_NAME);
+    }
+
+    @Override
+    public void run(final int resource, final LoadHarness.Driver<ResourceModel, CallbackContext> driver) {
+        final ResourceModel created = targetGroupModel(ImmutableList.of(instance(resource, 0), instance(resource, 1), instance(resource, 2)), 80);
+        final ResourceModel updated = targetGroupModel(ImmutableList.of(instance(resource, 0), instance(resource, 1), instance(resource, 3)), 60);
+        driver.drive(LoadHarness.CREATE, createHandler::handleRequest, request(created, null));
+        driver.drive(LoadHarness.UPDATE, updateHandler::handleRequest, request(updated, targetGroupModel(created.getDBInstanceIdentifiers(), 80)));
+        driver.drive(LoadHarness.DELETE, deleteHandler::handleRequest, request(updated, null));
+    }
+
+    private static String instance(final int resource, final int index) {
+        return "db-" + resource + "-" + index;
+    }
+
+    private static ResourceModel targetGroupModel(final List<String> instances, final int maxConnectionsPercent) {
+        return ResourceModel.builder()
+                            .dBProxyName(PROXY_NAME)
+                            .targetGroupName(TARGET_GROUP_NAME)
+                            .dBInstanceIdentifiers(instances)
+                            .connectionPoolConfigurationInfo(ConnectionPoolConfigurationInfoFormat.builder()
+                                                                                                  .maxConnectionsPercent(maxConnectionsPercent)
+                                                                                                  .build())
+                            .build();
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel desired, final ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
@@ -0,0 +1,36 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import software.amazon.rds.common.LoadHarness;
+
+public class FleetLifecycleTest {
+    private static final int RESOURCES = 50;
+
+    @Test
+    public void run_completesEveryOperationOfTheFleet() {
+        final LoadHarness<ResourceModel, CallbackContext> harness = new LoadHarness<>(8);
+
+        harness.run(RESOURCES, FleetLifecycle::account, new FleetLifecycle());
+
+        final Map<String, LoadHarness.Summary> summaries = harness.summarize();
+        assertThat(summaries).containsOnlyKeys(LoadHarness.CREATE, LoadHarness.UPDATE, LoadHarness.DELETE);
+        summaries.values().forEach(summary -> {
+            assertThat(summary.getOperations()).isEqualTo(RESOURCES);
+            assertThat(summary.getFailures()).isZero();
+        });
+
+        final LoadHarness.Summary create = summaries.get(LoadHarness.CREATE);
+        assertThat(create.getApiCalls()).containsEntry("ModifyDBProxyTargetGroup", RESOURCES)
+                                        .containsEntry("RegisterDBProxyTargets", RESOURCES);
+        // Registration waits for the new targets to become healthy between invocations
+        assertThat(create.getSleepMillis()).isPositive();
+        assertThat(summaries.get(LoadHarness.UPDATE).getApiCalls()).containsEntry("DeregisterDBProxyTargets", RESOURCES)
+                                                                   .containsEntry("RegisterDBProxyTargets", RESOURCES);
+        assertThat(summaries.get(LoadHarness.DELETE).getApiCalls()).containsEntry("DeregisterDBProxyTargets", RESOURCES);
+    }
+}
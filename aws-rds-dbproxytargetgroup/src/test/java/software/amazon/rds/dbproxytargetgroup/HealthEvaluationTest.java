@@ -0,0 +1,113 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.TargetHealth;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class HealthEvaluationTest {
+
+    @Test
+    public void classify_availableInstanceIsHealthy() {
+        assertThat(HealthEvaluation.classify(instance("db-1", Constants.AVAILABLE_STATE, null))).isEqualTo(HealthEvaluation.Verdict.HEALTHY);
+    }
+
+    @Test
+    public void classify_registeringAndCapacityWaitsAreTransient() {
+        assertThat(HealthEvaluation.classify(instance("db-1", "REGISTERING", null))).isEqualTo(HealthEvaluation.Verdict.TRANSIENT);
+        assertThat(HealthEvaluation.classify(instance("db-1", "UNAVAILABLE", "PENDING_PROXY_CAPACITY"))).isEqualTo(HealthEvaluation.Verdict.TRANSIENT);
+        assertThat(HealthEvaluation.classify(instance("db-1", "UNAVAILABLE", "UNREACHABLE"))).isEqualTo(HealthEvaluation.Verdict.TRANSIENT);
+        assertThat(HealthEvaluation.classify(new DBProxyTarget().withRdsResourceId("db-1").withType(Constants.RDS_INSTANCE)))
+                .isEqualTo(HealthEvaluation.Verdict.TRANSIENT);
+    }
+
+    @Test
+    public void classify_terminalReasons() {
+        for (String reason : Constants.TERMINAL_HEALTH_REASONS) {
+            assertThat(HealthEvaluation.classify(instance("db-1", "UNAVAILABLE", reason))).isEqualTo(HealthEvaluation.Verdict.TERMINAL);
+        }
+    }
+
+    @Test
+    public void classify_trackedClusterWithoutHealthIsHealthy() {
+        final DBProxyTarget cluster = new DBProxyTarget().withRdsResourceId("cluster-1").withType(Constants.TRACKED_CLUSTER);
+
+        assertThat(HealthEvaluation.classify(cluster)).isEqualTo(HealthEvaluation.Verdict.HEALTHY);
+    }
+
+    @Test
+    public void of_terminalTargetWinsOverEarlierTransientTarget() {
+        final HealthEvaluation health = HealthEvaluation.of(ImmutableList.of(instance("db-1", "REGISTERING", null),
+                                                                             instance("db-2", "UNAVAILABLE", "AUTH_FAILURE")));
+
+        assertThat(health.isTerminal()).isTrue();
+        assertThat(health.getTarget().getRdsResourceId()).isEqualTo("db-2");
+        assertThat(health.getFailureMessage()).isEqualTo("Target db-2 is UNAVAILABLE with reason AUTH_FAILURE.");
+    }
+
+    @Test
+    public void of_reportsFirstPendingState() {
+        final HealthEvaluation health = HealthEvaluation.of(ImmutableList.of(instance("db-1", Constants.AVAILABLE_STATE, null),
+                                                                             instance("db-2", "UNAVAILABLE", "PENDING_PROXY_CAPACITY"),
+                                                                             instance("db-3", "REGISTERING", null)));
+
+        assertThat(health.getVerdict()).isEqualTo(HealthEvaluation.Verdict.TRANSIENT);
+        assertThat(health.getPendingState()).isEqualTo("PENDING_PROXY_CAPACITY");
+        assertThat(health.getFailureMessage()).isNull();
+    }
+
+    @Test
+    public void of_noTargetsIsHealthy() {
+        final HealthEvaluation health = HealthEvaluation.of(ImmutableList.of());
+
+        assertThat(health.isHealthy()).isTrue();
+        assertThat(health.getPendingState()).isNull();
+    }
+
+    @Test
+    public void of_carriesOverTargetsAlreadyAvailable() {
+        final HealthEvaluation health = HealthEvaluation.of(ImmutableList.of(instance("db-1", "UNAVAILABLE", "AUTH_FAILURE"),
+                                                                             instance("db-2", "REGISTERING", null)),
+                                                            ImmutableMap.of("db-1", Constants.AVAILABLE_STATE));
+
+        assertThat(health.getVerdict()).isEqualTo(HealthEvaluation.Verdict.TRANSIENT);
+        assertThat(health.getTargetHealth()).containsExactly(entry("db-1", Constants.AVAILABLE_STATE), entry("db-2", "REGISTERING"));
+        assertThat(health.getPendingTargets()).containsExactly(entry("db-2", "REGISTERING"));
+    }
+
+    @Test
+    public void getProgressMessage_listsPendingTargets() {
+        final HealthEvaluation health = HealthEvaluation.of(ImmutableList.of(instance("db-1", Constants.AVAILABLE_STATE, null),
+                                                                             instance("db-2", "UNAVAILABLE", "PENDING_PROXY_CAPACITY"),
+                                                                             new DBProxyTarget().withRdsResourceId("db-3").withType(Constants.RDS_INSTANCE)));
+
+        assertThat(health.getProgressMessage()).isEqualTo("Waiting for 2 target(s) to become available: db-2 (PENDING_PROXY_CAPACITY), db-3 (UNKNOWN)");
+    }
+
+    @Test
+    public void getProgressMessage_truncatesLongTargetLists() {
+        final List<DBProxyTarget> targets = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            targets.add(instance("db-" + i, "REGISTERING", null));
+        }
+
+        final String message = HealthEvaluation.of(targets).getProgressMessage();
+
+        assertThat(message).startsWith("Waiting for 12 target(s) to become available: db-0 (REGISTERING)");
+        assertThat(message).contains("db-9 (REGISTERING)").doesNotContain("db-10").endsWith(", and 2 more");
+    }
+
+    private static DBProxyTarget instance(String id, String state, String reason) {
+        return new DBProxyTarget().withRdsResourceId(id)
+                                  .withType(Constants.RDS_INSTANCE)
+                                  .withTargetHealth(new TargetHealth().withState(state).withReason(reason));
+    }
+}
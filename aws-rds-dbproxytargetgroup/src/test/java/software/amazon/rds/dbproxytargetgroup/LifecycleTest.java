@@ -0,0 +1,264 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.Concurrency;
+import software.amazon.rds.common.OperationDeadline;
+
+public class LifecycleTest {
+    private static final String PROXY_NAME = "proxy";
+    private static final String TARGET_GROUP_NAME = "default";
+
+    private FakeRds rds;
+
+    @BeforeEach
+    public void setup() {
+        rds = new FakeRds().proxy(PROXY_NAME).registration(45);
+    }
+
+    @Test
+    public void createUpdateDelete() {
+        final ResourceModel created = model(ImmutableList.of("db-1", "db-2"), null, 80);
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(created, null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(create.getSimulatedMillis()).isGreaterThanOrEqualTo(45 * 1000L);
+        assertThat(targetIds()).containsExactly("db-1", "db-2");
+        assertThat(healthStates()).containsOnly(Constants.AVAILABLE_STATE);
+        assertThat(rds.targetGroup(PROXY_NAME, TARGET_GROUP_NAME).get().getConnectionPoolConfig().getMaxConnectionsPercent()).isEqualTo(80);
+
+        final ResourceModel updated = model(ImmutableList.of("db-2", "db-3"), null, 60);
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(updated, created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(targetIds()).containsExactly("db-2", "db-3");
+        assertThat(healthStates()).containsOnly(Constants.AVAILABLE_STATE);
+        assertThat(rds.targetGroup(PROXY_NAME, TARGET_GROUP_NAME).get().getConnectionPoolConfig().getMaxConnectionsPercent()).isEqualTo(60);
+
+        final FakeRds.Report delete = rds.drive(new DeleteHandler(), request(updated, null));
+
+        assertThat(delete.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(delete.getApiCalls()).isEqualTo(2);
+        assertThat(targetIds()).isEmpty();
+    }
+
+    @Test
+    public void update_poolSettingsOnlySkipsHealthSweep() {
+        final ResourceModel created = model(ImmutableList.of("db-1", "db-2"), null, 80);
+        rds.drive(new CreateHandler(), request(created, null));
+        final int describeCalls = rds.getApiCalls().get("DescribeDBProxyTargets");
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(model(ImmutableList.of("db-2", "db-1"), null, 60), created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(update.getInvocations()).isEqualTo(1);
+        assertThat(update.getApiCalls()).isEqualTo(1);
+        assertThat(rds.getApiCalls().get("DescribeDBProxyTargets")).isEqualTo(describeCalls);
+        assertThat(rds.targetGroup(PROXY_NAME, TARGET_GROUP_NAME).get().getConnectionPoolConfig().getMaxConnectionsPercent()).isEqualTo(60);
+    }
+
+    @Test
+    public void create_registersTrackedCluster() {
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(null, ImmutableList.of("cluster-1"), 80), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(targetIds()).containsExactly("cluster-1", "cluster-1-instance-1");
+    }
+
+    @Test
+    public void create_failsFastOnTerminalHealthReason() {
+        rds.unhealthy("db-2", "CONNECTION_FAILED");
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(ImmutableList.of("db-1", "db-2"), null, 80), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(create.getEvent().getErrorCode()).isEqualTo(HandlerErrorCode.NotStabilized);
+        assertThat(create.getEvent().getMessage()).isEqualTo("Target db-2 is UNAVAILABLE with reason CONNECTION_FAILED.");
+        assertThat(create.getInvocations()).isLessThan(10);
+    }
+
+    @Test
+    public void create_pollsTransientlyUnhealthyTargetUntilDeadline() {
+        rds.unhealthy("db-2", "PENDING_PROXY_CAPACITY");
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(rds.clock()), request(model(ImmutableList.of("db-1", "db-2"), null, 80), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(create.getEvent().getMessage()).isEqualTo(CreateHandler.TIMED_OUT_MESSAGE);
+        assertThat(create.getSimulatedMillis()).isBetween(OperationDeadline.TIMEOUT_IN_MS,
+                                                          OperationDeadline.TIMEOUT_IN_MS + Constants.POLL_RETRY_DELAY_IN_SECONDS * 1000L * 10);
+    }
+
+    @Test
+    public void create_evaluatesHealthOfTargetsBeyondFirstPage() {
+        rds.unhealthy("db-" + (FakeRds.DEFAULT_MAX_RECORDS + 10), "AUTH_FAILURE");
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(instances(FakeRds.DEFAULT_MAX_RECORDS + 20), null, 80), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(create.getEvent().getMessage()).startsWith("Target db-" + (FakeRds.DEFAULT_MAX_RECORDS + 10) + " is UNAVAILABLE");
+    }
+
+    @Test
+    public void readAndDelete_coverEveryPageOfTargets() {
+        final ResourceModel created = model(instances(FakeRds.DEFAULT_MAX_RECORDS * 2 + 5), null, 80);
+        rds.drive(new CreateHandler(), request(created, null));
+
+        final FakeRds.Report read = rds.drive(new ReadHandler(), request(created, null));
+
+        assertThat(read.getEvent().getResourceModel().getDBInstanceIdentifiers()).containsExactlyInAnyOrderElementsOf(created.getDBInstanceIdentifiers());
+        // One DescribeDBProxyTargetGroups call plus one DescribeDBProxyTargets call per page
+        assertThat(read.getApiCalls()).isEqualTo(4);
+
+        rds.drive(new DeleteHandler(), request(created, null));
+
+        assertThat(targetIds()).isEmpty();
+    }
+
+    @Test
+    public void delete_deregistersClustersAndInstancesInBatches() {
+        final int instanceCount = Constants.DEREGISTRATION_BATCH_SIZE * 2 + 1;
+        final ResourceModel created = model(instances(instanceCount), ImmutableList.of("cluster-1"), 80);
+        rds.drive(new CreateHandler(), request(created, null));
+        final int deregisterCallsBefore = rds.getApiCalls().getOrDefault("DeregisterDBProxyTargets", 0);
+
+        final FakeRds.Report delete = rds.drive(new DeleteHandler(), request(created, null));
+
+        assertThat(delete.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(targetIds()).isEmpty();
+        // The cluster's own instance goes with the cluster, so the batches hold the cluster and the standalone instances
+        assertThat(rds.getApiCalls().get("DeregisterDBProxyTargets") - deregisterCallsBefore).isEqualTo(3);
+    }
+
+    @Test
+    public void delete_resumesThrottledBatchesWithoutDescribingAgain() {
+        final ResourceModel created = model(instances(Constants.DEREGISTRATION_BATCH_SIZE * 3), null, 80);
+        rds.drive(new CreateHandler(), request(created, null));
+        final int describeCallsBefore = rds.getApiCalls().get("DescribeDBProxyTargets");
+        // As once the client has used up its retries
+        rds.maxErrorRetry(0).throttle("DeregisterDBProxyTargets", 2);
+
+        final FakeRds.Report delete = rds.drive(new DeleteHandler(), request(created, null));
+
+        assertThat(delete.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(targetIds()).isEmpty();
+        assertThat(delete.getInvocations()).isEqualTo(3);
+        assertThat(rds.getApiCalls().get("DescribeDBProxyTargets") - describeCallsBefore).isEqualTo(1);
+    }
+
+    @Test
+    public void create_resumesThrottledRegistrationBatches() {
+        final List<String> instances = instances(Constants.REGISTRATION_BATCH_SIZE * 3);
+        // As once the client has used up its retries
+        rds.maxErrorRetry(0).throttle("RegisterDBProxyTargets", 1);
+
+        final FakeRds.Report create = rds.drive(new CreateHandler(), request(model(instances, null, 80), null));
+
+        assertThat(create.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(targetIds()).containsExactlyInAnyOrderElementsOf(instances);
+        assertThat(healthStates()).containsOnly(Constants.AVAILABLE_STATE);
+        // Three batches plus the one throttled batch sent again
+        assertThat(rds.getApiCalls().get("RegisterDBProxyTargets")).isEqualTo(4);
+    }
+
+    @Test
+    public void update_registersAddedTargetsInBatches() {
+        final ResourceModel created = model(ImmutableList.of("seed"), null, 80);
+        rds.drive(new CreateHandler(), request(created, null));
+        final ResourceModel updated = model(instances(Constants.REGISTRATION_BATCH_SIZE * 2 + 1), null, 80);
+
+        final FakeRds.Report update = rds.drive(new UpdateHandler(), request(updated, created));
+
+        assertThat(update.getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(targetIds()).containsExactlyInAnyOrderElementsOf(updated.getDBInstanceIdentifiers());
+        assertThat(rds.getApiCalls().get("RegisterDBProxyTargets")).isEqualTo(1 + 3);
+    }
+
+    @Test
+    public void sharedHandlersServeConcurrentRequests() {
+        final int resources = 8;
+        final CreateHandler createHandler = new CreateHandler();
+        final UpdateHandler updateHandler = new UpdateHandler();
+        final ExecutorService executor = Executors.newFixedThreadPool(resources);
+        try {
+            final List<FakeRds> accounts = new ArrayList<>();
+            final List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (int i = 0; i < resources; i++) {
+                final FakeRds account = new FakeRds().proxy(PROXY_NAME).registration(45);
+                final ResourceModel created = model(ImmutableList.of("db-" + i), null, 80);
+                final ResourceModel updated = model(ImmutableList.of("db-" + i, "db-" + (i + resources)), null, 50 + i);
+                accounts.add(account);
+                runs.add(CompletableFuture.runAsync(() -> {
+                    assertThat(account.drive(createHandler, request(created, null)).getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+                    assertThat(account.drive(updateHandler, request(updated, created)).getEvent().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+                }, executor));
+            }
+            runs.forEach(Concurrency::join);
+
+            // Every request reached only its own account, so no handler state leaked between concurrent invocations
+            for (int i = 0; i < resources; i++) {
+                final FakeRds account = accounts.get(i);
+                assertThat(account.targets(PROXY_NAME, TARGET_GROUP_NAME).stream().map(DBProxyTarget::getRdsResourceId))
+                        .containsExactlyInAnyOrder("db-" + i, "db-" + (i + resources));
+                assertThat(account.targetGroup(PROXY_NAME, TARGET_GROUP_NAME).get().getConnectionPoolConfig().getMaxConnectionsPercent())
+                        .isEqualTo(50 + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> instances(int count) {
+        final List<String> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add("db-" + i);
+        }
+        return instances;
+    }
+
+    private List<String> targetIds() {
+        return rds.targets(PROXY_NAME, TARGET_GROUP_NAME).stream().map(DBProxyTarget::getRdsResourceId).collect(Collectors.toList());
+    }
+
+    private List<String> healthStates() {
+        return rds.targets(PROXY_NAME, TARGET_GROUP_NAME)
+                  .stream()
+                  .filter(t -> t.getTargetHealth() != null)
+                  .map(t -> t.getTargetHealth().getState())
+                  .collect(Collectors.toList());
+    }
+
+    private ResourceModel model(List<String> instances, List<String> clusters, int maxConnectionsPercent) {
+        return ResourceModel.builder()
+                            .dBProxyName(PROXY_NAME)
+                            .targetGroupName(TARGET_GROUP_NAME)
+                            .dBInstanceIdentifiers(instances)
+                            .dBClusterIdentifiers(clusters)
+                            .connectionPoolConfigurationInfo(ConnectionPoolConfigurationInfoFormat.builder()
+                                                                                                  .maxConnectionsPercent(maxConnectionsPercent)
+                                                                                                  .build())
+                            .build();
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request(ResourceModel desired, ResourceModel previous) {
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                                     .desiredResourceState(desired)
+                                     .previousResourceState(previous)
+                                     .build();
+    }
+}
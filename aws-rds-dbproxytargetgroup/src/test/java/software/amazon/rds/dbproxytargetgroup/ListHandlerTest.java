@@ -2,6 +2,7 @@ package software.amazon.rds.dbproxytargetgroup;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static software.amazon.rds.dbproxytargetgroup.Matchers.assertThatModelsAreEqual;
@@ -28,6 +29,9 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
+import software.amazon.rds.common.Paginator;
 
 @ExtendWith(MockitoExtension.class)
 public class ListHandlerTest {
@@ -35,12 +39,15 @@ public class ListHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -70,7 +77,7 @@ public class ListHandlerTest {
                                                                       .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response =
-                handler.handleRequest(proxy, request, null, logger);
+                counting.handle(handler::handleRequest, request, null, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -82,5 +89,86 @@ public class ListHandlerTest {
         assertThatModelsAreEqual(response.getResourceModels().get(1), dbProxyTargetGroup2);
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_ReturnsNextToken() {
+        final ListHandler handler = new ListHandler(false);
+
+        DBProxyTargetGroup page1 = new DBProxyTargetGroup().withConnectionPoolConfig(new ConnectionPoolConfigurationInfo()).withDBProxyName("proxy").withTargetGroupName("group1");
+
+        doReturn(new DescribeDBProxyTargetGroupsResult().withTargetGroups(page1).withMarker("marker"))
+                .when(proxy)
+                .injectCredentialsAndInvoke(any(DescribeDBProxyTargetGroupsRequest.class),
+                        ArgumentMatchers.<Function<DescribeDBProxyTargetGroupsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isEqualTo("marker");
+        assertThat(response.getResourceModels().size()).isEqualTo(1);
+        assertThatModelsAreEqual(response.getResourceModels().get(0), page1);
+        ApiBudget.expect("handleRequest_ReturnsNextToken").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_EagerPagingStopsAtPageCap() {
+        final ListHandler handler = new ListHandler();
+
+        DBProxyTargetGroup page1 = new DBProxyTargetGroup().withConnectionPoolConfig(new ConnectionPoolConfigurationInfo()).withDBProxyName("proxy").withTargetGroupName("group1");
+
+        doReturn(new DescribeDBProxyTargetGroupsResult().withTargetGroups(page1).withMarker("marker"))
+                .when(proxy)
+                .injectCredentialsAndInvoke(any(DescribeDBProxyTargetGroupsRequest.class),
+                        ArgumentMatchers.<Function<DescribeDBProxyTargetGroupsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isEqualTo("marker");
+        assertThat(response.getResourceModels().size()).isEqualTo(Paginator.DEFAULT_MAX_PAGES);
+        ApiBudget.expect("handleRequest_EagerPagingStopsAtPageCap").invocations(1).apiCalls(10).assertWithin(counting);
+    }
+
+    @Test
+    public void handleRequest_EagerPagingFetchesAllPages() {
+        final ListHandler handler = new ListHandler(true);
+
+        DBProxyTargetGroup page1 = new DBProxyTargetGroup().withConnectionPoolConfig(new ConnectionPoolConfigurationInfo()).withDBProxyName("proxy").withTargetGroupName("group1");
+        DBProxyTargetGroup page2 = new DBProxyTargetGroup().withConnectionPoolConfig(new ConnectionPoolConfigurationInfo()).withDBProxyName("proxy").withTargetGroupName("group2");
+
+        doAnswer(invocation -> {
+            DescribeDBProxyTargetGroupsRequest describeRequest = invocation.getArgument(0);
+            return describeRequest.getMarker() == null
+                   ? new DescribeDBProxyTargetGroupsResult().withTargetGroups(page1).withMarker("marker")
+                   : new DescribeDBProxyTargetGroupsResult().withTargetGroups(page2);
+        }).when(proxy)
+           .injectCredentialsAndInvoke(any(DescribeDBProxyTargetGroupsRequest.class),
+                   ArgumentMatchers.<Function<DescribeDBProxyTargetGroupsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().build())
+            .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+            counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isNull();
+        assertThat(response.getResourceModels().size()).isEqualTo(2);
+        assertThatModelsAreEqual(response.getResourceModels().get(0), page1);
+        assertThatModelsAreEqual(response.getResourceModels().get(1), page2);
+        ApiBudget.expect("handleRequest_EagerPagingFetchesAllPages").invocations(1).apiCalls(2).assertWithin(counting);
     }
 }
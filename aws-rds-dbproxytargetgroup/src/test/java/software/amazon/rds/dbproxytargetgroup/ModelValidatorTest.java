@@ -0,0 +1,75 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+public class ModelValidatorTest {
+
+    @Test
+    public void validate_acceptsValidModel() {
+        assertThat(ModelValidator.validate(validModel(pool(100, 50, 120)).build())).isEmpty();
+    }
+
+    @Test
+    public void validate_ignoresPropertiesTheTemplateLeavesOut() {
+        assertThat(ModelValidator.validate(ResourceModel.builder().build())).isEmpty();
+        assertThat(ModelValidator.validate(validModel(ConnectionPoolConfigurationInfoFormat.builder().build()).build())).isEmpty();
+    }
+
+    @Test
+    public void validate_leavesTargetsToRds() {
+        final ResourceModel model = validModel(pool(25, 50, null)).dBClusterIdentifiers(ImmutableList.of("cluster-1", "cluster-2"))
+                                                                  .build();
+
+        assertThat(ModelValidator.validate(model)).isEmpty();
+    }
+
+    @Test
+    public void validate_reportsEveryViolation() {
+        final ResourceModel model = validModel(pool(0, 101, ModelValidator.MAX_CONNECTION_BORROW_TIMEOUT + 1)).build();
+
+        assertThat(ModelValidator.validate(model)).hasSize(3);
+    }
+
+    @Test
+    public void createHandler_failsBeforeCallingRds() {
+        final AmazonWebServicesClientProxy proxy = mock(AmazonWebServicesClientProxy.class);
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(validModel(pool(0, 50, null)).build())
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = new CreateHandler().handleRequest(proxy, request, null, mock(Logger.class));
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        assertThat(response.getMessage()).contains("MaxConnectionsPercent");
+        verifyZeroInteractions(proxy);
+    }
+
+    private static ConnectionPoolConfigurationInfoFormat pool(Integer maxConnections, Integer maxIdleConnections, Integer borrowTimeout) {
+        return ConnectionPoolConfigurationInfoFormat.builder()
+                                                    .maxConnectionsPercent(maxConnections)
+                                                    .maxIdleConnectionsPercent(maxIdleConnections)
+                                                    .connectionBorrowTimeout(borrowTimeout)
+                                                    .build();
+    }
+
+    private static ResourceModel.ResourceModelBuilder validModel(ConnectionPoolConfigurationInfoFormat pool) {
+        return ResourceModel.builder()
+                            .dBProxyName("proxy")
+                            .targetGroupName("default")
+                            .dBInstanceIdentifiers(ImmutableList.of("db-1"))
+                            .connectionPoolConfigurationInfo(pool);
+    }
+}
@@ -0,0 +1,90 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DescribeDBProxyTargetsResult;
+import com.google.common.collect.ImmutableList;
+
+public class ProxyTargetsTest {
+
+    @Test
+    public void followsMarkersAcrossPages() {
+        final PagedTargets pages = new PagedTargets(250, 100);
+
+        final List<String> ids = ProxyTargets.of(pages::fetch).stream().map(DBProxyTarget::getRdsResourceId).collect(Collectors.toList());
+
+        assertThat(ids).hasSize(250).startsWith("db-0").endsWith("db-249");
+        assertThat(pages.markers).containsExactly(null, "100", "200");
+    }
+
+    @Test
+    public void fetchesPagesOnlyAsIterationReachesThem() {
+        final PagedTargets pages = new PagedTargets(250, 100);
+
+        final List<String> ids = ProxyTargets.of(pages::fetch).stream().limit(101).map(DBProxyTarget::getRdsResourceId).collect(Collectors.toList());
+
+        assertThat(ids).endsWith("db-100");
+        assertThat(pages.markers).containsExactly(null, "100");
+    }
+
+    @Test
+    public void eachIterationStartsFromTheFirstPage() {
+        final PagedTargets pages = new PagedTargets(3, 2);
+        final ProxyTargets targets = ProxyTargets.of(pages::fetch);
+
+        assertThat(targets.stream().count()).isEqualTo(3);
+        assertThat(targets.stream().count()).isEqualTo(3);
+        assertThat(pages.markers).containsExactly(null, "2", null, "2");
+    }
+
+    @Test
+    public void skipsEmptyPagesThatCarryAMarker() {
+        final List<DescribeDBProxyTargetsResult> results = ImmutableList.of(
+                new DescribeDBProxyTargetsResult().withMarker("1"),
+                new DescribeDBProxyTargetsResult().withTargets(new DBProxyTarget().withRdsResourceId("db-1")));
+        final List<String> markers = new ArrayList<>();
+
+        final List<DBProxyTarget> targets = ProxyTargets.of(marker -> {
+            markers.add(marker);
+            return results.get(markers.size() - 1);
+        }).stream().collect(Collectors.toList());
+
+        assertThat(targets).extracting(DBProxyTarget::getRdsResourceId).containsExactly("db-1");
+        assertThat(markers).containsExactly(null, "1");
+    }
+
+    @Test
+    public void treatsMissingResultAsEmpty() {
+        assertThat(ProxyTargets.of(marker -> null).iterator().hasNext()).isFalse();
+        assertThat(ProxyTargets.of(marker -> new DescribeDBProxyTargetsResult()).stream().count()).isZero();
+    }
+
+    private static class PagedTargets {
+        private final int total;
+        private final int pageSize;
+        private final List<String> markers = new ArrayList<>();
+
+        PagedTargets(int total, int pageSize) {
+            this.total = total;
+            this.pageSize = pageSize;
+        }
+
+        DescribeDBProxyTargetsResult fetch(String marker) {
+            markers.add(marker);
+            final int from = marker == null ? 0 : Integer.parseInt(marker);
+            final int to = Math.min(total, from + pageSize);
+            final List<DBProxyTarget> page = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                page.add(new DBProxyTarget().withRdsResourceId("db-" + i).withType(Constants.RDS_INSTANCE));
+            }
+            return new DescribeDBProxyTargetsResult().withTargets(page).withMarker(to < total ? String.valueOf(to) : null);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceResult;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
+import com.amazonaws.services.rds.model.InvalidDBProxyStateException;
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+
+public class TargetDeregistrarTest {
+
+    @Test
+    public void plan_splitsTargetsIntoBatches() {
+        final TargetDeregistrar deregistrar = TargetDeregistrar.builder().batchSize(2).build();
+
+        final List<List<TargetState>> batches = deregistrar.plan(ImmutableList.of(instance("db-1"), instance("db-2"), instance("db-3")));
+
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).extracting(TargetState::getRdsResourceId).containsExactly("db-1", "db-2");
+        assertThat(batches.get(1)).extracting(TargetState::getRdsResourceId).containsExactly("db-3");
+    }
+
+    @Test
+    public void plan_leavesClusterInstancesToTheirCluster() {
+        final DBProxyTarget cluster = new DBProxyTarget().withRdsResourceId("cluster-1").withType(Constants.TRACKED_CLUSTER);
+        final DBProxyTarget clusterInstance = instance("cluster-1-instance-1").withTrackedClusterId("cluster-1");
+
+        final List<List<TargetState>> batches = TargetDeregistrar.builder().build()
+                                                                 .plan(ImmutableList.of(cluster, clusterInstance, instance("db-1")));
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(TargetState::getRdsResourceId).containsExactly("cluster-1", "db-1");
+    }
+
+    @Test
+    public void deregister_returnsThrottledBatches() {
+        final AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+        final AmazonWebServicesClientProxy proxy = mock(AmazonWebServicesClientProxy.class);
+        doThrow(throttled).when(proxy).injectCredentialsAndInvoke(
+                ArgumentMatchers.<DeregisterDBProxyTargetsRequest>argThat(r -> r.getDBInstanceIdentifiers().contains("db-2")),
+                ArgumentMatchers.<Function<DeregisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final List<List<TargetState>> batches = ImmutableList.of(ImmutableList.of(TargetState.from(instance("db-1"))),
+                                                                 ImmutableList.of(TargetState.from(instance("db-2"))));
+
+        final CallbackContext context = CallbackContext.builder().build();
+
+        final List<List<TargetState>> remaining = TargetDeregistrar.builder().build()
+                                                                   .deregister(proxy, mock(AmazonRDS.class), "proxy", "default", batches, context);
+
+        assertThat(remaining).containsExactly(batches.get(1));
+        assertThat(context.getDeregistrationBatches()).containsExactly(batches.get(1));
+    }
+
+    @Test
+    public void deregister_recordsFailedBatchesBeforeRethrowingNonRetryableFailure() {
+        final AmazonWebServicesClientProxy proxy = mock(AmazonWebServicesClientProxy.class);
+        doThrow(new InvalidDBProxyStateException("")).when(proxy).injectCredentialsAndInvoke(
+                ArgumentMatchers.<DeregisterDBProxyTargetsRequest>argThat(r -> r.getDBInstanceIdentifiers().contains("db-2")),
+                ArgumentMatchers.<Function<DeregisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final List<List<TargetState>> batches = ImmutableList.of(ImmutableList.of(TargetState.from(instance("db-1"))),
+                                                                 ImmutableList.of(TargetState.from(instance("db-2"))));
+        final CallbackContext context = CallbackContext.builder().build();
+
+        assertThatThrownBy(() -> TargetDeregistrar.builder().build()
+                                                  .deregister(proxy, mock(AmazonRDS.class), "proxy", "default", batches, context))
+                .isInstanceOf(InvalidDBProxyStateException.class);
+        assertThat(context.getDeregistrationBatches()).containsExactly(batches.get(1));
+    }
+
+    private static DBProxyTarget instance(final String id) {
+        return new DBProxyTarget().withRdsResourceId(id).withType(Constants.RDS_INSTANCE);
+    }
+}
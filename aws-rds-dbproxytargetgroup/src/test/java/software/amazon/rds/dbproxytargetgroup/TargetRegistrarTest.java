@@ -0,0 +1,82 @@
+package software.amazon.rds.dbproxytargetgroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceResult;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.rds.model.DBProxyTarget;
+import com.amazonaws.services.rds.model.InvalidDBProxyStateException;
+import com.amazonaws.services.rds.model.RegisterDBProxyTargetsRequest;
+import com.amazonaws.services.rds.model.RegisterDBProxyTargetsResult;
+import com.google.common.collect.ImmutableList;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+
+public class TargetRegistrarTest {
+
+    @Test
+    public void plan_batchesClustersAndInstances() {
+        final List<List<TargetState>> batches = TargetRegistrar.builder().batchSize(2).build()
+                                                               .plan(ImmutableList.of("cluster-1"), ImmutableList.of("db-1", "db-2"));
+
+        assertThat(batches).containsExactly(
+                ImmutableList.of(new TargetState("cluster-1", Constants.TRACKED_CLUSTER), new TargetState("db-1", Constants.RDS_INSTANCE)),
+                ImmutableList.of(new TargetState("db-2", Constants.RDS_INSTANCE)));
+    }
+
+    @Test
+    public void register_mergesResultsAndReturnsThrottledBatches() {
+        final AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+        final AmazonWebServicesClientProxy proxy = failingFor("db-2", throttled);
+        final TargetRegistrar registrar = TargetRegistrar.builder().batchSize(1).build();
+        final List<List<TargetState>> batches = registrar.plan(ImmutableList.of(), ImmutableList.of("db-1", "db-2", "db-3"));
+        final CallbackContext context = CallbackContext.builder().build();
+
+        final List<List<TargetState>> remaining = registrar.register(proxy, mock(AmazonRDS.class), "proxy", "default", batches, context);
+
+        assertThat(remaining).containsExactly(batches.get(1));
+        assertThat(context.getTargets()).extracting(TargetState::getRdsResourceId).containsExactly("db-1", "db-3");
+        assertThat(context.getRegistrationBatches()).containsExactly(batches.get(1));
+    }
+
+    @Test
+    public void register_recordsSuccessfulBatchesBeforeRethrowingNonRetryableFailure() {
+        final InvalidDBProxyStateException failure = new InvalidDBProxyStateException("");
+        final AmazonWebServicesClientProxy proxy = failingFor("db-2", failure);
+        final TargetRegistrar registrar = TargetRegistrar.builder().batchSize(1).build();
+        final List<List<TargetState>> batches = registrar.plan(ImmutableList.of(), ImmutableList.of("db-1", "db-2"));
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targets(ImmutableList.of(new TargetState("db-0", Constants.RDS_INSTANCE)))
+                                                       .build();
+
+        assertThatThrownBy(() -> registrar.register(proxy, mock(AmazonRDS.class), "proxy", "default", batches, context))
+                .isSameAs(failure);
+        assertThat(context.getTargets()).extracting(TargetState::getRdsResourceId).containsExactly("db-0", "db-1");
+        assertThat(context.getRegistrationBatches()).containsExactly(batches.get(1));
+    }
+
+    private static AmazonWebServicesClientProxy failingFor(final String instance, final RuntimeException failure) {
+        final AmazonWebServicesClientProxy proxy = mock(AmazonWebServicesClientProxy.class);
+        doAnswer(invocation -> {
+            final RegisterDBProxyTargetsRequest request = invocation.getArgument(0);
+            if (request.getDBInstanceIdentifiers().contains(instance)) {
+                throw failure;
+            }
+            return new RegisterDBProxyTargetsResult().withDBProxyTargets(
+                    new DBProxyTarget().withRdsResourceId(request.getDBInstanceIdentifiers().get(0)));
+        }).when(proxy).injectCredentialsAndInvoke(ArgumentMatchers.any(RegisterDBProxyTargetsRequest.class),
+                ArgumentMatchers.<Function<RegisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        return proxy;
+    }
+}
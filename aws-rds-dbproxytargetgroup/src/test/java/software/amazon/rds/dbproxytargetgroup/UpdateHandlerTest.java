@@ -2,12 +2,18 @@ package software.amazon.rds.dbproxytargetgroup;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,10 +22,11 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceResult;
 import com.amazonaws.ResponseMetadata;
+import com.amazonaws.services.rds.model.ConnectionPoolConfiguration;
 import com.amazonaws.services.rds.model.ConnectionPoolConfigurationInfo;
-import com.amazonaws.services.rds.model.DBProxy;
 import com.amazonaws.services.rds.model.DBProxyTarget;
 import com.amazonaws.services.rds.model.DBProxyTargetGroup;
 import com.amazonaws.services.rds.model.DeregisterDBProxyTargetsRequest;
@@ -34,11 +41,15 @@ import com.amazonaws.services.rds.model.RegisterDBProxyTargetsRequest;
 import com.amazonaws.services.rds.model.RegisterDBProxyTargetsResult;
 import com.amazonaws.services.rds.model.TargetHealth;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.rds.common.ApiBudget;
+import software.amazon.rds.common.CountingProxy;
 
 @ExtendWith(MockitoExtension.class)
 public class UpdateHandlerTest {
@@ -46,12 +57,15 @@ public class UpdateHandlerTest {
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
+    private CountingProxy counting;
+
     @Mock
     private Logger logger;
 
     @BeforeEach
     public void setup() {
         proxy = mock(AmazonWebServicesClientProxy.class);
+        counting = new CountingProxy(proxy);
         logger = mock(Logger.class);
     }
 
@@ -60,14 +74,13 @@ public class UpdateHandlerTest {
         DBProxyTargetGroup defaultTargetGroup = new DBProxyTargetGroup();
         List<DBProxyTarget> targetList = new ArrayList<>();
         final CallbackContext context = CallbackContext.builder()
-                                                       .targetGroupStatus(defaultTargetGroup)
-                                                       .targets(targetList)
+                                                       .targetGroupStatus(TargetGroupState.from(defaultTargetGroup))
+                                                       .targets(TargetState.fromAll(targetList))
                                                        .targetsDeregistered(true)
-                                                       .stabilizationRetriesRemaining(1)
                                                        .allTargetsHealthy(true)
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         final ResourceModel model = ResourceModel.builder().build();
 
@@ -77,7 +90,7 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -87,6 +100,7 @@ public class UpdateHandlerTest {
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("handleRequest_SimpleSuccess").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
@@ -98,7 +112,6 @@ public class UpdateHandlerTest {
         String initQuery = "initQuery";
         String sessionPinningFilters = "sessionPinningFilters";
 
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         com.amazonaws.services.rds.model.ConnectionPoolConfigurationInfo connectionPoolConfigurationInfo = new ConnectionPoolConfigurationInfo()
                                                                                                                    .withConnectionBorrowTimeout(connectionBorrowTimeout)
                                                                                                                    .withMaxConnectionsPercent(maxConnectionsPercent)
@@ -113,11 +126,9 @@ public class UpdateHandlerTest {
 
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
-                                                       .proxy(dbProxy)
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         ConnectionPoolConfigurationInfoFormat connectionPoolConfigurationInfo1 =
                 ConnectionPoolConfigurationInfoFormat
@@ -149,25 +160,24 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testModifyTargetGroup").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
     public void testModifyNoConnectionPoolConfig() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         ImmutableList<String> clusterId = ImmutableList.of("clusterId");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         doReturn(new DescribeDBProxyTargetGroupsResult().withTargetGroups(dbProxyTargetGroup)).when(proxy)
@@ -182,26 +192,23 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .proxy(dbProxy)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getResourceModels()).isNull();
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testModifyNoConnectionPoolConfig").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -212,14 +219,11 @@ public class UpdateHandlerTest {
         String initQuery = "initQuery";
         String sessionPinningFilters = "sessionPinningFilters";
 
-        DBProxy dbProxy = new DBProxy().withStatus("available");
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .stabilizationRetriesRemaining(1)
-                                                       .proxy(dbProxy)
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         ConnectionPoolConfigurationInfoFormat connectionPoolConfigurationInfo1 =
                 ConnectionPoolConfigurationInfoFormat
@@ -240,31 +244,30 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .targetGroupStatus(new DBProxyTargetGroup())
+                                                                    .targetGroupStatus(TargetGroupState.from(new DBProxyTargetGroup()))
                                                                     .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testModifyTargetGroup_noChanges").invocations(1).apiCalls(0).assertWithin(counting);
     }
 
     @Test
     public void testRegister() {
-        DBProxy dbProxy = new DBProxy().withStatus("available");
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         DBProxyTarget dbProxyTarget = new DBProxyTarget();
         doReturn(new RegisterDBProxyTargetsResult().withDBProxyTargets(dbProxyTarget)).when(proxy)
                 .injectCredentialsAndInvoke(any(RegisterDBProxyTargetsRequest.class),
                         ArgumentMatchers.<Function<RegisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         ImmutableList<String> clusterId = ImmutableList.of("clusterId");
 
@@ -278,28 +281,26 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .proxy(dbProxy)
-                                                       .targetGroupStatus(dbProxyTargetGroup)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                        .targetsDeregistered(true)
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                                     .targetsDeregistered(true)
-                                                                    .targets(ImmutableList.of(dbProxyTarget))
+                                                                    .targets(TargetState.fromAll(ImmutableList.of(dbProxyTarget)))
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testRegister").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -307,7 +308,7 @@ public class UpdateHandlerTest {
         DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
         doReturn(new DeregisterDBProxyTargetsResult()).when(proxy).injectCredentialsAndInvoke(any(DeregisterDBProxyTargetsRequest.class),
                 ArgumentMatchers.<Function<DeregisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
         ImmutableList<String> instanceId = ImmutableList.of("instanceId");
 
@@ -320,25 +321,59 @@ public class UpdateHandlerTest {
                                                                       .build();
 
         final CallbackContext context = CallbackContext.builder()
-                                                       .targetGroupStatus(dbProxyTargetGroup)
-                                                       .stabilizationRetriesRemaining(1)
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                        .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(Constants.NUMBER_OF_STATE_POLL_RETRIES)
-                                                                    .targetGroupStatus(dbProxyTargetGroup)
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
                                                                     .targetsDeregistered(true)
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testDeregister").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testTargetHealth_terminalReason() {
+        DBProxyTarget target = new DBProxyTarget()
+                                       .withRdsResourceId("resourceId")
+                                       .withType("RDS_INSTANCE")
+                                       .withTargetHealth(new TargetHealth().withState("UNAVAILABLE").withReason("INVALID_REPLICATION_STATE"));
+
+        doReturn(new DescribeDBProxyTargetsResult().withTargets(target)).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class),
+                ArgumentMatchers.<Function<DescribeDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(new DBProxyTargetGroup()))
+                                                       .targets(TargetState.fromAll(ImmutableList.of(target)))
+                                                       .targetsDeregistered(true)
+                                                       .build();
+
+        final UpdateHandler handler = new UpdateHandler(0);
+
+        final ResourceModel oldModel = ResourceModel.builder().build();
+        final ResourceModel desiredModel = ResourceModel.builder().dBInstanceIdentifiers(ImmutableList.of("resourceId")).build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.NotStabilized);
+        assertThat(response.getMessage()).isEqualTo("Target resourceId is UNAVAILABLE with reason INVALID_REPLICATION_STATE.");
+        ApiBudget.expect("testTargetHealth_terminalReason").invocations(1).apiCalls(1).assertWithin(counting);
     }
 
     @Test
@@ -355,37 +390,191 @@ public class UpdateHandlerTest {
         doReturn(new DescribeDBProxyTargetsResult().withTargets(target)).when(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class),
                 ArgumentMatchers.<Function<DescribeDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
         final CallbackContext context = CallbackContext.builder()
-                                                       .targetGroupStatus(defaultTargetGroup)
-                                                       .targets(targetList)
+                                                       .targetGroupStatus(TargetGroupState.from(defaultTargetGroup))
+                                                       .targets(TargetState.fromAll(targetList))
                                                        .targetsDeregistered(true)
-                                                       .stabilizationRetriesRemaining(1)
                                                        .build();
 
-        final UpdateHandler handler = new UpdateHandler();
+        final UpdateHandler handler = new UpdateHandler(0);
 
-        final ResourceModel model = ResourceModel.builder().build();
+        final ResourceModel oldModel = ResourceModel.builder().build();
+        final ResourceModel desiredModel = ResourceModel.builder().dBInstanceIdentifiers(ImmutableList.of("resourceId")).build();
 
         final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
-                                                                      .desiredResourceState(model)
-                                                                      .previousResourceState(model)
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
                                                                       .build();
 
         final ProgressEvent<ResourceModel, CallbackContext> response
-                = handler.handleRequest(proxy, request, context, logger);
+                = counting.handle(handler::handleRequest, request, context, logger);
 
         final CallbackContext desiredOutputContext = CallbackContext.builder()
-                                                                    .stabilizationRetriesRemaining(0)
-                                                                    .targetGroupStatus(defaultTargetGroup)
+                                                                    .targetGroupStatus(TargetGroupState.from(defaultTargetGroup))
                                                                     .targetsDeregistered(true)
-                                                                    .targets(ImmutableList.of(dbProxyTarget))
+                                                                    .targets(TargetState.fromAll(ImmutableList.of(dbProxyTarget)))
                                                                     .allTargetsHealthy(true)
+                                                                    .targetHealth(ImmutableMap.of("resourceId", Constants.AVAILABLE_STATE))
+                                                                    .stabilizationAttempt(1)
                                                                     .build();
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
-        assertThat(response.getCallbackContext()).isEqualToComparingFieldByField(desiredOutputContext);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
         assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
+        ApiBudget.expect("testTargetHealth").invocations(1).apiCalls(1).assertWithin(counting);
+    }
+
+    @Test
+    public void testFusedStepsCompleteInOneInvocation() {
+        final UpdateHandler handler = new UpdateHandler();
+
+        final ResourceModel model = ResourceModel.builder().build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(model)
+                                                                      .previousResourceState(model)
+                                                                      .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, null, logger);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext()).isNull();
+        assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
+        verify(proxy, never()).injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class),
+                ArgumentMatchers.<Function<DescribeDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        ApiBudget.expect("testFusedStepsCompleteInOneInvocation").invocations(1).apiCalls(0).assertWithin(counting);
+    }
+
+    @Test
+    public void testFusedSteps_checkpointRegistrationWhenHealthCheckThrows() {
+        DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
+        DBProxyTarget dbProxyTarget = new DBProxyTarget();
+        doReturn(new RegisterDBProxyTargetsResult().withDBProxyTargets(dbProxyTarget)).when(proxy)
+                .injectCredentialsAndInvoke(any(RegisterDBProxyTargetsRequest.class),
+                        ArgumentMatchers.<Function<RegisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        doThrow(new AmazonServiceException("Service unavailable")).when(proxy)
+                .injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class),
+                        ArgumentMatchers.<Function<DescribeDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final UpdateHandler handler = new UpdateHandler();
+
+        final ResourceModel desiredModel = ResourceModel.builder().dBClusterIdentifiers(ImmutableList.of("clusterId")).build();
+        final ResourceModel oldModel = ResourceModel.builder().build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .targetsDeregistered(true)
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+
+        // The registration is checkpointed, so the next invocation resumes at the health check instead of registering again
+        final CallbackContext desiredOutputContext = CallbackContext.builder()
+                                                                    .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                                    .targetsDeregistered(true)
+                                                                    .targets(TargetState.fromAll(ImmutableList.of(dbProxyTarget)))
+                                                                    .build();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext()).isEqualToIgnoringGivenFields(desiredOutputContext, "operationStartTime", "operationDeadline");
+        verify(proxy).injectCredentialsAndInvoke(any(DescribeDBProxyTargetsRequest.class),
+                ArgumentMatchers.<Function<DescribeDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        ApiBudget.expect("testFusedSteps_checkpointRegistrationWhenHealthCheckThrows").invocations(1).apiCalls(2).assertWithin(counting);
+    }
+
+    @Test
+    public void testFusedSteps_checkpointRegisteredBatchesWhenABatchFails() {
+        DBProxyTargetGroup dbProxyTargetGroup = new DBProxyTargetGroup();
+        final List<String> instances = IntStream.rangeClosed(0, Constants.REGISTRATION_BATCH_SIZE)
+                                                .mapToObj(i -> "db-" + i)
+                                                .collect(Collectors.toList());
+        doAnswer(invocation -> {
+            final RegisterDBProxyTargetsRequest registerRequest = invocation.getArgument(0);
+            if (registerRequest.getDBInstanceIdentifiers().contains("db-0")) {
+                return new RegisterDBProxyTargetsResult().withDBProxyTargets(registerRequest.getDBInstanceIdentifiers()
+                                                                                            .stream()
+                                                                                            .map(id -> new DBProxyTarget().withRdsResourceId(id))
+                                                                                            .collect(Collectors.toList()));
+            }
+            throw new AmazonServiceException("Access denied");
+        }).when(proxy).injectCredentialsAndInvoke(any(RegisterDBProxyTargetsRequest.class),
+                ArgumentMatchers.<Function<RegisterDBProxyTargetsRequest, AmazonWebServiceResult<ResponseMetadata>>>any());
+        final UpdateHandler handler = new UpdateHandler();
+
+        final ResourceModel desiredModel = ResourceModel.builder().dBInstanceIdentifiers(instances).build();
+        final ResourceModel oldModel = ResourceModel.builder().build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                                                                      .desiredResourceState(desiredModel)
+                                                                      .previousResourceState(oldModel)
+                                                                      .build();
+
+        final CallbackContext context = CallbackContext.builder()
+                                                       .targetGroupStatus(TargetGroupState.from(dbProxyTargetGroup))
+                                                       .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response
+                = counting.handle(handler::handleRequest, request, context, logger);
+
+        // The batch that succeeded is checkpointed, so the next invocation sends only the failed one again
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(response.getCallbackContext().getTargets()).extracting(TargetState::getRdsResourceId)
+                                                              .containsExactlyElementsOf(instances.subList(0, Constants.REGISTRATION_BATCH_SIZE));
+        assertThat(response.getCallbackContext().getRegistrationBatches())
+                .containsExactly(ImmutableList.of(new TargetState(instances.get(Constants.REGISTRATION_BATCH_SIZE), Constants.RDS_INSTANCE)));
+        ApiBudget.expect("testFusedSteps_checkpointRegisteredBatchesWhenABatchFails").invocations(1).apiCalls(2).assertWithin(counting);
+    }
+
+    @Test
+    public void testModifyRequest_sendsOnlyChangedSettings() {
+        final ResourceModel oldModel = ResourceModel.builder()
+                                                    .dBProxyName("proxy")
+                                                    .targetGroupName("default")
+                                                    .connectionPoolConfigurationInfo(ConnectionPoolConfigurationInfoFormat.builder()
+                                                                                                                          .maxConnectionsPercent(100)
+                                                                                                                          .maxIdleConnectionsPercent(50)
+                                                                                                                          .sessionPinningFilters(ImmutableList.of("a", "b"))
+                                                                                                                          .build())
+                                                    .build();
+        final ResourceModel newModel = ResourceModel.builder()
+                                                    .dBProxyName("proxy")
+                                                    .targetGroupName("default")
+                                                    .connectionPoolConfigurationInfo(ConnectionPoolConfigurationInfoFormat.builder()
+                                                                                                                          .maxConnectionsPercent(80)
+                                                                                                                          .maxIdleConnectionsPercent(50)
+                                                                                                                          .sessionPinningFilters(ImmutableList.of("b", "a"))
+                                                                                                                          .build())
+                                                    .build();
+
+        final ModifyDBProxyTargetGroupRequest request = UpdateHandler.modifyRequest(oldModel, newModel).get();
+
+        assertThat(request.getDBProxyName()).isEqualTo("proxy");
+        assertThat(request.getTargetGroupName()).isEqualTo("default");
+        assertThat(request.getConnectionPoolConfig()).isEqualTo(new ConnectionPoolConfiguration().withMaxConnectionsPercent(80));
+    }
+
+    @Test
+    public void testModifyRequest_noChanges() {
+        final ResourceModel oldModel = ResourceModel.builder()
+                                                    .connectionPoolConfigurationInfo(ConnectionPoolConfigurationInfoFormat.builder()
+                                                                                                                          .maxConnectionsPercent(100)
+                                                                                                                          .build())
+                                                    .build();
+        final ResourceModel newModel = ResourceModel.builder()
+                                                    .dBInstanceIdentifiers(ImmutableList.of("db-1"))
+                                                    .connectionPoolConfigurationInfo(ConnectionPoolConfigurationInfoFormat.builder()
+                                                                                                                          .maxConnectionsPercent(100)
+                                                                                                                          .build())
+                                                    .build();
+
+        assertThat(UpdateHandler.modifyRequest(oldModel, newModel)).isEmpty();
     }
 }